@@ -1,6 +1,9 @@
 package com.example.demo;
 
+import com.example.demo.model.Session;
 import com.example.demo.util.NavigationManager;
+import com.example.demo.util.SqliteConnection;
+import com.example.demo.util.SqliteReadRacerDAO;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -15,6 +18,24 @@ public class ReadRacerApplication extends Application {
         FXMLLoader loader = new FXMLLoader(ReadRacerApplication.class.getResource("first-screen-view.fxml"));
         Parent firstRoot = loader.load();
         NavigationManager.init(stage, firstRoot, 1000, 600);
+        if (Session.DAO instanceof SqliteReadRacerDAO) {
+            SqliteConnection.startAttemptArchiver();
+        }
+    }
+
+    @Override
+    public void stop() {
+        Session.closeAsyncDAO();
+        Session.closeAttemptWriter();
+        if (Session.DAO instanceof SqliteReadRacerDAO sqlite) {
+            System.out.println("Reading cache at shutdown: " + sqlite.readingCacheStats());
+            System.out.println("Credential cache at shutdown: " + sqlite.credentialCacheStats());
+            System.out.println("Username filter at shutdown: " + sqlite.usernameFilterStats());
+            System.out.println("Email filter at shutdown: " + sqlite.emailFilterStats());
+            sqlite.queryMetrics().operations().forEach(stats -> System.out.println("Query metrics at shutdown: " + stats));
+            System.out.println("Connection pool at shutdown: " + SqliteConnection.getPool().metrics());
+        }
+        SqliteConnection.close();
     }
     public static void main(String[] args) {
         launch();
@@ -3,7 +3,7 @@ package com.example.demo.controller;
 import com.example.demo.ReadRacerApplication;
 import com.example.demo.exceptions.InvalidCredentialsException;
 import com.example.demo.model.Session;
-import com.example.demo.model.User;
+import com.example.demo.util.AsyncReadRacerDAO;
 import com.example.demo.util.NavigationManager;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -16,7 +16,6 @@ import javafx.scene.control.TextField;
 import javafx.stage.Stage;
 
 import java.io.IOException;
-import java.sql.SQLException;
 
 public class LoginController {
 
@@ -47,22 +46,34 @@ public class LoginController {
             showError("Please enter both username and password");
         }
 
-        User user;
-        try {
-            user = Session.DAO.TryLogin(username, password);
-            if (user == null) {
+        // checked off the FX thread; the button stays disabled until the answer comes back
+        setLoading(true);
+        Session.getAsyncDAO().tryLogin(username, password).whenComplete((user, error) -> {
+            setLoading(false);
+            if (error != null) {
+                Throwable cause = AsyncReadRacerDAO.unwrap(error);
+                if (cause instanceof InvalidCredentialsException) {
+                    showError("Invalid username or password");
+                } else {
+                    showError(cause.getMessage());
+                }
+            } else if (user == null) {
                 showError("No user found");
             } else {
                 Session.setUser(user);
                 NavigationManager.goTo("main-view.fxml");
             }
-        } catch (InvalidCredentialsException e) {
-            showError("Invalid username or password");
-            return;
-        } catch (SQLException e) {
-            showError(e.getMessage());
-            // (optional) log e
-            return;
+        });
+    }
+
+    private void setLoading(boolean loading) {
+        if (loginButton != null) {
+            loginButton.setDisable(loading);
+        }
+        if (loading) {
+            showError("Logging in...");
+        } else {
+            clearError();
         }
     }
 
@@ -1,16 +1,18 @@
 package com.example.demo.controller;
 
+import com.example.demo.util.AsyncReadRacerDAO;
 import com.example.demo.util.NavigationManager;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import com.example.demo.model.Session;
+import com.example.demo.model.User;
+import com.example.demo.model.UserStats;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.input.KeyEvent;
 
-import java.sql.SQLException;
 import java.util.Arrays;
 
 public class ProfileController {
@@ -23,6 +25,13 @@ public class ProfileController {
     public TextArea passwordHashArea;
     public TextArea saltArea;
     public TextArea IDArea;
+    public Label attemptsLabel;
+    public Label readingsCompletedLabel;
+    public Label bestScoreLabel;
+    public Label averageScoreLabel;
+    public Label lastScoreLabel;
+    public Label streakLabel;
+    public Label errorLabel;
     @FXML
     private Button usernameChangeButton;
 
@@ -39,7 +48,43 @@ public class ProfileController {
         passwordHashArea.setText(Arrays.toString(Session.getUser().getPassword()));
         saltArea.setText(Arrays.toString(Session.getUser().getSalt()));
         IDArea.setText(String.valueOf(Session.getUser().getUser_id()));
+        loadStats();
+    }
 
+    /**
+     * Loads the user's stats off the FX thread; the labels show "Loading..." until they arrive.
+     */
+    private void loadStats() {
+        Session.getAsyncDAO().getUserStats(Session.getUser().getUser_id()).whenComplete((stats, error) -> {
+            if (error != null) {
+                System.err.println("Failed to load user stats: " + AsyncReadRacerDAO.unwrap(error).getMessage());
+                showStats(null);
+            } else {
+                showStats(stats);
+            }
+        });
+    }
+
+    private void showStats(UserStats stats) {
+        if (stats == null) {
+            for (Label label : new Label[]{attemptsLabel, readingsCompletedLabel, bestScoreLabel,
+                    averageScoreLabel, lastScoreLabel, streakLabel}) {
+                label.setText("Unavailable");
+            }
+            return;
+        }
+        attemptsLabel.setText(String.valueOf(stats.attempts()));
+        readingsCompletedLabel.setText(String.valueOf(stats.readingsCompleted()));
+        if (stats.attempts() == 0) {
+            bestScoreLabel.setText("-");
+            averageScoreLabel.setText("-");
+            lastScoreLabel.setText("-");
+        } else {
+            bestScoreLabel.setText(String.valueOf(stats.bestScore()));
+            averageScoreLabel.setText(String.format("%.1f", stats.averageScore()));
+            lastScoreLabel.setText(String.valueOf(stats.lastScore()));
+        }
+        streakLabel.setText(stats.currentStreakDays() == 1 ? "1 day" : stats.currentStreakDays() + " days");
     }
 
     @FXML
@@ -53,14 +98,11 @@ public class ProfileController {
             usernameField.setEditable(false);
             changeUsernameButton.setText("Edit");
 
-            Session.getUser().setUsername(usernameField.getText());
-            //todo proper error handling here and username validation, maybe reuse registration logic somehow
-            try {
-                Session.DAO.updateUser(Session.getUser());
-                System.out.println("Updated user" + Session.getUser().getUsername());
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
-            }
+            User current = Session.getUser();
+            //todo username validation, maybe reuse registration logic somehow
+            saveUser(new User(current.getUser_id(), usernameField.getText(), current.getEmail(),
+                    current.getPassword(), current.getSalt()), changeUsernameButton, usernameField,
+                    current.getUsername());
 
         } else {
             // Unlock for editing
@@ -75,13 +117,11 @@ public class ProfileController {
             emailField.setEditable(false);
             changeEmailButton.setText("Edit");
 
-            Session.getUser().setEmail(emailField.getText());
-            //todo proper error handling here and username validation, maybe reuse registration logic somehow
-            try {
-                Session.DAO.updateUser(Session.getUser());
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
-            }
+            User current = Session.getUser();
+            //todo email validation, maybe reuse registration logic somehow
+            saveUser(new User(current.getUser_id(), current.getUsername(), emailField.getText(),
+                    current.getPassword(), current.getSalt()), changeEmailButton, emailField,
+                    current.getEmail());
 
         } else {
             // Unlock for editing
@@ -90,14 +130,49 @@ public class ProfileController {
         }
     }
 
+    /**
+     * Saves the updated copy of the session user off the FX thread, showing "Saving..." on the button
+     * until it is done. The session only takes the copy once it is saved; if the save fails, the field
+     * goes back to {@code previous} and the error shows on screen.
+     */
+    private void saveUser(User updated, Button button, TextField field, String previous) {
+        button.setDisable(true);
+        button.setText("Saving...");
+        clearError();
+        Session.getAsyncDAO().updateUser(updated).whenComplete((user, error) -> {
+            button.setDisable(false);
+            button.setText("Edit");
+            if (error != null) {
+                field.setText(previous);
+                showError("Failed to update user: " + AsyncReadRacerDAO.unwrap(error).getMessage());
+            } else {
+                Session.setUser(user);
+                System.out.println("Updated user " + user.getUsername());
+            }
+        });
+    }
+
+    private void showError(String msg) {
+        if (errorLabel != null) {
+            errorLabel.setText(msg);
+        }
+    }
+
+    private void clearError() {
+        if (errorLabel != null) {
+            errorLabel.setText("");
+        }
+    }
+
     public void onDeleteButtonClick() {
-        try {
-            Session.DAO.deleteUser(Session.getUser().getUser_id());
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        } finally {
+        deleteAccountButton.setDisable(true);
+        deleteAccountButton.setText("Deleting...");
+        Session.getAsyncDAO().deleteUser(Session.getUser().getUser_id()).whenComplete((ignored, error) -> {
+            if (error != null) {
+                System.err.println("Failed to delete user: " + AsyncReadRacerDAO.unwrap(error).getMessage());
+            }
             Session.clear();
             NavigationManager.goTo("first-screen-view.fxml");
-        }
+        });
     }
 }
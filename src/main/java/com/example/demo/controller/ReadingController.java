@@ -3,6 +3,7 @@ package com.example.demo.controller;
 import com.example.demo.ReadRacerApplication;
 import com.example.demo.model.Reading;
 import com.example.demo.model.Session;
+import com.example.demo.util.AsyncReadRacerDAO;
 import com.example.demo.util.NavigationManager;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -15,6 +16,7 @@ import com.example.demo.util.CountdownTimer;
 import com.example.demo.exceptions.TimerException;
 
 import java.io.IOException;
+import java.util.Set;
 
 public class ReadingController {
 
@@ -39,15 +41,35 @@ public class ReadingController {
 
     @FXML
     protected void initialize(){
-        //get random reading
-        Reading randomReading = Session.DAO.getRandomReading();
+        // Loading state until the reading arrives; the timer only starts once it is on screen
+        passageText.setText("Loading reading...");
+        passageText.setEditable(false);  // Makes the TextArea read-only
+        finishButton.setDisable(true);
+
+        //get random reading off the FX thread, avoiding the one just played unless it is the only one
+        Reading previous = Session.getCurrentReading();
+        Session.getAsyncDAO()
+                .getRandomReading(null, previous == null ? Set.of() : Set.of(previous.id()))
+                .exceptionallyCompose(e -> Session.getAsyncDAO().getRandomReading(null, Set.of()))
+                .whenComplete((randomReading, error) -> {
+                    if (jumpedToQuestions) {
+                        return; // the player left while it was loading
+                    }
+                    if (error != null) {
+                        passageText.setText("Could not load a reading: " + AsyncReadRacerDAO.unwrap(error).getMessage());
+                        return;
+                    }
+                    showReading(randomReading);
+                });
+    }
 
+    private void showReading(Reading randomReading) {
         // assign reading to session
         Session.setCurrentReading(randomReading);
 
         // Load reading passage
         passageText.setText(Session.getCurrentReading().passage());
-        passageText.setEditable(false);  // Makes the TextArea read-only
+        finishButton.setDisable(false);
 
         // Start 4-min timer
         createNewGameTimer();
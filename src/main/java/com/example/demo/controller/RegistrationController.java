@@ -3,7 +3,9 @@ package com.example.demo.controller;
 import com.example.demo.ReadRacerApplication;
 import com.example.demo.model.Session;
 import com.example.demo.model.User;
+import com.example.demo.util.AsyncReadRacerDAO;
 import com.example.demo.util.NavigationManager;
+import javafx.animation.PauseTransition;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -13,17 +15,20 @@ import javafx.scene.control.Label;
 import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
-import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
 
 public class RegistrationController {
+    // how long typing has to pause before availability is checked
+    private static final Duration CHECK_DELAY = Duration.millis(300);
+
     @FXML
     public TextField usernameField;
     @FXML
@@ -34,6 +39,10 @@ public class RegistrationController {
     public PasswordField confirmPasswordField;
     @FXML
     public Label errorLabel;
+    @FXML
+    public Label usernameStatusLabel;
+    @FXML
+    public Label emailStatusLabel;
     public Label instructionText;
     public Label welcomeText;
     @FXML
@@ -42,6 +51,80 @@ public class RegistrationController {
     @FXML
     private Button confirmButton;
 
+    private final PauseTransition usernameCheck = new PauseTransition(CHECK_DELAY);
+    private final PauseTransition emailCheck = new PauseTransition(CHECK_DELAY);
+
+    /**
+     * Checks the username and email as they are typed. Each keystroke restarts a short delay, so a
+     * value is only looked up once typing pauses, and the lookup runs off the FX thread.
+     */
+    @FXML
+    public void initialize() {
+        usernameField.textProperty().addListener((observable, oldText, text) -> {
+            showStatus(usernameStatusLabel, "", null);
+            usernameCheck.playFromStart();
+        });
+        usernameCheck.setOnFinished(event -> checkUsername(usernameField.getText()));
+
+        emailField.textProperty().addListener((observable, oldText, text) -> {
+            showStatus(emailStatusLabel, "", null);
+            emailCheck.playFromStart();
+        });
+        emailCheck.setOnFinished(event -> checkEmail(emailField.getText()));
+    }
+
+    private void checkUsername(String username) {
+        if (username == null || username.isEmpty()) {
+            return;
+        }
+        Optional<List<String>> usernameError = User.verifyUsername(username);
+        if (usernameError.isPresent()) {
+            showStatus(usernameStatusLabel, usernameError.get().getFirst(), false);
+            return;
+        }
+        showStatus(usernameStatusLabel, "Checking...", null);
+        Session.getAsyncDAO().usernameIsUnique(username).whenComplete((free, error) -> {
+            // the field changed meanwhile, so this answer is stale and a newer check is on its way
+            if (!username.equals(usernameField.getText())) {
+                return;
+            }
+            if (error != null) {
+                showStatus(usernameStatusLabel, "", null);
+                return;
+            }
+            showStatus(usernameStatusLabel, free ? "Username is available" : "Username is already taken", free);
+        });
+    }
+
+    private void checkEmail(String rawEmail) {
+        final String email = rawEmail == null ? "" : rawEmail.trim();
+        if (email.isEmpty()) {
+            return;
+        }
+        showStatus(emailStatusLabel, "Checking...", null);
+        Session.getAsyncDAO().emailIsUnique(email).whenComplete((free, error) -> {
+            if (!email.equals(emailField.getText().trim())) {
+                return;
+            }
+            if (error != null) {
+                showStatus(emailStatusLabel, "", null);
+                return;
+            }
+            showStatus(emailStatusLabel, free ? "Email is available" : "Email is already taken", free);
+        });
+    }
+
+    /**
+     * @param ok colours the message green if true, red if false, and leaves it plain if null
+     */
+    private void showStatus(Label label, String message, Boolean ok) {
+        if (label == null) {
+            return;
+        }
+        label.setText(message);
+        label.setStyle(ok == null ? "" : ok ? "-fx-text-fill: green" : "-fx-text-fill: red");
+    }
+
 
     @FXML
     protected void onCancelButtonClick(ActionEvent actionEvent) throws IOException {
@@ -70,25 +153,34 @@ public class RegistrationController {
             errorMessages.append("Passwords do not match\n");
         }
 
-        //check for unique username and email
-        try {
-            if (!Session.DAO.usernameIsUnique(username)) {
-                errorMessages.append("Username is already taken\n");
-            }
-            if (!Session.DAO.emailIsUnique(email)) {
-                    errorMessages.append("Email is already taken\n");
-                }
-        } catch (SQLException e) {
-            errorMessages.append(e.getMessage());
-        }
-
-        // Check if we have errors to ensure any logic that needs to happen with verification happens before this
-        if (!errorMessages.isEmpty()) {
-            showError(errorMessages.toString().trim());
-            return;
-        }
-
+        //check for unique username and email off the FX thread, both lookups at once
+        setLoading(true, "Checking details...");
+        AsyncReadRacerDAO async = Session.getAsyncDAO();
+        async.usernameIsUnique(username)
+                .thenCombine(async.emailIsUnique(email), (usernameFree, emailFree) -> {
+                    if (!usernameFree) {
+                        errorMessages.append("Username is already taken\n");
+                    }
+                    if (!emailFree) {
+                        errorMessages.append("Email is already taken\n");
+                    }
+                    return errorMessages;
+                })
+                .whenComplete((ignored, error) -> {
+                    setLoading(false, null);
+                    if (error != null) {
+                        errorMessages.append(AsyncReadRacerDAO.unwrap(error).getMessage());
+                    }
+                    // Check if we have errors to ensure any logic that needs to happen with verification happens before this
+                    if (!errorMessages.isEmpty()) {
+                        showError(errorMessages.toString().trim());
+                        return;
+                    }
+                    register(username, email, password);
+                });
+    }
 
+    private void register(String username, String email, String password) {
         // password hashing with md5, Not recommended for production but good enough for now.
         SecureRandom random = new SecureRandom();
         byte[] salt = new byte[16];
@@ -107,14 +199,27 @@ public class RegistrationController {
         clearError();
         User user = new User(username, email, hashedPassword, salt);
 
-        try {
-            Session.DAO.addUser(user);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to register user: " + e.getMessage(), e);
-        }
+        setLoading(true, "Creating account...");
+        Session.getAsyncDAO().addUser(user).whenComplete((added, error) -> {
+            setLoading(false, null);
+            if (error != null) {
+                showError("Failed to register user: " + AsyncReadRacerDAO.unwrap(error).getMessage());
+                return;
+            }
+            Session.setUser(added);
+            NavigationManager.goTo("main-view.fxml");
+        });
+    }
 
-        Session.setUser(user);
-        NavigationManager.goTo("main-view.fxml");
+    private void setLoading(boolean loading, String message) {
+        if (confirmButton != null) {
+            confirmButton.setDisable(loading);
+        }
+        if (loading) {
+            showError(message);
+        } else {
+            clearError();
+        }
     }
 
     private void showError(String msg) {
@@ -85,12 +85,12 @@ public class ResultsController {
 
 
     private void storeUserAttempt() {
-        try{
-            UserAttempt ua = new UserAttempt(Session.getUser().getUser_id(), Session.getCurrentReading().id(), Session.getLastQuizResult().score());
-            Session.DAO.addUserAttempt(ua);
-        }catch(SQLException e){
-            System.err.println("Failed to store attempt: "+e.getMessage());
+        // queued for a background group commit so the results screen never waits on the database
+        UserAttempt ua = new UserAttempt(Session.getUser().getUser_id(), Session.getCurrentReading().id(), Session.getLastQuizResult().score());
+        try {
+            Session.submitAttempt(ua);
+        } catch (SQLException e) {
+            System.err.println("Failed to store attempt: " + e.getMessage());
         }
-
     }
 }
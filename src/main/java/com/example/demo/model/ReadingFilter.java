@@ -0,0 +1,18 @@
+package com.example.demo.model;
+
+/**
+ * Which readings a catalogue page lists.
+ * @param difficulty Only readings of this difficulty, or null for any
+ * @param minQuestions Only readings with at least this many questions
+ */
+public record ReadingFilter(Integer difficulty, int minQuestions) {
+    public static final ReadingFilter ALL = new ReadingFilter(null, 0);
+
+    public static ReadingFilter difficulty(int difficulty) {
+        return new ReadingFilter(difficulty, 0);
+    }
+
+    public boolean matches(ReadingSummary summary) {
+        return (difficulty == null || summary.difficulty() == difficulty) && summary.questionCount() >= minQuestions;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.demo.model;
+
+/**
+ * A reading as shown in a list, without its passage, questions or choices.
+ * @param id The reading's id, also the key to page after
+ * @param title The title of the reading
+ * @param difficulty The difficulty level of the reading
+ * @param questionCount The number of questions the reading has
+ * @param passageLength The length of the passage in characters
+ */
+public record ReadingSummary(int id, String title, int difficulty, int questionCount, int passageLength) {
+}
@@ -0,0 +1,10 @@
+package com.example.demo.model;
+
+/**
+ * A reading found by a search.
+ * @param reading The reading that matched
+ * @param snippet A few words of its title, passage or prompts around the match, with matched words
+ *                in square brackets and "..." where the text was cut
+ */
+public record SearchResult(ReadingSummary reading, String snippet) {
+}
@@ -1,7 +1,13 @@
 package com.example.demo.model;
-import com.example.demo.util.SqliteReadRacerDAO;
+import com.example.demo.util.AsyncReadRacerDAO;
+import com.example.demo.util.AttemptWriter;
+import com.example.demo.util.ReadRacerStore;
+import com.example.demo.util.ShardedReadRacerStore;
+import com.example.demo.util.SqliteConnection;
 import com.example.demo.util.CountdownTimer;
 
+import java.sql.SQLException;
+
 /**
  * Session object for a user's session.
  */
@@ -14,7 +20,69 @@ public class Session {
 
     private static CountdownTimer gameTimer;
 
-    public static SqliteReadRacerDAO DAO = new SqliteReadRacerDAO();
+    public static ReadRacerStore DAO = SqliteConnection.openStore();
+
+    private static AsyncReadRacerDAO asyncDAO;
+
+    private static AttemptWriter attemptWriter;
+
+    /**
+     * Gets the asynchronous DAO for controllers. Its futures complete on the JavaFX Application Thread.
+     * Readings come from the configured reading pack, if any, and from {@link #DAO} otherwise.
+     * @return the async wrapper around {@link #DAO}.
+     */
+    public static synchronized AsyncReadRacerDAO getAsyncDAO() {
+        if (asyncDAO == null) {
+            asyncDAO = AsyncReadRacerDAO.forJavaFx(DAO, SqliteConnection.getContentSource(DAO));
+        }
+        return asyncDAO;
+    }
+
+    /**
+     * Stops the async DAO, if it was started, letting calls in flight finish.
+     */
+    public static synchronized void closeAsyncDAO() {
+        if (asyncDAO != null) {
+            asyncDAO.close();
+            asyncDAO = null;
+        }
+    }
+
+    /**
+     * Gets the shared write-behind attempt writer, starting it on first use.
+     * Any attempts journaled by a previous run are replayed at that point.
+     * @return the attempt writer for the application database.
+     */
+    public static synchronized AttemptWriter getAttemptWriter() {
+        if (attemptWriter == null) {
+            attemptWriter = new AttemptWriter(SqliteConnection.getPool(), AttemptWriter.DEFAULT_JOURNAL);
+        }
+        return attemptWriter;
+    }
+
+    /**
+     * Queues a finished quiz's attempt for a background write, to the user's shard if the store is sharded.
+     * @param attempt the attempt to store
+     * @throws SQLException if the attempt's user cannot be on any shard
+     */
+    public static void submitAttempt(UserAttempt attempt) throws SQLException {
+        if (DAO instanceof ShardedReadRacerStore sharded) {
+            sharded.submitAttempt(attempt);
+        } else {
+            getAttemptWriter().submit(attempt);
+        }
+    }
+
+    /**
+     * Writes out any queued attempts and stops the attempt writer, if it was started.
+     */
+    public static synchronized void closeAttemptWriter() {
+        if (attemptWriter != null) {
+            attemptWriter.close();
+            System.out.println("Attempt writer at shutdown: " + attemptWriter.metrics());
+            attemptWriter = null;
+        }
+    }
 
     /**
      * Sets the current reading for the user.
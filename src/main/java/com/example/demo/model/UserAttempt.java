@@ -5,6 +5,7 @@ public class UserAttempt {
     private Integer userID;
     private Integer readingID;
     private Integer score;
+    private Long createdAt;
 
     public UserAttempt(int attemptID, int userID, int readingID, int score) {
         this.attemptID = attemptID;
@@ -50,4 +51,15 @@ public class UserAttempt {
     public void setAttemptID(int generatedId) {
         attemptID = generatedId;
     }
+
+    /**
+     * @return when the attempt was made, in seconds since the epoch, or null if that was not recorded
+     */
+    public Long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long epochSecond) {
+        createdAt = epochSecond;
+    }
 }
@@ -0,0 +1,22 @@
+package com.example.demo.model;
+
+/**
+ * A user's quiz totals, as shown on the profile screen.
+ * @param userId The user the totals belong to
+ * @param attempts The number of quizzes completed
+ * @param bestScore The highest score of any attempt, 0 without attempts
+ * @param averageScore The mean score over all attempts, 0 without attempts
+ * @param lastScore The score of the most recent attempt, 0 without attempts
+ * @param readingsCompleted The number of different readings attempted
+ * @param currentStreakDays The number of consecutive days with an attempt, ending today or yesterday
+ */
+public record UserStats(int userId, int attempts, int bestScore, double averageScore, int lastScore,
+                        int readingsCompleted, int currentStreakDays) {
+
+    /**
+     * Stats for a user who has not completed any quiz yet.
+     */
+    public static UserStats empty(int userId) {
+        return new UserStats(userId, 0, 0, 0, 0, 0, 0);
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.demo.util;
+
+import com.example.demo.model.Reading;
+import com.example.demo.model.ReadingFilter;
+import com.example.demo.model.ReadingSummary;
+import com.example.demo.model.SearchResult;
+import com.example.demo.model.User;
+import com.example.demo.model.UserAttempt;
+import com.example.demo.model.UserStats;
+import javafx.application.Platform;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Asynchronous counterpart to a {@link ReadRacerStore}, usually the {@link SqliteReadRacerDAO}, for UI code.
+ * <p>
+ * Every call runs on its own virtual thread and returns immediately with a {@link CompletableFuture}.
+ * The future is completed through the callback executor, which for the application is
+ * {@link Platform#runLater(Runnable)}, so {@code thenAccept}/{@code whenComplete} callbacks run on the
+ * JavaFX Application Thread and may touch controls directly. JDBC access stays serialized per
+ * connection because each call borrows its connection from the {@link SqliteConnectionPool}, which
+ * hands a connection to one thread at a time; other stores must be thread-safe themselves.
+ * <p>
+ * A failed call completes the future exceptionally with the DAO's own exception (for example
+ * {@link java.sql.SQLException} or {@link com.example.demo.exceptions.InvalidCredentialsException});
+ * use {@link #unwrap(Throwable)} in dependent stages to get it back out of a {@link CompletionException}.
+ * <p>
+ * Reading content is fetched from a {@link ReadingSource}, which is the DAO itself unless a
+ * {@link ReadingPack} was chosen; everything else goes to the DAO.
+ */
+public class AsyncReadRacerDAO implements AutoCloseable {
+    private final ReadRacerStore dao;
+    private final ReadingSource content;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Executor callbacks;
+
+    /**
+     * @param dao the blocking store to delegate to
+     * @param callbacks where futures are completed, e.g. {@code Platform::runLater}
+     */
+    public AsyncReadRacerDAO(ReadRacerStore dao, Executor callbacks) {
+        this(dao, dao, callbacks);
+    }
+
+    /**
+     * @param dao the blocking store to delegate to
+     * @param content where readings are loaded from
+     * @param callbacks where futures are completed, e.g. {@code Platform::runLater}
+     */
+    public AsyncReadRacerDAO(ReadRacerStore dao, ReadingSource content, Executor callbacks) {
+        this.dao = Objects.requireNonNull(dao, "dao");
+        this.content = Objects.requireNonNull(content, "content");
+        this.callbacks = Objects.requireNonNull(callbacks, "callbacks");
+    }
+
+    /**
+     * @return an async DAO whose futures complete on the JavaFX Application Thread
+     */
+    public static AsyncReadRacerDAO forJavaFx(ReadRacerStore dao) {
+        return forJavaFx(dao, dao);
+    }
+
+    /**
+     * @return an async DAO reading content from {@code content}, completing on the JavaFX Application Thread
+     */
+    public static AsyncReadRacerDAO forJavaFx(ReadRacerStore dao, ReadingSource content) {
+        return new AsyncReadRacerDAO(dao, content, Platform::runLater);
+    }
+
+    /**
+     * A DAO call that may throw checked exceptions.
+     */
+    @FunctionalInterface
+    public interface DaoCall<T> {
+        T call(ReadRacerStore dao) throws Exception;
+    }
+
+    /**
+     * Runs any DAO call off the calling thread.
+     */
+    public <T> CompletableFuture<T> submit(DaoCall<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        workers.execute(() -> {
+            T result;
+            try {
+                result = call.call(dao);
+            } catch (Throwable t) {
+                callbacks.execute(() -> future.completeExceptionally(t));
+                return;
+            }
+            callbacks.execute(() -> future.complete(result));
+        });
+        return future;
+    }
+
+    public CompletableFuture<User> tryLogin(String login, String rawPassword) {
+        return submit(d -> d.TryLogin(login, rawPassword));
+    }
+
+    public CompletableFuture<Boolean> usernameIsUnique(String username) {
+        return submit(d -> d.usernameIsUnique(username));
+    }
+
+    public CompletableFuture<Boolean> emailIsUnique(String email) {
+        return submit(d -> d.emailIsUnique(email));
+    }
+
+    public CompletableFuture<User> addUser(User user) {
+        return submit(d -> d.addUser(user));
+    }
+
+    public CompletableFuture<User> updateUser(User user) {
+        return submit(d -> {
+            d.updateUser(user);
+            return user;
+        });
+    }
+
+    public CompletableFuture<Void> deleteUser(int userId) {
+        return submit(d -> {
+            d.deleteUser(userId);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Reading> getReading(int id) {
+        return submit(d -> content.getReading(id));
+    }
+
+    public CompletableFuture<Reading> getRandomReading(Integer difficulty, Set<Integer> excludeIds) {
+        return submit(d -> content.getRandomReading(difficulty, excludeIds));
+    }
+
+    public CompletableFuture<List<ReadingSummary>> listReadings(int afterId, int limit, ReadingFilter filter) {
+        return submit(d -> d.listReadings(afterId, limit, filter));
+    }
+
+    public CompletableFuture<List<SearchResult>> searchReadings(String query, int offset, int limit) {
+        return submit(d -> d.searchReadings(query, offset, limit));
+    }
+
+    public CompletableFuture<List<UserAttempt>> getLeaderboard(int readingId) {
+        return submit(d -> d.getLeaderboard(readingId));
+    }
+
+    public CompletableFuture<UserStats> getUserStats(int userId) {
+        return submit(d -> d.getUserStats(userId));
+    }
+
+    /**
+     * @return the DAO's exception behind the {@link CompletionException}/{@link ExecutionException}
+     * that dependent stages see
+     */
+    public static Throwable unwrap(Throwable t) {
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t;
+    }
+
+    /**
+     * Stops accepting calls; calls already running finish normally.
+     */
+    @Override
+    public void close() {
+        workers.shutdown();
+    }
+}
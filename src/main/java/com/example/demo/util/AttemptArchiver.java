@@ -0,0 +1,261 @@
+package com.example.demo.util;
+
+import com.example.demo.util.SqliteConnectionPool.PooledConnection;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves attempts older than a horizon out of UserAttempts into one archive database file per year,
+ * leaving a row per user, reading and day in AttemptRollups behind.
+ * <p>
+ * Each chunk of at most {@code chunkSize} attempts is first copied into the year's archive file,
+ * attached for the purpose, and committed there. The rollup and the delete from the live table then
+ * run in a second, short transaction, so the main database's write lock is only held for one chunk
+ * at a time and the app's own writes get in between chunks. A crash between the two leaves the chunk
+ * in both places; the next run copies it again, which the archive ignores, and finishes the move.
+ * <p>
+ * BestScores and UserStats are left as they are, so leaderboards and profiles still count archived
+ * attempts. Attempts without a time, made before times were recorded, are never archived. Deleting
+ * a reading or user later only removes its live attempts and rollups; archive files are never changed
+ * once an attempt is in them.
+ */
+public class AttemptArchiver implements AutoCloseable {
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private final SqliteConnectionPool pool;
+    private final Path directory;
+    private final Duration horizon;
+    private final int chunkSize;
+    private final Clock clock;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param archived attempts moved to archive files
+     * @param longestLockNanos the longest a chunk held the main database's write transaction
+     */
+    public record Report(long archived, int chunks, long longestLockNanos, long elapsedNanos) {
+    }
+
+    public AttemptArchiver(SqliteConnectionPool pool, Path directory, Duration horizon) {
+        this(pool, directory, horizon, DEFAULT_CHUNK_SIZE, Clock.systemDefaultZone());
+    }
+
+    /**
+     * @param directory where the yearly archive files are created
+     * @param horizon attempts older than this are archived
+     * @param chunkSize the most attempts moved per transaction
+     * @param clock decides what "older than the horizon" means and which year an attempt belongs to
+     */
+    public AttemptArchiver(SqliteConnectionPool pool, Path directory, Duration horizon, int chunkSize, Clock clock) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be at least 1");
+        }
+        if (horizon.isNegative()) {
+            throw new IllegalArgumentException("horizon must not be negative");
+        }
+        this.pool = Objects.requireNonNull(pool, "pool");
+        this.directory = Objects.requireNonNull(directory, "directory");
+        this.horizon = horizon;
+        this.chunkSize = chunkSize;
+        this.clock = Objects.requireNonNull(clock, "clock");
+    }
+
+    /**
+     * @return the archive file holding the attempts of {@code year}
+     */
+    public static Path archiveFile(Path directory, int year) {
+        return directory.resolve("attempts-" + year + ".db");
+    }
+
+    /**
+     * Archives every attempt older than the horizon, one chunk at a time.
+     */
+    public synchronized Report archive() throws SQLException {
+        long start = System.nanoTime();
+        long cutoff = clock.instant().minus(horizon).getEpochSecond();
+        long archived = 0;
+        int chunks = 0;
+        long longestLock = 0;
+        while (true) {
+            long[] chunk = archiveChunk(cutoff);
+            if (chunk == null) {
+                break;
+            }
+            archived += chunk[0];
+            chunks++;
+            longestLock = Math.max(longestLock, chunk[1]);
+        }
+        Report report = new Report(archived, chunks, longestLock, System.nanoTime() - start);
+        if (archived > 0) {
+            System.out.printf("Archived %d attempts in %d chunks, %d ms, longest write lock %.1f ms%n",
+                    archived, chunks, report.elapsedNanos() / 1_000_000, longestLock / 1e6);
+        }
+        return report;
+    }
+
+    /**
+     * Moves the oldest attempts, all from the same year, into that year's archive.
+     *
+     * @return the attempts moved and how long the main transaction took, or null if none are due
+     */
+    private long[] archiveChunk(long cutoff) throws SQLException {
+        try (PooledConnection pc = pool.writer()) {
+            Connection connection = pc.connection();
+            Long oldest = null;
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "SELECT MIN(created_at) FROM UserAttempts WHERE created_at < ?")) {
+                ps.setLong(1, cutoff);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        long value = rs.getLong(1);
+                        oldest = rs.wasNull() ? null : value;
+                    }
+                }
+            }
+            if (oldest == null) {
+                return null;
+            }
+            ZoneId zone = clock.getZone();
+            int year = LocalDate.ofInstant(Instant.ofEpochSecond(oldest), zone).getYear();
+            long yearEnd = LocalDate.of(year + 1, 1, 1).atStartOfDay(zone).toEpochSecond();
+
+            attach(connection, archiveFile(directory, year));
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TEMP TABLE IF NOT EXISTS ArchiveChunk (attempt_id INTEGER PRIMARY KEY)");
+                statement.execute("DELETE FROM temp.ArchiveChunk");
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "INSERT INTO temp.ArchiveChunk SELECT attempt_id FROM main.UserAttempts"
+                                + " WHERE created_at < ? ORDER BY created_at LIMIT ?")) {
+                    ps.setLong(1, Math.min(cutoff, yearEnd));
+                    ps.setInt(2, chunkSize);
+                    ps.executeUpdate();
+                }
+
+                // on its own, so the archive file has the chunk before the live table lets go of it
+                statement.executeUpdate("""
+                        INSERT OR IGNORE INTO archive.UserAttempts (attempt_id, user_id, reading_id, score, created_at)
+                        SELECT attempt_id, user_id, reading_id, score, created_at
+                        FROM main.UserAttempts WHERE attempt_id IN (SELECT attempt_id FROM temp.ArchiveChunk)""");
+
+                long lockStart = System.nanoTime();
+                connection.setAutoCommit(false);
+                int moved;
+                try {
+                    statement.execute("INSERT INTO main.AttemptArchiving (started_at) VALUES (unixepoch())");
+                    statement.executeUpdate("""
+                            INSERT INTO main.AttemptRollups (reading_id, user_id, day, attempts, total_score, best_score)
+                            SELECT reading_id, user_id, date(created_at, 'unixepoch', 'localtime') AS day,
+                                   COUNT(*), SUM(score), MAX(score)
+                            FROM main.UserAttempts
+                            WHERE attempt_id IN (SELECT attempt_id FROM temp.ArchiveChunk)
+                            GROUP BY reading_id, user_id, day
+                            ON CONFLICT (reading_id, user_id, day) DO UPDATE SET
+                                attempts = attempts + excluded.attempts,
+                                total_score = total_score + excluded.total_score,
+                                best_score = MAX(best_score, excluded.best_score)""");
+                    moved = statement.executeUpdate(
+                            "DELETE FROM main.UserAttempts WHERE attempt_id IN (SELECT attempt_id FROM temp.ArchiveChunk)");
+                    statement.execute("DELETE FROM main.AttemptArchiving");
+                    connection.commit();
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+                return new long[]{moved, System.nanoTime() - lockStart};
+            } finally {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("DETACH DATABASE archive");
+                }
+            }
+        }
+    }
+
+    private static void attach(Connection connection, Path file) throws SQLException {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create archive directory for " + file, e);
+        }
+        try (PreparedStatement ps = connection.prepareStatement("ATTACH DATABASE ? AS archive")) {
+            ps.setString(1, file.toAbsolutePath().toString());
+            ps.execute();
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE TABLE IF NOT EXISTS archive.UserAttempts (
+                        attempt_id INTEGER PRIMARY KEY,
+                        user_id INT NOT NULL,
+                        reading_id INT NOT NULL,
+                        score INT NOT NULL,
+                        created_at INTEGER NOT NULL
+                    )""");
+            statement.execute("CREATE INDEX IF NOT EXISTS archive.idx_archived_attempts_user ON UserAttempts (user_id)");
+        } catch (SQLException e) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DETACH DATABASE archive");
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Archives now and then every {@code interval} on a background thread until {@link #close()}.
+     * A failed run is logged and retried at the next interval.
+     */
+    public synchronized void start(Duration interval) {
+        if (scheduler != null) {
+            throw new IllegalStateException("AttemptArchiver is already running");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "attempt-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                archive();
+            } catch (SQLException | RuntimeException e) {
+                System.err.println("Archiving attempts failed: " + e.getMessage());
+            }
+        }, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background runs, letting a chunk in progress finish.
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService running;
+        synchronized (this) {
+            running = scheduler;
+            scheduler = null;
+        }
+        if (running != null) {
+            running.shutdown();
+            try {
+                running.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
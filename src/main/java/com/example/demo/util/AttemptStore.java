@@ -0,0 +1,35 @@
+package com.example.demo.util;
+
+import com.example.demo.model.UserAttempt;
+import com.example.demo.model.UserStats;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Quiz attempts and the per-reading leaderboards and per-user stats built from them.
+ */
+public interface AttemptStore {
+    /**
+     * Records an attempt and sets its generated id.
+     *
+     * @throws SQLException if the user or the reading does not exist
+     */
+    void addUserAttempt(UserAttempt userAttempt) throws SQLException;
+
+    /**
+     * @return the top ten users of the reading, see {@link #getLeaderboard(int, int)}
+     */
+    List<UserAttempt> getLeaderboard(int readingId) throws SQLException;
+
+    /**
+     * @return up to {@code limit} attempts, each user's best one, by score descending; equal scores
+     * are ordered by whoever reached the score first
+     */
+    List<UserAttempt> getLeaderboard(int readingId, int limit) throws SQLException;
+
+    /**
+     * @return the user's attempt totals and current daily streak, all zero if they have no attempts
+     */
+    UserStats getUserStats(int userId) throws SQLException;
+}
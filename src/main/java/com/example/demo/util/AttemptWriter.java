@@ -0,0 +1,446 @@
+package com.example.demo.util;
+
+import com.example.demo.model.UserAttempt;
+import com.example.demo.util.SqliteConnectionPool.PooledConnection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * Write-behind storage for quiz attempts.
+ * <p>
+ * {@link #submit(UserAttempt)} only queues the attempt, so it is safe to call from the JavaFX thread.
+ * A background thread drains the queue and inserts up to {@code maxBatch} attempts per transaction
+ * (group commit), waiting up to {@code lingerMillis} after the first attempt for others to join it.
+ * <p>
+ * If a batch cannot be written because the database is busy, locked or otherwise failing, the batch
+ * is appended to a journal file and fsynced instead. The journal is replayed into the database in
+ * one transaction the next time an AttemptWriter opens on it, then deleted; if the replay fails
+ * nothing of it is stored and the journal is kept whole, so no attempt is ever stored twice. Each
+ * journal line ends with a checksum, so a line torn by a crash mid-append is recognised and skipped.
+ * Attempts that violate a constraint, e.g. for a user deleted in the meantime, are logged and
+ * dropped rather than journaled.
+ * <p>
+ * Each attempt is stamped with the time it was submitted, which goes into the journal with it, so
+ * an attempt stored late, or replayed after a restart, keeps the day it was played on. Queued
+ * attempts are not given an attempt id.
+ */
+public class AttemptWriter implements AutoCloseable {
+    public static final Path DEFAULT_JOURNAL = Path.of("readracer-attempts.journal");
+    public static final int DEFAULT_MAX_BATCH = 256;
+    public static final long DEFAULT_LINGER_MILLIS = 5;
+
+    private static final int QUEUE_CAPACITY = 10_000;
+    private static final int SQLITE_CONSTRAINT = 19;
+    private static final String INSERT_SQL = "INSERT INTO UserAttempts (user_id, reading_id, score, created_at) VALUES (?, ?, ?, COALESCE(?, unixepoch()))";
+
+    private final SqliteConnectionPool pool;
+    private final Path journal;
+    private final int maxBatch;
+    private final long lingerNanos;
+    private final Clock clock;
+    private final BlockingQueue<UserAttempt> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread flusher;
+    private volatile boolean closed;
+
+    // submitted and completed let flush() wait for everything queued before it was called
+    private final Object progress = new Object();
+    private long submitted;
+    private long completed;
+
+    private final LongAdder committed = new LongAdder();
+    private final LongAdder journaled = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder totalFlushSize = new LongAdder();
+    private final AtomicLong maxFlushSize = new AtomicLong();
+    private final LongAdder totalCommitNanos = new LongAdder();
+    private final AtomicLong maxCommitNanos = new AtomicLong();
+
+    public AttemptWriter(SqliteConnectionPool pool, Path journal) {
+        this(pool, journal, DEFAULT_MAX_BATCH, DEFAULT_LINGER_MILLIS);
+    }
+
+    /**
+     * Replays any journal left by a previous run, then starts the background flusher.
+     *
+     * @param pool the pool whose writer connection is borrowed once per batch
+     * @param journal the file failed batches are appended to
+     * @param maxBatch the most attempts committed in one transaction
+     * @param lingerMillis how long to wait for more attempts before committing a partial batch
+     */
+    public AttemptWriter(SqliteConnectionPool pool, Path journal, int maxBatch, long lingerMillis) {
+        this(pool, journal, maxBatch, lingerMillis, Clock.systemDefaultZone());
+    }
+
+    /**
+     * @param clock stamps each attempt with the time it is submitted
+     */
+    public AttemptWriter(SqliteConnectionPool pool, Path journal, int maxBatch, long lingerMillis, Clock clock) {
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("maxBatch must be at least 1");
+        }
+        this.pool = Objects.requireNonNull(pool, "pool");
+        this.journal = Objects.requireNonNull(journal, "journal");
+        this.maxBatch = maxBatch;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.clock = Objects.requireNonNull(clock, "clock");
+
+        replayJournal();
+
+        flusher = new Thread(this::run, "attempt-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Queues an attempt for the next group commit. Never blocks; if the queue is full the
+     * attempt goes straight to the journal. An attempt without a time is given the current one.
+     *
+     * @throws IllegalStateException if the writer has been closed
+     */
+    public void submit(UserAttempt attempt) {
+        Objects.requireNonNull(attempt, "attempt");
+        if (closed) {
+            throw new IllegalStateException("AttemptWriter is closed");
+        }
+        if (attempt.getCreatedAt() == null) {
+            attempt.setCreatedAt(clock.instant().getEpochSecond());
+        }
+        synchronized (progress) {
+            submitted++;
+        }
+        if (!queue.offer(attempt)) {
+            appendToJournal(List.of(attempt));
+            completed(1);
+        }
+    }
+
+    /**
+     * Waits until every attempt submitted before this call has been committed, journaled or dropped.
+     *
+     * @return true if that happened within the timeout
+     */
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (progress) {
+            long target = submitted;
+            while (completed < target) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(progress, remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Stops accepting attempts and writes out everything still queued.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<UserAttempt> left = new ArrayList<>();
+        queue.drainTo(left);
+        if (!left.isEmpty()) {
+            appendToJournal(left);
+            completed(left.size());
+        }
+    }
+
+    public Metrics metrics() {
+        long flushCount = flushes.sum();
+        return new Metrics(queue.size(), committed.sum(), journaled.sum(), replayed.sum(), dropped.sum(),
+                flushCount,
+                flushCount == 0 ? 0.0 : (double) totalFlushSize.sum() / flushCount,
+                maxFlushSize.get(),
+                flushCount == 0 ? 0.0 : totalCommitNanos.sum() / 1_000.0 / flushCount,
+                maxCommitNanos.get() / 1_000);
+    }
+
+    /**
+     * Snapshot of the writer's counters. Commit latency covers one group commit, in microseconds.
+     */
+    public record Metrics(int queueDepth,
+                          long committed,
+                          long journaled,
+                          long replayed,
+                          long dropped,
+                          long flushes,
+                          double averageFlushSize,
+                          long maxFlushSize,
+                          double averageCommitMicros,
+                          long maxCommitMicros) {
+    }
+
+    private void run() {
+        List<UserAttempt> batch = new ArrayList<>(maxBatch);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                UserAttempt first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatch) {
+                    queue.drainTo(batch, maxBatch - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatch || remaining <= 0) {
+                        break;
+                    }
+                    UserAttempt next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                closed = true;
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                completed(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<UserAttempt> batch) {
+        long start = System.nanoTime();
+        try {
+            insert(batch);
+            long elapsed = System.nanoTime() - start;
+            committed.add(batch.size());
+            flushes.increment();
+            totalFlushSize.add(batch.size());
+            maxFlushSize.accumulateAndGet(batch.size(), Math::max);
+            totalCommitNanos.add(elapsed);
+            maxCommitNanos.accumulateAndGet(elapsed, Math::max);
+        } catch (SQLException e) {
+            if (isConstraintViolation(e)) {
+                try {
+                    committed.add(insertSkippingViolations(batch));
+                    return;
+                } catch (SQLException retry) {
+                    e = retry;
+                }
+            }
+            System.err.println("Could not store " + batch.size() + " attempts, journaling them: " + e.getMessage());
+            appendToJournal(batch);
+        }
+    }
+
+    private void insert(List<UserAttempt> attempts) throws SQLException {
+        try (PooledConnection pc = pool.writer()) {
+            Connection connection = pc.connection();
+            connection.setAutoCommit(false);
+            try {
+                PreparedStatement statement = pc.prepare(INSERT_SQL);
+                for (UserAttempt attempt : attempts) {
+                    bind(statement, attempt);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Inserts the attempts in one transaction, a statement each, so one that violates a constraint is
+     * left out without sinking the rest. Any other error rolls the whole transaction back, leaving
+     * none of them stored.
+     *
+     * @return the number of attempts stored
+     */
+    private int insertSkippingViolations(List<UserAttempt> attempts) throws SQLException {
+        try (PooledConnection pc = pool.writer()) {
+            Connection connection = pc.connection();
+            connection.setAutoCommit(false);
+            // a statement of its own: the cached one may be left unusable by the error that led here
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                List<String> violations = new ArrayList<>();
+                for (UserAttempt attempt : attempts) {
+                    bind(statement, attempt);
+                    try {
+                        statement.executeUpdate();
+                    } catch (SQLException e) {
+                        if (!isConstraintViolation(e)) {
+                            throw e;
+                        }
+                        // SQLite only undoes the failed statement, the transaction carries on
+                        violations.add("Dropping attempt by user " + attempt.getUserID() + " on reading "
+                                + attempt.getReadingID() + ": " + e.getMessage());
+                    }
+                }
+                connection.commit();
+                violations.forEach(System.err::println);
+                dropped.add(violations.size());
+                return attempts.size() - violations.size();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement statement, UserAttempt attempt) throws SQLException {
+        statement.setInt(1, attempt.getUserID());
+        statement.setInt(2, attempt.getReadingID());
+        statement.setInt(3, attempt.getScore());
+        if (attempt.getCreatedAt() == null) {
+            statement.setNull(4, Types.INTEGER);
+        } else {
+            statement.setLong(4, attempt.getCreatedAt());
+        }
+    }
+
+    private static boolean isConstraintViolation(SQLException e) {
+        // extended result codes such as SQLITE_CONSTRAINT_FOREIGNKEY keep the primary code in the low byte
+        return (e.getErrorCode() & 0xFF) == SQLITE_CONSTRAINT;
+    }
+
+    private void completed(int count) {
+        synchronized (progress) {
+            completed += count;
+            progress.notifyAll();
+        }
+    }
+
+    /**
+     * Appends one "user_id,reading_id,score,created_at;checksum" line per attempt and forces it to disk.
+     */
+    private synchronized void appendToJournal(List<UserAttempt> attempts) {
+        StringBuilder lines = new StringBuilder();
+        for (UserAttempt attempt : attempts) {
+            String record = attempt.getUserID() + "," + attempt.getReadingID() + "," + attempt.getScore() + ","
+                    + attempt.getCreatedAt();
+            lines.append(record).append(';').append(checksum(record)).append('\n');
+        }
+        try (FileChannel channel = FileChannel.open(journal,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            journaled.add(attempts.size());
+        } catch (IOException e) {
+            System.err.println("Lost " + attempts.size() + " attempts, could not write journal " + journal
+                    + ": " + e.getMessage());
+            dropped.add(attempts.size());
+        }
+    }
+
+    private static String checksum(String record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+
+    /**
+     * Inserts every attempt left in the journal in one transaction and deletes the journal.
+     * If that fails, e.g. because the database is busy, none of them are stored and the journal is
+     * kept whole for the next start.
+     */
+    private synchronized void replayJournal() {
+        if (!Files.isRegularFile(journal)) {
+            return;
+        }
+        List<UserAttempt> attempts = new ArrayList<>();
+        try {
+            String content = Files.readString(journal, StandardCharsets.UTF_8);
+            // anything after the last line break is a line torn by a crash mid-append
+            for (String line : content.substring(0, content.lastIndexOf('\n') + 1).split("\n")) {
+                UserAttempt attempt = parseJournalLine(line);
+                if (attempt != null) {
+                    attempts.add(attempt);
+                } else if (!line.isBlank()) {
+                    System.err.println("Skipping malformed journal line: " + line);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not read attempt journal " + journal + ": " + e.getMessage());
+            return;
+        }
+
+        try {
+            if (!attempts.isEmpty()) {
+                replayed.add(insertSkippingViolations(attempts));
+            }
+            Files.delete(journal);
+            System.out.println("Replayed " + replayed.sum() + " journaled attempts from " + journal);
+        } catch (SQLException e) {
+            System.err.println("Could not replay attempt journal " + journal + ", keeping it: " + e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Replayed attempt journal " + journal + " but could not delete it, its attempts "
+                    + "will be stored again on the next start unless it is removed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return the attempt on a "user_id,reading_id,score,created_at;checksum" journal line, or null if the
+     * line is malformed, has no checksum or fails it. An attempt journaled without a time, created_at
+     * "null", is stored as made when it is replayed.
+     */
+    private static UserAttempt parseJournalLine(String line) {
+        String record = line.trim();
+        int separator = record.lastIndexOf(';');
+        if (separator < 0 || !record.substring(separator + 1).equals(checksum(record.substring(0, separator)))) {
+            return null;
+        }
+        record = record.substring(0, separator);
+        String[] fields = record.split(",");
+        if (fields.length != 4) {
+            return null;
+        }
+        try {
+            UserAttempt attempt = new UserAttempt(Integer.parseInt(fields[0].trim()),
+                    Integer.parseInt(fields[1].trim()), Integer.parseInt(fields[2].trim()));
+            if (!fields[3].trim().equals("null")) {
+                attempt.setCreatedAt(Long.parseLong(fields[3].trim()));
+            }
+            return attempt;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
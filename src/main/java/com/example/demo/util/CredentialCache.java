@@ -0,0 +1,146 @@
+package com.example.demo.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded LRU cache of login identifier (username or email, exactly as typed) to the stored
+ * credentials of the matching user, so repeated logins skip the database.
+ * <p>
+ * Identifiers that matched no user are cached too, in a separate and smaller LRU, so a burst of
+ * mistyped or made-up logins neither reaches the database each time nor pushes out known users.
+ * The DAO invalidates entries on every user write: by user id when a user changes or is deleted,
+ * and by identifier when a username or email starts to exist.
+ */
+public class CredentialCache {
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    private final int maxEntries;
+    private final int maxUnknown;
+    private final Map<String, Credentials> known;
+    private final Map<String, Boolean> unknown;
+    // bumped by every invalidation, so a lookup that raced with a write is not cached
+    private long invalidations;
+
+    private long hits;
+    private long unknownHits;
+    private long misses;
+
+    /**
+     * What TryLogin needs to check a password and build the user.
+     * The arrays are shared with the cache and must not be modified.
+     */
+    public record Credentials(int userId, String username, String email, byte[] password, byte[] salt) {
+    }
+
+    /**
+     * @param credentials the cached user, or null if the identifier is known to match no user
+     */
+    public record Entry(Credentials credentials) {
+        public boolean exists() {
+            return credentials != null;
+        }
+    }
+
+    public record Stats(long hits, long unknownHits, long misses, double hitRate, int entries, int unknownEntries) {
+    }
+
+    /**
+     * @param maxEntries bound on cached users; up to a quarter as many unknown identifiers are kept on top
+     */
+    public CredentialCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.maxUnknown = Math.max(1, maxEntries / 4);
+        this.known = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Credentials> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.unknown = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxUnknown;
+            }
+        };
+    }
+
+    /**
+     * @return the cached entry, or null if the identifier has to be looked up
+     */
+    public synchronized Entry get(String login) {
+        Credentials credentials = known.get(login);
+        if (credentials != null) {
+            hits++;
+            return new Entry(credentials);
+        }
+        if (unknown.get(login) != null) {
+            unknownHits++;
+            return new Entry(null);
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * @return a token to pass to {@link #put} for lookups started after this call
+     */
+    public synchronized long stamp() {
+        return invalidations;
+    }
+
+    /**
+     * Caches the result of a lookup, unless anything was invalidated since {@code stamp} was taken.
+     *
+     * @param credentials the user found, or null if none matched
+     */
+    public synchronized void put(String login, Credentials credentials, long stamp) {
+        if (stamp != invalidations) {
+            return;
+        }
+        if (credentials == null) {
+            unknown.put(login, Boolean.TRUE);
+        } else {
+            known.put(login, credentials);
+        }
+    }
+
+    /**
+     * Drops every entry of the user, under whichever identifier it was cached.
+     */
+    public synchronized void invalidateUser(int userId) {
+        invalidations++;
+        for (Iterator<Credentials> it = known.values().iterator(); it.hasNext(); ) {
+            if (it.next().userId() == userId) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Drops the entries of identifiers that now belong to a user, in particular their unknown entries.
+     */
+    public synchronized void invalidateLogins(String... logins) {
+        invalidations++;
+        for (String login : logins) {
+            known.remove(login);
+            unknown.remove(login);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        invalidations++;
+        known.clear();
+        unknown.clear();
+    }
+
+    public synchronized Stats stats() {
+        long requests = hits + unknownHits + misses;
+        return new Stats(hits, unknownHits, misses, requests == 0 ? 0.0 : (double) (hits + unknownHits) / requests,
+                known.size(), unknown.size());
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.demo.util;
+
+import com.example.demo.util.SqliteConnectionPool.PooledConnection;
+import org.sqlite.SQLiteConnection;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Takes a consistent copy of the live database with SQLite's backup API, gzips it into a
+ * timestamped file and deletes all but the newest few.
+ * <p>
+ * The pages are copied from a pooled reader, in one backup step and so one read transaction. In WAL
+ * mode that transaction never blocks the writer, so attempts keep being saved while the copy runs,
+ * and the copy is the database as of the moment it started. Copying in several smaller steps would
+ * not help here: any commit between two steps restarts the backup from the first page, and during
+ * play there is always a commit between two steps. Compression runs on the copied file afterwards,
+ * with no database connection held.
+ * <p>
+ * A backup is restored by unzipping it over the database file while the app is stopped.
+ */
+public class DatabaseBackup {
+    public static final int DEFAULT_KEEP = 7;
+
+    private static final String PREFIX = "ReadRacer-";
+    private static final String SUFFIX = ".db.gz";
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final int BUSY_SLEEP_MILLIS = 100;
+    private static final int BUSY_RETRIES = 3;
+
+    private final SqliteConnectionPool pool;
+    private final Path directory;
+    private final int keep;
+    private final Clock clock;
+
+    /**
+     * @param databaseBytes size of the uncompressed copy
+     * @param snapshotNanos how long the copy held its read transaction
+     * @param deleted older backups deleted to keep only the newest
+     */
+    public record Report(Path file, long databaseBytes, long compressedBytes, long snapshotNanos,
+                         long elapsedNanos, int deleted) {
+    }
+
+    public DatabaseBackup(SqliteConnectionPool pool, Path directory, int keep) {
+        this(pool, directory, keep, Clock.systemDefaultZone());
+    }
+
+    /**
+     * @param keep how many backups to keep in {@code directory}, counting the new one
+     * @param clock names the backup files
+     */
+    public DatabaseBackup(SqliteConnectionPool pool, Path directory, int keep, Clock clock) {
+        if (keep < 1) {
+            throw new IllegalArgumentException("keep must be at least 1");
+        }
+        this.pool = Objects.requireNonNull(pool, "pool");
+        this.directory = Objects.requireNonNull(directory, "directory");
+        this.keep = keep;
+        this.clock = Objects.requireNonNull(clock, "clock");
+    }
+
+    /**
+     * Writes a new backup and deletes the oldest ones beyond the number to keep.
+     */
+    public Report backup() throws SQLException {
+        long start = System.nanoTime();
+        Path file = directory.resolve(PREFIX + LocalDateTime.now(clock).format(TIMESTAMP) + SUFFIX);
+        Path copy = directory.resolve(file.getFileName() + ".partial");
+        try {
+            Files.createDirectories(directory);
+            Files.deleteIfExists(copy);
+
+            long snapshotStart = System.nanoTime();
+            try (PooledConnection pc = pool.reader()) {
+                SQLiteConnection connection = pc.connection().unwrap(SQLiteConnection.class);
+                int result = connection.getDatabase().backup("main", copy.toAbsolutePath().toString(), null,
+                        BUSY_SLEEP_MILLIS, BUSY_RETRIES, -1);
+                if (result != 0) {
+                    throw new SQLException("Backup to " + copy + " failed with SQLite error " + result);
+                }
+            }
+            long snapshotNanos = System.nanoTime() - snapshotStart;
+
+            long databaseBytes = Files.size(copy);
+            Path compressed = directory.resolve(file.getFileName() + ".tmp");
+            try (InputStream in = Files.newInputStream(copy);
+                 OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed), 64 * 1024) {
+                     {
+                         // the default level takes over twice as long for files only about a tenth smaller
+                         def.setLevel(Deflater.BEST_SPEED);
+                     }
+                 }) {
+                in.transferTo(out);
+            }
+            // only a complete file ever has the backup name
+            Files.move(compressed, file, StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(copy);
+
+            int deleted = deleteOldBackups();
+            Report report = new Report(file, databaseBytes, Files.size(file), snapshotNanos,
+                    System.nanoTime() - start, deleted);
+            System.out.printf("Backed up %,d bytes to %s (%,d bytes) in %d ms, snapshot %d ms, %d old backups deleted%n",
+                    databaseBytes, file, report.compressedBytes(), report.elapsedNanos() / 1_000_000,
+                    snapshotNanos / 1_000_000, deleted);
+            return report;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write backup " + file, e);
+        } finally {
+            try {
+                Files.deleteIfExists(copy);
+                Files.deleteIfExists(directory.resolve(file.getFileName() + ".tmp"));
+            } catch (IOException e) {
+                System.err.println("Could not remove temporary backup files: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return the backups in the directory, newest first
+     */
+    public List<Path> backups() throws IOException {
+        List<Path> backups = new ArrayList<>();
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+                files.forEach(backups::add);
+            }
+        }
+        // the timestamp format sorts by name
+        backups.sort(Comparator.comparing((Path path) -> path.getFileName().toString()).reversed());
+        return backups;
+    }
+
+    private int deleteOldBackups() throws IOException {
+        List<Path> backups = backups();
+        int deleted = 0;
+        for (Path old : backups.subList(Math.min(keep, backups.size()), backups.size())) {
+            Files.delete(old);
+            deleted++;
+        }
+        return deleted;
+    }
+
+    /**
+     * Backs up the configured database ({@code readracer.db.file}) to {@code readracer.backup.dir}.
+     */
+    public static void main(String[] args) throws SQLException {
+        SqliteConnection.getDatabaseBackup().backup();
+        SqliteConnection.close();
+    }
+}
@@ -0,0 +1,694 @@
+package com.example.demo.util;
+
+import com.example.demo.exceptions.InvalidCredentialsException;
+import com.example.demo.model.Choice;
+import com.example.demo.model.Question;
+import com.example.demo.model.Reading;
+import com.example.demo.model.ReadingFilter;
+import com.example.demo.model.ReadingSummary;
+import com.example.demo.model.SearchResult;
+import com.example.demo.model.User;
+import com.example.demo.model.UserAttempt;
+import com.example.demo.model.UserStats;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A {@link ReadRacerStore} held entirely in memory, for tests and for benchmarks that want to
+ * measure application logic without storage cost.
+ * <p>
+ * It follows the SQLite DAO's contract: ids are generated from 1, usernames and emails are unique,
+ * attempts need an existing user and reading, deletes cascade, and leaderboards keep each user's best
+ * attempt. Violations fail with an {@link SQLException} carrying SQLite's message.
+ * <p>
+ * Records are kept in {@link IntObjectMap}s keyed by id. Reads share a read lock and writes take the
+ * write lock, so the store can be used from any number of threads. Stored readings are replaced
+ * rather than modified when a question is added, so a reading handed out earlier never changes.
+ * Individual attempts are not kept, only each user's best attempt and totals per reading, which is
+ * all the leaderboards and user stats need. Days for the streak come from the given clock.
+ */
+public class InMemoryReadRacerStore implements ReadRacerStore {
+    private static final int LEADERBOARD_SIZE = 10;
+    // title, passage and prompts, as in the SQLite store's bm25 rank
+    private static final int[] SEARCH_WEIGHTS = {10, 1, 2};
+    private static final int SNIPPET_WORDS = 16;
+    private static final Comparator<UserAttempt> BOARD_ORDER =
+            Comparator.comparingInt(UserAttempt::getScore).reversed().thenComparingInt(UserAttempt::getAttemptID);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final IntObjectMap<Reading> readings = new IntObjectMap<>();
+    private final IntObjectMap<int[]> questionIdsByReading = new IntObjectMap<>();
+    private final IntObjectMap<StoredQuestion> questions = new IntObjectMap<>();
+    private final IntObjectMap<StoredUser> users = new IntObjectMap<>();
+    private final Map<String, Integer> userIdsByUsername = new HashMap<>();
+    private final Map<String, Integer> userIdsByEmail = new HashMap<>();
+    private final IntObjectMap<Board> boards = new IntObjectMap<>();
+    private final IntObjectMap<Totals> statsByUser = new IntObjectMap<>();
+    private final RandomReadingSelector randomSelector = new RandomReadingSelector();
+    private final Clock clock;
+
+    private int lastReadingId;
+    private int lastQuestionId;
+    private int lastChoiceId;
+    private int lastUserId;
+    private int lastAttemptId;
+
+    private record StoredQuestion(int readingId, Question question) {
+    }
+
+    private record StoredUser(int id, String username, String email, byte[] password, byte[] salt) {
+    }
+
+    /**
+     * Best attempt per user of one reading, also kept in leaderboard order.
+     */
+    private static final class Board {
+        final IntObjectMap<UserAttempt> bestByUser = new IntObjectMap<>();
+        final TreeSet<UserAttempt> ranking = new TreeSet<>(BOARD_ORDER);
+        final IntObjectMap<Totals> totalsByUser = new IntObjectMap<>();
+    }
+
+    /**
+     * Attempt totals of one user, either over one reading or, with the day and streak, over all of them.
+     */
+    private static final class Totals {
+        int attempts;
+        long totalScore;
+        int bestScore;
+        int lastAttemptId;
+        int lastScore;
+        int readingsCompleted;
+        long lastPlayedDay = Long.MIN_VALUE;
+        int streakDays;
+
+        void add(UserAttempt attempt) {
+            attempts++;
+            totalScore += attempt.getScore();
+            bestScore = attempts == 1 ? attempt.getScore() : Math.max(bestScore, attempt.getScore());
+            lastAttemptId = attempt.getAttemptID();
+            lastScore = attempt.getScore();
+        }
+    }
+
+    public InMemoryReadRacerStore() {
+        this(Clock.systemDefaultZone());
+    }
+
+    /**
+     * @param clock decides which day an attempt counts towards for the daily streak
+     */
+    public InMemoryReadRacerStore(Clock clock) {
+        this.clock = Objects.requireNonNull(clock, "clock");
+    }
+
+    @Override
+    public Reading getReading(int id) {
+        lock.readLock().lock();
+        try {
+            return readings.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Reading> getReadings(Collection<Integer> ids) {
+        Objects.requireNonNull(ids, "ids");
+        lock.readLock().lock();
+        try {
+            List<Reading> found = new ArrayList<>();
+            for (int id : ids.stream().distinct().sorted().toList()) {
+                Reading reading = readings.get(id);
+                if (reading != null) {
+                    found.add(reading);
+                }
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Walks the ids above {@code afterId} in order; ids are assigned in increasing order, so this
+     * visits each reading once and never sorts.
+     */
+    @Override
+    public List<ReadingSummary> listReadings(int afterId, int limit, ReadingFilter filter) {
+        Objects.requireNonNull(filter, "filter");
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        lock.readLock().lock();
+        try {
+            List<ReadingSummary> summaries = new ArrayList<>();
+            for (int id = Math.max(afterId, 0) + 1; id <= lastReadingId && summaries.size() < limit; id++) {
+                Reading reading = readings.get(id);
+                if (reading != null) {
+                    ReadingSummary summary = new ReadingSummary(id, reading.title(), reading.difficulty(),
+                            reading.questions().size(), PassageCompression.length(reading.passage()));
+                    if (filter.matches(summary)) {
+                        summaries.add(summary);
+                    }
+                }
+            }
+            return summaries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Scans every reading, so only suited to the small data sets this store is used for. Lists the
+     * readings with every term in their title first, like the SQLite store, and ranks each group by
+     * how often the terms occur, weighting title and prompt matches like its bm25 does, without
+     * stemming.
+     */
+    @Override
+    public List<SearchResult> searchReadings(String query, int offset, int limit) {
+        if (limit < 1 || offset < 0) {
+            throw new IllegalArgumentException("limit must be at least 1 and offset not negative");
+        }
+        Set<String> terms = new HashSet<>(SearchTerms.parse(query));
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+        record Match(SearchResult result, boolean inTitle, int score) {
+        }
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int id = 1; id <= lastReadingId; id++) {
+                Reading reading = readings.get(id);
+                if (reading == null) {
+                    continue;
+                }
+                String prompts = String.join("\n", reading.questions().stream().map(Question::prompt).toList());
+                String[] columns = {reading.title(), reading.passage(), prompts};
+                Set<String> found = new HashSet<>();
+                int score = 0;
+                int bestColumn = 0;
+                int bestHits = 0;
+                boolean inTitle = false;
+                for (int column = 0; column < columns.length; column++) {
+                    int hits = 0;
+                    for (String word : SearchTerms.parse(columns[column])) {
+                        if (terms.contains(word)) {
+                            found.add(word);
+                            hits++;
+                        }
+                    }
+                    score += hits * SEARCH_WEIGHTS[column];
+                    if (column == 0) {
+                        inTitle = found.size() == terms.size();
+                    }
+                    if (hits > bestHits) {
+                        bestColumn = column;
+                        bestHits = hits;
+                    }
+                }
+                if (found.size() == terms.size()) {
+                    ReadingSummary summary = new ReadingSummary(id, reading.title(), reading.difficulty(),
+                            reading.questions().size(), PassageCompression.length(reading.passage()));
+                    matches.add(new Match(new SearchResult(summary, snippet(columns[bestColumn], terms)),
+                            inTitle, score));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return matches.stream()
+                .sorted(Comparator.comparing(Match::inTitle).thenComparingInt(Match::score).reversed())
+                .skip(offset)
+                .limit(limit)
+                .map(Match::result)
+                .toList();
+    }
+
+    /**
+     * Up to {@link #SNIPPET_WORDS} words starting a little before the first match, with matching
+     * words in square brackets.
+     */
+    private static String snippet(String text, Set<String> terms) {
+        String[] words = text.strip().split("\\s+");
+        int first = 0;
+        while (first < words.length && SearchTerms.parse(words[first]).stream().noneMatch(terms::contains)) {
+            first++;
+        }
+        int start = first == words.length ? 0 : Math.max(0, first - SNIPPET_WORDS / 4);
+        int end = Math.min(words.length, start + SNIPPET_WORDS);
+        StringBuilder snippet = new StringBuilder(start > 0 ? "..." : "");
+        for (int i = start; i < end; i++) {
+            if (i > start) {
+                snippet.append(' ');
+            }
+            boolean hit = SearchTerms.parse(words[i]).stream().anyMatch(terms::contains);
+            snippet.append(hit ? "[" + words[i] + "]" : words[i]);
+        }
+        return snippet.append(end < words.length ? "..." : "").toString();
+    }
+
+    @Override
+    public Reading getRandomReading() {
+        return getRandomReading(null, Set.of());
+    }
+
+    @Override
+    public Reading getRandomReading(Integer difficulty, Set<Integer> excludeIds) {
+        Objects.requireNonNull(excludeIds, "excludeIds");
+        while (true) {
+            OptionalInt id = randomSelector.pick(difficulty, excludeIds);
+            if (id.isEmpty()) {
+                throw new RuntimeException("No readings found in database"
+                        + (difficulty == null ? "" : " with difficulty " + difficulty));
+            }
+            Reading reading = getReading(id.getAsInt());
+            if (reading != null) {
+                return reading;
+            }
+            // deleted between the pick and the lookup
+            randomSelector.remove(id.getAsInt());
+        }
+    }
+
+    @Override
+    public Reading addReading(Reading reading) {
+        Reading stored;
+        lock.writeLock().lock();
+        try {
+            int id = ++lastReadingId;
+            stored = new Reading(id, reading.title(), reading.passage(), null, reading.difficulty());
+            readings.put(id, stored);
+            questionIdsByReading.put(id, new int[0]);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        randomSelector.add(stored.id(), stored.difficulty());
+        return new Reading(stored.id(), reading.title(), reading.passage(), reading.questions(), reading.difficulty());
+    }
+
+    @Override
+    public boolean deleteReading(int readingId) {
+        lock.writeLock().lock();
+        try {
+            if (readings.remove(readingId) == null) {
+                return false;
+            }
+            for (int questionId : questionIdsByReading.remove(readingId)) {
+                questions.remove(questionId);
+            }
+            Board board = boards.remove(readingId);
+            if (board != null) {
+                board.totalsByUser.forEach((userId, totals) -> removeReadingFromStats(userId, totals));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        randomSelector.remove(readingId);
+        return true;
+    }
+
+    @Override
+    public void addQuestion(int readingId, Question question) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            Reading reading = readings.get(readingId);
+            if (reading == null) {
+                throw new SQLException("FOREIGN KEY constraint failed");
+            }
+            List<Choice> choices = new ArrayList<>();
+            for (Choice choice : question.choices()) {
+                choices.add(new Choice(++lastChoiceId, choice.getChoiceText(), choice.isCorrect()));
+            }
+            Question copy = new Question(question.prompt(), choices);
+            int questionId = ++lastQuestionId;
+            questions.put(questionId, new StoredQuestion(readingId, copy));
+            int[] ids = questionIdsByReading.get(readingId);
+            ids = Arrays.copyOf(ids, ids.length + 1);
+            ids[ids.length - 1] = questionId;
+            questionIdsByReading.put(readingId, ids);
+
+            List<Question> withQuestion = new ArrayList<>(reading.questions());
+            withQuestion.add(copy);
+            readings.put(readingId, new Reading(readingId, reading.title(), reading.passage(), withQuestion,
+                    reading.difficulty()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Question> getQuestions(int readingId) {
+        Reading reading = getReading(readingId);
+        return reading == null ? new ArrayList<>() : new ArrayList<>(reading.questions());
+    }
+
+    @Override
+    public List<Choice> getChoices(int questionId) {
+        lock.readLock().lock();
+        try {
+            StoredQuestion stored = questions.get(questionId);
+            List<Choice> choices = new ArrayList<>();
+            if (stored != null) {
+                for (Choice choice : stored.question().choices()) {
+                    choices.add(new Choice(choice.getChoiceID(), choice.getChoiceText(), choice.isCorrect()));
+                }
+            }
+            return choices;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public User addUser(User user) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            checkUnique(user.getUsername(), user.getEmail(), 0);
+            int id = ++lastUserId;
+            putUser(new StoredUser(id, user.getUsername(), user.getEmail(), user.getPassword(), user.getSalt()));
+            user.setUser_id(id);
+            return user;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // the SQLite schema has unique indexes on both columns
+    private void checkUnique(String username, String email, int exceptUserId) throws SQLException {
+        Integer byName = userIdsByUsername.get(username);
+        if (byName != null && byName != exceptUserId) {
+            throw new SQLException("UNIQUE constraint failed: Users.username");
+        }
+        Integer byEmail = userIdsByEmail.get(email);
+        if (byEmail != null && byEmail != exceptUserId) {
+            throw new SQLException("UNIQUE constraint failed: Users.email");
+        }
+    }
+
+    private void putUser(StoredUser user) {
+        users.put(user.id(), user);
+        userIdsByUsername.put(user.username(), user.id());
+        userIdsByEmail.put(user.email(), user.id());
+    }
+
+    private void removeUser(StoredUser user) {
+        users.remove(user.id());
+        userIdsByUsername.remove(user.username());
+        userIdsByEmail.remove(user.email());
+    }
+
+    @Override
+    public User getUser(int userId) throws SQLException {
+        lock.readLock().lock();
+        try {
+            StoredUser user = users.get(userId);
+            if (user == null) {
+                throw new SQLException("User not found with ID: " + userId);
+            }
+            return new User(user.username(), user.email(), user.password(), user.salt());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean userWithIdExists(int userId) {
+        lock.readLock().lock();
+        try {
+            return users.containsKey(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean usernameIsUnique(String username) {
+        Objects.requireNonNull(username, "login");
+        lock.readLock().lock();
+        try {
+            return !userIdsByUsername.containsKey(username);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean emailIsUnique(String email) {
+        Objects.requireNonNull(email, "login");
+        lock.readLock().lock();
+        try {
+            return !userIdsByEmail.containsKey(email);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateUser(User user) throws SQLException {
+        Objects.requireNonNull(user, "newuser");
+        if (!user.has_id()) {
+            throw new SQLException("User to update has no ID");
+        }
+        lock.writeLock().lock();
+        try {
+            StoredUser existing = users.get(user.getUser_id());
+            if (existing == null) {
+                throw new SQLException("User with ID does not exist");
+            }
+            try {
+                checkUnique(user.getUsername(), user.getEmail(), existing.id());
+            } catch (SQLException e) {
+                throw new SQLException("Failed to update user", e);
+            }
+            removeUser(existing);
+            putUser(new StoredUser(existing.id(), user.getUsername(), user.getEmail(), user.getPassword(), user.getSalt()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteUser(int userId) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            StoredUser user = users.get(userId);
+            if (user == null) {
+                throw new SQLException("User with ID does not exist");
+            }
+            removeUser(user);
+            boards.forEach((readingId, board) -> {
+                UserAttempt best = board.bestByUser.remove(userId);
+                if (best != null) {
+                    board.ranking.remove(best);
+                }
+                board.totalsByUser.remove(userId);
+            });
+            statsByUser.remove(userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public User TryLogin(String login, String rawPassword) throws SQLException {
+        Objects.requireNonNull(login, "login");
+        Objects.requireNonNull(rawPassword, "password");
+        StoredUser user;
+        lock.readLock().lock();
+        try {
+            Integer id = userIdsByUsername.get(login);
+            if (id == null) {
+                id = userIdsByEmail.get(login);
+            }
+            user = id == null ? null : users.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (user == null || !MessageDigest.isEqual(user.password(), hash(user.salt(), rawPassword))) {
+            throw new InvalidCredentialsException();
+        }
+        return new User(user.id(), user.username(), user.email(), user.password(), user.salt());
+    }
+
+    private static byte[] hash(byte[] salt, String rawPassword) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-512");
+            md.update(salt);
+            return md.digest(rawPassword.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-512 not available", e);
+        }
+    }
+
+    @Override
+    public void addUserAttempt(UserAttempt userAttempt) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            if (!users.containsKey(userAttempt.getUserID()) || !readings.containsKey(userAttempt.getReadingID())) {
+                throw new SQLException("FOREIGN KEY constraint failed");
+            }
+            userAttempt.setAttemptID(++lastAttemptId);
+            Board board = boards.get(userAttempt.getReadingID());
+            if (board == null) {
+                board = new Board();
+                boards.put(userAttempt.getReadingID(), board);
+            }
+            UserAttempt best = board.bestByUser.get(userAttempt.getUserID());
+            // same rule as the best-score trigger: only a strictly higher score replaces the best
+            if (best == null || userAttempt.getScore() > best.getScore()) {
+                UserAttempt copy = new UserAttempt(userAttempt.getAttemptID(), userAttempt.getUserID(),
+                        userAttempt.getReadingID(), userAttempt.getScore());
+                if (best != null) {
+                    board.ranking.remove(best);
+                }
+                board.bestByUser.put(copy.getUserID(), copy);
+                board.ranking.add(copy);
+            }
+            addToStats(board, userAttempt);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<UserAttempt> getLeaderboard(int readingId) {
+        return getLeaderboard(readingId, LEADERBOARD_SIZE);
+    }
+
+    @Override
+    public List<UserAttempt> getLeaderboard(int readingId, int limit) {
+        lock.readLock().lock();
+        try {
+            List<UserAttempt> leaderboard = new ArrayList<>();
+            Board board = boards.get(readingId);
+            if (board != null) {
+                Iterator<UserAttempt> ranked = board.ranking.iterator();
+                while (leaderboard.size() < limit && ranked.hasNext()) {
+                    UserAttempt attempt = ranked.next();
+                    leaderboard.add(new UserAttempt(attempt.getAttemptID(), attempt.getUserID(),
+                            attempt.getReadingID(), attempt.getScore()));
+                }
+            }
+            return leaderboard;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // same rules as the trg_attempts_user_stats trigger
+    private void addToStats(Board board, UserAttempt attempt) {
+        Totals reading = board.totalsByUser.get(attempt.getUserID());
+        if (reading == null) {
+            reading = new Totals();
+            board.totalsByUser.put(attempt.getUserID(), reading);
+        }
+        reading.add(attempt);
+
+        Totals stats = statsByUser.get(attempt.getUserID());
+        if (stats == null) {
+            stats = new Totals();
+            statsByUser.put(attempt.getUserID(), stats);
+        }
+        stats.add(attempt);
+        if (reading.attempts == 1) {
+            stats.readingsCompleted++;
+        }
+        long today = LocalDate.now(clock).toEpochDay();
+        if (stats.lastPlayedDay == Long.MIN_VALUE || today > stats.lastPlayedDay + 1) {
+            stats.streakDays = 1;
+        } else if (today == stats.lastPlayedDay + 1) {
+            stats.streakDays++;
+        }
+        stats.lastPlayedDay = Math.max(stats.lastPlayedDay, today);
+    }
+
+    /**
+     * Takes a deleted reading's attempts out of a user's stats. The best and last attempt may have been
+     * on that reading, so they are found again among the user's remaining readings.
+     */
+    private void removeReadingFromStats(int userId, Totals reading) {
+        Totals stats = statsByUser.get(userId);
+        stats.attempts -= reading.attempts;
+        stats.totalScore -= reading.totalScore;
+        stats.readingsCompleted--;
+        if (stats.attempts == 0) {
+            statsByUser.remove(userId);
+            return;
+        }
+        Totals remaining = new Totals();
+        boards.forEach((readingId, board) -> {
+            Totals other = board.totalsByUser.get(userId);
+            if (other != null) {
+                remaining.bestScore = remaining.attempts == 0 ? other.bestScore : Math.max(remaining.bestScore, other.bestScore);
+                remaining.attempts += other.attempts;
+                if (other.lastAttemptId > remaining.lastAttemptId) {
+                    remaining.lastAttemptId = other.lastAttemptId;
+                    remaining.lastScore = other.lastScore;
+                }
+            }
+        });
+        stats.bestScore = remaining.bestScore;
+        stats.lastAttemptId = remaining.lastAttemptId;
+        stats.lastScore = remaining.lastScore;
+    }
+
+    @Override
+    public UserStats getUserStats(int userId) {
+        lock.readLock().lock();
+        try {
+            Totals stats = statsByUser.get(userId);
+            if (stats == null) {
+                return UserStats.empty(userId);
+            }
+            // a streak ends once a whole day passes without an attempt
+            boolean current = stats.lastPlayedDay >= LocalDate.now(clock).toEpochDay() - 1;
+            return new UserStats(userId, stats.attempts, stats.bestScore, (double) stats.totalScore / stats.attempts,
+                    stats.lastScore, stats.readingsCompleted, current ? stats.streakDays : 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clearAllData() {
+        lock.writeLock().lock();
+        try {
+            readings.clear();
+            questionIdsByReading.clear();
+            questions.clear();
+            users.clear();
+            userIdsByUsername.clear();
+            userIdsByEmail.clear();
+            boards.clear();
+            statsByUser.clear();
+            randomSelector.clear();
+            lastReadingId = 0;
+            lastQuestionId = 0;
+            lastChoiceId = 0;
+            lastUserId = 0;
+            lastAttemptId = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
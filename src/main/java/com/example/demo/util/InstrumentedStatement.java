@@ -0,0 +1,167 @@
+package com.example.demo.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+
+/**
+ * Wraps a cached {@link PreparedStatement} so every execution is reported to {@link QueryMetrics}
+ * with its SQL, bind parameters, elapsed time and row count.
+ * <p>
+ * A query is timed from {@code executeQuery} until its result set is closed, because SQLite produces
+ * rows lazily while the caller steps through them; its row count is the number of rows read.
+ * Updates and batches are timed around the call and count the rows they changed.
+ */
+final class InstrumentedStatement implements InvocationHandler {
+    private static final Object[] NO_BINDS = {};
+
+    private final PreparedStatement delegate;
+    private final String sql;
+    private final Connection connection;
+    private final QueryMetrics metrics;
+    private Object[] binds = NO_BINDS;
+    private int bindCount;
+
+    private InstrumentedStatement(PreparedStatement delegate, String sql, Connection connection, QueryMetrics metrics) {
+        this.delegate = delegate;
+        this.sql = sql;
+        this.connection = connection;
+        this.metrics = metrics;
+    }
+
+    static PreparedStatement wrap(PreparedStatement statement, String sql, Connection connection, QueryMetrics metrics) {
+        return (PreparedStatement) Proxy.newProxyInstance(InstrumentedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new InstrumentedStatement(statement, sql, connection, metrics));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (args == null) {
+            switch (name) {
+                case "executeQuery":
+                    return executeQuery();
+                case "executeUpdate", "executeLargeUpdate", "execute", "executeBatch", "executeLargeBatch":
+                    return executeUpdate(method);
+                case "clearParameters":
+                    binds = NO_BINDS;
+                    bindCount = 0;
+                    break;
+                default:
+                    break;
+            }
+        } else if (name.equals("equals")) {
+            return proxy == args[0];
+        } else if (name.startsWith("set") && args.length >= 2 && args[0] instanceof Integer index
+                && method.getDeclaringClass() == PreparedStatement.class) {
+            bind(index, name.equals("setNull") ? null : args[1]);
+        }
+        return call(delegate, method, args);
+    }
+
+    private void bind(int index, Object value) {
+        if (index > binds.length) {
+            binds = Arrays.copyOf(binds, Math.max(index, binds.length * 2));
+        }
+        binds[index - 1] = value;
+        bindCount = Math.max(bindCount, index);
+    }
+
+    private Object executeQuery() throws Exception {
+        long start = System.nanoTime();
+        ResultSet rs;
+        try {
+            rs = delegate.executeQuery();
+        } catch (Exception e) {
+            finished(start, 0);
+            throw e;
+        }
+        return Proxy.newProxyInstance(InstrumentedStatement.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, new CountingResultSet(rs, start));
+    }
+
+    private Object executeUpdate(Method method) throws Throwable {
+        long start = System.nanoTime();
+        Object result = null;
+        try {
+            result = call(delegate, method, null);
+            return result;
+        } finally {
+            finished(start, changedRows(result));
+        }
+    }
+
+    private static long changedRows(Object result) {
+        long rows = 0;
+        if (result instanceof Number n) {
+            rows = n.longValue();
+        } else if (result instanceof int[] counts) {
+            for (int count : counts) {
+                rows += Math.max(0, count);
+            }
+        } else if (result instanceof long[] counts) {
+            for (long count : counts) {
+                rows += Math.max(0, count);
+            }
+        }
+        return Math.max(0, rows);
+    }
+
+    private void finished(long start, long rows) {
+        metrics.statementFinished(sql, binds, bindCount, System.nanoTime() - start, rows, connection);
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Counts the rows stepped through and reports the statement when the result set is closed.
+     */
+    private final class CountingResultSet implements InvocationHandler {
+        private final ResultSet delegate;
+        private final long start;
+        private long rows;
+        private boolean reported;
+
+        CountingResultSet(ResultSet delegate, long start) {
+            this.delegate = delegate;
+            this.start = start;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    Object hasRow = call(delegate, method, args);
+                    if (Boolean.TRUE.equals(hasRow)) {
+                        rows++;
+                    }
+                    return hasRow;
+                case "close":
+                    try {
+                        return call(delegate, method, args);
+                    } finally {
+                        if (!reported) {
+                            reported = true;
+                            finished(start, rows);
+                        }
+                    }
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    return call(delegate, method, args);
+            }
+        }
+    }
+}
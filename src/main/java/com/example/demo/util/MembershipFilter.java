@@ -0,0 +1,145 @@
+package com.example.demo.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter over strings, answering "definitely absent" or "maybe present".
+ * <p>
+ * Sized for about 1% false positives at the expected number of entries. Adding more than that
+ * starts another filter of twice the size, so the rate stays bounded however much the set grows;
+ * lookups probe every filter. Entries cannot be removed, so a value that was once added keeps
+ * answering "maybe present": callers check those against the exact source, which is always correct.
+ * <p>
+ * Lookups take no lock and may run concurrently with additions.
+ */
+public class MembershipFilter {
+    private static final int MIN_EXPECTED_ENTRIES = 1024;
+    // -ln(0.01) / ln(2)^2 bits per entry and ln(2) * bits per entry hash functions
+    private static final double BITS_PER_ENTRY = 9.6;
+    private static final int HASH_FUNCTIONS = 7;
+
+    private volatile Layer[] layers;
+    private final AtomicLong definitelyAbsent = new AtomicLong();
+    private final AtomicLong maybePresent = new AtomicLong();
+
+    /**
+     * @param layers filters in use; more than one once the first filled up
+     * @param bits total bits over all filters
+     * @param definitelyAbsent lookups answered without the exact source
+     */
+    public record Stats(long entries, int layers, long bits, long definitelyAbsent, long maybePresent) {
+    }
+
+    public MembershipFilter(int expectedEntries) {
+        reset(expectedEntries);
+    }
+
+    /**
+     * Empties the filter and sizes it for {@code expectedEntries}, e.g. before loading a known set.
+     */
+    public synchronized void reset(int expectedEntries) {
+        layers = new Layer[]{new Layer(Math.max(MIN_EXPECTED_ENTRIES, expectedEntries))};
+    }
+
+    public synchronized void add(String value) {
+        Layer[] current = layers;
+        Layer last = current[current.length - 1];
+        if (last.entries >= last.capacity) {
+            Layer[] grown = new Layer[current.length + 1];
+            System.arraycopy(current, 0, grown, 0, current.length);
+            last = new Layer((int) Math.min(Integer.MAX_VALUE, last.capacity * 2L));
+            grown[current.length] = last;
+            layers = grown;
+        }
+        last.add(hash(value));
+    }
+
+    /**
+     * @return false if the value was definitely never added
+     */
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        for (Layer layer : layers) {
+            if (layer.mightContain(hash)) {
+                maybePresent.incrementAndGet();
+                return true;
+            }
+        }
+        definitelyAbsent.incrementAndGet();
+        return false;
+    }
+
+    public Stats stats() {
+        Layer[] current = layers;
+        long entries = 0;
+        long bits = 0;
+        for (Layer layer : current) {
+            entries += layer.entries;
+            bits += layer.bits;
+        }
+        return new Stats(entries, current.length, bits, definitelyAbsent.get(), maybePresent.get());
+    }
+
+    // FNV-1a over the UTF-16 chars, finished with the MurmurHash3 64-bit mix
+    static long hash(String value) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * One fixed-size filter. The bit positions come from the two halves of the hash
+     * (h1 + i * h2, Kirsch and Mitzenmacher), so the string is hashed only once.
+     */
+    private static final class Layer {
+        final int capacity;
+        final long bits;
+        final AtomicLongArray words;
+        // written under the filter's lock only
+        volatile int entries;
+
+        Layer(int capacity) {
+            this.capacity = capacity;
+            long words = ((long) Math.ceil(capacity * BITS_PER_ENTRY) + 63) / 64;
+            this.words = new AtomicLongArray((int) words);
+            this.bits = this.words.length() * 64L;
+        }
+
+        void add(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32) | 1;
+            for (int i = 0; i < HASH_FUNCTIONS; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, bits);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current = words.get(word);
+                // writers hold the filter's lock, so a plain set cannot lose another writer's bit
+                if ((current & mask) == 0) {
+                    words.set(word, current | mask);
+                }
+            }
+            entries++;
+        }
+
+        boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32) | 1;
+            for (int i = 0; i < HASH_FUNCTIONS; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, bits);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
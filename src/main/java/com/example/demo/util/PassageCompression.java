@@ -0,0 +1,226 @@
+package com.example.demo.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encodes and decodes passage text for the Readings table.
+ * <p>
+ * {@code Readings.content_codec} says how {@code content} is stored: {@link #PLAIN} for text, or the
+ * id of a row in PassageDictionaries for a zlib stream compressed with that preset dictionary. Short
+ * passages share most of their words and phrases, which a shared dictionary lets Deflate reference
+ * from the first byte instead of only after it has seen them once in the same passage.
+ * <p>
+ * Dictionaries are never changed or deleted once written, so every compressed row stays readable.
+ * New passages are compressed with the newest active dictionary; without one they are stored as text.
+ * Compression only ever starts with {@link PassageCompressor}, which trains the dictionary.
+ */
+public final class PassageCompression {
+    public static final int PLAIN = 0;
+    public static final int DEFAULT_DICTIONARY_BYTES = 32 * 1024;
+
+    // deflate can only match against the last 32 KiB, which includes the dictionary
+    private static final int MAX_DICTIONARY_BYTES = 32 * 1024;
+    private static final int MAX_PHRASE_WORDS = 3;
+
+    private final Map<Integer, byte[]> dictionaries = new ConcurrentHashMap<>();
+    private final int activeDictionaryId;
+
+    /**
+     * How a passage is to be written: {@code content} is a String for {@link #PLAIN}, a byte[] otherwise.
+     */
+    public record Encoded(int codec, Object content) {
+    }
+
+    private PassageCompression(int activeDictionaryId, byte[] activeDictionary) {
+        this.activeDictionaryId = activeDictionaryId;
+        if (activeDictionary != null) {
+            dictionaries.put(activeDictionaryId, activeDictionary);
+        }
+    }
+
+    /**
+     * Reads the active dictionary, if any. Other dictionaries are loaded when a row needs them.
+     */
+    public static PassageCompression load(Connection connection) throws SQLException {
+        // a handful of rows at most, so the scan in id order is fine
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT dictionary_id, dictionary FROM PassageDictionaries WHERE active = 1"
+                        + " ORDER BY dictionary_id DESC LIMIT 1");
+             ResultSet rs = ps.executeQuery()) {
+            if (rs.next()) {
+                return new PassageCompression(rs.getInt("dictionary_id"), rs.getBytes("dictionary"));
+            }
+        }
+        return new PassageCompression(PLAIN, null);
+    }
+
+    /**
+     * @return the dictionary new passages are compressed with, or {@link #PLAIN} if they are stored as text
+     */
+    public int activeDictionaryId() {
+        return activeDictionaryId;
+    }
+
+    /**
+     * @return the passage's length in characters, counted the way SQLite's length() counts text
+     */
+    public static int length(String passage) {
+        return passage == null ? 0 : passage.codePointCount(0, passage.length());
+    }
+
+    /**
+     * Compresses with the active dictionary, keeping the text instead when that would not be smaller.
+     */
+    public Encoded encode(String passage) {
+        if (activeDictionaryId == PLAIN || passage == null) {
+            return new Encoded(PLAIN, passage);
+        }
+        byte[] compressed = compress(dictionaries.get(activeDictionaryId), passage);
+        if (compressed.length >= passage.length()) {
+            return new Encoded(PLAIN, passage);
+        }
+        return new Encoded(activeDictionaryId, compressed);
+    }
+
+    /**
+     * Reads a passage column stored with {@code codec}.
+     *
+     * @param connection used to load the dictionary if this is the first row that needs it
+     * @throws SQLException if the dictionary is missing or the data is corrupt
+     */
+    public String decode(Connection connection, int codec, ResultSet rs, String column) throws SQLException {
+        if (codec == PLAIN) {
+            return rs.getString(column);
+        }
+        byte[] data = rs.getBytes(column);
+        return data == null ? null : decompress(dictionary(connection, codec), data);
+    }
+
+    private byte[] dictionary(Connection connection, int dictionaryId) throws SQLException {
+        byte[] dictionary = dictionaries.get(dictionaryId);
+        if (dictionary == null) {
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "SELECT dictionary FROM PassageDictionaries WHERE dictionary_id = ?")) {
+                ps.setInt(1, dictionaryId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new SQLException("Passage dictionary " + dictionaryId + " does not exist");
+                    }
+                    dictionary = rs.getBytes("dictionary");
+                }
+            }
+            dictionaries.put(dictionaryId, dictionary);
+        }
+        return dictionary;
+    }
+
+    /**
+     * @return the text's length in UTF-8 bytes (4 bytes), then the zlib stream
+     */
+    static byte[] compress(byte[] dictionary, String text) {
+        byte[] input = text.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setDictionary(dictionary);
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2 + 16);
+            out.writeBytes(ByteBuffer.allocate(4).putInt(input.length).array());
+            byte[] buffer = new byte[Math.max(64, input.length / 2)];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static String decompress(byte[] dictionary, byte[] data) throws SQLException {
+        int length = ByteBuffer.wrap(data).getInt();
+        byte[] output = new byte[length];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, 4, data.length - 4);
+            int written = 0;
+            while (!inflater.finished()) {
+                int n = inflater.inflate(output, written, output.length - written);
+                if (n == 0) {
+                    if (!inflater.needsDictionary()) {
+                        break;
+                    }
+                    inflater.setDictionary(dictionary);
+                }
+                written += n;
+            }
+            if (!inflater.finished() || written != length) {
+                throw new SQLException("Compressed passage is truncated");
+            }
+            return new String(output, StandardCharsets.UTF_8);
+        } catch (DataFormatException | IllegalArgumentException e) {
+            throw new SQLException("Compressed passage is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Builds a preset dictionary from sample passages: the words and short phrases that repeat most,
+     * weighted by length, up to {@code maxBytes}. The most valuable phrases go last, where Deflate
+     * reaches them with the shortest distances.
+     */
+    public static byte[] trainDictionary(List<String> samples, int maxBytes) {
+        int limit = Math.min(maxBytes, MAX_DICTIONARY_BYTES);
+        Map<String, Integer> counts = new HashMap<>();
+        for (String sample : samples) {
+            String[] words = sample.split("\\s+");
+            for (int n = 1; n <= MAX_PHRASE_WORDS; n++) {
+                for (int i = 0; i + n <= words.length; i++) {
+                    String phrase = String.join(" ", Arrays.asList(words).subList(i, i + n)) + " ";
+                    counts.merge(phrase, 1, Integer::sum);
+                }
+            }
+        }
+        // deflate needs at least three bytes to match, and a phrase seen once will not be seen again
+        List<Map.Entry<String, Integer>> ranked = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() > 1 && entry.getKey().length() > 3) {
+                ranked.add(entry);
+            }
+        }
+        ranked.sort(Comparator.comparingLong((Map.Entry<String, Integer> e) -> (long) e.getValue() * e.getKey().length())
+                .reversed().thenComparing(Map.Entry::getKey));
+
+        List<byte[]> chosen = new ArrayList<>();
+        int size = 0;
+        for (Map.Entry<String, Integer> entry : ranked) {
+            byte[] phrase = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            if (size + phrase.length > limit) {
+                continue;
+            }
+            chosen.add(phrase);
+            size += phrase.length;
+        }
+        Collections.reverse(chosen);
+        ByteArrayOutputStream dictionary = new ByteArrayOutputStream(size);
+        chosen.forEach(dictionary::writeBytes);
+        return dictionary.toByteArray();
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.demo.util;
+
+import com.example.demo.util.SqliteConnectionPool.PooledConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Switches the passages already in the database between text and compressed storage, see
+ * {@link PassageCompression}.
+ * <p>
+ * {@link #compress} trains a dictionary on a random sample of passages, makes it the active one and
+ * rewrites every passage with it; passages that would not get smaller stay text. {@link #decompress}
+ * rewrites every passage as text and deactivates all dictionaries. Either runs in one transaction,
+ * followed by VACUUM so the file actually shrinks, and reports content and file size and passage
+ * read latency before and after.
+ * <p>
+ * DAOs read the active dictionary when they are created, so run this while the app is stopped.
+ */
+public final class PassageCompressor {
+    public static final int DEFAULT_TRAINING_SAMPLES = 500;
+
+    private static final int ROWS_PER_CHUNK = 500;
+    private static final int LATENCY_SAMPLES = 1_000;
+
+    private final SqliteConnectionPool pool;
+
+    /**
+     * @param compressed passages stored compressed afterwards
+     * @param contentBytes bytes held in Readings.content, before and after
+     * @param fileBytes size of the database (page count times page size), before and after
+     * @param readMicros mean time to read and decode one passage by id, before and after
+     */
+    public record Report(int readings, int compressed, int dictionaryBytes,
+                         long contentBytesBefore, long contentBytesAfter,
+                         long fileBytesBefore, long fileBytesAfter,
+                         double readMicrosBefore, double readMicrosAfter, long elapsedNanos) {
+    }
+
+    private record Measurement(long contentBytes, long fileBytes, double readMicros) {
+    }
+
+    public PassageCompressor(SqliteConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Compresses every passage with a dictionary trained on up to {@code trainingSamples} passages.
+     *
+     * @throws IllegalStateException if the passages share too little text to train a dictionary
+     */
+    public Report compress(int trainingSamples, int dictionaryBytes) throws SQLException {
+        return rewrite(true, trainingSamples, dictionaryBytes);
+    }
+
+    public Report compress() throws SQLException {
+        return compress(DEFAULT_TRAINING_SAMPLES, PassageCompression.DEFAULT_DICTIONARY_BYTES);
+    }
+
+    /**
+     * Stores every passage as text again. The dictionaries are kept, inactive.
+     */
+    public Report decompress() throws SQLException {
+        return rewrite(false, 0, 0);
+    }
+
+    private Report rewrite(boolean compress, int trainingSamples, int dictionaryBytes) throws SQLException {
+        long start = System.nanoTime();
+        Measurement before = measure();
+        int readings = 0;
+        int compressed = 0;
+        int dictionarySize = 0;
+
+        try (PooledConnection pc = pool.writer()) {
+            Connection connection = pc.connection();
+            connection.setAutoCommit(false);
+            try {
+                if (compress) {
+                    byte[] dictionary = PassageCompression.trainDictionary(
+                            samplePassages(connection, trainingSamples), dictionaryBytes);
+                    if (dictionary.length == 0) {
+                        throw new IllegalStateException("Passages share too little text to train a dictionary");
+                    }
+                    dictionarySize = dictionary.length;
+                    addActiveDictionary(connection, dictionary);
+                } else {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.executeUpdate("UPDATE PassageDictionaries SET active = 0");
+                    }
+                }
+
+                PassageCompression passages = PassageCompression.load(connection);
+                try (PreparedStatement select = connection.prepareStatement(
+                        "SELECT reading_id, content, content_codec FROM Readings"
+                                + " WHERE reading_id > ? ORDER BY reading_id LIMIT ?");
+                     PreparedStatement update = connection.prepareStatement(
+                             "UPDATE Readings SET content = ?, content_codec = ? WHERE reading_id = ?")) {
+                    int lastId = 0;
+                    int rows;
+                    do {
+                        // a chunk at a time, so the cursor is closed before its rows are updated
+                        List<Object[]> chunk = new ArrayList<>();
+                        select.setInt(1, lastId);
+                        select.setInt(2, ROWS_PER_CHUNK);
+                        try (ResultSet rs = select.executeQuery()) {
+                            while (rs.next()) {
+                                lastId = rs.getInt("reading_id");
+                                String passage = passages.decode(connection, rs.getInt("content_codec"), rs, "content");
+                                chunk.add(new Object[]{lastId, passage});
+                            }
+                        }
+                        rows = chunk.size();
+                        for (Object[] row : chunk) {
+                            PassageCompression.Encoded encoded = passages.encode((String) row[1]);
+                            update.setObject(1, encoded.content());
+                            update.setInt(2, encoded.codec());
+                            update.setInt(3, (Integer) row[0]);
+                            update.addBatch();
+                            if (encoded.codec() != PassageCompression.PLAIN) {
+                                compressed++;
+                            }
+                        }
+                        update.executeBatch();
+                        readings += rows;
+                    } while (rows == ROWS_PER_CHUNK);
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            // the rewrite is committed either way; without VACUUM the freed pages are only reused, not returned
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("VACUUM");
+            } catch (SQLException e) {
+                System.err.println("VACUUM skipped, the file keeps its size: " + e.getMessage());
+            }
+        }
+
+        Measurement after = measure();
+        Report report = new Report(readings, compressed, dictionarySize,
+                before.contentBytes(), after.contentBytes(), before.fileBytes(), after.fileBytes(),
+                before.readMicros(), after.readMicros(), System.nanoTime() - start);
+        System.out.printf("%s %d passages in %d ms, %d stored compressed (dictionary %d bytes)%n",
+                compress ? "Compressed" : "Decompressed", readings, report.elapsedNanos() / 1_000_000,
+                compressed, dictionarySize);
+        System.out.printf("  passage content  %,12d -> %,12d bytes%n", report.contentBytesBefore(), report.contentBytesAfter());
+        System.out.printf("  database file    %,12d -> %,12d bytes%n", report.fileBytesBefore(), report.fileBytesAfter());
+        System.out.printf("  passage read     %12.1f -> %12.1f us%n", report.readMicrosBefore(), report.readMicrosAfter());
+        return report;
+    }
+
+    private static void addActiveDictionary(Connection connection, byte[] dictionary) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("UPDATE PassageDictionaries SET active = 0");
+        }
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO PassageDictionaries (dictionary, active) VALUES (?, 1)")) {
+            ps.setBytes(1, dictionary);
+            ps.executeUpdate();
+        }
+    }
+
+    // a full scan with a sort, which is fine for a one-off tool
+    private static List<String> samplePassages(Connection connection, int samples) throws SQLException {
+        PassageCompression passages = PassageCompression.load(connection);
+        List<String> sample = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT content, content_codec FROM Readings ORDER BY random() LIMIT ?")) {
+            ps.setInt(1, samples);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    sample.add(passages.decode(connection, rs.getInt("content_codec"), rs, "content"));
+                }
+            }
+        }
+        return sample;
+    }
+
+    private Measurement measure() throws SQLException {
+        try (PooledConnection pc = pool.reader();
+             Statement statement = pc.connection().createStatement()) {
+            Connection connection = pc.connection();
+            long contentBytes;
+            try (ResultSet rs = statement.executeQuery("SELECT COALESCE(SUM(length(CAST(content AS BLOB))), 0) FROM Readings")) {
+                rs.next();
+                contentBytes = rs.getLong(1);
+            }
+            long fileBytes;
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT page_count * page_size FROM pragma_page_count(), pragma_page_size()")) {
+                rs.next();
+                fileBytes = rs.getLong(1);
+            }
+            List<Integer> ids = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT reading_id FROM Readings ORDER BY random() LIMIT " + LATENCY_SAMPLES)) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+            return new Measurement(contentBytes, fileBytes, readMicros(connection, ids));
+        }
+    }
+
+    /**
+     * Reads and decodes each passage twice, timing the second pass so the first warms up the
+     * page cache and the JIT.
+     */
+    private static double readMicros(Connection connection, List<Integer> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        PassageCompression passages = PassageCompression.load(connection);
+        long elapsed = 0;
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT content, content_codec FROM Readings WHERE reading_id = ?")) {
+            for (int pass = 0; pass < 2; pass++) {
+                long start = System.nanoTime();
+                for (int id : ids) {
+                    ps.setInt(1, id);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (rs.next()) {
+                            passages.decode(connection, rs.getInt("content_codec"), rs, "content");
+                        }
+                    }
+                }
+                elapsed = System.nanoTime() - start;
+            }
+        }
+        return elapsed / 1_000.0 / ids.size();
+    }
+
+    /**
+     * Compresses or decompresses the passages of the configured database ({@code readracer.db.file}).
+     */
+    public static void main(String[] args) throws SQLException {
+        if (args.length != 1 || !(args[0].equals("compress") || args[0].equals("decompress"))) {
+            System.err.println("Usage: PassageCompressor compress|decompress");
+            return;
+        }
+        SqliteConnectionPool pool = SqliteConnection.getPool();
+        new SqliteReadRacerDAO(pool);
+        PassageCompressor compressor = new PassageCompressor(pool);
+        if (args[0].equals("compress")) {
+            compressor.compress();
+        } else {
+            compressor.decompress();
+        }
+        SqliteConnection.close();
+    }
+}
@@ -0,0 +1,300 @@
+package com.example.demo.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms per DAO operation and a log of slow statements.
+ * <p>
+ * Operations are timed with {@link #time(String, Operation)}: each call lands in a log-scaled histogram
+ * for its operation name, together with the number of rows its statements read or changed. Statements
+ * prepared through a {@link SqliteConnectionPool} report here on their own; one that takes at least the
+ * slow-query threshold is written to standard error and kept in a short in-memory log together with
+ * its bind parameters and its {@code EXPLAIN QUERY PLAN}.
+ * <p>
+ * Recording is lock-free apart from the slow path, so it is always on. {@link #snapshot()} returns
+ * everything recorded so far.
+ */
+public class QueryMetrics {
+    public static final long DEFAULT_SLOW_QUERY_MILLIS = 100;
+    private static final int MAX_SLOW_QUERIES = 100;
+    private static final int MAX_BIND_LENGTH = 64;
+
+    private final ConcurrentMap<String, LatencyHistogram> operations = new ConcurrentHashMap<>();
+    private final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+    private final ThreadLocal<Scope> currentScope = new ThreadLocal<>();
+    private volatile long slowQueryThresholdNanos = DEFAULT_SLOW_QUERY_MILLIS * 1_000_000;
+
+    /**
+     * Count, latency percentiles and rows of one operation. Percentiles are accurate to within 12.5%.
+     *
+     * @param rows rows read or changed by the operation's statements; cache hits read none
+     */
+    public record OperationStats(String operation, long count, long errors, long rows,
+                                 double meanMicros, double p50Micros, double p99Micros, double maxMicros) {
+    }
+
+    /**
+     * A statement that took at least the slow-query threshold. Binds are rendered as text, with
+     * byte arrays (password hashes, salts) reduced to their length.
+     *
+     * @param operation the DAO operation the statement ran in, or null outside of one
+     */
+    public record SlowQuery(Instant at, String operation, String sql, List<String> binds,
+                            double elapsedMillis, long rows, List<String> plan) {
+    }
+
+    /**
+     * @param operations one entry per operation name, sorted by name
+     * @param slowQueries the most recent slow statements, oldest first
+     */
+    public record Snapshot(List<OperationStats> operations, List<SlowQuery> slowQueries,
+                           long slowQueryThresholdMillis) {
+    }
+
+    /**
+     * A timed piece of DAO work; {@code E} lets callers keep their own checked exception.
+     */
+    @FunctionalInterface
+    public interface Operation<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    /**
+     * A timed piece of DAO work without a result.
+     */
+    @FunctionalInterface
+    public interface VoidOperation<E extends Exception> {
+        void run() throws E;
+    }
+
+    /**
+     * @param millis statements taking at least this long are logged; negative disables the log
+     */
+    public void setSlowQueryThresholdMillis(long millis) {
+        slowQueryThresholdNanos = millis < 0 ? Long.MAX_VALUE : millis * 1_000_000;
+    }
+
+    public long slowQueryThresholdMillis() {
+        return slowQueryThresholdNanos == Long.MAX_VALUE ? -1 : slowQueryThresholdNanos / 1_000_000;
+    }
+
+    /**
+     * Runs the operation and records its latency and rows under the given name, whether it returns
+     * or throws. Operations may nest; rows of an inner operation count towards the outer one as well.
+     */
+    public <T, E extends Exception> T time(String operation, Operation<T, E> body) throws E {
+        Scope parent = currentScope.get();
+        Scope scope = new Scope(operation);
+        currentScope.set(scope);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = body.run();
+            failed = false;
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (parent == null) {
+                currentScope.remove();
+            } else {
+                currentScope.set(parent);
+                parent.rows += scope.rows;
+            }
+            operations.computeIfAbsent(operation, name -> new LatencyHistogram()).record(elapsed, scope.rows, failed);
+        }
+    }
+
+    /**
+     * Like {@link #time(String, Operation)} for operations without a result.
+     */
+    public <E extends Exception> void run(String operation, VoidOperation<E> body) throws E {
+        time(operation, () -> {
+            body.run();
+            return null;
+        });
+    }
+
+    /**
+     * Called by instrumented statements once a statement has finished: after its result set was
+     * closed, or after an update or batch returned.
+     *
+     * @param binds the statement's parameters, indexed from 0; only copied if the statement was slow
+     * @param bindCount how many slots of {@code binds} are in use; the array grows in doubling steps
+     */
+    void statementFinished(String sql, Object[] binds, int bindCount, long elapsedNanos, long rows,
+                           Connection connection) {
+        Scope scope = currentScope.get();
+        if (scope != null) {
+            scope.rows += rows;
+        }
+        if (elapsedNanos < slowQueryThresholdNanos) {
+            return;
+        }
+        Object[] used = Arrays.copyOf(binds, bindCount);
+        SlowQuery slow = new SlowQuery(Instant.now(), scope == null ? null : scope.operation, sql,
+                Arrays.stream(used).map(QueryMetrics::describe).toList(),
+                elapsedNanos / 1_000_000.0, rows, explain(sql, used, connection));
+        System.err.printf("Slow query (%.1f ms, %d rows, %s): %s binds=%s plan=%s%n", slow.elapsedMillis(),
+                rows, slow.operation(), sql.replaceAll("\\s+", " ").strip(), slow.binds(), slow.plan());
+        synchronized (slowQueries) {
+            if (slowQueries.size() == MAX_SLOW_QUERIES) {
+                slowQueries.removeFirst();
+            }
+            slowQueries.addLast(slow);
+        }
+    }
+
+    private static List<String> explain(String sql, Object[] binds, Connection connection) {
+        List<String> plan = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+            // a caller may have bound an index past the statement's parameter list
+            int parameters = Math.min(binds.length, ps.getParameterMetaData().getParameterCount());
+            for (int i = 0; i < parameters; i++) {
+                ps.setObject(i + 1, binds[i]);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    plan.add(rs.getString("detail"));
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            // logging a slow statement must never fail the statement itself
+            plan.add("(no plan: " + e.getMessage() + ")");
+        }
+        return plan;
+    }
+
+    private static String describe(Object bind) {
+        if (bind == null) {
+            return "NULL";
+        }
+        if (bind instanceof byte[] bytes) {
+            return "<" + bytes.length + " bytes>";
+        }
+        if (bind instanceof String s) {
+            return "'" + (s.length() > MAX_BIND_LENGTH ? s.substring(0, MAX_BIND_LENGTH) + "...(" + s.length() + " chars)" : s) + "'";
+        }
+        return bind.toString();
+    }
+
+    public Snapshot snapshot() {
+        Map<String, LatencyHistogram> sorted = new TreeMap<>(operations);
+        List<OperationStats> stats = new ArrayList<>();
+        sorted.forEach((name, histogram) -> stats.add(histogram.stats(name)));
+        List<SlowQuery> slow;
+        synchronized (slowQueries) {
+            slow = List.copyOf(slowQueries);
+        }
+        return new Snapshot(stats, slow, slowQueryThresholdMillis());
+    }
+
+    /**
+     * Forgets all histograms and slow queries, e.g. after a warm-up.
+     */
+    public void reset() {
+        operations.clear();
+        synchronized (slowQueries) {
+            slowQueries.clear();
+        }
+    }
+
+    /**
+     * The operation running on the current thread; rows are only touched by that thread.
+     */
+    private static final class Scope {
+        final String operation;
+        long rows;
+
+        Scope(String operation) {
+            this.operation = operation;
+        }
+    }
+
+    /**
+     * Log-linear histogram of nanosecond latencies: every power of two is split into
+     * eight equal buckets, so a recorded value is off by at most 12.5%.
+     */
+    static final class LatencyHistogram {
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray((64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos, long rowCount, boolean failed) {
+            nanos = Math.max(0, nanos);
+            buckets.incrementAndGet(bucketOf(nanos));
+            count.increment();
+            rows.add(rowCount);
+            totalNanos.add(nanos);
+            if (failed) {
+                errors.increment();
+            }
+            if (nanos > maxNanos.get()) {
+                maxNanos.accumulateAndGet(nanos, Math::max);
+            }
+        }
+
+        static int bucketOf(long nanos) {
+            if (nanos < SUB_BUCKETS) {
+                return (int) nanos;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+            int sub = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+        }
+
+        /**
+         * @return the largest value that falls into the bucket
+         */
+        static long upperBoundOf(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int shift = bucket / SUB_BUCKETS - 1;
+            long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+            return lower + (1L << shift) - 1;
+        }
+
+        long percentileNanos(double quantile, long total) {
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(i), maxNanos.get());
+                }
+            }
+            return maxNanos.get();
+        }
+
+        OperationStats stats(String operation) {
+            long n = count.sum();
+            return new OperationStats(operation, n, errors.sum(), rows.sum(),
+                    n == 0 ? 0 : totalNanos.sum() / 1_000.0 / n,
+                    percentileNanos(0.50, n) / 1_000.0,
+                    percentileNanos(0.99, n) / 1_000.0,
+                    maxNanos.get() / 1_000.0);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.demo.util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * In-memory index of reading ids, partitioned by difficulty, for picking a random reading
+ * without asking the database to sort the Readings table.
+ * <p>
+ * Each difficulty keeps its ids in a dense int array; a second array maps every id to its slot,
+ * so adding and removing are O(1) (removal moves the last id into the freed slot). A pick is a
+ * single random index into the array, plus a walk over the handful of difficulty buckets when no
+ * difficulty is given. The structure is thread-safe.
+ */
+public class RandomReadingSelector {
+    private static final int INITIAL_CAPACITY = 64;
+    // attempts at drawing a non-excluded id before falling back to a scan of the bucket
+    private static final int MAX_REJECTIONS = 16;
+
+    private final Map<Integer, Bucket> buckets = new TreeMap<>();
+    // slotById[id] is the id's index in its bucket, or -1; difficultyById[id] names the bucket
+    private int[] slotById = new int[0];
+    private int[] difficultyById = new int[0];
+    private int size;
+
+    /**
+     * Adds a reading. Adding an id that is already present only updates its difficulty.
+     */
+    public synchronized void add(int id, int difficulty) {
+        if (id < 0) {
+            throw new IllegalArgumentException("id must not be negative: " + id);
+        }
+        if (contains(id)) {
+            if (difficultyById[id] == difficulty) {
+                return;
+            }
+            remove(id);
+        }
+        ensureIdCapacity(id);
+        Bucket bucket = buckets.computeIfAbsent(difficulty, d -> new Bucket());
+        slotById[id] = bucket.append(id);
+        difficultyById[id] = difficulty;
+        size++;
+    }
+
+    /**
+     * Removes a reading.
+     *
+     * @return true if the id was present
+     */
+    public synchronized boolean remove(int id) {
+        if (!contains(id)) {
+            return false;
+        }
+        Bucket bucket = buckets.get(difficultyById[id]);
+        int moved = bucket.removeAt(slotById[id]);
+        if (moved >= 0) {
+            slotById[moved] = slotById[id];
+        }
+        slotById[id] = -1;
+        if (bucket.size == 0) {
+            buckets.remove(difficultyById[id]);
+        }
+        size--;
+        return true;
+    }
+
+    public synchronized boolean contains(int id) {
+        return id >= 0 && id < slotById.length && slotById[id] >= 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        buckets.clear();
+        slotById = new int[0];
+        difficultyById = new int[0];
+        size = 0;
+    }
+
+    /**
+     * Picks a reading id uniformly at random.
+     *
+     * @param difficulty only pick readings of this difficulty, or null for any difficulty
+     * @param excludeIds ids that must not be picked, e.g. readings the player has just seen
+     * @return the picked id, or empty if no reading matches
+     */
+    public synchronized OptionalInt pick(Integer difficulty, Set<Integer> excludeIds) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int candidates = difficulty == null ? size : bucketSize(difficulty);
+        if (candidates == 0) {
+            return OptionalInt.empty();
+        }
+        for (int i = 0; i < MAX_REJECTIONS; i++) {
+            int id = idAt(difficulty, random.nextInt(candidates));
+            if (!excludeIds.contains(id)) {
+                return OptionalInt.of(id);
+            }
+        }
+        // Most candidates are excluded: walk them once from a random start so the result is still random.
+        int start = random.nextInt(candidates);
+        for (int i = 0; i < candidates; i++) {
+            int id = idAt(difficulty, (start + i) % candidates);
+            if (!excludeIds.contains(id)) {
+                return OptionalInt.of(id);
+            }
+        }
+        return OptionalInt.empty();
+    }
+
+    private int bucketSize(int difficulty) {
+        Bucket bucket = buckets.get(difficulty);
+        return bucket == null ? 0 : bucket.size;
+    }
+
+    // index counts across buckets in difficulty order when no difficulty is given
+    private int idAt(Integer difficulty, int index) {
+        if (difficulty != null) {
+            return buckets.get(difficulty).ids[index];
+        }
+        for (Bucket bucket : buckets.values()) {
+            if (index < bucket.size) {
+                return bucket.ids[index];
+            }
+            index -= bucket.size;
+        }
+        throw new IllegalStateException("index beyond selector size");
+    }
+
+    private void ensureIdCapacity(int id) {
+        if (id < slotById.length) {
+            return;
+        }
+        int capacity = Math.max(INITIAL_CAPACITY, Math.max(id + 1, slotById.length * 2));
+        int oldLength = slotById.length;
+        slotById = Arrays.copyOf(slotById, capacity);
+        Arrays.fill(slotById, oldLength, capacity, -1);
+        difficultyById = Arrays.copyOf(difficultyById, capacity);
+    }
+
+    private static final class Bucket {
+        private int[] ids = new int[INITIAL_CAPACITY];
+        private int size;
+
+        int append(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size] = id;
+            return size++;
+        }
+
+        /**
+         * Fills the slot with the last id.
+         *
+         * @return the id that moved into the slot, or -1 if the slot was the last one
+         */
+        int removeAt(int slot) {
+            int last = ids[--size];
+            if (slot == size) {
+                return -1;
+            }
+            ids[slot] = last;
+            return last;
+        }
+    }
+}
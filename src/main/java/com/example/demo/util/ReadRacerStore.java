@@ -0,0 +1,12 @@
+package com.example.demo.util;
+
+/**
+ * Everything the application stores, as implemented by {@link SqliteReadRacerDAO} and by
+ * {@link InMemoryReadRacerStore}.
+ */
+public interface ReadRacerStore extends ReadingStore, UserStore, AttemptStore {
+    /**
+     * BE CAREFUL. Deletes every reading, user and attempt and restarts id generation.
+     */
+    void clearAllData();
+}
@@ -0,0 +1,219 @@
+package com.example.demo.util;
+
+import com.example.demo.model.Choice;
+import com.example.demo.model.Question;
+import com.example.demo.model.Reading;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A cache of fully hydrated readings keyed by reading id, bounded by an estimated byte weight.
+ * <p>
+ * Entries are kept in LRU order. When a new reading does not fit, the least recently used entries
+ * that would have to make room for it are only evicted if the newcomer has been requested more often
+ * than each of them, according to a small count-min frequency sketch (TinyLFU admission). A reading
+ * requested once therefore cannot push out readings that are played all the time.
+ * <p>
+ * Cached readings are shared between callers and must be treated as read-only.
+ */
+public class ReadingCache {
+    public static final long DEFAULT_MAX_WEIGHT = 16L * 1024 * 1024;
+
+    // rough per-object overheads on top of two bytes per character
+    private static final int READING_OVERHEAD = 96;
+    private static final int QUESTION_OVERHEAD = 64;
+    private static final int CHOICE_OVERHEAD = 48;
+    // assumed average weight, only used to size the frequency sketch
+    private static final int TYPICAL_READING_WEIGHT = 4 * 1024;
+
+    private final long maxWeight;
+    private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+    private long weight;
+    // bumped by every invalidation, so a load that raced with a write is not cached
+    private long invalidations;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long rejections;
+
+    private record Entry(Reading reading, int weight) {
+    }
+
+    /**
+     * Counters and occupancy. Weights are estimated bytes.
+     */
+    public record Stats(long hits, long misses, double hitRate, long evictions, long rejections,
+                        int entries, long weight, long maxWeight) {
+    }
+
+    /**
+     * @param maxWeight estimated bytes to hold; 0 caches nothing, so every read goes to the database
+     */
+    public ReadingCache(long maxWeight) {
+        if (maxWeight < 0) {
+            throw new IllegalArgumentException("maxWeight must not be negative");
+        }
+        this.maxWeight = maxWeight;
+        this.sketch = new FrequencySketch((int) Math.min(1 << 20, Math.max(256, maxWeight / TYPICAL_READING_WEIGHT)));
+    }
+
+    /**
+     * @return the cached reading, or null; either way the request counts towards the id's frequency
+     */
+    public synchronized Reading get(int id) {
+        sketch.increment(id);
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.reading();
+    }
+
+    /**
+     * @return a token to pass to {@link #put(Reading, long)} for readings loaded after this call
+     */
+    public synchronized long stamp() {
+        return invalidations;
+    }
+
+    /**
+     * Offers a reading loaded from the database. It is dropped if anything was invalidated since
+     * {@code stamp} was taken, if it alone is heavier than the cache, or if admission rejects it.
+     */
+    public synchronized void put(Reading reading, long stamp) {
+        if (stamp != invalidations || reading.id() == null) {
+            return;
+        }
+        int id = reading.id();
+        int readingWeight = weigh(reading);
+        if (readingWeight > maxWeight) {
+            rejections++;
+            return;
+        }
+        Entry previous = entries.remove(id);
+        if (previous != null) {
+            weight -= previous.weight();
+        }
+
+        long needed = weight + readingWeight - maxWeight;
+        if (needed > 0) {
+            int candidateFrequency = sketch.frequency(id);
+            List<Integer> victims = new ArrayList<>();
+            long freed = 0;
+            for (Iterator<Map.Entry<Integer, Entry>> it = entries.entrySet().iterator(); freed < needed; ) {
+                Map.Entry<Integer, Entry> victim = it.next();
+                if (sketch.frequency(victim.getKey()) >= candidateFrequency) {
+                    rejections++;
+                    return;
+                }
+                victims.add(victim.getKey());
+                freed += victim.getValue().weight();
+            }
+            for (int victimId : victims) {
+                weight -= entries.remove(victimId).weight();
+                evictions++;
+            }
+        }
+        entries.put(id, new Entry(reading, readingWeight));
+        weight += readingWeight;
+    }
+
+    public synchronized void invalidate(int id) {
+        invalidations++;
+        Entry removed = entries.remove(id);
+        if (removed != null) {
+            weight -= removed.weight();
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        invalidations++;
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized Stats stats() {
+        long requests = hits + misses;
+        return new Stats(hits, misses, requests == 0 ? 0.0 : (double) hits / requests, evictions, rejections,
+                entries.size(), weight, maxWeight);
+    }
+
+    /**
+     * Estimated heap footprint of a hydrated reading: two bytes per character of text plus
+     * a fixed overhead per reading, question and choice.
+     */
+    static int weigh(Reading reading) {
+        long bytes = READING_OVERHEAD + 2L * (length(reading.title()) + length(reading.passage()));
+        for (Question question : reading.questions()) {
+            bytes += QUESTION_OVERHEAD + 2L * length(question.prompt());
+            for (Choice choice : question.choices()) {
+                bytes += CHOICE_OVERHEAD + 2L * length(choice.getChoiceText());
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    private static int length(String s) {
+        return s == null ? 0 : s.length();
+    }
+
+    /**
+     * Count-min sketch of request frequencies with four rows. Counters are halved once the number
+     * of increments reaches ten times the width, so old popularity fades.
+     */
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = {
+                0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0x27D4EB2F165667C5L};
+
+        private final int[][] rows;
+        private final int shift;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int expectedEntries) {
+            int width = Integer.highestOneBit(Math.max(16, expectedEntries - 1)) << 1;
+            rows = new int[SEEDS.length][width];
+            shift = 64 - Integer.numberOfTrailingZeros(width);
+            sampleSize = 10 * width;
+        }
+
+        void increment(int id) {
+            for (int row = 0; row < rows.length; row++) {
+                rows[row][index(id, row)]++;
+            }
+            if (++additions >= sampleSize) {
+                age();
+            }
+        }
+
+        int frequency(int id) {
+            int min = Integer.MAX_VALUE;
+            for (int row = 0; row < rows.length; row++) {
+                min = Math.min(min, rows[row][index(id, row)]);
+            }
+            return min;
+        }
+
+        // multiplicative hashing: the top bits of the product are well mixed even for sequential ids
+        private int index(int id, int row) {
+            return (int) (((id + 1L) * SEEDS[row]) >>> shift);
+        }
+
+        private void age() {
+            for (int[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>>= 1;
+                }
+            }
+            additions /= 2;
+        }
+    }
+}
@@ -0,0 +1,558 @@
+package com.example.demo.util;
+
+import com.example.demo.model.Choice;
+import com.example.demo.model.Question;
+import com.example.demo.model.Reading;
+import com.example.demo.util.SqliteConnectionPool.PooledConnection;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Streams readings, with their questions and choices, into the database in large transactions.
+ * <p>
+ * Input is read one reading at a time, so memory use does not grow with the file. Ids are assigned
+ * by the importer after the last id each table has handed out, which lets questions and choices be
+ * written with multi-row INSERT statements instead of one round trip per row. Foreign keys are
+ * checked at commit ({@code PRAGMA defer_foreign_keys}), so each table's rows can be flushed
+ * independently of the others.
+ * <p>
+ * Two formats are understood:
+ * <ul>
+ *     <li>JSON Lines ({@code .jsonl}/{@code .ndjson}), one reading per line:
+ *     {@code {"title": "...", "passage": "...", "difficulty": 1, "questions": [{"prompt": "...",
+ *     "choices": [{"text": "...", "correct": true}]}]}}</li>
+ *     <li>CSV ({@code .csv}) with a header row and one row per choice, using the columns
+ *     {@code reading, title, passage, difficulty, question, prompt, choice, correct}. Consecutive rows
+ *     with the same {@code reading} key form one reading; title, passage and difficulty are taken from
+ *     its first row. Consecutive rows with the same {@code question} key form one question.</li>
+ * </ul>
+ */
+public class ReadingImporter {
+    public static final int DEFAULT_READINGS_PER_TRANSACTION = 2_000;
+
+    // 200 rows of at most 7 columns stays well below SQLite's bound-parameter limit
+    private static final int ROWS_PER_STATEMENT = 200;
+
+    static final List<String> CSV_COLUMNS =
+            List.of("reading", "title", "passage", "difficulty", "question", "prompt", "choice", "correct");
+
+    private final SqliteConnectionPool pool;
+    private final int readingsPerTransaction;
+
+    /**
+     * Counts and timing of one import.
+     *
+     * @param readings readings inserted
+     * @param questions questions inserted
+     * @param choices choices inserted
+     * @param transactions transactions committed
+     * @param elapsedNanos wall-clock time of the whole import, parsing included
+     */
+    public record ImportReport(long readings, long questions, long choices, int transactions, long elapsedNanos) {
+        public long rows() {
+            return readings + questions + choices;
+        }
+
+        public double rowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows() * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "%d readings, %d questions, %d choices in %d transactions, %.2f s (%.0f rows/s)",
+                    readings, questions, choices, transactions, elapsedNanos / 1e9, rowsPerSecond());
+        }
+    }
+
+    public ReadingImporter(SqliteConnectionPool pool) {
+        this(pool, DEFAULT_READINGS_PER_TRANSACTION);
+    }
+
+    /**
+     * @param pool the pool whose writer the import borrows, once per transaction
+     * @param readingsPerTransaction how many readings to insert before committing
+     */
+    public ReadingImporter(SqliteConnectionPool pool, int readingsPerTransaction) {
+        if (readingsPerTransaction < 1) {
+            throw new IllegalArgumentException("readingsPerTransaction must be at least 1");
+        }
+        this.pool = Objects.requireNonNull(pool, "pool");
+        this.readingsPerTransaction = readingsPerTransaction;
+    }
+
+    /**
+     * Imports a file, choosing the format from its extension.
+     *
+     * @throws IllegalArgumentException if the extension is not .jsonl, .ndjson or .csv, or the content is malformed
+     */
+    public ImportReport importFile(Path file) throws IOException, SQLException {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+                return importJsonLines(reader);
+            }
+            if (name.endsWith(".csv")) {
+                return importCsv(reader);
+            }
+        }
+        throw new IllegalArgumentException("Unsupported import file " + file + ", expected .jsonl, .ndjson or .csv");
+    }
+
+    public ImportReport importJsonLines(Reader reader) throws IOException, SQLException {
+        try {
+            return importReadings(new JsonLinesReadings(reader));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public ImportReport importCsv(Reader reader) throws IOException, SQLException {
+        try {
+            return importReadings(new CsvReadings(reader));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Inserts every reading the iterator yields. Readings are pulled lazily, one at a time.
+     * If a transaction fails it is rolled back; readings committed by earlier transactions stay.
+     */
+    public ImportReport importReadings(Iterator<Reading> readings) throws SQLException {
+        long start = System.nanoTime();
+        long readingCount = 0;
+        long questionCount = 0;
+        long choiceCount = 0;
+        int transactions = 0;
+
+        while (readings.hasNext()) {
+            try (PooledConnection pc = pool.writer()) {
+                Connection connection = pc.connection();
+                connection.setAutoCommit(false);
+                try {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("PRAGMA defer_foreign_keys = ON");
+                    }
+                    PassageCompression passages = PassageCompression.load(connection);
+                    int nextReadingId = lastId(connection, "Readings", "reading_id") + 1;
+                    int nextQuestionId = lastId(connection, "Questions", "question_id") + 1;
+                    int nextChoiceId = lastId(connection, "Choices", "choice_id") + 1;
+
+                    MultiRowInsert questionRows = new MultiRowInsert(pc,
+                            "INSERT INTO Questions (question_id, reading_id, prompt) VALUES ", 3, null);
+                    // after its questions, so the search trigger indexes the reading with all its prompts at
+                    // once instead of rewriting its search row for every question. The count trigger on
+                    // Questions finds no reading row yet, so question_count is written here too.
+                    MultiRowInsert readingRows = new MultiRowInsert(pc,
+                            "INSERT INTO Readings (reading_id, title, content, content_codec, difficulty, passage_length, question_count) VALUES ",
+                            7, questionRows);
+                    MultiRowInsert choiceRows = new MultiRowInsert(pc,
+                            "INSERT INTO Choices (choice_id, question_id, choice_text, is_correct) VALUES ", 4, null);
+
+                    // the search trigger only sees the bytes of compressed passages, so they are indexed here
+                    Map<Integer, String> compressedPassages = new HashMap<>();
+
+                    for (int i = 0; i < readingsPerTransaction && readings.hasNext(); i++) {
+                        Reading reading = readings.next();
+                        int readingId = nextReadingId++;
+                        for (Question question : reading.questions()) {
+                            int questionId = nextQuestionId++;
+                            questionRows.add(questionId, readingId, question.prompt());
+                            questionCount++;
+                            for (Choice choice : question.choices()) {
+                                choiceRows.add(nextChoiceId++, questionId, choice.getChoiceText(),
+                                        choice.isCorrect() ? 1 : 0);
+                                choiceCount++;
+                            }
+                        }
+                        PassageCompression.Encoded content = passages.encode(reading.passage());
+                        readingRows.add(readingId, reading.title(), content.content(), content.codec(),
+                                reading.difficulty(), PassageCompression.length(reading.passage()),
+                                reading.questions().size());
+                        if (content.codec() != PassageCompression.PLAIN) {
+                            compressedPassages.put(readingId, reading.passage());
+                        }
+                        readingCount++;
+                    }
+                    questionRows.flush();
+                    readingRows.flush();
+                    choiceRows.flush();
+                    indexPassages(pc, compressedPassages);
+                    connection.commit();
+                    transactions++;
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            }
+        }
+
+        ImportReport report = new ImportReport(readingCount, questionCount, choiceCount, transactions,
+                System.nanoTime() - start);
+        System.out.println("Imported " + report);
+        return report;
+    }
+
+    private static void indexPassages(PooledConnection pc, Map<Integer, String> passages) throws SQLException {
+        if (passages.isEmpty()) {
+            return;
+        }
+        PreparedStatement ps = pc.prepare("UPDATE ReadingSearch SET passage = ? WHERE rowid = ?");
+        for (Map.Entry<Integer, String> entry : passages.entrySet()) {
+            ps.setString(1, entry.getValue());
+            ps.setInt(2, entry.getKey());
+            ps.addBatch();
+        }
+        ps.executeBatch();
+    }
+
+    /**
+     * @return the highest id the AUTOINCREMENT table has handed out, deleted rows included, so ids
+     * written explicitly are never reused. Inserting them moves sqlite_sequence on by itself.
+     */
+    static int lastId(Connection connection, String table, String idColumn) throws SQLException {
+        // sqlite_sequence has a row per table, so its scan is not worth caching the statement for
+        try (PreparedStatement ps = connection.prepareStatement("SELECT MAX(COALESCE(MAX(" + idColumn + "), 0), "
+                + "COALESCE((SELECT seq FROM sqlite_sequence WHERE name = ?), 0)) FROM " + table)) {
+            ps.setString(1, table);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Buffers rows for one table and writes them {@link #ROWS_PER_STATEMENT} at a time through a
+     * cached statement. Only the final, shorter statement of a transaction is prepared on the spot.
+     */
+    private static final class MultiRowInsert {
+        private final PooledConnection pc;
+        private final String prefix;
+        private final int columns;
+        private final MultiRowInsert after;
+        private final Object[] values;
+        private int rows;
+
+        /**
+         * @param after rows that must be written before any of these, or null
+         */
+        MultiRowInsert(PooledConnection pc, String prefix, int columns, MultiRowInsert after) {
+            this.pc = pc;
+            this.prefix = prefix;
+            this.columns = columns;
+            this.after = after;
+            this.values = new Object[ROWS_PER_STATEMENT * columns];
+        }
+
+        void add(Object... row) throws SQLException {
+            System.arraycopy(row, 0, values, rows * columns, columns);
+            if (++rows == ROWS_PER_STATEMENT) {
+                execute(pc.prepare(sql(ROWS_PER_STATEMENT)));
+            }
+        }
+
+        void flush() throws SQLException {
+            if (rows > 0) {
+                try (PreparedStatement ps = pc.connection().prepareStatement(sql(rows))) {
+                    execute(ps);
+                }
+            }
+        }
+
+        private void execute(PreparedStatement ps) throws SQLException {
+            if (after != null) {
+                after.flush();
+            }
+            for (int i = 0; i < rows * columns; i++) {
+                ps.setObject(i + 1, values[i]);
+            }
+            ps.executeUpdate();
+            rows = 0;
+        }
+
+        private String sql(int rowCount) {
+            String row = "(" + "?, ".repeat(columns - 1) + "?)";
+            StringBuilder sb = new StringBuilder(prefix.length() + rowCount * (row.length() + 2));
+            sb.append(prefix);
+            for (int i = 0; i < rowCount; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(row);
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Yields one reading per non-blank line of a JSON Lines stream.
+     */
+    private static final class JsonLinesReadings implements Iterator<Reading> {
+        private final BufferedReader reader;
+        private String nextLine;
+        private int lineNumber;
+
+        JsonLinesReadings(Reader reader) {
+            this.reader = reader instanceof BufferedReader br ? br : new BufferedReader(reader);
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (nextLine == null) {
+                    String line = reader.readLine();
+                    if (line == null) {
+                        return false;
+                    }
+                    lineNumber++;
+                    if (!line.isBlank()) {
+                        nextLine = line;
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Reading next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String line = nextLine;
+            nextLine = null;
+            try {
+                return toReading(JsonValueParser.parse(line));
+            } catch (IllegalArgumentException | ClassCastException | NullPointerException e) {
+                throw new IllegalArgumentException("Invalid reading on line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Reading toReading(Object json) {
+            Map<String, Object> object = (Map<String, Object>) json;
+            List<Question> questions = new ArrayList<>();
+            for (Object q : (List<Object>) object.getOrDefault("questions", List.of())) {
+                Map<String, Object> question = (Map<String, Object>) q;
+                List<Choice> choices = new ArrayList<>();
+                for (Object c : (List<Object>) question.getOrDefault("choices", List.of())) {
+                    Map<String, Object> choice = (Map<String, Object>) c;
+                    choices.add(new Choice(required(choice, "text"), Boolean.TRUE.equals(choice.get("correct"))));
+                }
+                questions.add(new Question(required(question, "prompt"), choices));
+            }
+            Object difficulty = object.get("difficulty");
+            return new Reading(null, required(object, "title"), required(object, "passage"), questions,
+                    difficulty == null ? 1 : ((Number) difficulty).intValue());
+        }
+
+        private static String required(Map<String, Object> object, String name) {
+            Object value = object.get(name);
+            if (!(value instanceof String s)) {
+                throw new IllegalArgumentException("missing string field '" + name + "'");
+            }
+            return s;
+        }
+    }
+
+    /**
+     * Groups consecutive CSV rows into readings, keeping only the reading being built in memory.
+     */
+    private static final class CsvReadings implements Iterator<Reading> {
+        private final CsvRecordReader records;
+        private final int[] columnIndex = new int[CSV_COLUMNS.size()];
+        private List<String> pending;
+
+        CsvReadings(Reader reader) {
+            this.records = new CsvRecordReader(reader);
+            List<String> header = records.next();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV import is empty, expected a header row " + CSV_COLUMNS);
+            }
+            Map<String, Integer> positions = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                positions.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            for (int i = 0; i < CSV_COLUMNS.size(); i++) {
+                Integer position = positions.get(CSV_COLUMNS.get(i));
+                if (position == null) {
+                    throw new IllegalArgumentException("CSV header is missing column '" + CSV_COLUMNS.get(i) + "'");
+                }
+                columnIndex[i] = position;
+            }
+            pending = records.next();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pending != null;
+        }
+
+        @Override
+        public Reading next() {
+            if (pending == null) {
+                throw new NoSuchElementException();
+            }
+            List<String> first = pending;
+            String readingKey = column(first, 0);
+            List<Question> questions = new ArrayList<>();
+            String questionKey = null;
+            String prompt = null;
+            List<Choice> choices = new ArrayList<>();
+
+            while (pending != null && column(pending, 0).equals(readingKey)) {
+                String rowQuestion = column(pending, 4);
+                if (!rowQuestion.isEmpty()) {
+                    if (!rowQuestion.equals(questionKey)) {
+                        if (questionKey != null) {
+                            questions.add(new Question(prompt, choices));
+                        }
+                        questionKey = rowQuestion;
+                        prompt = column(pending, 5);
+                        choices = new ArrayList<>();
+                    }
+                    String choiceText = column(pending, 6);
+                    if (!choiceText.isEmpty()) {
+                        choices.add(new Choice(choiceText, parseBoolean(column(pending, 7))));
+                    }
+                }
+                pending = records.next();
+            }
+            if (questionKey != null) {
+                questions.add(new Question(prompt, choices));
+            }
+
+            String difficulty = column(first, 3);
+            try {
+                return new Reading(null, column(first, 1), column(first, 2), questions,
+                        difficulty.isEmpty() ? 1 : Integer.parseInt(difficulty.trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid difficulty '" + difficulty + "' for reading " + readingKey, e);
+            }
+        }
+
+        private String column(List<String> record, int column) {
+            int index = columnIndex[column];
+            return index < record.size() ? record.get(index) : "";
+        }
+
+        private static boolean parseBoolean(String value) {
+            String v = value.trim().toLowerCase(Locale.ROOT);
+            return v.equals("true") || v.equals("1") || v.equals("yes") || v.equals("y");
+        }
+    }
+
+    /**
+     * Reads RFC 4180 records: fields may be quoted, quoted fields may contain commas, line breaks
+     * and doubled quotes.
+     */
+    private static final class CsvRecordReader {
+        private final Reader reader;
+
+        CsvRecordReader(Reader reader) {
+            this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+        }
+
+        /**
+         * @return the next record, or null at end of input; blank lines are skipped
+         */
+        List<String> next() {
+            try {
+                List<String> record = new ArrayList<>();
+                StringBuilder field = new StringBuilder();
+                boolean quoted = false;
+                boolean started = false;
+                int c;
+                while ((c = reader.read()) != -1) {
+                    if (quoted) {
+                        if (c == '"') {
+                            reader.mark(1);
+                            if (reader.read() == '"') {
+                                field.append('"');
+                            } else {
+                                reader.reset();
+                                quoted = false;
+                            }
+                        } else {
+                            field.append((char) c);
+                        }
+                    } else if (c == '"') {
+                        quoted = true;
+                        started = true;
+                    } else if (c == ',') {
+                        record.add(field.toString());
+                        field.setLength(0);
+                        started = true;
+                    } else if (c == '\n' || c == '\r') {
+                        if (c == '\r') {
+                            reader.mark(1);
+                            if (reader.read() != '\n') {
+                                reader.reset();
+                            }
+                        }
+                        if (!started) {
+                            continue; // blank line
+                        }
+                        record.add(field.toString());
+                        return record;
+                    } else {
+                        field.append((char) c);
+                        started = true;
+                    }
+                }
+                if (quoted) {
+                    throw new IllegalArgumentException("CSV import ends inside a quoted field");
+                }
+                if (!started) {
+                    return null;
+                }
+                record.add(field.toString());
+                return record;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Imports files into the configured database, e.g.
+     * {@code java ... com.example.demo.util.ReadingImporter readings.jsonl more.csv}.
+     */
+    public static void main(String[] args) throws IOException, SQLException {
+        if (args.length == 0) {
+            System.err.println("Usage: ReadingImporter <file.jsonl|file.csv>...");
+            return;
+        }
+        SqliteConnectionPool pool = SqliteConnection.getPool();
+        new SqliteReadRacerDAO(pool);
+        ReadingImporter importer = new ReadingImporter(pool);
+        for (String arg : args) {
+            importer.importFile(Path.of(arg));
+        }
+        System.out.println("Connection pool: " + pool.metrics());
+        SqliteConnection.close();
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.demo.util;
+
+import com.example.demo.model.Choice;
+import com.example.demo.model.Question;
+import com.example.demo.model.Reading;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A read-only reading corpus in a memory-mapped file, written by {@link ReadingPackWriter}.
+ * <p>
+ * Opening a pack only maps the file and checks its header, so it takes the same time and heap
+ * whatever the number of readings; the operating system pages content in as it is read. A reading
+ * is decoded from the mapping each time it is requested and is not kept afterwards.
+ * <p>
+ * Layout, all integers big-endian:
+ * <pre>
+ * header      int magic "RRPK", int version, int readingCount, int difficultyCount
+ * difficulty  difficultyCount x (int difficulty, int firstEntry, int entryCount), ascending
+ * index       readingCount x (int readingId, int dataOffset), by difficulty then reading id
+ * data        per reading: str title, str passage, int questionCount,
+ *             per question: str prompt, int choiceCount,
+ *             per choice: int choiceId, byte correct, str text
+ * </pre>
+ * where {@code str} is an int byte length followed by that many bytes of UTF-8. Data offsets are
+ * absolute, which limits a pack to 2 GiB.
+ * <p>
+ * Instances are safe for concurrent use: all reads are absolute and never move the buffer position.
+ */
+public final class ReadingPack implements ReadingSource, AutoCloseable {
+    static final int MAGIC = 0x5252504B; // "RRPK"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int DIFFICULTY_ENTRY_BYTES = 12;
+    static final int INDEX_ENTRY_BYTES = 8;
+    private static final int RANDOM_ATTEMPTS = 16;
+
+    private final Path file;
+    private final ByteBuffer buffer;
+    private final int readingCount;
+    private final int difficultyCount;
+    private final int indexStart;
+
+    private ReadingPack(Path file, ByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a reading pack");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException(file + " has unsupported reading pack version " + buffer.getInt(4));
+        }
+        this.readingCount = buffer.getInt(8);
+        this.difficultyCount = buffer.getInt(12);
+        this.indexStart = HEADER_BYTES + difficultyCount * DIFFICULTY_ENTRY_BYTES;
+        if ((long) indexStart + (long) readingCount * INDEX_ENTRY_BYTES > buffer.capacity()) {
+            throw new IOException(file + " is truncated");
+        }
+    }
+
+    /**
+     * Maps a pack file read-only.
+     *
+     * @throws IOException if the file cannot be mapped or is not a reading pack
+     */
+    public static ReadingPack open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is larger than 2 GiB");
+            }
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ReadingPack(file, mapped);
+        }
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    public int size() {
+        return readingCount;
+    }
+
+    @Override
+    public Reading getReading(int id) {
+        for (int d = 0; d < difficultyCount; d++) {
+            int entry = findInRange(id, firstEntry(d), entryCount(d));
+            if (entry >= 0) {
+                return decode(entry);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Picks uniformly among the matching readings: a few random probes into the index range of the
+     * requested difficulty, then a scan from a random start if the exclusions keep getting hit.
+     */
+    @Override
+    public Reading getRandomReading(Integer difficulty, Set<Integer> excludeIds) {
+        Objects.requireNonNull(excludeIds, "excludeIds");
+        int first = 0;
+        int count = readingCount;
+        if (difficulty != null) {
+            int d = findDifficulty(difficulty);
+            count = d < 0 ? 0 : entryCount(d);
+            first = d < 0 ? 0 : firstEntry(d);
+        }
+        if (count > 0) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int attempt = 0; attempt < RANDOM_ATTEMPTS; attempt++) {
+                int entry = first + random.nextInt(count);
+                if (!excludeIds.contains(idAt(entry))) {
+                    return decode(entry);
+                }
+            }
+            int start = random.nextInt(count);
+            for (int i = 0; i < count; i++) {
+                int entry = first + (start + i) % count;
+                if (!excludeIds.contains(idAt(entry))) {
+                    return decode(entry);
+                }
+            }
+        }
+        throw new RuntimeException("No readings found in reading pack " + file
+                + (difficulty == null ? "" : " with difficulty " + difficulty));
+    }
+
+    private int difficultyAt(int d) {
+        return buffer.getInt(HEADER_BYTES + d * DIFFICULTY_ENTRY_BYTES);
+    }
+
+    private int firstEntry(int d) {
+        return buffer.getInt(HEADER_BYTES + d * DIFFICULTY_ENTRY_BYTES + 4);
+    }
+
+    private int entryCount(int d) {
+        return buffer.getInt(HEADER_BYTES + d * DIFFICULTY_ENTRY_BYTES + 8);
+    }
+
+    private int idAt(int entry) {
+        return buffer.getInt(indexStart + entry * INDEX_ENTRY_BYTES);
+    }
+
+    private int offsetAt(int entry) {
+        return buffer.getInt(indexStart + entry * INDEX_ENTRY_BYTES + 4);
+    }
+
+    private int findDifficulty(int difficulty) {
+        for (int d = 0; d < difficultyCount; d++) {
+            if (difficultyAt(d) == difficulty) {
+                return d;
+            }
+        }
+        return -1;
+    }
+
+    // binary search over the ids of one difficulty, which are ascending
+    private int findInRange(int id, int first, int count) {
+        int low = first;
+        int high = first + count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = idAt(mid);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private int difficultyOfEntry(int entry) {
+        for (int d = 0; d < difficultyCount; d++) {
+            if (entry < firstEntry(d) + entryCount(d)) {
+                return difficultyAt(d);
+            }
+        }
+        throw new IllegalStateException("Index entry " + entry + " is outside every difficulty range");
+    }
+
+    private Reading decode(int entry) {
+        Cursor in = new Cursor(offsetAt(entry));
+        String title = in.string();
+        String passage = in.string();
+        int questionCount = in.integer();
+        List<Question> questions = new ArrayList<>(questionCount);
+        for (int q = 0; q < questionCount; q++) {
+            String prompt = in.string();
+            int choiceCount = in.integer();
+            List<Choice> choices = new ArrayList<>(choiceCount);
+            for (int c = 0; c < choiceCount; c++) {
+                int choiceId = in.integer();
+                boolean correct = buffer.get(in.position++) != 0;
+                choices.add(new Choice(choiceId, in.string(), correct));
+            }
+            questions.add(new Question(prompt, choices));
+        }
+        return new Reading(idAt(entry), title, passage, questions, difficultyOfEntry(entry));
+    }
+
+    /**
+     * Nothing to release explicitly: the mapping is unmapped once the pack is garbage collected.
+     */
+    @Override
+    public void close() {
+    }
+
+    /**
+     * A read position into the shared buffer, local to one decode.
+     */
+    private final class Cursor {
+        int position;
+
+        Cursor(int position) {
+            this.position = position;
+        }
+
+        int integer() {
+            int value = buffer.getInt(position);
+            position += 4;
+            return value;
+        }
+
+        String string() {
+            int length = integer();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(position, bytes);
+            position += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
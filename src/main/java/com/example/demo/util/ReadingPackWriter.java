@@ -0,0 +1,290 @@
+package com.example.demo.util;
+
+import com.example.demo.util.SqliteConnectionPool.PooledConnection;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Exports the Readings, Questions and Choices tables to a {@link ReadingPack} file.
+ * <p>
+ * Readings and their question/choice rows are read with two cursors in reading id order and merged,
+ * so memory use is a few ints per reading. Passages are written to a temporary data file first; the
+ * header and index, which need the final counts, are written in front of it once all rows are read.
+ * The pack replaces the target file atomically.
+ */
+public final class ReadingPackWriter {
+    private final SqliteConnectionPool pool;
+
+    /**
+     * @param readings number of readings written
+     * @param bytes size of the pack file
+     */
+    public record ExportReport(int readings, int questions, int choices, long bytes, long elapsedNanos) {
+    }
+
+    public ReadingPackWriter(SqliteConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Writes every reading in the database to {@code target}.
+     *
+     * @throws IOException if the pack cannot be written or would exceed 2 GiB
+     */
+    public ExportReport export(Path target) throws IOException, SQLException {
+        long start = System.nanoTime();
+        Path data = Files.createTempFile(target.toAbsolutePath().getParent(), "readings", ".data");
+        try {
+            Index index = new Index();
+            int[] counts;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(data), 1 << 16))) {
+                counts = writeData(out, index);
+            }
+            Path pack = Files.createTempFile(target.toAbsolutePath().getParent(), "readings", ".pack");
+            try {
+                writePack(pack, data, index);
+                Files.move(pack, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(pack);
+            }
+            ExportReport report = new ExportReport(index.size, counts[0], counts[1], Files.size(target),
+                    System.nanoTime() - start);
+            System.out.println("Exported " + report.readings() + " readings to " + target + " ("
+                    + report.bytes() + " bytes) in " + report.elapsedNanos() / 1_000_000 + " ms");
+            return report;
+        } finally {
+            Files.deleteIfExists(data);
+        }
+    }
+
+    /**
+     * Streams every reading into the data section and notes its id, difficulty and offset.
+     * Full scans on purpose, so they bypass the statement cache.
+     *
+     * @return the number of questions and choices written
+     */
+    private int[] writeData(DataOutputStream out, Index index) throws IOException, SQLException {
+        int questions = 0;
+        int choices = 0;
+        try (PooledConnection pc = pool.reader();
+             Statement readingStmt = pc.connection().createStatement();
+             Statement questionStmt = pc.connection().createStatement();
+             ResultSet readingRows = readingStmt.executeQuery(
+                     "SELECT reading_id, title, content, content_codec, difficulty FROM Readings ORDER BY reading_id");
+             ResultSet questionRows = questionStmt.executeQuery(
+                     "SELECT q.reading_id, q.question_id, q.prompt, c.choice_id, c.choice_text, c.is_correct"
+                             + " FROM Questions q LEFT JOIN Choices c ON c.question_id = q.question_id"
+                             + " ORDER BY q.reading_id, q.question_id, c.choice_id")) {
+            PassageCompression passages = PassageCompression.load(pc.connection());
+            boolean questionRow = questionRows.next();
+            while (readingRows.next()) {
+                int readingId = readingRows.getInt("reading_id");
+                index.add(readingId, readingRows.getInt("difficulty"), out.size());
+                writeString(out, readingRows.getString("title"));
+                writeString(out, passages.decode(pc.connection(), readingRows.getInt("content_codec"),
+                        readingRows, "content"));
+
+                // questions of readings that no longer exist sort before this one; skip them
+                while (questionRow && questionRows.getInt("reading_id") < readingId) {
+                    questionRow = questionRows.next();
+                }
+                QuestionBuffer buffer = new QuestionBuffer();
+                while (questionRow && questionRows.getInt("reading_id") == readingId) {
+                    int questionId = questionRows.getInt("question_id");
+                    buffer.startQuestion(questionRows.getString("prompt"));
+                    while (questionRow && questionRows.getInt("question_id") == questionId) {
+                        int choiceId = questionRows.getInt("choice_id");
+                        if (!questionRows.wasNull()) {
+                            buffer.addChoice(choiceId, questionRows.getBoolean("is_correct"),
+                                    questionRows.getString("choice_text"));
+                            choices++;
+                        }
+                        questionRow = questionRows.next();
+                    }
+                    questions++;
+                }
+                buffer.writeTo(out);
+            }
+        }
+        return new int[]{questions, choices};
+    }
+
+    private void writePack(Path pack, Path data, Index index) throws IOException {
+        index.sortByDifficulty();
+        Map<Integer, int[]> ranges = index.difficultyRanges();
+        // also guards the data offsets, which DataOutputStream.size() stops counting at 2 GiB
+        long headerBytes = ReadingPack.HEADER_BYTES + (long) ranges.size() * ReadingPack.DIFFICULTY_ENTRY_BYTES
+                + (long) index.size * ReadingPack.INDEX_ENTRY_BYTES;
+        if (headerBytes + Files.size(data) > Integer.MAX_VALUE) {
+            throw new IOException("Reading pack would exceed 2 GiB");
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(pack), 1 << 16))) {
+            out.writeInt(ReadingPack.MAGIC);
+            out.writeInt(ReadingPack.VERSION);
+            out.writeInt(index.size);
+            out.writeInt(ranges.size());
+            for (Map.Entry<Integer, int[]> range : ranges.entrySet()) {
+                out.writeInt(range.getKey());
+                out.writeInt(range.getValue()[0]);
+                out.writeInt(range.getValue()[1]);
+            }
+            for (int i = 0; i < index.size; i++) {
+                out.writeInt(index.ids[i]);
+                out.writeInt((int) (headerBytes + index.offsets[i]));
+            }
+        }
+        try (FileChannel from = FileChannel.open(data, StandardOpenOption.READ);
+             FileChannel to = FileChannel.open(pack, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long position = 0;
+            while (position < from.size()) {
+                position += from.transferTo(position, from.size() - position, to);
+            }
+            to.force(true);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * The question count precedes the questions in the pack, so one reading's questions are
+     * encoded into memory until it is complete.
+     */
+    private static final class QuestionBuffer {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private int questions;
+        // the choice count of the open question is patched in when the question ends
+        private ByteArrayOutputStream choiceBytes;
+        private DataOutputStream choiceOut;
+        private int choices;
+
+        void startQuestion(String prompt) throws IOException {
+            endQuestion();
+            writeString(out, prompt);
+            choiceBytes = new ByteArrayOutputStream();
+            choiceOut = new DataOutputStream(choiceBytes);
+            choices = 0;
+            questions++;
+        }
+
+        void addChoice(int choiceId, boolean correct, String text) throws IOException {
+            choiceOut.writeInt(choiceId);
+            choiceOut.writeByte(correct ? 1 : 0);
+            writeString(choiceOut, text);
+            choices++;
+        }
+
+        private void endQuestion() throws IOException {
+            if (choiceBytes != null) {
+                out.writeInt(choices);
+                choiceBytes.writeTo(out);
+                choiceBytes = null;
+            }
+        }
+
+        void writeTo(DataOutputStream target) throws IOException {
+            endQuestion();
+            target.writeInt(questions);
+            bytes.writeTo(target);
+        }
+    }
+
+    /**
+     * Parallel arrays of reading id, difficulty and data offset, sorted into pack order at the end.
+     */
+    private static final class Index {
+        int[] ids = new int[1024];
+        int[] difficulties = new int[1024];
+        int[] offsets = new int[1024];
+        int size;
+
+        void add(int id, int difficulty, int offset) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                difficulties = Arrays.copyOf(difficulties, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            ids[size] = id;
+            difficulties[size] = difficulty;
+            offsets[size] = offset;
+            size++;
+        }
+
+        /**
+         * Entries arrive in id order; sorting by (difficulty, arrival) keeps ids ascending within each difficulty.
+         */
+        void sortByDifficulty() {
+            // difficulty in the high half, arrival position in the low half
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = ((long) difficulties[i] << 32) | i;
+            }
+            Arrays.sort(keys);
+            int[] sortedIds = new int[size];
+            int[] sortedDifficulties = new int[size];
+            int[] sortedOffsets = new int[size];
+            for (int i = 0; i < size; i++) {
+                int from = (int) keys[i];
+                sortedIds[i] = ids[from];
+                sortedDifficulties[i] = difficulties[from];
+                sortedOffsets[i] = offsets[from];
+            }
+            ids = sortedIds;
+            difficulties = sortedDifficulties;
+            offsets = sortedOffsets;
+        }
+
+        /**
+         * @return difficulty to {first entry, entry count}, ascending by difficulty
+         */
+        Map<Integer, int[]> difficultyRanges() {
+            Map<Integer, int[]> ranges = new TreeMap<>();
+            for (int i = 0; i < size; i++) {
+                ranges.computeIfAbsent(difficulties[i], d -> new int[2])[1]++;
+            }
+            int first = 0;
+            for (int[] range : ranges.values()) {
+                range[0] = first;
+                first += range[1];
+            }
+            return ranges;
+        }
+    }
+
+    /**
+     * Exports the configured database ({@code readracer.db.file}) to the given pack file.
+     */
+    public static void main(String[] args) throws IOException, SQLException {
+        if (args.length != 1) {
+            System.err.println("Usage: ReadingPackWriter <target.pack>");
+            return;
+        }
+        SqliteConnectionPool pool = SqliteConnection.getPool();
+        new SqliteReadRacerDAO(pool);
+        new ReadingPackWriter(pool).export(Path.of(args[0]));
+        SqliteConnection.close();
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.demo.util;
+
+import com.example.demo.model.Reading;
+
+import java.util.Set;
+
+/**
+ * Where the game gets its reading content from: the SQLite database through
+ * {@link SqliteReadRacerDAO}, or a read-only {@link ReadingPack}.
+ */
+public interface ReadingSource {
+    /**
+     * @return the reading with its questions and choices, or null if there is none with this id
+     */
+    Reading getReading(int id);
+
+    /**
+     * @param difficulty only pick readings of this difficulty, or null for any
+     * @param excludeIds reading ids to skip, e.g. the reading just played
+     * @throws RuntimeException if no reading matches
+     */
+    Reading getRandomReading(Integer difficulty, Set<Integer> excludeIds);
+}
@@ -0,0 +1,78 @@
+package com.example.demo.util;
+
+import com.example.demo.model.Choice;
+import com.example.demo.model.Question;
+import com.example.demo.model.Reading;
+import com.example.demo.model.ReadingFilter;
+import com.example.demo.model.ReadingSummary;
+import com.example.demo.model.SearchResult;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Readings with their questions and choices.
+ * <p>
+ * Readings returned by a store may be shared with other callers and must not be modified.
+ */
+public interface ReadingStore extends ReadingSource {
+    /**
+     * @return the readings found, ordered by reading id; ids that do not exist are skipped
+     */
+    List<Reading> getReadings(Collection<Integer> ids);
+
+    /**
+     * Lists readings without their passages, questions or choices, in reading id order.
+     *
+     * @param afterId the id of the last reading on the previous page, or 0 for the first page
+     * @param limit the most readings to return, at least 1
+     * @return up to {@code limit} summaries with ids above {@code afterId}; fewer means the last page
+     */
+    List<ReadingSummary> listReadings(int afterId, int limit, ReadingFilter filter);
+
+    /**
+     * Finds readings whose title, passage or question prompts contain every word of {@code query}.
+     * Readings with every word in their title come first, then the others, each group best match
+     * first. A match in the title counts most, then one in a prompt. A store may rank only the
+     * newest matches of a large group and list the rest newest first; every match is still
+     * returned once across the pages.
+     *
+     * @param query words to look for; punctuation is ignored
+     * @param offset the number of matches to skip, for later pages
+     * @param limit the most matches to return, at least 1
+     * @return the matches with a snippet of the text around each; empty if the query has no words
+     */
+    List<SearchResult> searchReadings(String query, int offset, int limit);
+
+    /**
+     * @throws RuntimeException if there are no readings
+     */
+    Reading getRandomReading();
+
+    /**
+     * Adds a reading without its questions, which are added with {@link #addQuestion}.
+     *
+     * @return the reading with its generated id
+     */
+    Reading addReading(Reading reading) throws SQLException;
+
+    /**
+     * Deletes a reading together with its questions, choices and attempts.
+     *
+     * @return true if a reading was deleted
+     */
+    boolean deleteReading(int readingId) throws SQLException;
+
+    void addQuestion(int readingId, Question question) throws SQLException;
+
+    /**
+     * @return the reading's questions with their choices, ordered by question id
+     */
+    List<Question> getQuestions(int readingId);
+
+    /**
+     * @return the question's choices, ordered by choice id
+     */
+    List<Choice> getChoices(int questionId) throws SQLException;
+}
@@ -0,0 +1,432 @@
+package com.example.demo.util;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Brings the database schema up to date with numbered migrations.
+ * <p>
+ * The current schema version is kept in {@code PRAGMA user_version}. Pending migrations are applied
+ * in order inside one transaction together with the version bump, so a failed migration leaves the
+ * database exactly as it was. A database that is already current costs a single pragma read.
+ * <p>
+ * Never edit a migration once it has shipped; append a new one instead.
+ */
+public final class SchemaMigrator {
+
+    /**
+     * One schema change.
+     *
+     * @param version the user_version the database has after this migration
+     * @param description a short description, logged when the migration is applied
+     * @param statements the SQL statements to run, in order
+     */
+    public record Migration(int version, String description, List<String> statements) {
+    }
+
+    static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "create base tables", List.of(
+                    """
+                    CREATE TABLE IF NOT EXISTS Readings (
+                        reading_id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        title VARCHAR NOT NULL,
+                        content VARCHAR NOT NULL,
+                        difficulty INT NOT NULL
+                    )""",
+                    """
+                    CREATE TABLE IF NOT EXISTS Questions (
+                        question_id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        reading_id INT NOT NULL,
+                        prompt VARCHAR NOT NULL,
+                        FOREIGN KEY (reading_id) REFERENCES Readings(reading_id) ON DELETE CASCADE
+                    )""",
+                    """
+                    CREATE TABLE IF NOT EXISTS Choices (
+                        choice_id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        question_id INT NOT NULL,
+                        choice_text VARCHAR NOT NULL,
+                        is_correct BOOLEAN,
+                        FOREIGN KEY (question_id) REFERENCES Questions(question_id) ON DELETE CASCADE
+                    )""",
+                    """
+                    CREATE TABLE IF NOT EXISTS Users (
+                        user_id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        username VARCHAR NOT NULL,
+                        email VARCHAR NOT NULL,
+                        password BLOB NOT NULL,
+                        salt BLOB NOT NULL
+                    )""",
+                    """
+                    CREATE TABLE IF NOT EXISTS UserAttempts (
+                        attempt_id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        user_id INT NOT NULL,
+                        reading_id INT NOT NULL,
+                        score INT NOT NULL,
+                        FOREIGN KEY (user_id) REFERENCES Users(user_id) ON DELETE CASCADE,
+                        FOREIGN KEY (reading_id) REFERENCES Readings(reading_id) ON DELETE CASCADE
+                    )"""
+            )),
+            // Questions by reading, choices by question, users by username or email (both unique),
+            // attempts by reading/user/score for the leaderboard and by user for ON DELETE CASCADE.
+            new Migration(2, "add lookup indexes", List.of(
+                    "CREATE INDEX IF NOT EXISTS idx_questions_reading ON Questions (reading_id, question_id)",
+                    "CREATE INDEX IF NOT EXISTS idx_choices_question ON Choices (question_id, choice_id)",
+                    "CREATE UNIQUE INDEX IF NOT EXISTS ux_users_username ON Users (username)",
+                    "CREATE UNIQUE INDEX IF NOT EXISTS ux_users_email ON Users (email)",
+                    "CREATE INDEX IF NOT EXISTS idx_attempts_reading_user_score ON UserAttempts (reading_id, user_id, score)",
+                    "CREATE INDEX IF NOT EXISTS idx_attempts_user ON UserAttempts (user_id)"
+            )),
+            // Each user's best attempt per reading, kept current by a trigger so the leaderboard is an
+            // index range read. Ties keep the earliest attempt. Backfilled from the existing history.
+            new Migration(3, "add best score table", List.of(
+                    """
+                    CREATE TABLE IF NOT EXISTS BestScores (
+                        reading_id INT NOT NULL,
+                        user_id INT NOT NULL,
+                        score INT NOT NULL,
+                        attempt_id INT NOT NULL,
+                        PRIMARY KEY (reading_id, user_id),
+                        FOREIGN KEY (user_id) REFERENCES Users(user_id) ON DELETE CASCADE,
+                        FOREIGN KEY (reading_id) REFERENCES Readings(reading_id) ON DELETE CASCADE
+                    ) WITHOUT ROWID""",
+                    "CREATE INDEX IF NOT EXISTS idx_best_scores_board ON BestScores (reading_id, score DESC, attempt_id)",
+                    "CREATE INDEX IF NOT EXISTS idx_best_scores_user ON BestScores (user_id)",
+                    """
+                    CREATE TRIGGER IF NOT EXISTS trg_attempts_best_score AFTER INSERT ON UserAttempts
+                    BEGIN
+                        INSERT INTO BestScores (reading_id, user_id, score, attempt_id)
+                        VALUES (NEW.reading_id, NEW.user_id, NEW.score, NEW.attempt_id)
+                        ON CONFLICT (reading_id, user_id) DO UPDATE
+                            SET score = excluded.score, attempt_id = excluded.attempt_id
+                            WHERE excluded.score > BestScores.score;
+                    END""",
+                    """
+                    INSERT INTO BestScores (reading_id, user_id, score, attempt_id)
+                    SELECT reading_id, user_id, score, attempt_id FROM (
+                        SELECT reading_id, user_id, score, attempt_id, ROW_NUMBER() OVER (
+                            PARTITION BY reading_id, user_id ORDER BY score DESC, attempt_id) AS best_rank
+                        FROM UserAttempts)
+                    WHERE best_rank = 1"""
+            )),
+            // Per-user totals for the profile screen, kept current by triggers so reading them is one
+            // primary-key lookup. Attempts now record when they were made (unix seconds) so the daily
+            // streak can be counted in local days; attempts from before this migration have no time
+            // and do not start a streak.
+            new Migration(4, "add user stats rollup", List.of(
+                    "ALTER TABLE UserAttempts ADD COLUMN created_at INTEGER",
+                    """
+                    CREATE TABLE IF NOT EXISTS UserStats (
+                        user_id INTEGER PRIMARY KEY,
+                        attempts INT NOT NULL,
+                        total_score INT NOT NULL,
+                        best_score INT NOT NULL,
+                        last_score INT NOT NULL,
+                        last_attempt_id INT NOT NULL,
+                        readings_completed INT NOT NULL,
+                        last_played_day INT,
+                        streak_days INT NOT NULL,
+                        FOREIGN KEY (user_id) REFERENCES Users(user_id) ON DELETE CASCADE
+                    )""",
+                    """
+                    CREATE TRIGGER IF NOT EXISTS trg_attempts_user_stats AFTER INSERT ON UserAttempts
+                    BEGIN
+                        INSERT INTO UserStats (user_id, attempts, total_score, best_score, last_score, last_attempt_id,
+                                               readings_completed, last_played_day, streak_days)
+                        VALUES (NEW.user_id, 1, NEW.score, NEW.score, NEW.score, NEW.attempt_id, 1,
+                                CAST(julianday(COALESCE(NEW.created_at, unixepoch()), 'unixepoch', 'localtime') + 0.5 AS INTEGER), 1)
+                        ON CONFLICT (user_id) DO UPDATE SET
+                            attempts = attempts + 1,
+                            total_score = total_score + excluded.total_score,
+                            best_score = MAX(best_score, excluded.best_score),
+                            last_score = excluded.last_score,
+                            last_attempt_id = excluded.last_attempt_id,
+                            readings_completed = readings_completed + NOT EXISTS (
+                                SELECT 1 FROM UserAttempts
+                                WHERE reading_id = NEW.reading_id AND user_id = NEW.user_id
+                                  AND attempt_id <> NEW.attempt_id),
+                            streak_days = CASE
+                                WHEN last_played_day IS NULL OR excluded.last_played_day > last_played_day + 1 THEN 1
+                                WHEN excluded.last_played_day = last_played_day + 1 THEN streak_days + 1
+                                ELSE streak_days END,
+                            last_played_day = MAX(COALESCE(last_played_day, 0), excluded.last_played_day);
+                    END""",
+                    // Deleting a reading cascades to its attempts; take them back out of the totals.
+                    // The streak is left alone since the days played did happen.
+                    """
+                    CREATE TRIGGER IF NOT EXISTS trg_attempts_user_stats_delete AFTER DELETE ON UserAttempts
+                    BEGIN
+                        UPDATE UserStats SET
+                            attempts = attempts - 1,
+                            total_score = total_score - OLD.score,
+                            best_score = CASE WHEN OLD.score < best_score THEN best_score
+                                ELSE COALESCE((SELECT MAX(score) FROM UserAttempts WHERE user_id = OLD.user_id), 0) END,
+                            last_attempt_id = CASE WHEN OLD.attempt_id <> last_attempt_id THEN last_attempt_id
+                                ELSE COALESCE((SELECT MAX(attempt_id) FROM UserAttempts WHERE user_id = OLD.user_id), 0) END,
+                            last_score = CASE WHEN OLD.attempt_id <> last_attempt_id THEN last_score
+                                ELSE COALESCE((SELECT score FROM UserAttempts WHERE user_id = OLD.user_id
+                                               ORDER BY attempt_id DESC LIMIT 1), 0) END,
+                            readings_completed = readings_completed - NOT EXISTS (
+                                SELECT 1 FROM UserAttempts WHERE reading_id = OLD.reading_id AND user_id = OLD.user_id)
+                        WHERE user_id = OLD.user_id;
+                        DELETE FROM UserStats WHERE user_id = OLD.user_id AND attempts = 0;
+                    END""",
+                    """
+                    INSERT INTO UserStats (user_id, attempts, total_score, best_score, last_score, last_attempt_id,
+                                           readings_completed, last_played_day, streak_days)
+                    SELECT user_id, COUNT(*), SUM(score), MAX(score),
+                           (SELECT l.score FROM UserAttempts l WHERE l.user_id = a.user_id ORDER BY l.attempt_id DESC LIMIT 1),
+                           MAX(attempt_id), COUNT(DISTINCT reading_id), NULL, 0
+                    FROM UserAttempts a
+                    GROUP BY user_id"""
+            )),
+            // Passages may be stored compressed: content_codec 0 keeps content as text, any other value
+            // is the PassageDictionaries row its zlib BLOB was compressed with, see PassageCompression.
+            // Dictionaries are only ever added or deactivated, so every compressed row stays readable.
+            new Migration(5, "add passage compression", List.of(
+                    "ALTER TABLE Readings ADD COLUMN content_codec INTEGER NOT NULL DEFAULT 0",
+                    """
+                    CREATE TABLE IF NOT EXISTS PassageDictionaries (
+                        dictionary_id INTEGER PRIMARY KEY,
+                        dictionary BLOB NOT NULL,
+                        active INTEGER NOT NULL DEFAULT 1,
+                        created_at INTEGER NOT NULL DEFAULT (unixepoch())
+                    )"""
+            )),
+            // Reading catalogue: question counts kept current by triggers, so listing readings never
+            // touches Questions or Choices. Passage lengths are written by the application since the
+            // passage may be compressed; rows migrated while compressed stay NULL until the DAO
+            // measures them, which the partial index finds without a scan.
+            new Migration(6, "add reading catalogue columns", List.of(
+                    "ALTER TABLE Readings ADD COLUMN passage_length INTEGER",
+                    "ALTER TABLE Readings ADD COLUMN question_count INTEGER NOT NULL DEFAULT 0",
+                    "CREATE INDEX IF NOT EXISTS idx_readings_difficulty ON Readings (difficulty, reading_id)",
+                    "CREATE INDEX IF NOT EXISTS idx_readings_unmeasured ON Readings (reading_id) WHERE passage_length IS NULL",
+                    """
+                    CREATE TRIGGER IF NOT EXISTS trg_questions_count AFTER INSERT ON Questions
+                    BEGIN
+                        UPDATE Readings SET question_count = question_count + 1 WHERE reading_id = NEW.reading_id;
+                    END""",
+                    """
+                    CREATE TRIGGER IF NOT EXISTS trg_questions_count_delete AFTER DELETE ON Questions
+                    BEGIN
+                        UPDATE Readings SET question_count = question_count - 1 WHERE reading_id = OLD.reading_id;
+                    END""",
+                    """
+                    UPDATE Readings SET
+                        question_count = (SELECT COUNT(*) FROM Questions q WHERE q.reading_id = Readings.reading_id),
+                        passage_length = CASE WHEN content_codec = 0 THEN length(content) END"""
+            )),
+            // Full-text search over titles, passages and question prompts, ranked by bm25 with a title
+            // match worth most. Triggers keep it in step with Readings and Questions. A compressed
+            // passage cannot be read by SQL, so its text is written by the application instead; the
+            // passage lengths of compressed rows are cleared so the DAO revisits them on start.
+            new Migration(7, "add reading search", List.of(
+                    """
+                    CREATE VIRTUAL TABLE IF NOT EXISTS ReadingSearch USING fts5(
+                        title, passage, prompts,
+                        tokenize = 'porter unicode61 remove_diacritics 2'
+                    )""",
+                    "INSERT INTO ReadingSearch (ReadingSearch, rank) VALUES ('rank', 'bm25(10.0, 1.0, 2.0)')",
+                    """
+                    CREATE TRIGGER IF NOT EXISTS trg_readings_search AFTER INSERT ON Readings
+                    BEGIN
+                        INSERT INTO ReadingSearch (rowid, title, passage, prompts)
+                        VALUES (NEW.reading_id, NEW.title, CASE WHEN NEW.content_codec = 0 THEN NEW.content ELSE '' END,
+                                COALESCE((SELECT group_concat(prompt, char(10)) FROM Questions
+                                          WHERE reading_id = NEW.reading_id), ''));
+                    END""",
+                    """
+                    CREATE TRIGGER IF NOT EXISTS trg_readings_search_update AFTER UPDATE OF title, content ON Readings
+                    WHEN NEW.title IS NOT OLD.title OR (NEW.content_codec = 0 AND NEW.content IS NOT OLD.content)
+                    BEGIN
+                        UPDATE ReadingSearch SET
+                            title = NEW.title,
+                            passage = CASE WHEN NEW.content_codec = 0 THEN NEW.content ELSE passage END
+                        WHERE rowid = NEW.reading_id;
+                    END""",
+                    """
+                    CREATE TRIGGER IF NOT EXISTS trg_readings_search_delete AFTER DELETE ON Readings
+                    BEGIN
+                        DELETE FROM ReadingSearch WHERE rowid = OLD.reading_id;
+                    END""",
+                    """
+                    CREATE TRIGGER IF NOT EXISTS trg_questions_search AFTER INSERT ON Questions
+                    BEGIN
+                        UPDATE ReadingSearch SET
+                            prompts = CASE WHEN prompts = '' THEN NEW.prompt ELSE prompts || char(10) || NEW.prompt END
+                        WHERE rowid = NEW.reading_id;
+                    END""",
+                    """
+                    CREATE TRIGGER IF NOT EXISTS trg_questions_search_delete AFTER DELETE ON Questions
+                    BEGIN
+                        UPDATE ReadingSearch SET
+                            prompts = COALESCE((SELECT group_concat(prompt, char(10)) FROM Questions
+                                                WHERE reading_id = OLD.reading_id), '')
+                        WHERE rowid = OLD.reading_id;
+                    END""",
+                    """
+                    INSERT INTO ReadingSearch (rowid, title, passage, prompts)
+                    SELECT reading_id, title, CASE WHEN content_codec = 0 THEN content ELSE '' END,
+                           COALESCE((SELECT group_concat(prompt, char(10)) FROM Questions q
+                                     WHERE q.reading_id = r.reading_id), '')
+                    FROM Readings r""",
+                    "UPDATE Readings SET passage_length = NULL WHERE content_codec <> 0"
+            )),
+            // Attempts older than a horizon are moved out to yearly archive files by AttemptArchiver,
+            // leaving per-day totals for each user and reading behind in AttemptRollups. Archiving must
+            // not touch the user stats, so the delete trigger is skipped while AttemptArchiving has a
+            // row, which it only has inside the archiver's own transaction. A user's earlier plays of a
+            // reading may now be archived, so the insert trigger looks for them in the rollups too.
+            new Migration(8, "add attempt archive rollups", List.of(
+                    "CREATE INDEX IF NOT EXISTS idx_attempts_created ON UserAttempts (created_at)",
+                    """
+                    CREATE TABLE IF NOT EXISTS AttemptRollups (
+                        reading_id INT NOT NULL,
+                        user_id INT NOT NULL,
+                        day TEXT NOT NULL,
+                        attempts INT NOT NULL,
+                        total_score INT NOT NULL,
+                        best_score INT NOT NULL,
+                        PRIMARY KEY (reading_id, user_id, day),
+                        FOREIGN KEY (user_id) REFERENCES Users(user_id) ON DELETE CASCADE,
+                        FOREIGN KEY (reading_id) REFERENCES Readings(reading_id) ON DELETE CASCADE
+                    ) WITHOUT ROWID""",
+                    "CREATE INDEX IF NOT EXISTS idx_attempt_rollups_user ON AttemptRollups (user_id)",
+                    "CREATE INDEX IF NOT EXISTS idx_attempt_rollups_day ON AttemptRollups (day)",
+                    "CREATE TABLE IF NOT EXISTS AttemptArchiving (started_at INTEGER NOT NULL)",
+                    "DROP TRIGGER IF EXISTS trg_attempts_user_stats",
+                    """
+                    CREATE TRIGGER trg_attempts_user_stats AFTER INSERT ON UserAttempts
+                    BEGIN
+                        INSERT INTO UserStats (user_id, attempts, total_score, best_score, last_score, last_attempt_id,
+                                               readings_completed, last_played_day, streak_days)
+                        VALUES (NEW.user_id, 1, NEW.score, NEW.score, NEW.score, NEW.attempt_id, 1,
+                                CAST(julianday(COALESCE(NEW.created_at, unixepoch()), 'unixepoch', 'localtime') + 0.5 AS INTEGER), 1)
+                        ON CONFLICT (user_id) DO UPDATE SET
+                            attempts = attempts + 1,
+                            total_score = total_score + excluded.total_score,
+                            best_score = MAX(best_score, excluded.best_score),
+                            last_score = excluded.last_score,
+                            last_attempt_id = excluded.last_attempt_id,
+                            readings_completed = readings_completed + (NOT EXISTS (
+                                SELECT 1 FROM UserAttempts
+                                WHERE reading_id = NEW.reading_id AND user_id = NEW.user_id
+                                  AND attempt_id <> NEW.attempt_id) AND NOT EXISTS (
+                                SELECT 1 FROM AttemptRollups
+                                WHERE reading_id = NEW.reading_id AND user_id = NEW.user_id)),
+                            streak_days = CASE
+                                WHEN last_played_day IS NULL OR excluded.last_played_day > last_played_day + 1 THEN 1
+                                WHEN excluded.last_played_day = last_played_day + 1 THEN streak_days + 1
+                                ELSE streak_days END,
+                            last_played_day = MAX(COALESCE(last_played_day, 0), excluded.last_played_day);
+                    END""",
+                    "DROP TRIGGER IF EXISTS trg_attempts_user_stats_delete",
+                    """
+                    CREATE TRIGGER trg_attempts_user_stats_delete AFTER DELETE ON UserAttempts
+                    WHEN NOT EXISTS (SELECT 1 FROM AttemptArchiving)
+                    BEGIN
+                        UPDATE UserStats SET
+                            attempts = attempts - 1,
+                            total_score = total_score - OLD.score,
+                            best_score = CASE WHEN OLD.score < best_score THEN best_score
+                                ELSE COALESCE((SELECT MAX(score) FROM UserAttempts WHERE user_id = OLD.user_id), 0) END,
+                            last_attempt_id = CASE WHEN OLD.attempt_id <> last_attempt_id THEN last_attempt_id
+                                ELSE COALESCE((SELECT MAX(attempt_id) FROM UserAttempts WHERE user_id = OLD.user_id), 0) END,
+                            last_score = CASE WHEN OLD.attempt_id <> last_attempt_id THEN last_score
+                                ELSE COALESCE((SELECT score FROM UserAttempts WHERE user_id = OLD.user_id
+                                               ORDER BY attempt_id DESC LIMIT 1), 0) END,
+                            readings_completed = readings_completed - NOT EXISTS (
+                                SELECT 1 FROM UserAttempts WHERE reading_id = OLD.reading_id AND user_id = OLD.user_id)
+                        WHERE user_id = OLD.user_id;
+                        DELETE FROM UserStats WHERE user_id = OLD.user_id AND attempts = 0;
+                    END"""
+            )),
+            // Titles get a search index of their own, so a search can list every reading with the query
+            // in its title without walking the passage posting lists of a word found in most passages.
+            new Migration(9, "add title search", List.of(
+                    """
+                    CREATE VIRTUAL TABLE IF NOT EXISTS ReadingTitleSearch USING fts5(
+                        title,
+                        tokenize = 'porter unicode61 remove_diacritics 2'
+                    )""",
+                    """
+                    CREATE TRIGGER IF NOT EXISTS trg_readings_title_search AFTER INSERT ON Readings
+                    BEGIN
+                        INSERT INTO ReadingTitleSearch (rowid, title) VALUES (NEW.reading_id, NEW.title);
+                    END""",
+                    """
+                    CREATE TRIGGER IF NOT EXISTS trg_readings_title_search_update AFTER UPDATE OF title ON Readings
+                    WHEN NEW.title IS NOT OLD.title
+                    BEGIN
+                        UPDATE ReadingTitleSearch SET title = NEW.title WHERE rowid = NEW.reading_id;
+                    END""",
+                    """
+                    CREATE TRIGGER IF NOT EXISTS trg_readings_title_search_delete AFTER DELETE ON Readings
+                    BEGIN
+                        DELETE FROM ReadingTitleSearch WHERE rowid = OLD.reading_id;
+                    END""",
+                    "INSERT INTO ReadingTitleSearch (rowid, title) SELECT reading_id, title FROM Readings"
+            ))
+    );
+
+    private SchemaMigrator() {
+    }
+
+    /**
+     * @return the schema version the latest migration produces
+     */
+    public static int latestVersion() {
+        return MIGRATIONS.getLast().version();
+    }
+
+    /**
+     * Applies every migration newer than the database's user_version.
+     *
+     * @param connection a writable connection; must not be in the middle of a transaction
+     * @return the number of migrations applied
+     * @throws SQLException if a migration fails; nothing is applied in that case
+     */
+    public static int migrate(Connection connection) throws SQLException {
+        int current = currentVersion(connection);
+        if (current >= latestVersion()) {
+            return 0;
+        }
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        int applied = 0;
+        try (Statement statement = connection.createStatement()) {
+            for (Migration migration : MIGRATIONS) {
+                if (migration.version() <= current) {
+                    continue;
+                }
+                for (String sql : migration.statements()) {
+                    statement.execute(sql);
+                }
+                statement.execute("PRAGMA user_version = " + migration.version());
+                System.out.println("Applied schema migration " + migration.version() + ": " + migration.description());
+                applied++;
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        return applied;
+    }
+
+    /**
+     * @return the database's current {@code PRAGMA user_version}
+     */
+    public static int currentVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
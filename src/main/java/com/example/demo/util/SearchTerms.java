@@ -0,0 +1,50 @@
+package com.example.demo.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Turns what a user types into a search box into words to look for.
+ * <p>
+ * Anything that is not a letter or digit separates words, so punctuation and FTS5 operators in the
+ * input are never interpreted: {@code don't "fox" OR} searches for the words don, t, fox and or.
+ */
+public final class SearchTerms {
+    private SearchTerms() {
+    }
+
+    /**
+     * @return the lower-cased words of {@code query}, in order; empty if it has none
+     */
+    public static List<String> parse(String query) {
+        List<String> terms = new ArrayList<>();
+        if (query == null) {
+            return terms;
+        }
+        for (String word : query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                terms.add(word);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * @return an FTS5 query matching rows that contain every term, each quoted as a string
+     */
+    public static String matchExpression(List<String> terms) {
+        List<String> quoted = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            quoted.add('"' + term + '"');
+        }
+        return String.join(" ", quoted);
+    }
+
+    /**
+     * @return an FTS5 query matching rows that match {@code match}, but not within {@code column} alone
+     */
+    public static String outsideColumn(String match, String column) {
+        return "(" + match + ") NOT {" + column + "} : (" + match + ")";
+    }
+}
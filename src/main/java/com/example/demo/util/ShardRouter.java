@@ -0,0 +1,101 @@
+package com.example.demo.util;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Decides which shard of a {@link ShardedReadRacerStore} holds a user.
+ * <p>
+ * A new user's shard comes from their cohort, the domain of their email address, so a school's or
+ * class's users share a shard: either the shard the cohort is assigned to, or one picked by hashing
+ * the cohort name. After that a user is found by id alone: shard {@code n} hands out user ids from
+ * {@code n * ID_SPAN + 1}, so changing a user's email, assigning cohorts or adding shards never
+ * moves an existing user.
+ */
+public class ShardRouter {
+    /**
+     * User ids each shard can hand out.
+     */
+    public static final int ID_SPAN = 1 << 24;
+    public static final int MAX_SHARDS = (int) ((Integer.MAX_VALUE + 1L) / ID_SPAN);
+
+    private final int shardCount;
+    private final Map<String, Integer> cohorts;
+
+    /**
+     * @param cohorts shards for particular cohorts, by email domain; other cohorts are hashed
+     */
+    public ShardRouter(int shardCount, Map<String, Integer> cohorts) {
+        if (shardCount < 1 || shardCount > MAX_SHARDS) {
+            throw new IllegalArgumentException("shardCount must be between 1 and " + MAX_SHARDS);
+        }
+        this.shardCount = shardCount;
+        this.cohorts = new HashMap<>();
+        cohorts.forEach((cohort, shard) -> {
+            if (shard < 0 || shard >= shardCount) {
+                throw new IllegalArgumentException("Cohort " + cohort + " is assigned to shard " + shard
+                        + ", but there are only " + shardCount);
+            }
+            this.cohorts.put(cohort.toLowerCase(Locale.ROOT), shard);
+        });
+    }
+
+    /**
+     * Reads cohort assignments written as {@code school-a.edu.au=0, school-b.edu.au=1}.
+     */
+    public static ShardRouter parse(int shardCount, String assignments) {
+        Map<String, Integer> cohorts = new HashMap<>();
+        for (String assignment : assignments.split(",")) {
+            if (assignment.isBlank()) {
+                continue;
+            }
+            int equals = assignment.indexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("Expected cohort=shard, not " + assignment.trim());
+            }
+            cohorts.put(assignment.substring(0, equals).trim(), Integer.parseInt(assignment.substring(equals + 1).trim()));
+        }
+        return new ShardRouter(shardCount, cohorts);
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    /**
+     * @return the email's domain, lower case, or an empty string if it has none
+     */
+    public static String cohortOf(String email) {
+        int at = email == null ? -1 : email.lastIndexOf('@');
+        return at < 0 ? "" : email.substring(at + 1).trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return the shard a new user with this email is added to
+     */
+    public int shardForEmail(String email) {
+        String cohort = cohortOf(email);
+        Integer assigned = cohorts.get(cohort);
+        // String.hashCode is specified, so a cohort hashes to the same shard on every run
+        return assigned != null ? assigned : Math.floorMod(cohort.hashCode(), shardCount);
+    }
+
+    /**
+     * @return the shard holding the user, or -1 if no shard hands out this id
+     */
+    public int shardForUser(int userId) {
+        if (userId <= 0) {
+            return -1;
+        }
+        int shard = (userId - 1) / ID_SPAN;
+        return shard < shardCount ? shard : -1;
+    }
+
+    /**
+     * @return the id shard {@code shard} hands out before its first, so its users start at one above
+     */
+    public static int idFloor(int shard) {
+        return shard * ID_SPAN;
+    }
+}
@@ -0,0 +1,467 @@
+package com.example.demo.util;
+
+import com.example.demo.exceptions.InvalidCredentialsException;
+import com.example.demo.model.Choice;
+import com.example.demo.model.Question;
+import com.example.demo.model.Reading;
+import com.example.demo.model.ReadingFilter;
+import com.example.demo.model.ReadingSummary;
+import com.example.demo.model.SearchResult;
+import com.example.demo.model.User;
+import com.example.demo.model.UserAttempt;
+import com.example.demo.model.UserStats;
+import com.example.demo.util.SqliteConnectionPool.PooledConnection;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link ReadRacerStore} spread over several database files: one for the reading content and one per
+ * shard for users and their attempts, so cohorts on different shards never wait for each other's
+ * writer lock.
+ * <p>
+ * Every shard is an ordinary ReadRacer database run by its own {@link SqliteReadRacerDAO}, with the
+ * content file attached as {@code shared}. Attempts keep their foreign key to Readings, so the first
+ * attempt on a reading in a shard copies the reading's row, without its passage, from the content
+ * file into the shard; deleting the reading deletes the copies, which takes the attempts with them.
+ * <p>
+ * {@link ShardRouter} picks the shard for each call: a new user's from their cohort, everything else
+ * about a user from their id. Reading calls go to the content file. Calls that need every shard, such
+ * as the leaderboard of a reading, login, and the username and email checks, ask all shards in
+ * parallel and merge the answers. Leaderboard ties between shards go to the lower shard, as attempt
+ * ids are only ordered within a shard. Sign-ups and renames are serialised so two shards cannot take
+ * the same username at once.
+ */
+public class ShardedReadRacerStore implements ReadRacerStore, AutoCloseable {
+    public static final String CONTENT_FILE = "content.db";
+    private static final String SHARED_SCHEMA = "shared";
+    private static final int LEADERBOARD_SIZE = 10;
+    private static final Comparator<UserAttempt> BOARD_ORDER =
+            Comparator.comparingInt(UserAttempt::getScore).reversed();
+
+    private final SqliteConnectionPool contentPool;
+    private final SqliteReadRacerDAO content;
+    private final List<SqliteConnectionPool> shardPools;
+    private final List<SqliteReadRacerDAO> shards = new ArrayList<>();
+    private final List<Set<Integer>> readingsInShard = new ArrayList<>();
+    private final AttemptWriter[] attemptWriters;
+    private final Path directory;
+    private final ShardRouter router;
+    private final ExecutorService fanOut;
+    private final Object registration = new Object();
+
+    private interface ShardCall<T> {
+        T call(SqliteReadRacerDAO shard) throws SQLException;
+    }
+
+    /**
+     * Takes over the pools, which are closed with the store.
+     *
+     * @param contentFile the file {@code contentPool} is open on, attached to every shard
+     * @param shardPools one pool per shard, in shard order
+     */
+    public ShardedReadRacerStore(SqliteConnectionPool contentPool, Path contentFile,
+                                 List<SqliteConnectionPool> shardPools, ShardRouter router) throws SQLException {
+        if (shardPools.size() != router.shardCount()) {
+            throw new IllegalArgumentException("Got " + shardPools.size() + " shard pools for "
+                    + router.shardCount() + " shards");
+        }
+        this.contentPool = Objects.requireNonNull(contentPool, "contentPool");
+        this.shardPools = List.copyOf(shardPools);
+        this.router = router;
+        this.directory = contentFile.toAbsolutePath().getParent();
+        this.attemptWriters = new AttemptWriter[shardPools.size()];
+        this.content = new SqliteReadRacerDAO(contentPool);
+        for (int i = 0; i < shardPools.size(); i++) {
+            SqliteConnectionPool pool = shardPools.get(i);
+            shards.add(new SqliteReadRacerDAO(pool));
+            pool.attach(contentFile, SHARED_SCHEMA);
+            readingsInShard.add(ConcurrentHashMap.newKeySet());
+            reserveUserIds(i);
+        }
+        AtomicInteger threads = new AtomicInteger();
+        this.fanOut = Executors.newFixedThreadPool(shardPools.size(), runnable -> {
+            Thread thread = new Thread(runnable, "shard-fan-out-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens or creates {@value #CONTENT_FILE} and {@code shard-<n>.db} for each shard in {@code directory}.
+     */
+    public static ShardedReadRacerStore open(Path directory, ShardRouter router, SqlitePragmaProfile profile,
+                                             int readersPerShard, int busyTimeoutMillis,
+                                             long checkoutTimeoutMillis) throws SQLException {
+        if (profile.inMemory()) {
+            throw new IllegalArgumentException("Shards need database files, not profile " + profile);
+        }
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new SQLException("Failed to create shard directory " + directory, e);
+        }
+        List<SqliteConnectionPool> pools = new ArrayList<>();
+        try {
+            Path contentFile = directory.resolve(CONTENT_FILE);
+            SqliteConnectionPool contentPool = new SqliteConnectionPool(profile.url(contentFile.toString()), profile,
+                    readersPerShard, busyTimeoutMillis, checkoutTimeoutMillis,
+                    SqliteConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE);
+            pools.add(contentPool);
+            List<SqliteConnectionPool> shardPools = new ArrayList<>();
+            for (int i = 0; i < router.shardCount(); i++) {
+                SqliteConnectionPool pool = new SqliteConnectionPool(
+                        profile.url(directory.resolve("shard-" + i + ".db").toString()), profile,
+                        readersPerShard, busyTimeoutMillis, checkoutTimeoutMillis,
+                        SqliteConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE);
+                pools.add(pool);
+                shardPools.add(pool);
+            }
+            return new ShardedReadRacerStore(contentPool, contentFile, shardPools, router);
+        } catch (SQLException | RuntimeException e) {
+            pools.forEach(SqliteConnectionPool::close);
+            throw e;
+        }
+    }
+
+    public ShardRouter router() {
+        return router;
+    }
+
+    /**
+     * Makes the shard's next user id the first of its range, unless it has already handed out more.
+     */
+    private void reserveUserIds(int shard) throws SQLException {
+        if (shard == 0) {
+            return;
+        }
+        // sqlite_sequence has a row per table and no index, so these scan it on purpose
+        try (PooledConnection pc = shardPools.get(shard).writer();
+             PreparedStatement insert = pc.connection().prepareStatement("""
+                     INSERT INTO sqlite_sequence (name, seq)
+                     SELECT 'Users', ? WHERE NOT EXISTS (SELECT 1 FROM sqlite_sequence WHERE name = 'Users')""");
+             PreparedStatement raise = pc.connection().prepareStatement(
+                     "UPDATE sqlite_sequence SET seq = ? WHERE name = 'Users' AND seq < ?")) {
+            insert.setInt(1, ShardRouter.idFloor(shard));
+            insert.executeUpdate();
+            raise.setInt(1, ShardRouter.idFloor(shard));
+            raise.setInt(2, ShardRouter.idFloor(shard));
+            raise.executeUpdate();
+        }
+    }
+
+    private SqliteReadRacerDAO shardOf(int userId) {
+        int shard = router.shardForUser(userId);
+        return shard < 0 ? null : shards.get(shard);
+    }
+
+    private <T> List<T> fanOut(ShardCall<T> call) throws SQLException {
+        List<Future<T>> futures = new ArrayList<>();
+        for (SqliteReadRacerDAO shard : shards) {
+            futures.add(fanOut.submit(() -> call.call(shard)));
+        }
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for the shards", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof SQLException sqlException) {
+                    throw sqlException;
+                }
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new SQLException("A shard failed", e.getCause());
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public Reading getReading(int id) {
+        return content.getReading(id);
+    }
+
+    @Override
+    public Reading getRandomReading(Integer difficulty, Set<Integer> excludeIds) {
+        return content.getRandomReading(difficulty, excludeIds);
+    }
+
+    @Override
+    public List<Reading> getReadings(Collection<Integer> ids) {
+        return content.getReadings(ids);
+    }
+
+    @Override
+    public List<ReadingSummary> listReadings(int afterId, int limit, ReadingFilter filter) {
+        return content.listReadings(afterId, limit, filter);
+    }
+
+    @Override
+    public List<SearchResult> searchReadings(String query, int offset, int limit) {
+        return content.searchReadings(query, offset, limit);
+    }
+
+    @Override
+    public Reading getRandomReading() {
+        return content.getRandomReading();
+    }
+
+    @Override
+    public Reading addReading(Reading reading) throws SQLException {
+        return content.addReading(reading);
+    }
+
+    @Override
+    public boolean deleteReading(int readingId) throws SQLException {
+        boolean deleted = content.deleteReading(readingId);
+        fanOut(shard -> shard.deleteReading(readingId));
+        readingsInShard.forEach(readings -> readings.remove(readingId));
+        return deleted;
+    }
+
+    @Override
+    public void addQuestion(int readingId, Question question) throws SQLException {
+        content.addQuestion(readingId, question);
+    }
+
+    @Override
+    public List<Question> getQuestions(int readingId) {
+        return content.getQuestions(readingId);
+    }
+
+    @Override
+    public List<Choice> getChoices(int questionId) throws SQLException {
+        return content.getChoices(questionId);
+    }
+
+    @Override
+    public User addUser(User user) throws SQLException {
+        synchronized (registration) {
+            checkUnique(user.getUsername(), user.getEmail(), -1);
+            int shard = router.shardForEmail(user.getEmail());
+            checkIdSpan(shard);
+            return shards.get(shard).addUser(user);
+        }
+    }
+
+    // a user id past the shard's span would be routed to the next shard
+    private void checkIdSpan(int shard) throws SQLException {
+        long end = ShardRouter.idFloor(shard) + (long) ShardRouter.ID_SPAN;
+        try (PooledConnection pc = shardPools.get(shard).writer()) {
+            if (ReadingImporter.lastId(pc.connection(), "Users", "user_id") >= end) {
+                throw new SQLException("Shard " + shard + " has handed out all " + ShardRouter.ID_SPAN
+                        + " of its user ids");
+            }
+        }
+    }
+
+    // each shard's unique indexes only cover its own users
+    private void checkUnique(String username, String email, int exceptShard) throws SQLException {
+        List<boolean[]> answers = fanOut(shard -> shards.indexOf(shard) == exceptShard ? new boolean[]{true, true}
+                : new boolean[]{shard.usernameIsUnique(username), shard.emailIsUnique(email)});
+        if (!answers.stream().allMatch(unique -> unique[0])) {
+            throw new SQLException("UNIQUE constraint failed: Users.username");
+        }
+        if (!answers.stream().allMatch(unique -> unique[1])) {
+            throw new SQLException("UNIQUE constraint failed: Users.email");
+        }
+    }
+
+    @Override
+    public User getUser(int userId) throws SQLException {
+        SqliteReadRacerDAO shard = shardOf(userId);
+        if (shard == null) {
+            throw new SQLException("User with ID does not exist");
+        }
+        return shard.getUser(userId);
+    }
+
+    @Override
+    public boolean userWithIdExists(int userId) throws SQLException {
+        SqliteReadRacerDAO shard = shardOf(userId);
+        return shard != null && shard.userWithIdExists(userId);
+    }
+
+    @Override
+    public boolean usernameIsUnique(String username) throws SQLException {
+        return fanOut(shard -> shard.usernameIsUnique(username)).stream().allMatch(Boolean::booleanValue);
+    }
+
+    @Override
+    public boolean emailIsUnique(String email) throws SQLException {
+        return fanOut(shard -> shard.emailIsUnique(email)).stream().allMatch(Boolean::booleanValue);
+    }
+
+    /**
+     * Updates the user on their shard; a new email does not move them to another cohort's shard.
+     */
+    @Override
+    public void updateUser(User user) throws SQLException {
+        SqliteReadRacerDAO shard = shardOf(user.getUser_id());
+        if (shard == null) {
+            throw new SQLException("User with ID does not exist");
+        }
+        synchronized (registration) {
+            checkUnique(user.getUsername(), user.getEmail(), shards.indexOf(shard));
+            shard.updateUser(user);
+        }
+    }
+
+    @Override
+    public void deleteUser(int userId) throws SQLException {
+        SqliteReadRacerDAO shard = shardOf(userId);
+        if (shard == null) {
+            throw new SQLException("User with ID does not exist");
+        }
+        shard.deleteUser(userId);
+    }
+
+    /**
+     * Tries the login on every shard at once, as a user keeps their shard when their email changes.
+     */
+    @Override
+    public User TryLogin(String login, String rawPassword) throws SQLException {
+        for (User user : fanOut(shard -> {
+            try {
+                return shard.TryLogin(login, rawPassword);
+            } catch (InvalidCredentialsException e) {
+                return null;
+            }
+        })) {
+            if (user != null) {
+                return user;
+            }
+        }
+        throw new InvalidCredentialsException();
+    }
+
+    @Override
+    public void addUserAttempt(UserAttempt userAttempt) throws SQLException {
+        int shardIndex = router.shardForUser(userAttempt.getUserID());
+        if (shardIndex < 0) {
+            throw new SQLException("FOREIGN KEY constraint failed");
+        }
+        copyReading(shardIndex, userAttempt.getReadingID());
+        shards.get(shardIndex).addUserAttempt(userAttempt);
+    }
+
+    /**
+     * Queues the attempt on the write-behind {@link AttemptWriter} of the user's shard, started on first
+     * use with its journal next to the shard's file. Only the first attempt on a reading in a shard
+     * waits for the database, to copy the reading's row.
+     */
+    public void submitAttempt(UserAttempt attempt) throws SQLException {
+        int shard = router.shardForUser(attempt.getUserID());
+        if (shard < 0) {
+            throw new SQLException("FOREIGN KEY constraint failed");
+        }
+        copyReading(shard, attempt.getReadingID());
+        AttemptWriter writer;
+        synchronized (attemptWriters) {
+            writer = attemptWriters[shard];
+            if (writer == null) {
+                writer = new AttemptWriter(shardPools.get(shard), directory.resolve("shard-" + shard + ".attempts.journal"));
+                attemptWriters[shard] = writer;
+            }
+        }
+        writer.submit(attempt);
+    }
+
+    /**
+     * Copies the reading's row into the shard for its attempts to refer to. A reading that does not
+     * exist is not copied, and the attempt then fails on its foreign key as it would unsharded.
+     */
+    private void copyReading(int shard, int readingId) throws SQLException {
+        Set<Integer> copied = readingsInShard.get(shard);
+        if (copied.contains(readingId)) {
+            return;
+        }
+        try (PooledConnection pc = shardPools.get(shard).writer()) {
+            PreparedStatement copy = pc.prepare("""
+                    INSERT OR IGNORE INTO main.Readings (reading_id, title, content, difficulty, passage_length, question_count)
+                    SELECT reading_id, title, '', difficulty, passage_length, question_count
+                    FROM shared.Readings WHERE reading_id = ?""");
+            copy.setInt(1, readingId);
+            copy.executeUpdate();
+        }
+        copied.add(readingId);
+    }
+
+    @Override
+    public List<UserAttempt> getLeaderboard(int readingId) throws SQLException {
+        return getLeaderboard(readingId, LEADERBOARD_SIZE);
+    }
+
+    /**
+     * Takes the top {@code limit} of every shard and keeps the top {@code limit} of those.
+     */
+    @Override
+    public List<UserAttempt> getLeaderboard(int readingId, int limit) throws SQLException {
+        List<UserAttempt> merged = new ArrayList<>();
+        fanOut(shard -> shard.getLeaderboard(readingId, limit)).forEach(merged::addAll);
+        // a stable sort, so ties stay in shard order and each shard's own order
+        merged.sort(BOARD_ORDER);
+        return new ArrayList<>(merged.subList(0, Math.min(limit, merged.size())));
+    }
+
+    @Override
+    public UserStats getUserStats(int userId) throws SQLException {
+        SqliteReadRacerDAO shard = shardOf(userId);
+        return shard == null ? UserStats.empty(userId) : shard.getUserStats(userId);
+    }
+
+    @Override
+    public void clearAllData() {
+        content.clearAllData();
+        try {
+            fanOut(shard -> {
+                shard.clearAllData();
+                return null;
+            });
+            for (int i = 0; i < shards.size(); i++) {
+                readingsInShard.get(i).clear();
+                reserveUserIds(i);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to clear the shards", e);
+        }
+    }
+
+    /**
+     * Writes out queued attempts, stops the fan-out threads and closes the content and shard pools.
+     */
+    @Override
+    public void close() {
+        synchronized (attemptWriters) {
+            for (int i = 0; i < attemptWriters.length; i++) {
+                if (attemptWriters[i] != null) {
+                    attemptWriters[i].close();
+                    System.out.println("Attempt writer of shard " + i + " at shutdown: " + attemptWriters[i].metrics());
+                    attemptWriters[i] = null;
+                }
+            }
+        }
+        fanOut.shutdown();
+        shardPools.forEach(SqliteConnectionPool::close);
+        contentPool.close();
+    }
+}
@@ -1,25 +1,228 @@
 package com.example.demo.util;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.*;
+import java.time.Duration;
+import java.util.Properties;
 
+/**
+ * Process-wide access to the ReadRacer database pool.
+ * <p>
+ * Settings are read from system properties first and then from {@code readracer.properties}
+ * in the working directory:
+ * <ul>
+ *     <li>{@code readracer.db.profile}: durable (default), throughput or test, see {@link SqlitePragmaProfile}</li>
+ *     <li>{@code readracer.db.file}: database file name, default ReadRacer.db</li>
+ *     <li>{@code readracer.db.readers}, {@code readracer.db.busyTimeoutMillis},
+ *     {@code readracer.db.checkoutTimeoutMillis} and {@code readracer.db.statementCacheSize}</li>
+ *     <li>{@code readracer.db.slowQueryMillis}: statements at least this slow are logged with their
+ *     query plan, default 100; negative turns the slow-query log off, see {@link QueryMetrics}</li>
+ *     <li>{@code readracer.content.pack}: a {@link ReadingPack} file to serve reading content from
+ *     instead of the database; unset by default</li>
+ *     <li>{@code readracer.archive.afterDays}: attempts older than this many days are moved to archive
+ *     files, default 365; zero or less keeps every attempt live, see {@link AttemptArchiver}</li>
+ *     <li>{@code readracer.archive.dir}: directory for the archive files, default archive</li>
+ *     <li>{@code readracer.backup.dir} and {@code readracer.backup.keep}: where {@link DatabaseBackup}
+ *     writes backups, default backups, and how many it keeps, default 7</li>
+ *     <li>{@code readracer.shards}: the number of shards to spread users and attempts over, see
+ *     {@link ShardedReadRacerStore}; 0 (default) keeps everything in {@code readracer.db.file}. The
+ *     {@link DatabaseBackup} and {@link AttemptArchiver} set up here refuse to run on shards</li>
+ *     <li>{@code readracer.shard.dir}: directory for the content and shard files, default shards</li>
+ *     <li>{@code readracer.shard.cohorts}: shards for particular cohorts, e.g.
+ *     {@code school-a.edu.au=0,school-b.edu.au=1}; other cohorts are hashed, see {@link ShardRouter}</li>
+ * </ul>
+ */
 public class SqliteConnection {
-    private static Connection instance = null;
+    private static final Path CONFIG_FILE = Path.of("readracer.properties");
+    private static final String DEFAULT_FILE = "ReadRacer.db";
+    private static final int DEFAULT_READERS = 4;
+    private static final int DEFAULT_BUSY_TIMEOUT_MILLIS = 5_000;
+    private static final long DEFAULT_CHECKOUT_TIMEOUT_MILLIS = 10_000;
+    private static final int DEFAULT_ARCHIVE_AFTER_DAYS = 365;
+    private static final String DEFAULT_ARCHIVE_DIR = "archive";
+    private static final Duration ARCHIVE_INTERVAL = Duration.ofHours(6);
+    private static final String DEFAULT_BACKUP_DIR = "backups";
+    private static final String DEFAULT_SHARD_DIR = "shards";
+
+    private static SqliteConnectionPool pool = null;
+    private static ReadingPack contentPack = null;
+    private static AttemptArchiver archiver = null;
+    private static ShardedReadRacerStore shardedStore = null;
 
     private SqliteConnection() {
-        String url = "jdbc:sqlite:ReadRacer.db";
-        try {
-            instance = DriverManager.getConnection(url);
-            System.out.println("Connection established");
-        } catch (SQLException sqlEx) {
-            System.err.println(sqlEx);
+    }
+
+    /**
+     * @return the shared pool, opening it on first use
+     */
+    public static synchronized SqliteConnectionPool getPool() {
+        if (pool == null) {
+            Properties config = loadConfig();
+            SqlitePragmaProfile profile = SqlitePragmaProfile.fromName(
+                    setting(config, "readracer.db.profile", SqlitePragmaProfile.DURABLE.name()));
+            String url = profile.url(setting(config, "readracer.db.file", DEFAULT_FILE));
+            int readers = profile.inMemory() ? 0
+                    : Integer.parseInt(setting(config, "readracer.db.readers", String.valueOf(DEFAULT_READERS)));
+            try {
+                pool = new SqliteConnectionPool(url, profile, readers,
+                        Integer.parseInt(setting(config, "readracer.db.busyTimeoutMillis",
+                                String.valueOf(DEFAULT_BUSY_TIMEOUT_MILLIS))),
+                        Long.parseLong(setting(config, "readracer.db.checkoutTimeoutMillis",
+                                String.valueOf(DEFAULT_CHECKOUT_TIMEOUT_MILLIS))),
+                        Integer.parseInt(setting(config, "readracer.db.statementCacheSize",
+                                String.valueOf(SqliteConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE))));
+                pool.queryMetrics().setSlowQueryThresholdMillis(Long.parseLong(setting(config,
+                        "readracer.db.slowQueryMillis", String.valueOf(QueryMetrics.DEFAULT_SLOW_QUERY_MILLIS))));
+                System.out.println("Connection pool established: " + pool.metrics());
+            } catch (SQLException sqlEx) {
+                throw new RuntimeException("Failed to open database " + url, sqlEx);
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Opens the store the app runs on: a DAO over {@link #getPool()}, or, if {@code readracer.shards} is
+     * set, the one {@link ShardedReadRacerStore} over the files in {@code readracer.shard.dir}.
+     */
+    public static synchronized ReadRacerStore openStore() {
+        Properties config = loadConfig();
+        int shards = shardCount(config);
+        if (shards <= 0) {
+            return new SqliteReadRacerDAO();
         }
+        if (shardedStore == null) {
+            SqlitePragmaProfile profile = SqlitePragmaProfile.fromName(
+                    setting(config, "readracer.db.profile", SqlitePragmaProfile.DURABLE.name()));
+            Path directory = Path.of(setting(config, "readracer.shard.dir", DEFAULT_SHARD_DIR));
+            try {
+                shardedStore = ShardedReadRacerStore.open(directory,
+                        ShardRouter.parse(shards, setting(config, "readracer.shard.cohorts", "")), profile,
+                        Integer.parseInt(setting(config, "readracer.db.readers", String.valueOf(DEFAULT_READERS))),
+                        Integer.parseInt(setting(config, "readracer.db.busyTimeoutMillis",
+                                String.valueOf(DEFAULT_BUSY_TIMEOUT_MILLIS))),
+                        Long.parseLong(setting(config, "readracer.db.checkoutTimeoutMillis",
+                                String.valueOf(DEFAULT_CHECKOUT_TIMEOUT_MILLIS))));
+                System.out.println("Opened " + shards + " shards in " + directory);
+            } catch (SQLException sqlEx) {
+                throw new RuntimeException("Failed to open shards in " + directory, sqlEx);
+            }
+        }
+        return shardedStore;
     }
 
-    public static Connection getInstance() {
-        if (instance == null) {
-            new SqliteConnection();
+    /**
+     * Chooses where reading content comes from. If {@code readracer.content.pack} names a pack file it is
+     * mapped on first use and returned; otherwise the database is used. A pack is a snapshot exported by
+     * {@link ReadingPackWriter}, so readings added to the database afterwards only show up after a re-export.
+     *
+     * @param database the source to use when no pack is configured
+     */
+    public static synchronized ReadingSource getContentSource(ReadingSource database) {
+        String packFile = setting(loadConfig(), "readracer.content.pack", "");
+        if (packFile.isBlank()) {
+            return database;
+        }
+        if (contentPack == null) {
+            try {
+                long start = System.nanoTime();
+                contentPack = ReadingPack.open(Path.of(packFile));
+                System.out.println("Reading pack " + packFile + " opened with " + contentPack.size()
+                        + " readings in " + (System.nanoTime() - start) / 1_000 + " us");
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to open reading pack " + packFile, e);
+            }
+        }
+        return contentPack;
+    }
+
+    /**
+     * Starts archiving old attempts in the background, now and every few hours, unless
+     * {@code readracer.archive.afterDays} turns it off. Call once the schema is migrated.
+     *
+     * @return the running archiver, or null if archiving is off
+     * @throws IllegalStateException if {@code readracer.shards} is set, as the attempts live in the shards
+     */
+    public static synchronized AttemptArchiver startAttemptArchiver() {
+        if (archiver == null) {
+            Properties config = loadConfig();
+            refuseShards(config, "archive attempts");
+            int afterDays = Integer.parseInt(setting(config, "readracer.archive.afterDays",
+                    String.valueOf(DEFAULT_ARCHIVE_AFTER_DAYS)));
+            if (afterDays <= 0) {
+                return null;
+            }
+            archiver = new AttemptArchiver(getPool(),
+                    Path.of(setting(config, "readracer.archive.dir", DEFAULT_ARCHIVE_DIR)), Duration.ofDays(afterDays));
+            archiver.start(ARCHIVE_INTERVAL);
+        }
+        return archiver;
+    }
+
+    /**
+     * @return a backup of the shared pool's database, configured from {@code readracer.backup.*}
+     * @throws IllegalStateException if {@code readracer.shards} is set, as that database is not the one in use
+     */
+    public static DatabaseBackup getDatabaseBackup() {
+        Properties config = loadConfig();
+        refuseShards(config, "back up the database");
+        return new DatabaseBackup(getPool(), Path.of(setting(config, "readracer.backup.dir", DEFAULT_BACKUP_DIR)),
+                Integer.parseInt(setting(config, "readracer.backup.keep", String.valueOf(DatabaseBackup.DEFAULT_KEEP))));
+    }
+
+    private static int shardCount(Properties config) {
+        return Integer.parseInt(setting(config, "readracer.shards", "0"));
+    }
+
+    // the backup and the archiver only know readracer.db.file, not the content and shard files
+    private static void refuseShards(Properties config, String action) {
+        if (shardCount(config) > 0) {
+            throw new IllegalStateException("Cannot " + action + " with readracer.shards set: users and attempts"
+                    + " are in the shard files in " + setting(config, "readracer.shard.dir", DEFAULT_SHARD_DIR)
+                    + ", not in " + setting(config, "readracer.db.file", DEFAULT_FILE));
+        }
+    }
+
+    private static Properties loadConfig() {
+        Properties config = new Properties();
+        if (Files.isRegularFile(CONFIG_FILE)) {
+            try (InputStream in = Files.newInputStream(CONFIG_FILE)) {
+                config.load(in);
+            } catch (IOException e) {
+                System.err.println("Could not read " + CONFIG_FILE + ": " + e.getMessage());
+            }
+        }
+        return config;
+    }
+
+    private static String setting(Properties config, String key, String defaultValue) {
+        return System.getProperty(key, config.getProperty(key, defaultValue));
+    }
+
+    /**
+     * Stops the archiver and closes every pooled connection, and the shards if they were opened.
+     * The next call to {@link #getPool()} opens a fresh pool.
+     */
+    public static synchronized void close() {
+        if (archiver != null) {
+            archiver.close();
+            archiver = null;
+        }
+        if (shardedStore != null) {
+            shardedStore.close();
+            shardedStore = null;
+        }
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+        if (contentPack != null) {
+            contentPack.close();
+            contentPack = null;
         }
-        return instance;
     }
 
 }
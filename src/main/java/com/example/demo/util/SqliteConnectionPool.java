@@ -0,0 +1,386 @@
+package com.example.demo.util;
+
+import org.sqlite.SQLiteConfig;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A small SQLite connection pool: one writer connection and a fixed set of read-only connections.
+ * File-backed profiles open the database in WAL mode so readers never block the writer and a slow
+ * read (e.g. the leaderboard) never blocks a login or an attempt being saved.
+ * <p>
+ * The writer is guarded by a reentrant lock, so a thread that already holds it can borrow it again.
+ * When the pool has no readers, reads are served by the writer.
+ * <p>
+ * Every connection carries its own {@link StatementCache}, so a borrower can call
+ * {@link PooledConnection#prepare(String)} and reuse statements prepared by earlier borrowers.
+ */
+public class SqliteConnectionPool implements AutoCloseable {
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+
+    private static final String[] LOGGED_PRAGMAS =
+            {"journal_mode", "synchronous", "cache_size", "mmap_size", "temp_store", "busy_timeout"};
+
+    private final String url;
+    private final SqlitePragmaProfile profile;
+    private final int busyTimeoutMillis;
+    private final long checkoutTimeoutMillis;
+    private final int statementCacheSize;
+
+    private final Connection writer;
+    private final ReentrantLock writerLock = new ReentrantLock(true);
+    private final List<Connection> allReaders = new ArrayList<>();
+    private final BlockingQueue<Connection> idleReaders;
+
+    private final CheckoutStats readerStats = new CheckoutStats();
+    private final CheckoutStats writerStats = new CheckoutStats();
+    private final LongAdder checkoutTimeouts = new LongAdder();
+    private final StatementCache.Counters statementCounters = new StatementCache.Counters();
+    private final Map<Connection, StatementCache> statementCaches = new IdentityHashMap<>();
+    private final QueryMetrics queryMetrics = new QueryMetrics();
+
+    /**
+     * Opens the writer and all reader connections.
+     *
+     * @param url the JDBC url of the database file, e.g. "jdbc:sqlite:ReadRacer.db"
+     * @param readerCount number of read-only connections; 0 routes reads to the writer
+     * @param busyTimeoutMillis how long SQLite waits on a locked database before failing with SQLITE_BUSY
+     * @param checkoutTimeoutMillis how long a caller waits for a free connection before failing
+     * @throws SQLException if a connection cannot be opened
+     */
+    public SqliteConnectionPool(String url, int readerCount, int busyTimeoutMillis, long checkoutTimeoutMillis)
+            throws SQLException {
+        this(url, readerCount, busyTimeoutMillis, checkoutTimeoutMillis, DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    /**
+     * Opens the writer and all reader connections, each with a statement cache of the given size.
+     *
+     * @param statementCacheSize maximum number of prepared statements kept per connection
+     * @throws SQLException if a connection cannot be opened
+     */
+    public SqliteConnectionPool(String url, int readerCount, int busyTimeoutMillis, long checkoutTimeoutMillis,
+                                int statementCacheSize) throws SQLException {
+        this(url, SqlitePragmaProfile.DURABLE, readerCount, busyTimeoutMillis, checkoutTimeoutMillis,
+                statementCacheSize);
+    }
+
+    /**
+     * Opens the writer and all reader connections with the pragmas of the given profile,
+     * then logs the pragma values SQLite actually reports.
+     *
+     * @param profile the pragma profile applied to every connection
+     * @throws SQLException if a connection cannot be opened
+     */
+    public SqliteConnectionPool(String url, SqlitePragmaProfile profile, int readerCount, int busyTimeoutMillis,
+                                long checkoutTimeoutMillis, int statementCacheSize) throws SQLException {
+        this.url = Objects.requireNonNull(url, "url");
+        this.profile = Objects.requireNonNull(profile, "profile");
+        if (readerCount < 0) {
+            throw new IllegalArgumentException("readerCount must not be negative");
+        }
+        if (profile.inMemory() && readerCount > 0) {
+            throw new IllegalArgumentException("An in-memory database cannot have separate reader connections");
+        }
+        this.busyTimeoutMillis = busyTimeoutMillis;
+        this.checkoutTimeoutMillis = checkoutTimeoutMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.idleReaders = new ArrayBlockingQueue<>(Math.max(1, readerCount));
+
+        // The writer sets the journal mode first; journal_mode=WAL is persistent in the file.
+        this.writer = open(false);
+        try {
+            for (int i = 0; i < readerCount; i++) {
+                Connection reader = open(true);
+                allReaders.add(reader);
+                idleReaders.add(reader);
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+
+        System.out.println("Database profile " + profile + ", writer pragmas: " + pragmasInEffect(writer));
+        if (!allReaders.isEmpty()) {
+            System.out.println("Database profile " + profile + ", reader pragmas: "
+                    + pragmasInEffect(allReaders.getFirst()));
+        }
+    }
+
+    /**
+     * Reads back the pragmas this pool cares about, as SQLite reports them on the given connection.
+     */
+    public static Map<String, String> pragmasInEffect(Connection connection) throws SQLException {
+        Map<String, String> values = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement()) {
+            for (String pragma : LOGGED_PRAGMAS) {
+                try (ResultSet rs = statement.executeQuery("PRAGMA " + pragma)) {
+                    values.put(pragma, rs.next() ? rs.getString(1) : null);
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return the pragma profile every connection in this pool was opened with
+     */
+    public SqlitePragmaProfile profile() {
+        return profile;
+    }
+
+    /**
+     * Attaches another database file to every connection in the pool, so statements can use its tables
+     * as {@code schema.Table}. Waits for each connection to be returned first. Reader connections see
+     * the attached file read-only, like their own.
+     *
+     * @param schema the name to attach the file as; letters, digits and underscores only
+     */
+    public void attach(Path file, String schema) throws SQLException {
+        if (!schema.matches("[A-Za-z_][A-Za-z0-9_]*")) {
+            throw new IllegalArgumentException("Not a schema name: " + schema);
+        }
+        List<PooledConnection> borrowed = new ArrayList<>();
+        try {
+            borrowed.add(writer());
+            for (int i = 0; i < allReaders.size(); i++) {
+                borrowed.add(reader());
+            }
+            for (PooledConnection pc : borrowed) {
+                try (PreparedStatement ps = pc.connection().prepareStatement("ATTACH DATABASE ? AS " + schema)) {
+                    ps.setString(1, file.toAbsolutePath().toString());
+                    ps.execute();
+                }
+            }
+        } finally {
+            borrowed.forEach(PooledConnection::close);
+        }
+    }
+
+    private Connection open(boolean readOnly) throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        profile.applyTo(config);
+        config.setBusyTimeout(busyTimeoutMillis);
+        config.enforceForeignKeys(true);
+        config.setReadOnly(readOnly);
+        Connection connection = config.createConnection(url);
+        statementCaches.put(connection, new StatementCache(connection, statementCacheSize, statementCounters, queryMetrics));
+        return connection;
+    }
+
+    /**
+     * Borrows a read-only connection. Close the returned handle to give it back.
+     *
+     * @throws SQLException if no reader becomes free within the checkout timeout
+     */
+    public PooledConnection reader() throws SQLException {
+        if (allReaders.isEmpty()) {
+            return writer();
+        }
+        long start = System.nanoTime();
+        Connection connection;
+        try {
+            connection = idleReaders.poll(checkoutTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a reader connection", e);
+        }
+        if (connection == null) {
+            checkoutTimeouts.increment();
+            throw new SQLException("Timed out after " + checkoutTimeoutMillis + " ms waiting for a reader connection");
+        }
+        readerStats.record(System.nanoTime() - start);
+        return new PooledConnection(connection, statementCaches.get(connection), () -> idleReaders.add(connection));
+    }
+
+    /**
+     * Borrows the single writer connection. Close the returned handle to release it.
+     *
+     * @throws SQLException if the writer is not released within the checkout timeout
+     */
+    public PooledConnection writer() throws SQLException {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = writerLock.tryLock(checkoutTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the writer connection", e);
+        }
+        if (!acquired) {
+            checkoutTimeouts.increment();
+            throw new SQLException("Timed out after " + checkoutTimeoutMillis + " ms waiting for the writer connection");
+        }
+        writerStats.record(System.nanoTime() - start);
+        return new PooledConnection(writer, statementCaches.get(writer), writerLock::unlock);
+    }
+
+    /**
+     * @return a point-in-time snapshot of pool size, busy timeout and checkout wait times
+     */
+    public PoolMetrics metrics() {
+        return new PoolMetrics(
+                allReaders.size(),
+                idleReaders.size(),
+                writerLock.isLocked(),
+                busyTimeoutMillis,
+                checkoutTimeoutMillis,
+                readerStats.count(),
+                readerStats.averageWaitMicros(),
+                readerStats.maxWaitMicros(),
+                writerStats.count(),
+                writerStats.averageWaitMicros(),
+                writerStats.maxWaitMicros(),
+                checkoutTimeouts.sum(),
+                statementCounters.hits.sum(),
+                statementCounters.misses.sum(),
+                statementCounters.evictions.sum()
+        );
+    }
+
+    /**
+     * @return latency histograms and the slow-query log for statements prepared through this pool
+     */
+    public QueryMetrics queryMetrics() {
+        return queryMetrics;
+    }
+
+    /**
+     * Number of times each SQL text has been prepared across all connections. A hot query
+     * that is being cached properly is prepared at most once per connection.
+     */
+    public Map<String, Long> statementPrepareCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        statementCounters.preparesBySql.forEach((sql, count) -> counts.put(sql, count.sum()));
+        return counts;
+    }
+
+    @Override
+    public void close() {
+        statementCaches.values().forEach(StatementCache::close);
+        for (Connection reader : allReaders) {
+            closeQuietly(reader);
+        }
+        if (writer != null) {
+            closeQuietly(writer);
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * A borrowed connection. Closing it returns the connection to the pool rather than closing it.
+     */
+    public static final class PooledConnection implements AutoCloseable {
+        private final Connection connection;
+        private final StatementCache statements;
+        private final Runnable release;
+        private boolean released;
+
+        private PooledConnection(Connection connection, StatementCache statements, Runnable release) {
+            this.connection = connection;
+            this.statements = statements;
+            this.release = release;
+        }
+
+        public Connection connection() {
+            if (released) {
+                throw new IllegalStateException("Connection has already been returned to the pool");
+            }
+            return connection;
+        }
+
+        /**
+         * Returns a cached prepared statement for the SQL. Do not close it; close its result set.
+         */
+        public PreparedStatement prepare(String sql) throws SQLException {
+            return prepare(sql, Statement.NO_GENERATED_KEYS);
+        }
+
+        /**
+         * Returns a cached prepared statement for the SQL, optionally returning generated keys.
+         * Do not close it; close its result set.
+         */
+        public PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+            connection();
+            return statements.prepare(sql, autoGeneratedKeys);
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release.run();
+            }
+        }
+    }
+
+    /**
+     * Snapshot of pool state. Wait times are in microseconds.
+     */
+    public record PoolMetrics(int readerPoolSize,
+                              int idleReaders,
+                              boolean writerInUse,
+                              int busyTimeoutMillis,
+                              long checkoutTimeoutMillis,
+                              long readerCheckouts,
+                              double averageReaderWaitMicros,
+                              long maxReaderWaitMicros,
+                              long writerCheckouts,
+                              double averageWriterWaitMicros,
+                              long maxWriterWaitMicros,
+                              long checkoutTimeouts,
+                              long statementCacheHits,
+                              long statementCacheMisses,
+                              long statementCacheEvictions) {
+    }
+
+    private static final class CheckoutStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        void record(long waitNanos) {
+            count.increment();
+            totalWaitNanos.add(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        }
+
+        long count() {
+            return count.sum();
+        }
+
+        double averageWaitMicros() {
+            long n = count.sum();
+            return n == 0 ? 0.0 : totalWaitNanos.sum() / 1_000.0 / n;
+        }
+
+        long maxWaitMicros() {
+            return maxWaitNanos.get() / 1_000;
+        }
+    }
+}
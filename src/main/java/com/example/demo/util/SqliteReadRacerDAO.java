@@ -2,6 +2,7 @@ package com.example.demo.util;
 
 import com.example.demo.exceptions.InvalidCredentialsException;
 import com.example.demo.model.*;
+import com.example.demo.util.SqliteConnectionPool.PooledConnection;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
@@ -16,108 +17,169 @@ import java.util.*;
  * getAllUserAttemptsByReading (fetch a list of all user attempts of all users given a readingID)
  */
 
-public class SqliteReadRacerDAO {
-    private Connection connection;
+public class SqliteReadRacerDAO implements ReadRacerStore {
+    // bm25 scores every row it orders and walks each word's whole posting list, see searchReadings
+    public static final int MAX_RANKED_MATCHES = 200;
+    public static final int COMMON_TERM_READINGS = 10_000;
+    // Stays well below SQLite's bound-parameter limit for IN (...) lists.
+    private static final int MAX_IDS_PER_QUERY = 512;
+    private static final int LEADERBOARD_SIZE = 10;
+
+    private final SqliteConnectionPool pool;
+    // every public operation is timed here under its method name
+    private final QueryMetrics metrics;
+    private final RandomReadingSelector randomSelector = new RandomReadingSelector();
+    private final ReadingCache readingCache;
+    private final CredentialCache credentialCache = new CredentialCache(CredentialCache.DEFAULT_MAX_ENTRIES);
+    // every username and email ever added; lets uniqueness checks skip the database for free names
+    private final MembershipFilter usernameFilter = new MembershipFilter(0);
+    private final MembershipFilter emailFilter = new MembershipFilter(0);
+    // the dictionary new passages are compressed with, read once at startup
+    private PassageCompression passages;
+    // highest reading id loaded into randomSelector; guarded by randomSelector
+    private int randomSelectorSyncedThrough = 0;
 
     /**
-     * Initialises the DAO by establishing a connection and creating all tables if they do not currently exist.
-     * Uncomment insertSampleData() to insert Readings if they do not exist.
+     * Initialises the DAO on the shared pool, migrating the schema to the latest version.
+     * Sample readings and the dev user are only inserted into a database without readings,
+     * the dev user only if no user already has its name, so existing data survives a restart.
      */
     public SqliteReadRacerDAO() {
-        connection = SqliteConnection.getInstance();
-
-        //todo: Remove when database is static
-        createTables();
-        clearAllData();
-        insertSampleData();
-        insertSampleUsers();
-
-    }
-
-    private void createTables() {
-        createReadingsTable();
-        createQuestionsTable();
-        createChoicesTable();
-        createUsersTable();
-        createUserAttemptsTable();
-    }
-
-    private void createReadingsTable() {
-        try (Statement statement = connection.createStatement()) {
-            String query = "CREATE TABLE IF NOT EXISTS Readings ("
-                    + "reading_id INTEGER PRIMARY KEY AUTOINCREMENT,"
-                    + "title VARCHAR NOT NULL,"
-                    + "content VARCHAR NOT NULL,"
-                    + "difficulty INT NOT NULL"
-                    + ")";
-            statement.execute(query);
-//            System.out.println("Readings table created successfully");
-        } catch (Exception e) {
-            e.printStackTrace();
+        pool = SqliteConnection.getPool();
+        readingCache = new ReadingCache(ReadingCache.DEFAULT_MAX_WEIGHT);
+        metrics = pool.queryMetrics();
+        migrateSchema();
+
+        boolean empty = isEmpty();
+        if (empty) {
+            insertSampleData();
+        }
+        loadLoginFilters();
+        // a database can keep its users after its readings are gone
+        try {
+            if (empty && usernameIsUnique("dev") && emailIsUnique("dev")) {
+                insertSampleUsers();
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to check for the dev user", e);
         }
     }
 
-    private void createUserAttemptsTable() {
-        try (Statement statement = connection.createStatement()) {
-            String query = "CREATE TABLE IF NOT EXISTS UserAttempts ("
-                    + "attempt_id INTEGER PRIMARY KEY AUTOINCREMENT,"
-                    + "user_id INT NOT NULL,"
-                    + "reading_id INT NOT NULL,"
-                    + "score INT NOT NULL,"
-                    + "FOREIGN KEY (user_id) REFERENCES Users(user_id) ON DELETE CASCADE,"
-                    + "FOREIGN KEY (reading_id) REFERENCES Readings(reading_id) ON DELETE CASCADE"
-                    + ")";
-            statement.execute(query);
-//            System.out.println("UserAttempts table created successfully");
-        } catch (Exception e) {
-            e.printStackTrace();
+    /**
+     * Initialises a DAO over an already open pool, migrating the schema but
+     * leaving existing data alone. Used by benchmarks that work on a scratch database.
+     *
+     * @param pool the pool to borrow reader and writer connections from
+     */
+    public SqliteReadRacerDAO(SqliteConnectionPool pool) {
+        this(pool, ReadingCache.DEFAULT_MAX_WEIGHT);
+    }
+
+    /**
+     * As {@link #SqliteReadRacerDAO(SqliteConnectionPool)}, with a reading cache of the given size.
+     *
+     * @param readingCacheWeight estimated bytes of readings to cache; 0 loads every reading from the
+     *                           database, as benchmarks of hydration need
+     */
+    public SqliteReadRacerDAO(SqliteConnectionPool pool, long readingCacheWeight) {
+        this.pool = Objects.requireNonNull(pool, "pool");
+        this.readingCache = new ReadingCache(readingCacheWeight);
+        this.metrics = pool.queryMetrics();
+        migrateSchema();
+        loadLoginFilters();
+    }
+
+    /**
+     * Loads every username and email into the membership filters. A full scan on purpose, so it
+     * bypasses the statement cache.
+     */
+    private void loadLoginFilters() {
+        try (PooledConnection pc = pool.reader();
+             Statement statement = pc.connection().createStatement()) {
+            int users;
+            try (ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM Users")) {
+                rs.next();
+                users = rs.getInt(1);
+            }
+            // room to double before the filters have to grow
+            usernameFilter.reset(users * 2);
+            emailFilter.reset(users * 2);
+            try (ResultSet rs = statement.executeQuery("SELECT username, email FROM Users")) {
+                while (rs.next()) {
+                    rememberLogins(rs.getString("username"), rs.getString("email"));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to load usernames and emails", e);
         }
     }
 
-    private void createUsersTable() {
-        try (Statement statement = connection.createStatement()) {
-            String query = "CREATE TABLE IF NOT EXISTS Users ("
-                    + "user_id INTEGER PRIMARY KEY AUTOINCREMENT,"
-                    + "username VARCHAR NOT NULL,"
-                    + "email VARCHAR NOT NULL,"
-                    + "password BLOB NOT NULL,"
-                    + "salt BLOB NOT NULL"
-                    + ")";
-            statement.execute(query);
-//            System.out.println("Users table created successfully");
-        } catch (Exception e) {
-            e.printStackTrace();
+    private void rememberLogins(String username, String email) {
+        if (username != null) {
+            usernameFilter.add(username);
+        }
+        if (email != null) {
+            emailFilter.add(email);
         }
     }
 
-    private void createChoicesTable() {
-        try (Statement statement = connection.createStatement()) {
-            String query = "CREATE TABLE IF NOT EXISTS Choices ("
-                    + "choice_id INTEGER PRIMARY KEY AUTOINCREMENT,"
-                    + "question_id INT NOT NULL,"
-                    + "choice_text VARCHAR NOT NULL,"
-                    + "is_correct BOOLEAN,"
-                    + "FOREIGN KEY (question_id) REFERENCES Questions(question_id) ON DELETE CASCADE"
-                    + ")";
-            statement.execute(query);
-//            System.out.println("Choices table created successfully");
-        } catch (Exception e) {
-            e.printStackTrace();
+    private void migrateSchema() {
+        try (PooledConnection pc = pool.writer()) {
+            SchemaMigrator.migrate(pc.connection());
+            passages = PassageCompression.load(pc.connection());
+            completePassages(pc.connection());
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to migrate database schema", e);
         }
     }
 
-    private void createQuestionsTable() {
-        try (Statement statement = connection.createStatement()) {
-            String query = "CREATE TABLE IF NOT EXISTS Questions ("
-                    + "question_id INTEGER PRIMARY KEY AUTOINCREMENT,"
-                    + "reading_id INT NOT NULL,"
-                    + "prompt VARCHAR NOT NULL,"
-                    + "FOREIGN KEY (reading_id) REFERENCES Readings(reading_id) ON DELETE CASCADE"
-                    + ")";
-            statement.execute(query);
-            System.out.println("Questions table created successfully");
-        } catch (Exception e) {
-            e.printStackTrace();
+    /**
+     * Fills in what SQL cannot derive from a compressed passage, its length and its search text, for
+     * readings that were compressed when a migration added those. They are the rows without a length,
+     * found through a partial index that is empty once they are done, so this costs one index seek on
+     * every later start.
+     */
+    private void completePassages(Connection connection) throws SQLException {
+        Map<Integer, String> texts = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                     "SELECT reading_id, content, content_codec FROM Readings WHERE passage_length IS NULL")) {
+            while (rs.next()) {
+                texts.put(rs.getInt("reading_id"), passages.decode(connection, rs.getInt("content_codec"), rs, "content"));
+            }
+        }
+        if (texts.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement length = connection.prepareStatement(
+                "UPDATE Readings SET passage_length = ? WHERE reading_id = ?");
+             PreparedStatement search = connection.prepareStatement(
+                     "UPDATE ReadingSearch SET passage = ? WHERE rowid = ?")) {
+            for (Map.Entry<Integer, String> entry : texts.entrySet()) {
+                length.setInt(1, PassageCompression.length(entry.getValue()));
+                length.setInt(2, entry.getKey());
+                length.addBatch();
+                search.setString(1, entry.getValue());
+                search.setInt(2, entry.getKey());
+                search.addBatch();
+            }
+            length.executeBatch();
+            search.executeBatch();
+        }
+        System.out.println("Measured and indexed " + texts.size() + " compressed passages");
+    }
+
+    private boolean isEmpty() {
+        try (PooledConnection pc = pool.reader()) {
+            // MAX over the rowid is a single b-tree seek, unlike EXISTS which the planner reports as a scan
+            PreparedStatement ps = pc.prepare("SELECT MAX(reading_id) FROM Readings");
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                rs.getInt(1);
+                return rs.wasNull();
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to check for existing readings", e);
         }
     }
 
@@ -127,11 +189,18 @@ public class SqliteReadRacerDAO {
      * Used primarily for testing and development purposes.
      */
     public void clearAllData() {
-        try (Statement statement = connection.createStatement()) {
+        try (PooledConnection pc = pool.writer();
+             Statement statement = pc.connection().createStatement()) {
 
             // Disable foreign key constraints temporarily
             statement.execute("PRAGMA foreign_keys = OFF");
 
+            // first, so the question triggers below find no search rows to rewrite
+            statement.execute("DELETE FROM ReadingSearch");
+            statement.execute("DELETE FROM ReadingTitleSearch");
+            statement.execute("DELETE FROM BestScores");
+            statement.execute("DELETE FROM AttemptRollups");
+            statement.execute("DELETE FROM UserStats");
             statement.execute("DELETE FROM UserAttempts");
             statement.execute("DELETE FROM Choices");
             statement.execute("DELETE FROM Questions");
@@ -153,24 +222,39 @@ public class SqliteReadRacerDAO {
             System.err.println("Error clearing database data: " + e.getMessage());
             e.printStackTrace();
         }
+        resetRandomSelector();
+        readingCache.invalidateAll();
+        credentialCache.invalidateAll();
+        usernameFilter.reset(0);
+        emailFilter.reset(0);
     }
 
     public void clearAllTables() {
-        try (Statement statement = connection.createStatement()) {
+        try (PooledConnection pc = pool.writer();
+             Statement statement = pc.connection().createStatement()) {
 
             // Disable foreign key constraints temporarily
             statement.execute("PRAGMA foreign_keys = OFF");
 
+            statement.execute("DROP TABLE  IF EXISTS BestScores");
+            statement.execute("DROP TABLE  IF EXISTS UserStats");
             statement.execute("DROP TABLE  IF EXISTS UserAttempts");
             statement.execute("DROP TABLE  IF EXISTS Choices");
             statement.execute("DROP TABLE  IF EXISTS Questions");
             statement.execute("DROP TABLE  IF EXISTS Readings");
             statement.execute("DROP TABLE  IF EXISTS Users");
+            statement.execute("DROP TABLE  IF EXISTS PassageDictionaries");
+            statement.execute("DROP TABLE  IF EXISTS ReadingSearch");
+            statement.execute("DROP TABLE  IF EXISTS ReadingTitleSearch");
+            statement.execute("DROP TABLE  IF EXISTS AttemptRollups");
+            statement.execute("DROP TABLE  IF EXISTS AttemptArchiving");
+
+            // Forget the schema version so the next DAO re-runs every migration
+            statement.execute("PRAGMA user_version = 0");
 
             // Reset auto-increment counters
             statement.execute("DROP TABLE IF EXISTS sqlite_sequence");
 
-
             // Re-enable foreign key constraints
             statement.execute("PRAGMA foreign_keys = ON");
             System.out.println("All data cleared from database successfully");
@@ -179,6 +263,11 @@ public class SqliteReadRacerDAO {
             System.err.println("Error clearing database data: " + e.getMessage());
             e.printStackTrace();
         }
+        resetRandomSelector();
+        readingCache.invalidateAll();
+        credentialCache.invalidateAll();
+        usernameFilter.reset(0);
+        emailFilter.reset(0);
     }
 
     /**
@@ -232,7 +321,7 @@ public class SqliteReadRacerDAO {
 
     /**
      * Inserts predefined sample readings into the database.
-     * Creates a list of sample Reading objects with associated questions and inserts them
+     * Creates a list of sample Reading objects with associated questions and bulk-imports them
      * along with their questions and respective choices into the database.
      *
      * @throws SQLException if there's an error during database insertion
@@ -340,12 +429,8 @@ public class SqliteReadRacerDAO {
                 )
         );
 
-        for (Reading reading : readings) {
-            Reading insertedReading = addReading(reading);
-            for (Question question : reading.questions()) {
-                addQuestion(insertedReading.id(), question);
-            }
-        }
+        // one transaction for all of them instead of a commit per row
+        new ReadingImporter(pool).importReadings(readings.iterator());
     }
 
     /**
@@ -356,21 +441,377 @@ public class SqliteReadRacerDAO {
      * @return Reading object if found, null if no reading exists with the given ID
      */
     public Reading getReading(int id) {
-        final String sql = "SELECT reading_id, title, content, difficulty FROM readings WHERE reading_id = ?";
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setInt(1, id);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) {
-                    return null;
+        return metrics.time("getReading", () -> {
+            List<Reading> readings = getReadings(List.of(id));
+            return readings.isEmpty() ? null : readings.getFirst();
+        });
+    }
+
+    /**
+     * Retrieves several readings, with their questions and choices, in a fixed number of queries.
+     * Readings held by the {@link ReadingCache} are returned from memory; the rest are loaded with
+     * one query for the reading rows and one joined query for every question and choice,
+     * regardless of how many questions each reading has. Ids that do not exist are skipped.
+     * The returned readings may be shared with other callers and must not be modified.
+     *
+     * @param ids the reading ids to load
+     * @return the readings found, ordered by reading id
+     */
+    public List<Reading> getReadings(Collection<Integer> ids) {
+        return metrics.time("getReadings", () -> {
+            Objects.requireNonNull(ids, "ids");
+            List<Reading> readings = new ArrayList<>();
+            List<Integer> missing = new ArrayList<>();
+            for (int id : ids.stream().distinct().sorted().toList()) {
+                Reading cached = readingCache.get(id);
+                if (cached != null) {
+                    readings.add(cached);
+                } else {
+                    missing.add(id);
                 }
-                final String title = rs.getString("title");
-                final String passage = rs.getString("content");
-                final int difficulty = rs.getInt("difficulty");
-                final List<Question> questions = getQuestions(id);
-                return new Reading(id, title, passage, questions, difficulty);
             }
-        } catch (SQLException e) {
-            throw new RuntimeException("Failed to retrieve reading with id=" + id, e);
+            if (missing.isEmpty()) {
+                return readings;
+            }
+
+            int hits = readings.size();
+            long stamp = readingCache.stamp();
+            for (int from = 0; from < missing.size(); from += MAX_IDS_PER_QUERY) {
+                List<Integer> chunk = missing.subList(from, Math.min(from + MAX_IDS_PER_QUERY, missing.size()));
+                try {
+                    for (Reading reading : hydrateReadings(chunk)) {
+                        readingCache.put(reading, stamp);
+                        readings.add(reading);
+                    }
+                } catch (SQLException e) {
+                    throw new RuntimeException("Failed to retrieve readings with ids=" + chunk, e);
+                }
+            }
+            // cache hits came first, so a mix of hits and loads needs re-sorting
+            if (hits > 0 && readings.size() > hits) {
+                readings.sort(Comparator.comparing(Reading::id));
+            }
+            return readings;
+        });
+    }
+
+    /**
+     * Lists readings without loading their passages, questions or choices, in reading id order.
+     * Pages are keyed on the last id of the previous page rather than an offset, so every page is
+     * one index range read however deep it is: by reading id, or by (difficulty, reading_id) when
+     * filtering on difficulty.
+     *
+     * @param afterId the id of the last reading on the previous page, or 0 for the first page
+     * @param limit the most readings to return
+     * @param filter which readings to list
+     * @return up to {@code limit} summaries with ids above {@code afterId}; fewer means the last page
+     */
+    public List<ReadingSummary> listReadings(int afterId, int limit, ReadingFilter filter) {
+        return metrics.time("listReadings", () -> {
+            Objects.requireNonNull(filter, "filter");
+            if (limit < 1) {
+                throw new IllegalArgumentException("limit must be at least 1");
+            }
+            List<ReadingSummary> summaries = new ArrayList<>();
+            try (PooledConnection pc = pool.reader()) {
+                PreparedStatement ps = pc.prepare(
+                        "SELECT reading_id, title, difficulty, question_count, passage_length FROM Readings"
+                                + (filter.difficulty() == null ? " WHERE" : " WHERE difficulty = ? AND")
+                                + " reading_id > ? AND question_count >= ? ORDER BY reading_id LIMIT ?");
+                int index = 1;
+                if (filter.difficulty() != null) {
+                    ps.setInt(index++, filter.difficulty());
+                }
+                ps.setInt(index++, afterId);
+                ps.setInt(index++, filter.minQuestions());
+                ps.setInt(index, limit);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        summaries.add(new ReadingSummary(rs.getInt("reading_id"), rs.getString("title"),
+                                rs.getInt("difficulty"), rs.getInt("question_count"), rs.getInt("passage_length")));
+                    }
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException("Failed to list readings after id " + afterId, e);
+            }
+            return summaries;
+        });
+    }
+
+    /**
+     * Searches titles, passages and question prompts through the FTS5 indexes, in two groups:
+     * readings with every word in their title, found in the ReadingTitleSearch index, then the other
+     * matches in ReadingSearch. The indexes answer from their posting lists, so the cost depends on
+     * how many readings match rather than on how many exist.
+     * <p>
+     * Ranking is what costs: bm25 scores every row it orders and, for its IDF, walks the whole
+     * posting list of every word. So within a group only the newest {@link #MAX_RANKED_MATCHES}
+     * matches are ranked, best first, and the older ones follow newest first. Finding where the
+     * newest end is a walk down the posting list without scoring. A group with a word found in more
+     * than {@link #COMMON_TERM_READINGS} readings is listed newest first throughout; such a word says
+     * little about relevance anyway. Later pages repeat the same steps and skip {@code offset}.
+     *
+     * @param query words to look for; punctuation is ignored
+     * @param offset the number of matches to skip, for later pages
+     * @param limit the most matches to return
+     * @return the matches with a snippet of the best-matching column; empty if the query has no words
+     */
+    public List<SearchResult> searchReadings(String query, int offset, int limit) {
+        return metrics.time("searchReadings", () -> {
+            if (limit < 1 || offset < 0) {
+                throw new IllegalArgumentException("limit must be at least 1 and offset not negative");
+            }
+            List<String> terms = SearchTerms.parse(query);
+            List<SearchResult> results = new ArrayList<>();
+            if (terms.isEmpty()) {
+                return results;
+            }
+            String match = SearchTerms.matchExpression(terms);
+            try (PooledConnection pc = pool.reader()) {
+                List<SearchSegment> segments = new ArrayList<>();
+                addSearchSegments(pc, true, terms, match, segments);
+                addSearchSegments(pc, false, terms, SearchTerms.outsideColumn(match, "title"), segments);
+                int skip = offset;
+                for (SearchSegment segment : segments) {
+                    if (results.size() == limit) {
+                        break;
+                    }
+                    if (fetchSearchSegment(pc, segment, skip, limit - results.size(), results) > 0) {
+                        skip = 0;
+                    } else if (skip > 0) {
+                        skip = Math.max(0, skip - countSearchSegment(pc, segment));
+                    }
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException("Failed to search readings for '" + query + "'", e);
+            }
+            return results;
+        });
+    }
+
+    /**
+     * Part of a search's matches in one index: those with a rowid in [{@code from}, {@code to}),
+     * either ranked by bm25 or newest first.
+     */
+    private record SearchSegment(boolean titles, String match, long from, long to, boolean ranked) {
+        String table() {
+            return searchTable(titles);
+        }
+    }
+
+    private static String searchTable(boolean titles) {
+        return titles ? "ReadingTitleSearch" : "ReadingSearch";
+    }
+
+    private void addSearchSegments(PooledConnection pc, boolean titles, List<String> terms, String match,
+                                   List<SearchSegment> segments) throws SQLException {
+        String table = searchTable(titles);
+        for (String term : terms) {
+            if (nthNewestMatch(pc, table, SearchTerms.matchExpression(List.of(term)), COMMON_TERM_READINGS + 1) > 0) {
+                segments.add(new SearchSegment(titles, match, 0, Long.MAX_VALUE, false));
+                return;
+            }
+        }
+        long oldestRanked = nthNewestMatch(pc, table, match, MAX_RANKED_MATCHES);
+        segments.add(new SearchSegment(titles, match, oldestRanked, Long.MAX_VALUE, true));
+        if (oldestRanked > 0) {
+            segments.add(new SearchSegment(titles, match, 0, oldestRanked, false));
+        }
+    }
+
+    /**
+     * @return the rowid of the {@code n}th newest row of {@code table} matching {@code match}, or 0 if
+     * fewer rows match; walks the posting lists without scoring
+     */
+    private long nthNewestMatch(PooledConnection pc, String table, String match, int n) throws SQLException {
+        PreparedStatement ps = pc.prepare("SELECT rowid FROM " + table + " WHERE " + table
+                + " MATCH ? ORDER BY rowid DESC LIMIT 1 OFFSET ?");
+        ps.setString(1, match);
+        ps.setInt(2, n - 1);
+        try (ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private int countSearchSegment(PooledConnection pc, SearchSegment segment) throws SQLException {
+        String table = segment.table();
+        PreparedStatement ps = pc.prepare("SELECT COUNT(*) FROM " + table + " WHERE " + table
+                + " MATCH ? AND rowid >= ? AND rowid < ?");
+        ps.setString(1, segment.match());
+        ps.setLong(2, segment.from());
+        ps.setLong(3, segment.to());
+        try (ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    /**
+     * Adds up to {@code limit} matches of the segment after skipping {@code offset}, each with a snippet
+     * of its best-matching column in the segment's index. The page is picked from the index alone, then
+     * only its rows are joined to Readings and given snippets; the rowid range keeps that second walk of
+     * the posting lists to the page.
+     *
+     * @return the number of matches added
+     */
+    private int fetchSearchSegment(PooledConnection pc, SearchSegment segment, int offset, int limit,
+                                   List<SearchResult> results) throws SQLException {
+        String table = segment.table();
+        PreparedStatement page = pc.prepare("SELECT rowid FROM " + table + " WHERE " + table
+                + " MATCH ? AND rowid >= ? AND rowid < ? ORDER BY " + (segment.ranked() ? "rank" : "rowid DESC")
+                + " LIMIT ? OFFSET ?");
+        page.setString(1, segment.match());
+        page.setLong(2, segment.from());
+        page.setLong(3, segment.to());
+        page.setInt(4, limit);
+        page.setInt(5, offset);
+        List<Integer> ids = new ArrayList<>();
+        try (ResultSet rs = page.executeQuery()) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Integer> paddedIds = padIds(ids);
+        PreparedStatement ps = pc.prepare("""
+                SELECT r.reading_id, r.title, r.difficulty, r.question_count, r.passage_length,
+                       snippet(%1$s, -1, '[', ']', '...', 16) AS snippet
+                FROM %1$s CROSS JOIN Readings r ON r.reading_id = %1$s.rowid
+                WHERE %1$s MATCH ? AND %1$s.rowid BETWEEN ? AND ? AND +%1$s.rowid IN (%2$s)"""
+                .formatted(table, String.join(",", Collections.nCopies(paddedIds.size(), "?"))));
+        ps.setString(1, segment.match());
+        ps.setInt(2, Collections.min(ids));
+        ps.setInt(3, Collections.max(ids));
+        for (int i = 0; i < paddedIds.size(); i++) {
+            ps.setInt(i + 4, paddedIds.get(i));
+        }
+        Map<Integer, SearchResult> found = new HashMap<>();
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                found.put(rs.getInt("reading_id"), new SearchResult(new ReadingSummary(rs.getInt("reading_id"),
+                        rs.getString("title"), rs.getInt("difficulty"), rs.getInt("question_count"),
+                        rs.getInt("passage_length")), rs.getString("snippet")));
+            }
+        }
+        for (int id : ids) {
+            results.add(found.get(id));
+        }
+        return ids.size();
+    }
+
+    /**
+     * @return hit rate, evictions, rejected admissions and current weight of the reading cache
+     */
+    public ReadingCache.Stats readingCacheStats() {
+        return readingCache.stats();
+    }
+
+    /**
+     * @return per-operation latency histograms and recent slow statements
+     */
+    public QueryMetrics.Snapshot queryMetrics() {
+        return metrics.snapshot();
+    }
+
+    /**
+     * Loads one chunk of readings. Rows of the question/choice join arrive ordered by
+     * reading, question and choice, so the object graph is assembled in a single pass.
+     * The IN list is padded to a power of two so only a handful of distinct SQL texts
+     * ever reach the statement cache.
+     */
+    private List<Reading> hydrateReadings(List<Integer> ids) throws SQLException {
+        final List<Integer> paddedIds = padIds(ids);
+        final String placeholders = String.join(",", Collections.nCopies(paddedIds.size(), "?"));
+
+        Map<Integer, Reading> readings = new LinkedHashMap<>();
+        try (PooledConnection pc = pool.reader()) {
+            PreparedStatement readingStmt = pc.prepare(
+                    "SELECT reading_id, title, content, content_codec, difficulty FROM Readings"
+                            + " WHERE reading_id IN (" + placeholders + ") ORDER BY reading_id");
+            bindIds(readingStmt, paddedIds);
+            try (ResultSet rs = readingStmt.executeQuery()) {
+                while (rs.next()) {
+                    int readingId = rs.getInt("reading_id");
+                    String passage = passages.decode(pc.connection(), rs.getInt("content_codec"), rs, "content");
+                    readings.put(readingId, new Reading(readingId, rs.getString("title"),
+                            passage, null, rs.getInt("difficulty")));
+                }
+            }
+            if (readings.isEmpty()) {
+                return List.of();
+            }
+
+            PreparedStatement questionStmt = pc.prepare(
+                    "SELECT q.reading_id, q.question_id, q.prompt, c.choice_id, c.choice_text, c.is_correct"
+                            + " FROM Questions q LEFT JOIN Choices c ON c.question_id = q.question_id"
+                            + " WHERE q.reading_id IN (" + placeholders + ")"
+                            + " ORDER BY q.reading_id, q.question_id, c.choice_id");
+            bindIds(questionStmt, paddedIds);
+            try (ResultSet rs = questionStmt.executeQuery()) {
+                streamQuestions(rs, (readingId, question) -> {
+                    Reading reading = readings.get(readingId);
+                    if (reading != null) {
+                        reading.addQuestion(question);
+                    }
+                });
+            }
+        }
+        return new ArrayList<>(readings.values());
+    }
+
+    private static List<Integer> padIds(List<Integer> ids) {
+        int size = Integer.highestOneBit(ids.size());
+        if (size < ids.size()) {
+            size <<= 1;
+        }
+        List<Integer> padded = new ArrayList<>(ids);
+        while (padded.size() < size) {
+            padded.add(ids.getLast());
+        }
+        return padded;
+    }
+
+    /**
+     * Walks a result set of (reading_id, question_id, prompt, choice_id, choice_text, is_correct)
+     * rows ordered by question, emitting each question once all of its choices have been read.
+     */
+    private static void streamQuestions(ResultSet rs, QuestionSink sink) throws SQLException {
+        int currentQuestionId = -1;
+        int currentReadingId = -1;
+        String currentPrompt = null;
+        List<Choice> currentChoices = new ArrayList<>();
+
+        while (rs.next()) {
+            int questionId = rs.getInt("question_id");
+            if (questionId != currentQuestionId) {
+                if (currentPrompt != null) {
+                    sink.accept(currentReadingId, new Question(currentPrompt, currentChoices));
+                }
+                currentQuestionId = questionId;
+                currentReadingId = rs.getInt("reading_id");
+                currentPrompt = rs.getString("prompt");
+                currentChoices = new ArrayList<>();
+            }
+            int choiceId = rs.getInt("choice_id");
+            if (!rs.wasNull()) {
+                currentChoices.add(new Choice(choiceId, rs.getString("choice_text"), rs.getBoolean("is_correct")));
+            }
+        }
+        if (currentPrompt != null) {
+            sink.accept(currentReadingId, new Question(currentPrompt, currentChoices));
+        }
+    }
+
+    @FunctionalInterface
+    private interface QuestionSink {
+        void accept(int readingId, Question question);
+    }
+
+    private static void bindIds(PreparedStatement ps, List<Integer> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) {
+            ps.setInt(i + 1, ids.get(i));
         }
     }
 
@@ -382,19 +823,70 @@ public class SqliteReadRacerDAO {
      * @throws RuntimeException if database operation fails or no readings exist
      */
     public Reading getRandomReading() {
-        try (Statement statement = connection.createStatement();
-             ResultSet rs = statement.executeQuery("SELECT reading_id FROM readings ORDER BY RANDOM() LIMIT 1")) {
+        return getRandomReading(null, Set.of());
+    }
 
-            if (rs.next()) {
-                int id = rs.getInt("reading_id");
-                return getReading(id);
+    /**
+     * Retrieves a random reading, optionally of one difficulty and never one of the excluded ids.
+     * The id is drawn from the in-memory {@link RandomReadingSelector} rather than by sorting the
+     * table, so the cost does not depend on how many readings exist.
+     *
+     * @param difficulty only pick readings of this difficulty, or null for any
+     * @param excludeIds reading ids to skip, e.g. the reading just played
+     * @return A randomly selected Reading object
+     * @throws RuntimeException if database operation fails or no reading matches
+     */
+    public Reading getRandomReading(Integer difficulty, Set<Integer> excludeIds) {
+        return metrics.time("getRandomReading", () -> {
+            Objects.requireNonNull(excludeIds, "excludeIds");
+            while (true) {
+                syncRandomSelector();
+                OptionalInt id = randomSelector.pick(difficulty, excludeIds);
+                if (id.isEmpty()) {
+                    throw new RuntimeException("No readings found in database"
+                            + (difficulty == null ? "" : " with difficulty " + difficulty));
+                }
+                Reading reading = getReading(id.getAsInt());
+                if (reading != null) {
+                    return reading;
+                }
+                // deleted behind our back, e.g. by another process
+                randomSelector.remove(id.getAsInt());
             }
-            throw new RuntimeException("No readings found in database");
+        });
+    }
 
-        } catch (SQLException e) {
-            throw new RuntimeException("Failed to retrieve random reading", e);
+    /**
+     * Adds readings inserted since the last sync to the random selector. Readings are only ever
+     * appended with increasing ids, so this is a single range seek that usually returns no rows.
+     * Catches readings written by any path, including {@link ReadingImporter}.
+     */
+    private void syncRandomSelector() {
+        synchronized (randomSelector) {
+            try (PooledConnection pc = pool.reader()) {
+                PreparedStatement ps = pc.prepare(
+                        "SELECT reading_id, difficulty FROM Readings WHERE reading_id > ? ORDER BY reading_id");
+                ps.setInt(1, randomSelectorSyncedThrough);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        int id = rs.getInt(1);
+                        randomSelector.add(id, rs.getInt(2));
+                        randomSelectorSyncedThrough = id;
+                    }
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException("Failed to load reading ids", e);
+            }
         }
     }
+
+    private void resetRandomSelector() {
+        synchronized (randomSelector) {
+            randomSelector.clear();
+            randomSelectorSyncedThrough = 0;
+        }
+    }
+
     /**
      * Adds a new reading to the database and returns the reading with its generated ID.
      * This method only inserts the reading itself; questions must be added separately.
@@ -404,33 +896,73 @@ public class SqliteReadRacerDAO {
      * @throws SQLException if there's an error during database insertion or ID retrieval
      */
     public Reading addReading(Reading reading) throws SQLException {
-        try (PreparedStatement readingStmt = connection.prepareStatement(
-                "INSERT INTO Readings (title, content, difficulty) VALUES (?, ?, ?)",
-                Statement.RETURN_GENERATED_KEYS)) { // Add this flag to get generated ID
-
-            readingStmt.setString(1, reading.title());
-            readingStmt.setString(2, reading.passage());
-            readingStmt.setInt(3, reading.difficulty());
-
-            int rowsAffected = readingStmt.executeUpdate(); // Use executeUpdate instead of execute
-
-            if (rowsAffected > 0) {
-                // Get the generated ID
-                try (ResultSet generatedKeys = readingStmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        int generatedId = generatedKeys.getInt(1);
-
-                        // Create a new Reading instance with the ID
-                        Reading readingWithId = new Reading(generatedId, reading.title(),
-                                reading.passage(), reading.questions(), reading.difficulty());
-
-                        return readingWithId;
+        return metrics.time("addReading", () -> {
+            Reading readingWithId = null;
+            try (PooledConnection pc = pool.writer()) {
+                PreparedStatement readingStmt = pc.prepare(
+                        "INSERT INTO Readings (title, content, content_codec, difficulty, passage_length)"
+                                + " VALUES (?, ?, ?, ?, ?)",
+                        Statement.RETURN_GENERATED_KEYS); // Add this flag to get generated ID
+
+                PassageCompression.Encoded content = passages.encode(reading.passage());
+                readingStmt.setString(1, reading.title());
+                readingStmt.setObject(2, content.content());
+                readingStmt.setInt(3, content.codec());
+                readingStmt.setInt(4, reading.difficulty());
+                readingStmt.setInt(5, PassageCompression.length(reading.passage()));
+
+                int rowsAffected = readingStmt.executeUpdate(); // Use executeUpdate instead of execute
+
+                if (rowsAffected > 0) {
+                    // Get the generated ID
+                    try (ResultSet generatedKeys = readingStmt.getGeneratedKeys()) {
+                        if (generatedKeys.next()) {
+                            int generatedId = generatedKeys.getInt(1);
+
+                            // Create a new Reading instance with the ID
+                            readingWithId = new Reading(generatedId, reading.title(),
+                                    reading.passage(), reading.questions(), reading.difficulty());
+                        }
                     }
                 }
+                if (readingWithId != null && content.codec() != PassageCompression.PLAIN) {
+                    // the search trigger only sees the compressed bytes
+                    PreparedStatement searchStmt = pc.prepare("UPDATE ReadingSearch SET passage = ? WHERE rowid = ?");
+                    searchStmt.setString(1, reading.passage());
+                    searchStmt.setInt(2, readingWithId.id());
+                    searchStmt.executeUpdate();
+                }
             }
-        }
 
-        throw new SQLException("Failed to insert reading or retrieve generated ID");
+            if (readingWithId == null) {
+                throw new SQLException("Failed to insert reading or retrieve generated ID");
+            }
+            // after the writer is released: syncRandomSelector holds the selector while borrowing a connection
+            randomSelector.add(readingWithId.id(), readingWithId.difficulty());
+            readingCache.invalidate(readingWithId.id());
+            return readingWithId;
+        });
+    }
+
+    /**
+     * Deletes a reading together with its questions, choices, attempts and best scores,
+     * and stops it from being picked by {@link #getRandomReading()}.
+     *
+     * @param readingId the ID of the reading to delete
+     * @return true if a reading was deleted
+     */
+    public boolean deleteReading(int readingId) throws SQLException {
+        return metrics.time("deleteReading", () -> {
+            int deleted;
+            try (PooledConnection pc = pool.writer()) {
+                PreparedStatement statement = pc.prepare("DELETE FROM Readings WHERE reading_id = ?");
+                statement.setInt(1, readingId);
+                deleted = statement.executeUpdate();
+            }
+            randomSelector.remove(readingId);
+            readingCache.invalidate(readingId);
+            return deleted > 0;
+        });
     }
 
     /**
@@ -442,29 +974,30 @@ public class SqliteReadRacerDAO {
      * @throws SQLException if there's an error during database insertion
      */
     public void addQuestion(int readingId, Question question) throws SQLException {
-        try (PreparedStatement questionStmt = connection.prepareStatement(
-                "INSERT INTO Questions (reading_id, prompt) VALUES (?, ?)",
-                Statement.RETURN_GENERATED_KEYS)) {
-
-            questionStmt.setInt(1, readingId);
-            questionStmt.setString(2, question.prompt());
-
-            int affected = questionStmt.executeUpdate();
-            if (affected != 1) {
-                throw new SQLException("Inserting question failed, affected rows = " + affected);
-            }
-
-            int questionId;
-            try (ResultSet generatedKeys = questionStmt.getGeneratedKeys()) {
-                if (!generatedKeys.next()) {
-                    throw new SQLException("Inserting question failed, no generated key returned.");
+        metrics.run("addQuestion", () -> {
+            try (PooledConnection pc = pool.writer()) {
+                PreparedStatement questionStmt = pc.prepare(
+                        "INSERT INTO Questions (reading_id, prompt) VALUES (?, ?)",
+                        Statement.RETURN_GENERATED_KEYS);
+
+                questionStmt.setInt(1, readingId);
+                questionStmt.setString(2, question.prompt());
+
+                int affected = questionStmt.executeUpdate();
+                if (affected != 1) {
+                    throw new SQLException("Inserting question failed, affected rows = " + affected);
                 }
-                questionId = generatedKeys.getInt(1);
-            }
 
-            try (PreparedStatement choiceStmt = connection.prepareStatement(
-                    "INSERT INTO Choices (question_id, choice_text, is_correct) VALUES (?, ?, ?)")) {
+                int questionId;
+                try (ResultSet generatedKeys = questionStmt.getGeneratedKeys()) {
+                    if (!generatedKeys.next()) {
+                        throw new SQLException("Inserting question failed, no generated key returned.");
+                    }
+                    questionId = generatedKeys.getInt(1);
+                }
 
+                PreparedStatement choiceStmt = pc.prepare(
+                        "INSERT INTO Choices (question_id, choice_text, is_correct) VALUES (?, ?, ?)");
                 for (Choice choice : question.choices()) {
                     choiceStmt.setInt(1, questionId);
                     choiceStmt.setString(2, choice.getChoiceText());
@@ -473,236 +1006,327 @@ public class SqliteReadRacerDAO {
                 }
                 choiceStmt.executeBatch();
             }
-        }
+            readingCache.invalidate(readingId);
+        });
     }
 
     public boolean userWithIdExists(int userId) throws SQLException {
-        Objects.requireNonNull(userId, "userId");
-        try (PreparedStatement ps = connection.prepareStatement(
-                "SELECT COUNT(*) FROM Users WHERE user_id = ?")) {
-            ps.setInt(1, userId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    int count = rs.getInt(1);
-                    return count == 1;
-                }
-                return false;
-            }
+        return metrics.time("userWithIdExists", () -> {
+            Objects.requireNonNull(userId, "userId");
+            try (PooledConnection pc = pool.reader()) {
+                PreparedStatement ps = pc.prepare(
+                        "SELECT COUNT(*) FROM Users WHERE user_id = ?");
+                ps.setInt(1, userId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        int count = rs.getInt(1);
+                        return count == 1;
+                    }
+                    return false;
                 }
+                    }
+        });
     }
 
+    /**
+     * Retrieves the questions of a reading together with their choices using one joined query.
+     *
+     * @param reading_id the reading whose questions to load
+     * @return the questions ordered by question id
+     */
     public List<Question> getQuestions(int reading_id) {
-        List<Question> questions = new ArrayList<>();
-        try (PreparedStatement statement = connection.prepareStatement(
-                "SELECT question_id, prompt FROM Questions WHERE reading_id = ?")) {
-            statement.setInt(1, reading_id);
-            try (ResultSet resultSet = statement.executeQuery()) {
-                while (resultSet.next()) {
-
-                    int question_id = resultSet.getInt("question_id");
-                    String prompt = resultSet.getString("prompt");
-                    //choices retrieved from the choices table
-                    List<Choice> choices = getChoices(question_id);
-
-                    // Create a Question record using the appropriate constructor
-                    Question question = new Question(prompt, choices);
-
-                    System.out.println(question);
-
-                    questions.add(question);
+        return metrics.time("getQuestions", () -> {
+            List<Question> questions = new ArrayList<>();
+            try (PooledConnection pc = pool.reader()) {
+                PreparedStatement statement = pc.prepare(
+                        "SELECT q.reading_id, q.question_id, q.prompt, c.choice_id, c.choice_text, c.is_correct"
+                                + " FROM Questions q LEFT JOIN Choices c ON c.question_id = q.question_id"
+                                + " WHERE q.reading_id = ?"
+                                + " ORDER BY q.question_id, c.choice_id");
+                statement.setInt(1, reading_id);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    streamQuestions(resultSet, (readingId, question) -> questions.add(question));
                 }
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to retrieve questions for reading_id=" + reading_id, e);
             }
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to retrieve questions for reading_id=" + reading_id, e);
-        }
-        return questions;
+            return questions;
+        });
     }
 
     public List<Choice> getChoices(int question_id) throws SQLException {
-        List<Choice> choices = new ArrayList<>();
-        try (PreparedStatement statement = connection.prepareStatement(
-                "SELECT choice_id,choice_text,is_correct FROM Choices WHERE question_id = ? ORDER BY choice_id")) {
-            statement.setInt(1, question_id);
-            try (ResultSet resultSet = statement.executeQuery()) {
-                while (resultSet.next()) {
-                    int choice_id = resultSet.getInt("choice_id");
-                    boolean is_correct = resultSet.getBoolean("is_correct");
-                    String choice_text = resultSet.getString("choice_text");
-                    choices.add(new Choice(choice_id, choice_text, is_correct));
+        return metrics.time("getChoices", () -> {
+            List<Choice> choices = new ArrayList<>();
+            try (PooledConnection pc = pool.reader()) {
+                PreparedStatement statement = pc.prepare(
+                        "SELECT choice_id,choice_text,is_correct FROM Choices WHERE question_id = ? ORDER BY choice_id");
+                statement.setInt(1, question_id);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        int choice_id = resultSet.getInt("choice_id");
+                        boolean is_correct = resultSet.getBoolean("is_correct");
+                        String choice_text = resultSet.getString("choice_text");
+                        choices.add(new Choice(choice_id, choice_text, is_correct));
+                    }
                 }
             }
-        }
-        return choices;
+            return choices;
+        });
     }
 
     public User addUser(User user) throws SQLException {
-        try (PreparedStatement statement = connection.prepareStatement(
-                "INSERT INTO Users (username, email, password, salt) VALUES (?, ?, ?, ?)",
-                Statement.RETURN_GENERATED_KEYS)) {
-
-            statement.setString(1, user.getUsername());
-            statement.setString(2, user.getEmail());
-            statement.setBytes(3, user.getPassword());
-            statement.setBytes(4, user.getSalt());
-
-            int rowsAffected = statement.executeUpdate();
-
-            if (rowsAffected > 0) {
-                try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        int generatedId = generatedKeys.getInt(1);
-                        user.setUser_id(generatedId);
-                        return user;
+        return metrics.time("addUser", () -> {
+            // before the insert, so no check can see the user in the table but not in the filters
+            rememberLogins(user.getUsername(), user.getEmail());
+            try (PooledConnection pc = pool.writer()) {
+                PreparedStatement statement = pc.prepare(
+                        "INSERT INTO Users (username, email, password, salt) VALUES (?, ?, ?, ?)",
+                        Statement.RETURN_GENERATED_KEYS);
+
+                statement.setString(1, user.getUsername());
+                statement.setString(2, user.getEmail());
+                statement.setBytes(3, user.getPassword());
+                statement.setBytes(4, user.getSalt());
+
+                int rowsAffected = statement.executeUpdate();
+
+                if (rowsAffected > 0) {
+                    try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                        if (generatedKeys.next()) {
+                            int generatedId = generatedKeys.getInt(1);
+                            user.setUser_id(generatedId);
+                            credentialCache.invalidateLogins(user.getUsername(), user.getEmail());
+                            return user;
+                        }
                     }
                 }
             }
-        }
 
-        throw new SQLException("Failed to add user to database");
+            throw new SQLException("Failed to add user to database");
+        });
     }
 
     public User getUser(int userId) throws SQLException {
-        try (PreparedStatement statement = connection.prepareStatement(
-                "SELECT username, email, password, salt FROM Users WHERE user_id = ?")) {
-            statement.setInt(1, userId);
-            try (ResultSet resultSet = statement.executeQuery()) {
-
-                if (resultSet.next()) {
-                    String username = resultSet.getString("username");
-                    String email = resultSet.getString("email");
-                    byte[] password = resultSet.getBytes("password");
-                    byte[] salt = resultSet.getBytes("salt");
-
-                    return new User(username, email, password, salt);
+        return metrics.time("getUser", () -> {
+            try (PooledConnection pc = pool.reader()) {
+                PreparedStatement statement = pc.prepare(
+                        "SELECT username, email, password, salt FROM Users WHERE user_id = ?");
+                statement.setInt(1, userId);
+                try (ResultSet resultSet = statement.executeQuery()) {
+
+                    if (resultSet.next()) {
+                        String username = resultSet.getString("username");
+                        String email = resultSet.getString("email");
+                        byte[] password = resultSet.getBytes("password");
+                        byte[] salt = resultSet.getBytes("salt");
+
+                        return new User(username, email, password, salt);
+                    }
                 }
             }
-        }
-        throw new SQLException("User not found with ID: " + userId);
+            throw new SQLException("User not found with ID: " + userId);
+        });
     }
 
-
+    /**
+     * Names that were never added are answered from the in-memory filter; only names the filter
+     * may have seen are counted in the database.
+     */
     public boolean usernameIsUnique(String login) throws SQLException {
-        Objects.requireNonNull(login, "login");
+        return metrics.time("usernameIsUnique", () -> {
+            Objects.requireNonNull(login, "login");
+            if (!usernameFilter.mightContain(login)) {
+                return true; // never added, so definitely free
+            }
 
-        try (PreparedStatement ps = connection.prepareStatement(
-                "SELECT COUNT(*) FROM Users WHERE username = ?")) {
-            ps.setString(1, login);
+            try (PooledConnection pc = pool.reader()) {
+                PreparedStatement ps = pc.prepare(
+                        "SELECT COUNT(*) FROM Users WHERE username = ?");
+                ps.setString(1, login);
 
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    int count = rs.getInt(1);
-                    return count == 0;
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        int count = rs.getInt(1);
+                        return count == 0;
+                    }
+                    return true;
                 }
-                return true;
             }
-        }
+        });
     }
 
+    /**
+     * Same as {@link #usernameIsUnique(String)}, for emails.
+     */
     public boolean emailIsUnique(String login) throws SQLException {
-        Objects.requireNonNull(login, "login");
+        return metrics.time("emailIsUnique", () -> {
+            Objects.requireNonNull(login, "login");
+            if (!emailFilter.mightContain(login)) {
+                return true; // never added, so definitely free
+            }
 
-        try (PreparedStatement ps = connection.prepareStatement(
-                "SELECT COUNT(*) FROM Users WHERE email = ?")) {
-            ps.setString(1, login);
+            try (PooledConnection pc = pool.reader()) {
+                PreparedStatement ps = pc.prepare(
+                        "SELECT COUNT(*) FROM Users WHERE email = ?");
+                ps.setString(1, login);
 
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    int count = rs.getInt(1);
-                    return count == 0;
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        int count = rs.getInt(1);
+                        return count == 0;
+                    }
+                    return true;
                 }
-                return true;
             }
-        }
+        });
     }
 
     public void updateUser(User newuser) throws SQLException {
-        Objects.requireNonNull(newuser, "newuser");
-        if (!newuser.has_id()) {
-            throw new SQLException("User to update has no ID");
-        }
-        //todo find better way of doing this
-//        if (!usernameIsUnique(newuser.getUsername()) ) {
-//            throw new SQLException("Username is not unique");
-//        }
-//        if (!emailIsUnique(newuser.getEmail())) {
-//            throw new SQLException("Email is not unique");
-//        }
-        if (!userWithIdExists(newuser.getUser_id())) {
-            throw new SQLException("User with ID does not exist");
-        }
-
-        try (PreparedStatement ps = connection.prepareStatement(
-                "UPDATE Users SET username = ?, email = ?, password = ?, salt = ? WHERE user_id = ?")) {
-            ps.setString(1, newuser.getUsername());
-            ps.setString(2, newuser.getEmail());
-            ps.setBytes(3, newuser.getPassword());
-            ps.setBytes(4, newuser.getSalt());
-            ps.setInt(5, newuser.getUser_id());
-
-            ps.executeUpdate();
-                }
-        catch (SQLException e) {
-            throw new SQLException("Failed to update user", e);
-        }
-
-
+        metrics.run("updateUser", () -> {
+            Objects.requireNonNull(newuser, "newuser");
+            if (!newuser.has_id()) {
+                throw new SQLException("User to update has no ID");
+            }
+            //todo find better way of doing this
+    //        if (!usernameIsUnique(newuser.getUsername()) ) {
+    //            throw new SQLException("Username is not unique");
+    //        }
+    //        if (!emailIsUnique(newuser.getEmail())) {
+    //            throw new SQLException("Email is not unique");
+    //        }
+            if (!userWithIdExists(newuser.getUser_id())) {
+                throw new SQLException("User with ID does not exist");
+            }
+            rememberLogins(newuser.getUsername(), newuser.getEmail());
+
+            try (PooledConnection pc = pool.writer()) {
+                PreparedStatement ps = pc.prepare(
+                        "UPDATE Users SET username = ?, email = ?, password = ?, salt = ? WHERE user_id = ?");
+                ps.setString(1, newuser.getUsername());
+                ps.setString(2, newuser.getEmail());
+                ps.setBytes(3, newuser.getPassword());
+                ps.setBytes(4, newuser.getSalt());
+                ps.setInt(5, newuser.getUser_id());
+
+                ps.executeUpdate();
+                    }
+            catch (SQLException e) {
+                throw new SQLException("Failed to update user", e);
+            }
+            credentialCache.invalidateUser(newuser.getUser_id());
+            credentialCache.invalidateLogins(newuser.getUsername(), newuser.getEmail());
+        });
     }
 
     public void deleteUser(int userId) throws SQLException {
-        if (!userWithIdExists(userId)) {
-            throw new SQLException("User with ID does not exist");
-        }
-        try (PreparedStatement ps = connection.prepareStatement(
-                "DELETE FROM Users WHERE user_id = ?")) {
-            ps.setInt(1, userId);
-            ps.executeUpdate();
-        }
+        metrics.run("deleteUser", () -> {
+            if (!userWithIdExists(userId)) {
+                throw new SQLException("User with ID does not exist");
+            }
+            try (PooledConnection pc = pool.writer()) {
+                PreparedStatement ps = pc.prepare(
+                        "DELETE FROM Users WHERE user_id = ?");
+                ps.setInt(1, userId);
+                ps.executeUpdate();
+            }
+            credentialCache.invalidateUser(userId);
+        });
     }
 
+    /**
+     * Logs a user in by username or email. The identifier is looked up on the unique index it most
+     * likely belongs to, email if it contains '@' (which usernames cannot), then on the other one if
+     * that finds nobody. Each lookup is a single index search, unlike {@code username = ? OR email = ?}.
+     * Results are cached in {@link CredentialCache}, including identifiers that match no user, until a
+     * user write invalidates them, so a burst of logins only reaches the database once per identifier.
+     *
+     * @throws InvalidCredentialsException if no user matches or the password is wrong
+     */
     public User TryLogin(String login, String rawPassword) throws SQLException {
+        return metrics.time("tryLogin", () -> {
+            Objects.requireNonNull(login, "login");
+            Objects.requireNonNull(rawPassword, "password");
+
+            CredentialCache.Credentials credentials;
+            CredentialCache.Entry cached = credentialCache.get(login);
+            if (cached != null) {
+                credentials = cached.credentials();
+            } else {
+                long stamp = credentialCache.stamp();
+                credentials = findCredentials(login);
+                credentialCache.put(login, credentials, stamp);
+            }
+            if (credentials == null) {
+                throw new InvalidCredentialsException(); // user not found
+            }
 
-        Objects.requireNonNull(login, "login");
-        Objects.requireNonNull(rawPassword, "password");
+            byte[] computed;
+            try {
+                MessageDigest md = MessageDigest.getInstance("SHA-512");
+                md.update(credentials.salt());
+                computed = md.digest(rawPassword.getBytes(StandardCharsets.UTF_8));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-512 not available", e);
+            }
 
-        // can be email or username login
-        final String sql = """
-        SELECT user_id, username, email, salt, password
-        FROM users
-        WHERE username = ? OR email = ?
-        LIMIT 1
-        """;
+            if (!MessageDigest.isEqual(credentials.password(), computed)) {
+                throw new InvalidCredentialsException(); // wrong password
+            }
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, login);
-            ps.setString(2, login);
+            // the cached arrays stay private to the cache
+            return new User(credentials.userId(), credentials.username(), credentials.email(),
+                    credentials.password().clone(), credentials.salt().clone());
+        });
+    }
 
-            try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) {
-                    throw new InvalidCredentialsException(); // user not found
-                }
+    private CredentialCache.Credentials findCredentials(String login) throws SQLException {
+        boolean looksLikeEmail = login.indexOf('@') >= 0;
+        try (PooledConnection pc = pool.reader()) {
+            CredentialCache.Credentials found = findCredentials(pc, looksLikeEmail ? "email" : "username", login);
+            if (found == null) {
+                // the DAO does not enforce the username pattern, so either column may still match
+                found = findCredentials(pc, looksLikeEmail ? "username" : "email", login);
+            }
+            return found;
+        }
+    }
 
-                int id = rs.getInt("user_id");
-                String username = Objects.requireNonNull(rs.getString("username"));
-                String email    = Objects.requireNonNull(rs.getString("email"));
-                byte[] salt     = Objects.requireNonNull(rs.getBytes("salt"));
-                byte[] stored   = Objects.requireNonNull(rs.getBytes("password"));
+    private static CredentialCache.Credentials findCredentials(PooledConnection pc, String column, String login)
+            throws SQLException {
+        PreparedStatement ps = pc.prepare(
+                "SELECT user_id, username, email, salt, password FROM Users WHERE " + column + " = ?");
+        ps.setString(1, login);
+        try (ResultSet rs = ps.executeQuery()) {
+            if (!rs.next()) {
+                return null;
+            }
+            return new CredentialCache.Credentials(rs.getInt("user_id"),
+                    Objects.requireNonNull(rs.getString("username")),
+                    Objects.requireNonNull(rs.getString("email")),
+                    Objects.requireNonNull(rs.getBytes("password")),
+                    Objects.requireNonNull(rs.getBytes("salt")));
+        }
+    }
 
-                byte[] computed;
-                try {
-                    MessageDigest md = MessageDigest.getInstance("SHA-512");
-                    md.update(salt);
-                    computed = md.digest(rawPassword.getBytes(StandardCharsets.UTF_8));
-                } catch (NoSuchAlgorithmException e) {
-                    throw new IllegalStateException("SHA-512 not available", e);
-                }
+    /**
+     * @return hits, including hits on identifiers known to match nobody, and size of the login cache
+     */
+    public CredentialCache.Stats credentialCacheStats() {
+        return credentialCache.stats();
+    }
 
-                if (!java.util.Arrays.equals(stored, computed)) {
-                    throw new InvalidCredentialsException(); // wrong password
-                }
+    /**
+     * @return how many username checks the membership filter answered without the database
+     */
+    public MembershipFilter.Stats usernameFilterStats() {
+        return usernameFilter.stats();
+    }
 
-                return new User(id, username, email, stored, salt);
-            }
-        }
+    /**
+     * @return how many email checks the membership filter answered without the database
+     */
+    public MembershipFilter.Stats emailFilterStats() {
+        return emailFilter.stats();
     }
 
     /**
@@ -713,27 +1337,30 @@ public class SqliteReadRacerDAO {
      */
 
     public void addUserAttempt(UserAttempt userAttempt) throws SQLException {
-        try (PreparedStatement statement = connection.prepareStatement(
-                "INSERT INTO UserAttempts (user_id, reading_id, score) VALUES (?, ?, ?)",
-                Statement.RETURN_GENERATED_KEYS)) {
-            statement.setInt(1, userAttempt.getUserID());
-            statement.setInt(2, userAttempt.getReadingID());
-            statement.setInt(3, userAttempt.getScore());
-
-            int rowsAffected = statement.executeUpdate();
-
-            if (rowsAffected > 0) {
-                try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        int generatedId = generatedKeys.getInt(1);
-                        userAttempt.setAttemptID(generatedId);
-                        return;
+        metrics.run("addUserAttempt", () -> {
+            try (PooledConnection pc = pool.writer()) {
+                PreparedStatement statement = pc.prepare(
+                        "INSERT INTO UserAttempts (user_id, reading_id, score, created_at) VALUES (?, ?, ?, unixepoch())",
+                        Statement.RETURN_GENERATED_KEYS);
+                statement.setInt(1, userAttempt.getUserID());
+                statement.setInt(2, userAttempt.getReadingID());
+                statement.setInt(3, userAttempt.getScore());
+
+                int rowsAffected = statement.executeUpdate();
+
+                if (rowsAffected > 0) {
+                    try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                        if (generatedKeys.next()) {
+                            int generatedId = generatedKeys.getInt(1);
+                            userAttempt.setAttemptID(generatedId);
+                            return;
+                        }
                     }
                 }
             }
-        }
 
-        throw new SQLException("Failed to add user attempt to database");
+            throw new SQLException("Failed to add user attempt to database");
+        });
     }
 
     /**
@@ -742,39 +1369,124 @@ public class SqliteReadRacerDAO {
      * @param readingId the ID of the reading for which to produce the leaderboard for.
      * @return A list of UserAttempt objects sorted by score.
      */
-
     public List<UserAttempt> getLeaderboard (int readingId) throws SQLException {
-        List<UserAttempt> leaderboard = new ArrayList<>();
-
-        final String sql = """
-            SELECT ua.attempt_id, ua.user_id, ua.reading_id, ua.score
-                    FROM UserAttempts ua
-                    INNER JOIN (
-                        SELECT user_id, MAX(score) as max_score
-                        FROM UserAttempts
+        return getLeaderboard(readingId, LEADERBOARD_SIZE);
+    }
+
+    /**
+     * Retrieves the top {@code limit} users for a reading, one row per user holding their best attempt.
+     * Reads the trigger-maintained BestScores table along its (reading_id, score DESC, attempt_id) index,
+     * so the cost depends on {@code limit} only, not on how many attempts have been recorded.
+     * Equal scores are ordered by whoever reached the score first.
+     *
+     * @param readingId the ID of the reading for which to produce the leaderboard for.
+     * @param limit the maximum number of rows to return
+     * @return A list of UserAttempt objects sorted by score.
+     */
+    public List<UserAttempt> getLeaderboard(int readingId, int limit) throws SQLException {
+        return metrics.time("getLeaderboard", () -> {
+            List<UserAttempt> leaderboard = new ArrayList<>();
+
+            try (PooledConnection pc = pool.reader()) {
+                PreparedStatement statement = pc.prepare("""
+                        SELECT attempt_id, user_id, reading_id, score
+                        FROM BestScores
                         WHERE reading_id = ?
-                        GROUP BY user_id
-                    ) best ON ua.user_id = best.user_id AND ua.score = best.max_score AND ua.reading_id = ?
-                    ORDER BY ua.score DESC
-                    LIMIT 10
-            """;
-
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setInt(1, readingId);
-
-            try (ResultSet resultSet = statement.executeQuery()) {
-                while (resultSet.next()) {
-                    int attempt_id = resultSet.getInt("attempt_id");
-                    int user_id = resultSet.getInt("user_id");
-                    int reading_id = resultSet.getInt("reading_id");
-                    int score = resultSet.getInt("score");
-
-                    UserAttempt attempt = new UserAttempt(attempt_id, user_id, reading_id, score);
-                    leaderboard.add(attempt);
+                        ORDER BY score DESC, attempt_id
+                        LIMIT ?""");
+                statement.setInt(1, readingId);
+                statement.setInt(2, limit);
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        int attempt_id = resultSet.getInt("attempt_id");
+                        int user_id = resultSet.getInt("user_id");
+                        int reading_id = resultSet.getInt("reading_id");
+                        int score = resultSet.getInt("score");
+
+                        UserAttempt attempt = new UserAttempt(attempt_id, user_id, reading_id, score);
+                        leaderboard.add(attempt);
+                    }
                 }
             }
-        }
-        return leaderboard;
+            return leaderboard;
+        });
+    }
+
+    /**
+     * Reads a user's totals from the trigger-maintained UserStats table, a single primary-key lookup
+     * however many attempts the user has made. A streak whose last day is before yesterday has ended
+     * and is reported as 0.
+     *
+     * @param userId the ID of the user
+     * @return the user's stats, all zero if they have no attempts
+     */
+    public UserStats getUserStats(int userId) throws SQLException {
+        return metrics.time("getUserStats", () -> {
+            try (PooledConnection pc = pool.reader()) {
+                PreparedStatement statement = pc.prepare("""
+                        SELECT attempts, best_score, CAST(total_score AS REAL) / attempts AS average_score,
+                               last_score, readings_completed,
+                               CASE WHEN last_played_day >= CAST(julianday('now', 'localtime') + 0.5 AS INTEGER) - 1
+                                    THEN streak_days ELSE 0 END AS current_streak
+                        FROM UserStats
+                        WHERE user_id = ?""");
+                statement.setInt(1, userId);
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (!resultSet.next()) {
+                        return UserStats.empty(userId);
+                    }
+                    return new UserStats(userId,
+                            resultSet.getInt("attempts"),
+                            resultSet.getInt("best_score"),
+                            resultSet.getDouble("average_score"),
+                            resultSet.getInt("last_score"),
+                            resultSet.getInt("readings_completed"),
+                            resultSet.getInt("current_streak"));
+                }
+            }
+        });
+    }
+
+    /**
+     * Recomputes BestScores from the full UserAttempts history in one transaction.
+     * Only needed if the table was modified by hand or restored from an older backup;
+     * normal inserts keep it current through the trg_attempts_best_score trigger.
+     * Best scores set by attempts since moved out by {@link AttemptArchiver} are kept, and only
+     * replaced by a higher live score.
+     *
+     * @return the number of best-score rows written
+     */
+    public int rebuildBestScores() throws SQLException {
+        return metrics.time("rebuildBestScores", () -> {
+            try (PooledConnection pc = pool.writer();
+                 Statement statement = pc.connection().createStatement()) {
+                Connection connection = pc.connection();
+                connection.setAutoCommit(false);
+                try {
+                    statement.execute("DELETE FROM BestScores WHERE attempt_id IN (SELECT attempt_id FROM UserAttempts)");
+                    int rows = statement.executeUpdate("""
+                            INSERT INTO BestScores (reading_id, user_id, score, attempt_id)
+                            SELECT reading_id, user_id, score, attempt_id FROM (
+                                SELECT reading_id, user_id, score, attempt_id, ROW_NUMBER() OVER (
+                                    PARTITION BY reading_id, user_id ORDER BY score DESC, attempt_id) AS best_rank
+                                FROM UserAttempts)
+                            WHERE best_rank = 1
+                            ON CONFLICT (reading_id, user_id) DO UPDATE
+                                SET score = excluded.score, attempt_id = excluded.attempt_id
+                                WHERE excluded.score > BestScores.score""");
+                    connection.commit();
+                    System.out.println("Rebuilt " + rows + " best scores");
+                    return rows;
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            }
+        });
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,100 @@
+package com.example.demo.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of prepared statements for a single connection, keyed by SQL text.
+ * <p>
+ * Not thread-safe on its own: it relies on the pool handing each connection to one borrower at a time.
+ * Statements returned from {@link #prepare} belong to the cache and must not be closed by the caller;
+ * close their result sets instead. The same SQL must not be executed again while one of its
+ * result sets is still being read on the same connection.
+ */
+class StatementCache implements AutoCloseable {
+    private final Connection connection;
+    private final int capacity;
+    private final Counters counters;
+    private final QueryMetrics metrics;
+    private final LinkedHashMap<Key, PreparedStatement> statements;
+
+    StatementCache(Connection connection, int capacity, Counters counters, QueryMetrics metrics) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.connection = connection;
+        this.capacity = capacity;
+        this.counters = counters;
+        this.metrics = metrics;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest) {
+                if (size() > StatementCache.this.capacity) {
+                    counters.evictions.increment();
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns a cached statement for the SQL, preparing it on a miss. Parameters and batches
+     * left over from the previous use are cleared. Statements report their executions to the
+     * pool's {@link QueryMetrics}.
+     */
+    PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        Key key = new Key(sql, autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS);
+        PreparedStatement statement = statements.get(key);
+        if (statement != null && !statement.isClosed()) {
+            counters.hits.increment();
+            statement.clearParameters();
+            statement.clearBatch();
+            return statement;
+        }
+        counters.misses.increment();
+        counters.preparesBySql.computeIfAbsent(sql, s -> new LongAdder()).increment();
+        statement = InstrumentedStatement.wrap(connection.prepareStatement(sql, autoGeneratedKeys), sql, connection, metrics);
+        statements.put(key, statement);
+        return statement;
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    @Override
+    public void close() {
+        statements.values().forEach(StatementCache::closeQuietly);
+        statements.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing cached statement: " + e.getMessage());
+        }
+    }
+
+    private record Key(String sql, boolean returnGeneratedKeys) {
+    }
+
+    /**
+     * Hit, miss and eviction counts shared by every cache in a pool.
+     */
+    static final class Counters {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+        final ConcurrentMap<String, LongAdder> preparesBySql = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,395 @@
+package com.example.demo.util;
+
+import com.example.demo.model.Choice;
+import com.example.demo.model.Question;
+import com.example.demo.model.Reading;
+import com.example.demo.util.SqliteConnectionPool.PooledConnection;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Fills a database with made-up users, readings and attempts, at whatever scale a test or benchmark
+ * needs, shaped like a school's use of the app rather than like a loop counter:
+ * <ul>
+ *     <li>Readings are played with Zipf popularity: a few are played constantly, most rarely.</li>
+ *     <li>Students' activity is skewed the same way, so a few play daily and most only a handful of
+ *     times. Which readings and students are popular is shuffled, so it does not follow their ids.</li>
+ *     <li>Students belong to schools of uneven size, {@code school<n>.edu}, the cohorts
+ *     {@link ShardRouter} shards by.</li>
+ *     <li>Scores are what {@link com.example.demo.model.ScoringSystem} would give a student of some
+ *     skill on a reading of some difficulty, and attempts are spread over the last
+ *     {@value #HISTORY_DAYS} days in the order they were made.</li>
+ * </ul>
+ * The same seed and clock always give the same rows, with the same ids on an empty database.
+ * Each kind of row is drawn from its own random stream, so changing the number of attempts does
+ * not change the readings or users. Every student's password is {@value #PASSWORD}.
+ * <p>
+ * Readings go in through {@link ReadingImporter}; users and attempts are inserted in transactions
+ * of {@value #ROWS_PER_TRANSACTION} rows, borrowing the writer once per transaction. The schema
+ * must already be migrated. DAOs opened before generating keep their login filters and caches from
+ * before, so open them afterwards.
+ */
+public class SyntheticDatasetGenerator {
+    public static final int DEFAULT_QUESTIONS_PER_READING = 4;
+    public static final int DEFAULT_CHOICES_PER_QUESTION = 4;
+    public static final String PASSWORD = "password";
+    public static final int HISTORY_DAYS = 180;
+
+    private static final int ROWS_PER_TRANSACTION = 10_000;
+    private static final int READINGS_PER_TRANSACTION = 2_000;
+    private static final int STUDENTS_PER_SCHOOL = 250;
+    private static final double READING_SKEW = 1.0;
+    private static final double STUDENT_SKEW = 0.8;
+    private static final double SCHOOL_SKEW = 0.5;
+    private static final int VOCABULARY = 5_000;
+    private static final int WORDS_PER_PASSAGE = 120;
+    // the game timer ReadingController starts, shared by reading and answering
+    private static final int GAME_SECONDS = 240;
+    private static final String[] ONSETS = {"b", "d", "f", "g", "h", "k", "l", "m", "n", "p",
+            "r", "s", "t", "v", "w", "br", "ch", "sh", "st", "tr"};
+    private static final String[] VOWELS = {"a", "e", "i", "o", "u"};
+
+    private final SqliteConnectionPool pool;
+    private final Spec spec;
+    private final Clock clock;
+
+    /**
+     * What to generate.
+     *
+     * @param users students to add
+     * @param readings readings to add, each with {@code questionsPerReading} questions of
+     *                 {@code choicesPerQuestion} choices, one of them correct
+     * @param attempts attempts to add, by the new students on the new readings
+     * @param seed the seed every random choice follows from
+     */
+    public record Spec(int users, int readings, int questionsPerReading, int choicesPerQuestion,
+                       long attempts, long seed) {
+        public Spec {
+            if (users < 0 || readings < 0 || attempts < 0) {
+                throw new IllegalArgumentException("Counts must not be negative");
+            }
+            if (questionsPerReading < 1 || choicesPerQuestion < 2) {
+                throw new IllegalArgumentException("A reading needs a question and a question two choices");
+            }
+            if (attempts > 0 && (users == 0 || readings == 0)) {
+                throw new IllegalArgumentException("Attempts need users and readings to be made by and on");
+            }
+        }
+
+        public Spec(int users, int readings, long attempts, long seed) {
+            this(users, readings, DEFAULT_QUESTIONS_PER_READING, DEFAULT_CHOICES_PER_QUESTION, attempts, seed);
+        }
+    }
+
+    /**
+     * @param firstUserId id of the first new user; the rest follow it without gaps
+     * @param firstReadingId id of the first new reading; the rest follow it without gaps
+     */
+    public record Report(int users, int readings, long attempts, int firstUserId, int firstReadingId,
+                         long elapsedNanos) {
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d users from id %d, %d readings from id %d and %d attempts in %.2f s",
+                    users, firstUserId, readings, firstReadingId, attempts, elapsedNanos / 1e9);
+        }
+    }
+
+    public SyntheticDatasetGenerator(SqliteConnectionPool pool, Spec spec) {
+        this(pool, spec, Clock.systemDefaultZone());
+    }
+
+    /**
+     * @param clock the end of the attempt history, which covers the {@value #HISTORY_DAYS} days before it
+     */
+    public SyntheticDatasetGenerator(SqliteConnectionPool pool, Spec spec, Clock clock) {
+        this.pool = Objects.requireNonNull(pool, "pool");
+        this.spec = Objects.requireNonNull(spec, "spec");
+        this.clock = Objects.requireNonNull(clock, "clock");
+    }
+
+    public Report generate() throws SQLException {
+        long start = System.nanoTime();
+        int firstReadingId = nextId("Readings", "reading_id");
+        byte[] difficulties = new byte[spec.readings()];
+        new ReadingImporter(pool, READINGS_PER_TRANSACTION)
+                .importReadings(new Readings(stream(1), difficulties));
+
+        int firstUserId = nextId("Users", "user_id");
+        float[] skills = insertUsers(stream(2), firstUserId);
+        insertAttempts(stream(3), firstUserId, firstReadingId, skills, difficulties);
+
+        Report report = new Report(spec.users(), spec.readings(), spec.attempts(), firstUserId, firstReadingId,
+                System.nanoTime() - start);
+        System.out.println("Generated " + report);
+        return report;
+    }
+
+    private Random stream(int phase) {
+        return new Random(spec.seed() * 31 + phase);
+    }
+
+    /**
+     * @return the id the table hands out next, the same one ReadingImporter starts from
+     */
+    private int nextId(String table, String idColumn) throws SQLException {
+        try (PooledConnection pc = pool.writer()) {
+            return ReadingImporter.lastId(pc.connection(), table, idColumn) + 1;
+        }
+    }
+
+    /**
+     * @return each new user's skill, the chance they answer a question of middling difficulty correctly
+     */
+    private float[] insertUsers(Random random, int firstUserId) throws SQLException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-512");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-512 not available", e);
+        }
+        byte[] password = PASSWORD.getBytes(StandardCharsets.UTF_8);
+        ZipfSampler schools = new ZipfSampler(Math.max(1, (spec.users() + STUDENTS_PER_SCHOOL - 1) / STUDENTS_PER_SCHOOL),
+                SCHOOL_SKEW);
+        float[] skills = new float[spec.users()];
+
+        for (int from = 0; from < spec.users(); from += ROWS_PER_TRANSACTION) {
+            int to = Math.min(spec.users(), from + ROWS_PER_TRANSACTION);
+            try (PooledConnection pc = pool.writer()) {
+                Connection connection = pc.connection();
+                connection.setAutoCommit(false);
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "INSERT INTO Users (user_id, username, email, password, salt) VALUES (?, ?, ?, ?, ?)")) {
+                    for (int i = from; i < to; i++) {
+                        int userId = firstUserId + i;
+                        byte[] salt = new byte[16];
+                        random.nextBytes(salt);
+                        md.update(salt);
+                        ps.setInt(1, userId);
+                        ps.setString(2, "student" + userId);
+                        ps.setString(3, "student" + userId + "@school" + schools.sample(random) + ".edu");
+                        ps.setBytes(4, md.digest(password));
+                        ps.setBytes(5, salt);
+                        ps.addBatch();
+                        skills[i] = (float) Math.min(0.98, Math.max(0.05, 0.7 + 0.15 * random.nextGaussian()));
+                    }
+                    ps.executeBatch();
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            }
+        }
+        return skills;
+    }
+
+    private void insertAttempts(Random random, int firstUserId, int firstReadingId, float[] skills,
+                                byte[] difficulties) throws SQLException {
+        if (spec.attempts() == 0) {
+            return;
+        }
+        int[] students = shuffledIds(random, spec.users(), firstUserId);
+        int[] readings = shuffledIds(random, spec.readings(), firstReadingId);
+        ZipfSampler studentActivity = new ZipfSampler(students.length, STUDENT_SKEW);
+        ZipfSampler readingPopularity = new ZipfSampler(readings.length, READING_SKEW);
+        long end = clock.instant().getEpochSecond();
+        long span = Duration.ofDays(HISTORY_DAYS).toSeconds();
+
+        for (long from = 0; from < spec.attempts(); from += ROWS_PER_TRANSACTION) {
+            long to = Math.min(spec.attempts(), from + ROWS_PER_TRANSACTION);
+            try (PooledConnection pc = pool.writer()) {
+                Connection connection = pc.connection();
+                connection.setAutoCommit(false);
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "INSERT INTO UserAttempts (user_id, reading_id, score, created_at) VALUES (?, ?, ?, ?)")) {
+                    for (long i = from; i < to; i++) {
+                        int userId = students[studentActivity.sample(random)];
+                        int readingId = readings[readingPopularity.sample(random)];
+                        float skill = skills[userId - firstUserId];
+                        int difficulty = difficulties[readingId - firstReadingId];
+                        ps.setInt(1, userId);
+                        ps.setInt(2, readingId);
+                        ps.setInt(3, score(random, skill, difficulty));
+                        // one attempt in each equal slice of the history, so they come in time order
+                        ps.setLong(4, end - span + (long) ((i + random.nextDouble()) * span / spec.attempts()));
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Scores a play the way ScoringSystem does: ten points a correct answer and one for every ten
+     * seconds left on the game timer.
+     */
+    private int score(Random random, float skill, int difficulty) {
+        double chance = Math.min(0.99, Math.max(0.02, skill - 0.1 * (difficulty - 2)));
+        int correct = 0;
+        for (int q = 0; q < spec.questionsPerReading(); q++) {
+            if (random.nextDouble() < chance) {
+                correct++;
+            }
+        }
+        int secondsLeft = (int) (GAME_SECONDS * skill * random.nextDouble());
+        return correct * 10 + secondsLeft / 10;
+    }
+
+    private static int[] shuffledIds(Random random, int count, int firstId) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = firstId + i;
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = ids[i];
+            ids[i] = ids[j];
+            ids[j] = swap;
+        }
+        return ids;
+    }
+
+    /**
+     * A made-up word for each rank of the vocabulary, one syllable per base-100 digit, so every
+     * rank has its own word and the common ones are short.
+     */
+    static String word(int rank) {
+        StringBuilder word = new StringBuilder();
+        do {
+            int syllable = rank % (ONSETS.length * VOWELS.length);
+            word.insert(0, ONSETS[syllable / VOWELS.length] + VOWELS[syllable % VOWELS.length]);
+            rank /= ONSETS.length * VOWELS.length;
+        } while (rank > 0);
+        return word.toString();
+    }
+
+    /**
+     * Draws 0 to {@code n - 1}, rank {@code k} with weight {@code 1 / (k + 1)^skew}.
+     */
+    private static final class ZipfSampler {
+        private final double[] cumulative;
+
+        ZipfSampler(int n, double skew) {
+            cumulative = new double[n];
+            double total = 0;
+            for (int rank = 0; rank < n; rank++) {
+                total += 1 / Math.pow(rank + 1, skew);
+                cumulative[rank] = total;
+            }
+            for (int rank = 0; rank < n; rank++) {
+                cumulative[rank] /= total;
+            }
+        }
+
+        int sample(Random random) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(rank < 0 ? -rank - 1 : rank, cumulative.length - 1);
+        }
+    }
+
+    /**
+     * Generates the readings one at a time as the importer asks for them, noting each one's difficulty.
+     */
+    private final class Readings implements Iterator<Reading> {
+        private final Random random;
+        private final byte[] difficulties;
+        private final ZipfSampler words = new ZipfSampler(VOCABULARY, 1.0);
+        private int next;
+
+        Readings(Random random, byte[] difficulties) {
+            this.random = random;
+            this.difficulties = difficulties;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < spec.readings();
+        }
+
+        @Override
+        public Reading next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            // mostly easy and middling readings
+            int difficulty = random.nextInt(10) < 4 ? 1 : random.nextInt(10) < 6 ? 2 : 3;
+            difficulties[next++] = (byte) difficulty;
+
+            StringBuilder title = new StringBuilder("The");
+            for (int w = 1 + random.nextInt(4); w > 0; w--) {
+                title.append(' ').append(capitalised(word(words.sample(random))));
+            }
+            StringBuilder passage = new StringBuilder();
+            int sentence = 0;
+            for (int w = 0; w < WORDS_PER_PASSAGE; w++) {
+                String word = word(words.sample(random));
+                if (sentence++ == 0) {
+                    passage.append(capitalised(word));
+                } else {
+                    passage.append(' ').append(word);
+                }
+                if (sentence >= 8 && random.nextInt(6) == 0 || w == WORDS_PER_PASSAGE - 1) {
+                    passage.append(w == WORDS_PER_PASSAGE - 1 ? "." : ". ");
+                    sentence = 0;
+                }
+            }
+
+            List<Question> questions = new ArrayList<>(spec.questionsPerReading());
+            for (int q = 0; q < spec.questionsPerReading(); q++) {
+                int correct = random.nextInt(spec.choicesPerQuestion());
+                List<Choice> choices = new ArrayList<>(spec.choicesPerQuestion());
+                for (int c = 0; c < spec.choicesPerQuestion(); c++) {
+                    choices.add(new Choice(capitalised(word(words.sample(random))), c == correct));
+                }
+                questions.add(new Question("What does the passage say about the " + word(words.sample(random)) + "?",
+                        choices));
+            }
+            return new Reading(null, title.toString(), passage.toString(), questions, difficulty);
+        }
+
+    }
+
+    private static String capitalised(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    /**
+     * Generates into the configured database ({@code readracer.db.file}), migrating it first.
+     */
+    public static void main(String[] args) throws SQLException {
+        if (args.length < 3) {
+            System.err.println("Usage: SyntheticDatasetGenerator <users> <readings> <attempts> [seed]");
+            return;
+        }
+        Spec spec = new Spec(Integer.parseInt(args[0]), Integer.parseInt(args[1]), Long.parseLong(args[2]),
+                args.length > 3 ? Long.parseLong(args[3]) : 42);
+        SqliteConnectionPool pool = SqliteConnection.getPool();
+        new SqliteReadRacerDAO(pool);
+        new SyntheticDatasetGenerator(pool, spec).generate();
+        SqliteConnection.close();
+    }
+}
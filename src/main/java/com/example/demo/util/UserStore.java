@@ -0,0 +1,47 @@
+package com.example.demo.util;
+
+import com.example.demo.exceptions.InvalidCredentialsException;
+import com.example.demo.model.User;
+
+import java.sql.SQLException;
+
+/**
+ * Registered users. Usernames and emails are unique; adding or renaming a user onto a taken one fails
+ * with an {@link SQLException}.
+ */
+public interface UserStore {
+    /**
+     * @return the same user with its generated id set
+     */
+    User addUser(User user) throws SQLException;
+
+    /**
+     * @throws SQLException if there is no user with this id
+     */
+    User getUser(int userId) throws SQLException;
+
+    boolean userWithIdExists(int userId) throws SQLException;
+
+    boolean usernameIsUnique(String username) throws SQLException;
+
+    boolean emailIsUnique(String email) throws SQLException;
+
+    /**
+     * Overwrites the username, email, password and salt of the user with the same id.
+     */
+    void updateUser(User user) throws SQLException;
+
+    /**
+     * Deletes a user together with their attempts.
+     *
+     * @throws SQLException if there is no user with this id
+     */
+    void deleteUser(int userId) throws SQLException;
+
+    /**
+     * @param login a username or an email
+     * @return the user with their id
+     * @throws InvalidCredentialsException if no user matches or the password is wrong
+     */
+    User TryLogin(String login, String rawPassword) throws SQLException;
+}
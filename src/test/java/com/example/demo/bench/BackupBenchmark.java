@@ -0,0 +1,115 @@
+package com.example.demo.bench;
+
+import com.example.demo.model.Reading;
+import com.example.demo.model.User;
+import com.example.demo.model.UserAttempt;
+import com.example.demo.util.DatabaseBackup;
+import com.example.demo.util.SqliteConnectionPool;
+import com.example.demo.util.SqliteConnectionPool.PooledConnection;
+import com.example.demo.util.SqlitePragmaProfile;
+import com.example.demo.util.SqliteReadRacerDAO;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Measures what a {@link DatabaseBackup} of a multi-gigabyte database costs the game: attempt saves
+ * are timed one every 5 ms on the durable profile, first with nothing else running and then while a
+ * backup runs. The database is grown to the given size (default 4 GiB) with a table of random
+ * blobs, which also makes it the worst case for compression.
+ *
+ * Run with: java -cp target/classes:target/test-classes:... com.example.demo.bench.BackupBenchmark [GiB]
+ */
+public class BackupBenchmark {
+    private static final int BLOB_BYTES = 64 * 1024;
+    private static final long WRITE_INTERVAL_MILLIS = 5;
+    private static final long BASELINE_MILLIS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        long targetBytes = (long) ((args.length > 0 ? Double.parseDouble(args[0]) : 4) * 1024 * 1024 * 1024);
+        Path dir = Files.createTempDirectory("backup-bench");
+        Path dbFile = dir.resolve("ReadRacer.db");
+        try (SqliteConnectionPool pool = new SqliteConnectionPool("jdbc:sqlite:" + dbFile, SqlitePragmaProfile.DURABLE,
+                2, 5_000, 10_000, SqliteConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE)) {
+            SqliteReadRacerDAO dao = new SqliteReadRacerDAO(pool);
+            Reading reading = dao.addReading(new Reading(null, "Bench", "Passage", null, 1));
+            User user = dao.addUser(new User("bench", "bench@example.com", new byte[]{1}, new byte[]{2}));
+            grow(pool, targetBytes);
+            System.out.printf("database %,d bytes%n", Files.size(dbFile));
+
+            AtomicBoolean running = new AtomicBoolean(true);
+            List<Long> baseline = new ArrayList<>();
+            List<Long> during = new ArrayList<>();
+            AtomicBoolean backingUp = new AtomicBoolean(false);
+            Thread writer = new Thread(() -> {
+                try {
+                    while (running.get()) {
+                        long start = System.nanoTime();
+                        dao.addUserAttempt(new UserAttempt(user.getUser_id(), reading.id(), 50));
+                        long elapsed = System.nanoTime() - start;
+                        synchronized (baseline) {
+                            (backingUp.get() ? during : baseline).add(elapsed);
+                        }
+                        Thread.sleep(WRITE_INTERVAL_MILLIS);
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            writer.start();
+            Thread.sleep(BASELINE_MILLIS);
+
+            backingUp.set(true);
+            DatabaseBackup.Report report = new DatabaseBackup(pool, dir.resolve("backups"), 1).backup();
+            running.set(false);
+            writer.join();
+
+            System.out.printf("backup: snapshot %,d ms, total %,d ms, %,d -> %,d bytes%n",
+                    report.snapshotNanos() / 1_000_000, report.elapsedNanos() / 1_000_000,
+                    report.databaseBytes(), report.compressedBytes());
+            System.out.printf("%-16s %8s %10s %10s %10s%n", "attempt saves", "count", "p50 (ms)", "p99 (ms)", "max (ms)");
+            synchronized (baseline) {
+                print("idle", baseline);
+                print("during backup", during);
+            }
+        } finally {
+            try (var files = Files.walk(dir)) {
+                files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static void grow(SqliteConnectionPool pool, long targetBytes) throws Exception {
+        try (PooledConnection pc = pool.writer();
+             Statement statement = pc.connection().createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS BenchBallast (data BLOB)");
+            pc.connection().setAutoCommit(false);
+            try (PreparedStatement insert = pc.connection().prepareStatement(
+                    "INSERT INTO BenchBallast (data) VALUES (randomblob(" + BLOB_BYTES + "))")) {
+                for (long written = 0; written < targetBytes; written += BLOB_BYTES) {
+                    insert.executeUpdate();
+                }
+            }
+            pc.connection().commit();
+            pc.connection().setAutoCommit(true);
+            statement.execute("PRAGMA wal_checkpoint(TRUNCATE)");
+        }
+    }
+
+    private static void print(String label, List<Long> nanos) {
+        long[] sorted = nanos.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        System.out.printf("%-16s %8d %10.2f %10.2f %10.2f%n", label, sorted.length,
+                percentile(sorted, 0.50), percentile(sorted, 0.99), sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))] / 1e6;
+    }
+}
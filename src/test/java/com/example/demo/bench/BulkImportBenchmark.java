@@ -0,0 +1,118 @@
+package com.example.demo.bench;
+
+import com.example.demo.model.Choice;
+import com.example.demo.model.Question;
+import com.example.demo.model.Reading;
+import com.example.demo.util.ReadingImporter;
+import com.example.demo.util.ReadingImporter.ImportReport;
+import com.example.demo.util.SqliteConnectionPool;
+import com.example.demo.util.SqlitePragmaProfile;
+import com.example.demo.util.SqliteReadRacerDAO;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads a generated JSON Lines file of 100,000 readings (300,000 questions, 1,200,000 choices)
+ * with {@link ReadingImporter}, and compares it with the row-at-a-time
+ * {@code addReading}/{@code addQuestion} path on a small sample, extrapolated to the same size.
+ *
+ * Run with: java -cp target/classes:target/test-classes:... com.example.demo.bench.BulkImportBenchmark [readings]
+ */
+public class BulkImportBenchmark {
+    private static final int QUESTIONS_PER_READING = 3;
+    private static final int CHOICES_PER_QUESTION = 4;
+    private static final int BASELINE_READINGS = 200;
+
+    public static void main(String[] args) throws Exception {
+        int readingCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Path input = Files.createTempFile("bulk-import", ".jsonl");
+        try {
+            writeJsonLines(input, readingCount);
+            System.out.printf("Input: %d readings, %.1f MiB%n", readingCount, Files.size(input) / 1048576.0);
+
+            for (SqlitePragmaProfile profile : List.of(SqlitePragmaProfile.DURABLE, SqlitePragmaProfile.THROUGHPUT)) {
+                double baselineRowsPerSecond = baseline(profile);
+                ImportReport report = withPool(profile, pool -> new ReadingImporter(pool).importFile(input));
+                System.out.printf("%-10s row-at-a-time: %,10.0f rows/s   importer: %,10.0f rows/s (%.2f s)   %.0fx%n",
+                        profile, baselineRowsPerSecond, report.rowsPerSecond(), report.elapsedNanos() / 1e9,
+                        report.rowsPerSecond() / baselineRowsPerSecond);
+            }
+        } finally {
+            Files.deleteIfExists(input);
+        }
+    }
+
+    private static double baseline(SqlitePragmaProfile profile) throws Exception {
+        return withPool(profile, pool -> {
+            SqliteReadRacerDAO dao = new SqliteReadRacerDAO(pool);
+            long start = System.nanoTime();
+            for (int i = 0; i < BASELINE_READINGS; i++) {
+                Reading reading = dao.addReading(reading(i));
+                for (Question question : reading.questions()) {
+                    dao.addQuestion(reading.id(), question);
+                }
+            }
+            long rows = BASELINE_READINGS * (1L + QUESTIONS_PER_READING * (1L + CHOICES_PER_QUESTION));
+            return rows * 1e9 / (System.nanoTime() - start);
+        });
+    }
+
+    private static <T> T withPool(SqlitePragmaProfile profile, PoolTask<T> task) throws Exception {
+        Path dbFile = Files.createTempFile("bulk-import", ".db");
+        try (SqliteConnectionPool pool = new SqliteConnectionPool("jdbc:sqlite:" + dbFile, profile, 0, 5_000, 10_000,
+                SqliteConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE)) {
+            new SqliteReadRacerDAO(pool);
+            return task.run(pool);
+        } finally {
+            Files.deleteIfExists(dbFile);
+            Files.deleteIfExists(Path.of(dbFile + "-wal"));
+            Files.deleteIfExists(Path.of(dbFile + "-shm"));
+        }
+    }
+
+    private static void writeJsonLines(Path file, int readingCount) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < readingCount; i++) {
+                Reading reading = reading(i);
+                out.write("{\"title\": \"" + reading.title() + "\", \"passage\": \"" + reading.passage()
+                        + "\", \"difficulty\": " + reading.difficulty() + ", \"questions\": [");
+                for (int q = 0; q < reading.questions().size(); q++) {
+                    Question question = reading.questions().get(q);
+                    out.write((q > 0 ? ", " : "") + "{\"prompt\": \"" + question.prompt() + "\", \"choices\": [");
+                    for (int c = 0; c < question.choices().size(); c++) {
+                        Choice choice = question.choices().get(c);
+                        out.write((c > 0 ? ", " : "") + "{\"text\": \"" + choice.getChoiceText()
+                                + "\", \"correct\": " + choice.isCorrect() + "}");
+                    }
+                    out.write("]}");
+                }
+                out.write("]}\n");
+            }
+        }
+    }
+
+    private static Reading reading(int i) {
+        List<Question> questions = new ArrayList<>();
+        for (int q = 0; q < QUESTIONS_PER_READING; q++) {
+            List<Choice> choices = new ArrayList<>();
+            for (int c = 0; c < CHOICES_PER_QUESTION; c++) {
+                choices.add(new Choice("Choice " + c + " of question " + q, c == 0));
+            }
+            questions.add(new Question("Question " + q + " about reading " + i + "?", choices));
+        }
+        return new Reading(null, "Reading " + i, "A short passage about topic " + i + ". ".repeat(40),
+                questions, 1 + i % 3);
+    }
+
+    @FunctionalInterface
+    private interface PoolTask<T> {
+        T run(SqliteConnectionPool pool) throws SQLException, IOException;
+    }
+}
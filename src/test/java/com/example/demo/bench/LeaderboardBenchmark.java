@@ -0,0 +1,104 @@
+package com.example.demo.bench;
+
+import com.example.demo.util.SqliteConnectionPool;
+import com.example.demo.util.SqliteConnectionPool.PooledConnection;
+import com.example.demo.util.SqliteReadRacerDAO;
+import com.example.demo.util.SyntheticDatasetGenerator;
+import com.example.demo.util.SyntheticDatasetGenerator.Spec;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Measures leaderboard latency as the attempt history grows: the BestScores read behind
+ * {@link SqliteReadRacerDAO#getLeaderboard(int)} against the previous GROUP BY/MAX self-join
+ * over UserAttempts, reproduced here as the baseline. Each size is a fresh
+ * {@link SyntheticDatasetGenerator} dataset, timed on its most played reading.
+ *
+ * Run with: java -cp target/classes:target/test-classes:... com.example.demo.bench.LeaderboardBenchmark
+ */
+public class LeaderboardBenchmark {
+    private static final int[] ATTEMPT_COUNTS = {1_000, 10_000, 100_000, 1_000_000};
+    private static final int USERS = 2_000;
+    private static final int READINGS = 20;
+    private static final int MEASURED_ITERATIONS = 200;
+
+    private static final String GROUP_BY_SQL = """
+            SELECT ua.attempt_id, ua.user_id, ua.reading_id, ua.score
+            FROM UserAttempts ua
+            INNER JOIN (
+                SELECT user_id, MAX(score) as max_score
+                FROM UserAttempts
+                WHERE reading_id = ?
+                GROUP BY user_id
+            ) best ON ua.user_id = best.user_id AND ua.score = best.max_score AND ua.reading_id = ?
+            ORDER BY ua.score DESC
+            LIMIT 10""";
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%10s %20s %20s %8s%n", "attempts", "GROUP BY join (us)", "BestScores (us)", "speedup");
+        for (int attempts : ATTEMPT_COUNTS) {
+            Path dbFile = Files.createTempFile("leaderboard-bench", ".db");
+            try (SqliteConnectionPool pool = new SqliteConnectionPool("jdbc:sqlite:" + dbFile, 1, 5_000, 10_000)) {
+                new SqliteReadRacerDAO(pool);
+                new SyntheticDatasetGenerator(pool, new Spec(USERS, READINGS, attempts, 42)).generate();
+                SqliteReadRacerDAO dao = new SqliteReadRacerDAO(pool);
+                int readingId = mostPlayed(pool);
+
+                double joinMicros;
+                try (PooledConnection pc = pool.reader()) {
+                    joinMicros = measure(() -> groupByLeaderboard(pc.connection(), readingId));
+                }
+                double bestMicros = measure(() -> dao.getLeaderboard(readingId).size());
+                System.out.printf("%10d %20.1f %20.1f %7.1fx%n", attempts, joinMicros, bestMicros, joinMicros / bestMicros);
+            } finally {
+                Files.deleteIfExists(dbFile);
+            }
+        }
+    }
+
+    private static int mostPlayed(SqliteConnectionPool pool) throws SQLException {
+        try (PooledConnection pc = pool.reader();
+             Statement statement = pc.connection().createStatement();
+             ResultSet rs = statement.executeQuery(
+                     "SELECT reading_id FROM UserAttempts GROUP BY reading_id ORDER BY COUNT(*) DESC LIMIT 1")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static int groupByLeaderboard(Connection connection, int readingId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(GROUP_BY_SQL)) {
+            ps.setInt(1, readingId);
+            ps.setInt(2, readingId);
+            int rows = 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rows++;
+                }
+            }
+            return rows;
+        }
+    }
+
+    private static double measure(SqlTask task) throws SQLException {
+        for (int i = 0; i < MEASURED_ITERATIONS / 4; i++) {
+            task.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            task.run();
+        }
+        return (System.nanoTime() - start) / 1_000.0 / MEASURED_ITERATIONS;
+    }
+
+    @FunctionalInterface
+    private interface SqlTask {
+        int run() throws SQLException;
+    }
+}
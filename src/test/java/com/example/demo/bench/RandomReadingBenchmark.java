@@ -0,0 +1,87 @@
+package com.example.demo.bench;
+
+import com.example.demo.model.Reading;
+import com.example.demo.util.RandomReadingSelector;
+import com.example.demo.util.ReadingImporter;
+import com.example.demo.util.SqliteConnectionPool;
+import com.example.demo.util.SqliteConnectionPool.PooledConnection;
+import com.example.demo.util.SqliteReadRacerDAO;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Measures random reading selection at 10 and at 1,000,000 readings: the old
+ * {@code ORDER BY RANDOM()} query, a {@link RandomReadingSelector} pick on its own, and the full
+ * {@link SqliteReadRacerDAO#getRandomReading()} call including hydration of the picked reading.
+ *
+ * Run with: java -cp target/classes:target/test-classes:... com.example.demo.bench.RandomReadingBenchmark
+ */
+public class RandomReadingBenchmark {
+    private static final int[] READING_COUNTS = {10, 1_000_000};
+    private static final int MEASURED_ITERATIONS = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%10s %22s %22s %22s%n",
+                "readings", "ORDER BY RANDOM() (us)", "pick id (us)", "getRandomReading (us)");
+        for (int readingCount : READING_COUNTS) {
+            Path dbFile = Files.createTempFile("random-bench", ".db");
+            try (SqliteConnectionPool pool = new SqliteConnectionPool("jdbc:sqlite:" + dbFile, 1, 5_000, 10_000)) {
+                SqliteReadRacerDAO dao = new SqliteReadRacerDAO(pool);
+                Iterator<Reading> readings = IntStream.range(0, readingCount)
+                        .mapToObj(i -> new Reading(null, "Reading " + i, "Passage " + i, null, 1 + i % 3))
+                        .iterator();
+                new ReadingImporter(pool, 50_000).importReadings(readings);
+
+                double orderByMicros;
+                // the old query is far too slow at 1M readings for the full iteration count
+                int orderByIterations = readingCount > 10_000 ? 20 : MEASURED_ITERATIONS;
+                try (PooledConnection pc = pool.reader()) {
+                    orderByMicros = measure(orderByIterations, () -> orderByRandom(pc.connection()));
+                }
+                RandomReadingSelector selector = new RandomReadingSelector();
+                for (int id = 1; id <= readingCount; id++) {
+                    selector.add(id, 1 + (id - 1) % 3);
+                }
+                double pickMicros = measure(MEASURED_ITERATIONS, () -> selector.pick(2, Set.of()).getAsInt());
+                dao.getRandomReading(); // loads the DAO's selector
+                double fullMicros = measure(MEASURED_ITERATIONS, () -> dao.getRandomReading().id());
+                System.out.printf("%10d %22.1f %22.1f %22.1f%n", readingCount, orderByMicros, pickMicros, fullMicros);
+            } finally {
+                Files.deleteIfExists(dbFile);
+            }
+        }
+    }
+
+    private static int orderByRandom(Connection connection) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT reading_id FROM Readings ORDER BY RANDOM() LIMIT 1");
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static double measure(int iterations, SqlTask task) throws SQLException {
+        for (int i = 0; i < iterations / 4; i++) {
+            task.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            task.run();
+        }
+        return (System.nanoTime() - start) / 1_000.0 / iterations;
+    }
+
+    @FunctionalInterface
+    private interface SqlTask {
+        int run() throws SQLException;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.demo.bench;
+
+import com.example.demo.model.Choice;
+import com.example.demo.model.Question;
+import com.example.demo.model.Reading;
+import com.example.demo.model.ReadingFilter;
+import com.example.demo.model.ReadingSummary;
+import com.example.demo.util.ReadingImporter;
+import com.example.demo.util.SqliteConnectionPool;
+import com.example.demo.util.SqliteConnectionPool.PooledConnection;
+import com.example.demo.util.SqliteReadRacerDAO;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Times one catalogue page of 50 readings at increasing depths in a database of 300,000 readings:
+ * keyset pagination through {@link SqliteReadRacerDAO#listReadings} against the same query paged
+ * with OFFSET, which has to step over every earlier row.
+ *
+ * Run with: java -cp target/classes:target/test-classes:... com.example.demo.bench.ReadingCatalogueBenchmark
+ */
+public class ReadingCatalogueBenchmark {
+    private static final int READING_COUNT = 300_000;
+    private static final int PAGE_SIZE = 50;
+    private static final int ITERATIONS = 200;
+    private static final int[] DEPTHS = {0, 1_000, 10_000, 100_000};
+
+    public static void main(String[] args) throws Exception {
+        Path dbFile = Files.createTempFile("catalogue-bench", ".db");
+        try (SqliteConnectionPool pool = new SqliteConnectionPool("jdbc:sqlite:" + dbFile, 1, 5_000, 10_000)) {
+            SqliteReadRacerDAO dao = new SqliteReadRacerDAO(pool);
+            Iterator<Reading> readings = IntStream.range(0, READING_COUNT).mapToObj(ReadingCatalogueBenchmark::reading).iterator();
+            new ReadingImporter(pool, 50_000).importReadings(readings);
+
+            System.out.printf("%-10s %-12s %14s %14s%n", "filter", "depth (rows)", "offset (us)", "keyset (us)");
+            for (ReadingFilter filter : List.of(ReadingFilter.ALL, ReadingFilter.difficulty(2))) {
+                for (int depth : DEPTHS) {
+                    // the keyset page starts after the last id the offset query skipped
+                    int afterId = depth == 0 ? 0 : offsetPage(pool, filter, depth - 1, 1).getFirst();
+                    List<Integer> expected = offsetPage(pool, filter, depth, PAGE_SIZE);
+                    if (!expected.equals(dao.listReadings(afterId, PAGE_SIZE, filter).stream().map(ReadingSummary::id).toList())) {
+                        throw new IllegalStateException("keyset and offset pages differ at depth " + depth);
+                    }
+                    double offsetMicros = time(() -> offsetPage(pool, filter, depth, PAGE_SIZE));
+                    double keysetMicros = time(() -> dao.listReadings(afterId, PAGE_SIZE, filter));
+                    System.out.printf("%-10s %-12d %14.1f %14.1f%n",
+                            filter.difficulty() == null ? "all" : "level " + filter.difficulty(), depth,
+                            offsetMicros, keysetMicros);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(dbFile);
+        }
+    }
+
+    private static Reading reading(int i) {
+        List<Question> questions = IntStream.range(0, 5).mapToObj(q -> new Question("Question " + q + " of " + i + "?",
+                List.of(new Choice("Yes", true), new Choice("No", false)))).toList();
+        return new Reading(null, "Reading " + i, ("Passage " + i + " ").repeat(100), questions, 1 + i % 3);
+    }
+
+    private static List<Integer> offsetPage(SqliteConnectionPool pool, ReadingFilter filter, int offset, int limit)
+            throws SQLException {
+        try (PooledConnection pc = pool.reader()) {
+            PreparedStatement ps = pc.prepare(
+                    "SELECT reading_id, title, difficulty, question_count, passage_length FROM Readings"
+                            + (filter.difficulty() == null ? "" : " WHERE difficulty = " + filter.difficulty())
+                            + " ORDER BY reading_id LIMIT ? OFFSET ?");
+            ps.setInt(1, limit);
+            ps.setInt(2, offset);
+            try (ResultSet rs = ps.executeQuery()) {
+                List<Integer> ids = new ArrayList<>();
+                while (rs.next()) {
+                    ids.add(rs.getInt("reading_id"));
+                }
+                return ids;
+            }
+        }
+    }
+
+    private interface Page {
+        List<?> load() throws SQLException;
+    }
+
+    private static double time(Page page) throws SQLException {
+        for (int i = 0; i < ITERATIONS / 10; i++) {
+            page.load();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            page.load();
+        }
+        return (System.nanoTime() - start) / 1_000.0 / ITERATIONS;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.demo.bench;
+
+import com.example.demo.model.Choice;
+import com.example.demo.model.Question;
+import com.example.demo.model.Reading;
+import com.example.demo.util.SqliteConnectionPool;
+import com.example.demo.util.SqliteConnectionPool.PooledConnection;
+import com.example.demo.util.SqliteReadRacerDAO;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares reading hydration latency as the number of questions per reading grows:
+ * the set-based {@link SqliteReadRacerDAO#getReading(int)} against the old
+ * one-query-per-question chain, reproduced here as the baseline. The DAO runs without a
+ * reading cache, so every call hydrates from the database.
+ *
+ * Run with: java -cp target/classes:target/test-classes:... com.example.demo.bench.ReadingHydrationBenchmark
+ */
+public class ReadingHydrationBenchmark {
+    private static final int[] QUESTION_COUNTS = {1, 5, 10, 20, 50, 100};
+    private static final int CHOICES_PER_QUESTION = 4;
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        Path dbFile = Files.createTempFile("hydration-bench", ".db");
+        try (SqliteConnectionPool pool = new SqliteConnectionPool("jdbc:sqlite:" + dbFile, 1, 5_000, 10_000)) {
+            SqliteReadRacerDAO dao = new SqliteReadRacerDAO(pool, 0);
+
+            System.out.printf("%10s %18s %18s %8s%n", "questions", "N+1 chain (us)", "set-based (us)", "speedup");
+            for (int questionCount : QUESTION_COUNTS) {
+                int readingId = insertReading(dao, questionCount);
+
+                double chainMicros;
+                try (PooledConnection pc = pool.reader()) {
+                    chainMicros = measure(() -> loadWithQueryPerQuestion(pc.connection(), readingId));
+                }
+                double setMicros = measure(() -> dao.getReading(readingId));
+
+                System.out.printf("%10d %18.1f %18.1f %7.1fx%n",
+                        questionCount, chainMicros, setMicros, chainMicros / setMicros);
+            }
+        } finally {
+            Files.deleteIfExists(dbFile);
+        }
+    }
+
+    private static int insertReading(SqliteReadRacerDAO dao, int questionCount) throws SQLException {
+        Reading reading = dao.addReading(new Reading(null, "Bench " + questionCount,
+                "Passage ".repeat(200), null, 1));
+        for (int q = 0; q < questionCount; q++) {
+            List<Choice> choices = new ArrayList<>();
+            for (int c = 0; c < CHOICES_PER_QUESTION; c++) {
+                choices.add(new Choice("Choice " + c, c == 0));
+            }
+            dao.addQuestion(reading.id(), new Question("Question " + q + "?", choices));
+        }
+        return reading.id();
+    }
+
+    private static double measure(SqlTask task) throws SQLException {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            task.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            task.run();
+        }
+        return (System.nanoTime() - start) / 1_000.0 / MEASURED_ITERATIONS;
+    }
+
+    /**
+     * The pre-existing access pattern: one query for the reading, one for its questions
+     * and one more for the choices of every question.
+     */
+    private static Reading loadWithQueryPerQuestion(Connection connection, int readingId) throws SQLException {
+        String title;
+        String passage;
+        int difficulty;
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT title, content, difficulty FROM Readings WHERE reading_id = ?")) {
+            ps.setInt(1, readingId);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                title = rs.getString("title");
+                passage = rs.getString("content");
+                difficulty = rs.getInt("difficulty");
+            }
+        }
+        List<Question> questions = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT question_id, prompt FROM Questions WHERE reading_id = ?")) {
+            ps.setInt(1, readingId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    List<Choice> choices = new ArrayList<>();
+                    try (PreparedStatement cs = connection.prepareStatement(
+                            "SELECT choice_id, choice_text, is_correct FROM Choices WHERE question_id = ? ORDER BY choice_id")) {
+                        cs.setInt(1, rs.getInt("question_id"));
+                        try (ResultSet crs = cs.executeQuery()) {
+                            while (crs.next()) {
+                                choices.add(new Choice(crs.getInt(1), crs.getString(2), crs.getBoolean(3)));
+                            }
+                        }
+                    }
+                    questions.add(new Question(rs.getString("prompt"), choices));
+                }
+            }
+        }
+        return new Reading(readingId, title, passage, questions, difficulty);
+    }
+
+    @FunctionalInterface
+    private interface SqlTask {
+        Object run() throws SQLException;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.demo.bench;
+
+import com.example.demo.model.Choice;
+import com.example.demo.model.Question;
+import com.example.demo.model.Reading;
+import com.example.demo.util.ReadingImporter;
+import com.example.demo.util.ReadingPack;
+import com.example.demo.util.ReadingPackWriter;
+import com.example.demo.util.ReadingSource;
+import com.example.demo.util.SqliteConnectionPool;
+import com.example.demo.util.SqliteReadRacerDAO;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Compares a {@link ReadingPack} with the SQLite database as a reading source at 1,000,000 readings
+ * of five questions each: time and heap to open, and random reading latency. The database side is
+ * measured with the reading cache bypassed by cycling through more readings than it holds.
+ *
+ * Run with: java -cp target/classes:target/test-classes:... com.example.demo.bench.ReadingPackBenchmark
+ */
+public class ReadingPackBenchmark {
+    private static final int READING_COUNT = 1_000_000;
+    private static final int MEASURED_ITERATIONS = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        Path dbFile = Files.createTempFile("pack-bench", ".db");
+        Path packFile = Files.createTempFile("pack-bench", ".pack");
+        try (SqliteConnectionPool pool = new SqliteConnectionPool("jdbc:sqlite:" + dbFile, 1, 5_000, 10_000)) {
+            SqliteReadRacerDAO dao = new SqliteReadRacerDAO(pool);
+            Iterator<Reading> readings = IntStream.range(0, READING_COUNT).mapToObj(ReadingPackBenchmark::reading).iterator();
+            new ReadingImporter(pool, 50_000).importReadings(readings);
+            new ReadingPackWriter(pool).export(packFile);
+
+            System.gc();
+            long heapBefore = usedHeap();
+            long start = System.nanoTime();
+            ReadingPack pack = ReadingPack.open(packFile);
+            long openMicros = (System.nanoTime() - start) / 1_000;
+            System.gc();
+            System.out.printf("pack: %d readings, %d MB on disk, opened in %d us, heap after open +%d KB%n",
+                    pack.size(), Files.size(packFile) >> 20, openMicros, (usedHeap() - heapBefore) >> 10);
+
+            System.out.printf("%-10s %20s%n", "source", "getRandomReading (us)");
+            for (ReadingSource source : List.of(dao, pack, dao, pack)) {
+                System.out.printf("%-10s %20.1f%n", source == pack ? "pack" : "sqlite", measure(source));
+            }
+        } finally {
+            Files.deleteIfExists(dbFile);
+            Files.deleteIfExists(packFile);
+        }
+    }
+
+    private static Reading reading(int i) {
+        List<Question> questions = IntStream.range(0, 5).mapToObj(q -> new Question("Question " + q + " of " + i + "?",
+                List.of(new Choice("Yes", true), new Choice("No", false), new Choice("Maybe", false)))).toList();
+        return new Reading(null, "Reading " + i, ("Passage " + i + " ").repeat(40), questions, 1 + i % 3);
+    }
+
+    private static double measure(ReadingSource source) {
+        long start = System.nanoTime();
+        int questions = 0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            questions += source.getRandomReading(null, Set.of()).questions().size();
+        }
+        if (questions != MEASURED_ITERATIONS * 5) {
+            throw new IllegalStateException("unexpected question count " + questions);
+        }
+        return (System.nanoTime() - start) / 1_000.0 / MEASURED_ITERATIONS;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
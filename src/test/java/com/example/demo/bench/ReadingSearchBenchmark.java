@@ -0,0 +1,133 @@
+package com.example.demo.bench;
+
+import com.example.demo.model.Choice;
+import com.example.demo.model.Question;
+import com.example.demo.model.Reading;
+import com.example.demo.util.ReadingImporter;
+import com.example.demo.util.SqliteConnectionPool;
+import com.example.demo.util.SqliteConnectionPool.PooledConnection;
+import com.example.demo.util.SqliteReadRacerDAO;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Times {@link SqliteReadRacerDAO#searchReadings} for the first and the 100th page of 20 results over
+ * 300,000 generated passages, for words from rare to very common and for "reading", which is in every
+ * title, against a {@code LIKE '%word%'} scan of the passages.
+ * Passage words are drawn from a 20,000-word vocabulary with a Zipf-like distribution, so a few
+ * words appear in almost every passage and most in only a handful. The import time shows what
+ * keeping the search index current costs.
+ *
+ * Run with: java -cp target/classes:target/test-classes:... com.example.demo.bench.ReadingSearchBenchmark
+ */
+public class ReadingSearchBenchmark {
+    private static final int READING_COUNT = 300_000;
+    private static final int VOCABULARY = 20_000;
+    private static final int WORDS_PER_PASSAGE = 150;
+    private static final int PAGE_SIZE = 20;
+    private static final int DEEP_OFFSET = 99 * PAGE_SIZE;
+    private static final int ITERATIONS = 50;
+
+    public static void main(String[] args) throws Exception {
+        Path dbFile = Files.createTempFile("search-bench", ".db");
+        try (SqliteConnectionPool pool = new SqliteConnectionPool("jdbc:sqlite:" + dbFile, 1, 5_000, 10_000)) {
+            SqliteReadRacerDAO dao = new SqliteReadRacerDAO(pool);
+            Random random = new Random(42);
+            double[] cumulative = zipf();
+            Iterator<Reading> readings = IntStream.range(0, READING_COUNT)
+                    .mapToObj(i -> reading(i, random, cumulative)).iterator();
+            new ReadingImporter(pool, 50_000).importReadings(readings);
+
+            System.out.printf("%-16s %10s %14s %14s %14s%n", "query", "matches", "search (ms)", "page 100 (ms)",
+                    "LIKE (ms)");
+            for (String query : List.of(word(15_000), word(2_000), word(100), word(3), word(3) + " " + word(100),
+                    "reading")) {
+                int matches = count(pool, query);
+                double searchMillis = time(ITERATIONS, () -> dao.searchReadings(query, 0, PAGE_SIZE));
+                double deepMillis = time(ITERATIONS, () -> dao.searchReadings(query, DEEP_OFFSET, PAGE_SIZE));
+                double likeMillis = time(3, () -> like(pool, query.split(" ")[0]));
+                System.out.printf("%-16s %10d %14.2f %14.2f %14.1f%n", query, matches, searchMillis, deepMillis,
+                        likeMillis);
+            }
+        } finally {
+            Files.deleteIfExists(dbFile);
+        }
+    }
+
+    private static String word(int rank) {
+        return "w" + Integer.toString(rank, 36) + "x";
+    }
+
+    private static double[] zipf() {
+        double[] cumulative = new double[VOCABULARY];
+        double total = 0;
+        for (int rank = 0; rank < VOCABULARY; rank++) {
+            total += 1.0 / (rank + 1);
+            cumulative[rank] = total;
+        }
+        for (int rank = 0; rank < VOCABULARY; rank++) {
+            cumulative[rank] /= total;
+        }
+        return cumulative;
+    }
+
+    private static Reading reading(int i, Random random, double[] cumulative) {
+        StringBuilder passage = new StringBuilder();
+        for (int w = 0; w < WORDS_PER_PASSAGE; w++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+            passage.append(word(rank < 0 ? -rank - 1 : rank)).append(w % 12 == 11 ? ". " : " ");
+        }
+        List<Question> questions = IntStream.range(0, 3).mapToObj(q -> new Question("Question " + q + " of " + i + "?",
+                List.of(new Choice("Yes", true), new Choice("No", false)))).toList();
+        return new Reading(null, "Reading " + i, passage.toString(), questions, 1 + i % 3);
+    }
+
+    private static int count(SqliteConnectionPool pool, String query) throws SQLException {
+        try (PooledConnection pc = pool.reader();
+             PreparedStatement ps = pc.connection().prepareStatement(
+                     "SELECT COUNT(*) FROM ReadingSearch WHERE ReadingSearch MATCH ?")) {
+            ps.setString(1, query);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    private static int like(SqliteConnectionPool pool, String word) throws SQLException {
+        try (PooledConnection pc = pool.reader();
+             PreparedStatement ps = pc.connection().prepareStatement(
+                     "SELECT reading_id FROM Readings WHERE content LIKE ? LIMIT " + PAGE_SIZE)) {
+            ps.setString(1, "%" + word + "%");
+            int rows = 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rows++;
+                }
+            }
+            return rows;
+        }
+    }
+
+    private interface Search {
+        Object run() throws SQLException;
+    }
+
+    private static double time(int iterations, Search search) throws SQLException {
+        search.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            search.run();
+        }
+        return (System.nanoTime() - start) / 1e6 / iterations;
+    }
+}
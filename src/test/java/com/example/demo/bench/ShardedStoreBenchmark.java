@@ -0,0 +1,100 @@
+package com.example.demo.bench;
+
+import com.example.demo.model.Reading;
+import com.example.demo.model.User;
+import com.example.demo.model.UserAttempt;
+import com.example.demo.util.ShardRouter;
+import com.example.demo.util.ShardedReadRacerStore;
+import com.example.demo.util.SqlitePragmaProfile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures attempt saves per second on the durable profile with 8 threads playing at once, for
+ * students of 8 schools kept in 1, 2, 4 and 8 shards, and the global leaderboard of a reading
+ * merged from every shard.
+ *
+ * Run with: java -cp target/classes:target/test-classes:... com.example.demo.bench.ShardedStoreBenchmark
+ */
+public class ShardedStoreBenchmark {
+    private static final int SCHOOLS = 8;
+    private static final int STUDENTS_PER_SCHOOL = 50;
+    private static final int THREADS = 8;
+    private static final int ATTEMPTS_PER_THREAD = 400;
+    private static final int LEADERBOARD_ITERATIONS = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-8s %14s %18s%n", "shards", "saves/s", "leaderboard (us)");
+        for (int shards : new int[]{1, 2, 4, 8}) {
+            Path dir = Files.createTempDirectory("shard-bench");
+            try {
+                run(dir, shards);
+            } finally {
+                try (var files = Files.walk(dir)) {
+                    files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+                }
+            }
+        }
+    }
+
+    private static void run(Path dir, int shards) throws Exception {
+        Map<String, Integer> cohorts = new HashMap<>();
+        for (int school = 0; school < SCHOOLS; school++) {
+            cohorts.put("school" + school + ".edu", school % shards);
+        }
+        try (ShardedReadRacerStore store = ShardedReadRacerStore.open(dir, new ShardRouter(shards, cohorts),
+                SqlitePragmaProfile.DURABLE, 2, 30_000, 30_000)) {
+            Reading reading = store.addReading(new Reading(null, "Bench", "Passage", null, 1));
+            // each thread plays for the students of one school
+            List<List<Integer>> students = new ArrayList<>();
+            for (int school = 0; school < SCHOOLS; school++) {
+                List<Integer> ids = new ArrayList<>();
+                for (int i = 0; i < STUDENTS_PER_SCHOOL; i++) {
+                    String name = "s" + school + "_" + i;
+                    ids.add(store.addUser(new User(name, name + "@school" + school + ".edu",
+                            new byte[]{1}, new byte[]{2})).getUser_id());
+                }
+                students.add(ids);
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            long start = System.nanoTime();
+            try {
+                List<Future<?>> done = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    List<Integer> ids = students.get(t % SCHOOLS);
+                    done.add(executor.submit(() -> {
+                        for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                            store.addUserAttempt(new UserAttempt(ids.get(i % ids.size()), reading.id(), i % 100));
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : done) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            for (int i = 0; i < LEADERBOARD_ITERATIONS / 10; i++) {
+                store.getLeaderboard(reading.id());
+            }
+            long boardStart = System.nanoTime();
+            for (int i = 0; i < LEADERBOARD_ITERATIONS; i++) {
+                store.getLeaderboard(reading.id());
+            }
+            double boardMicros = (System.nanoTime() - boardStart) / 1e3 / LEADERBOARD_ITERATIONS;
+            System.out.printf("%-8d %14.0f %18.1f%n", shards, THREADS * ATTEMPTS_PER_THREAD / seconds, boardMicros);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.bench;
+
+import com.example.demo.model.Choice;
+import com.example.demo.model.Question;
+import com.example.demo.model.Reading;
+import com.example.demo.model.User;
+import com.example.demo.model.UserAttempt;
+import com.example.demo.util.InMemoryReadRacerStore;
+import com.example.demo.util.ReadRacerStore;
+import com.example.demo.util.SqliteConnectionPool;
+import com.example.demo.util.SqliteReadRacerDAO;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Runs the same operations against the SQLite DAO and the in-memory store, so the difference is the
+ * cost of storage and what remains is the cost of the application logic around it. The DAO runs
+ * without its reading cache, which would otherwise serve every getReading from memory as well.
+ *
+ * Run with: java -cp target/classes:target/test-classes:... com.example.demo.bench.StoreBenchmark
+ */
+public class StoreBenchmark {
+    private static final int READINGS = 1_000;
+    private static final int USERS = 500;
+    private static final int MEASURED_ITERATIONS = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        Path dbFile = Files.createTempFile("store-bench", ".db");
+        try (SqliteConnectionPool pool = new SqliteConnectionPool("jdbc:sqlite:" + dbFile, 2, 5_000, 10_000)) {
+            System.out.printf("%-10s %18s %18s %18s%n", "store", "getReading (us)", "addAttempt (us)", "leaderboard (us)");
+            for (ReadRacerStore store : List.of(new SqliteReadRacerDAO(pool, 0), new InMemoryReadRacerStore())) {
+                fill(store);
+                double reading = measure(() -> store.getReading(randomId(READINGS)).questions().size());
+                double attempt = measure(() -> {
+                    store.addUserAttempt(new UserAttempt(randomId(USERS), randomId(READINGS), randomId(100)));
+                    return 1;
+                });
+                double leaderboard = measure(() -> store.getLeaderboard(randomId(READINGS)).size());
+                System.out.printf("%-10s %18.2f %18.2f %18.2f%n", store instanceof InMemoryReadRacerStore ? "memory" : "sqlite",
+                        reading, attempt, leaderboard);
+            }
+        } finally {
+            Files.deleteIfExists(dbFile);
+            Files.deleteIfExists(Path.of(dbFile + "-wal"));
+            Files.deleteIfExists(Path.of(dbFile + "-shm"));
+        }
+    }
+
+    private static void fill(ReadRacerStore store) throws SQLException {
+        for (int i = 0; i < READINGS; i++) {
+            Reading reading = store.addReading(new Reading(null, "Reading " + i, "Passage " + i, null, 1 + i % 3));
+            for (int q = 0; q < 5; q++) {
+                store.addQuestion(reading.id(), new Question("Question " + q,
+                        List.of(new Choice("Yes", true), new Choice("No", false), new Choice("Maybe", false))));
+            }
+        }
+        for (int i = 0; i < USERS; i++) {
+            store.addUser(new User("user" + i, "user" + i + "@example.com", new byte[64], new byte[16]));
+        }
+    }
+
+    private static int randomId(int max) {
+        return 1 + ThreadLocalRandom.current().nextInt(max);
+    }
+
+    private static double measure(SqlTask task) throws SQLException {
+        for (int i = 0; i < MEASURED_ITERATIONS / 4; i++) {
+            task.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            task.run();
+        }
+        return (System.nanoTime() - start) / 1_000.0 / MEASURED_ITERATIONS;
+    }
+
+    @FunctionalInterface
+    private interface SqlTask {
+        int run() throws SQLException;
+    }
+}
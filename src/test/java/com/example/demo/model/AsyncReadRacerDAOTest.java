@@ -0,0 +1,75 @@
+package com.example.demo.model;
+
+import com.example.demo.exceptions.InvalidCredentialsException;
+import com.example.demo.util.AsyncReadRacerDAO;
+import com.example.demo.util.SqliteReadRacerDAO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncReadRacerDAOTest {
+    private SqliteReadRacerDAO dao;
+    private AsyncReadRacerDAO async;
+    // stands in for Platform.runLater: counts how many completions were handed over
+    private final AtomicInteger callbacks = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dao = new SqliteReadRacerDAO();
+        dao.clearAllData();
+        Reading reading = dao.addReading(new Reading(null, "Async", "Passage", null, 1));
+        dao.addQuestion(reading.id(), new Question("Q?", List.of(new Choice("A", true), new Choice("B", false))));
+        async = new AsyncReadRacerDAO(dao, task -> {
+            callbacks.incrementAndGet();
+            task.run();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        async.close();
+    }
+
+    @Test
+    void completesThroughCallbackExecutorOffTheCallingThread() throws Exception {
+        Thread caller = Thread.currentThread();
+        CompletableFuture<Thread> worker = async.submit(d -> Thread.currentThread());
+
+        assertNotSame(caller, worker.get(5, TimeUnit.SECONDS));
+        assertEquals("Async", async.getReading(1).get(5, TimeUnit.SECONDS).title());
+        assertEquals(2, callbacks.get());
+    }
+
+    @Test
+    void failuresCarryTheDaoException() {
+        CompletableFuture<User> login = async.tryLogin("nobody", "wrong");
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> login.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(InvalidCredentialsException.class, AsyncReadRacerDAO.unwrap(e));
+        assertInstanceOf(InvalidCredentialsException.class,
+                AsyncReadRacerDAO.unwrap(login.thenApply(User::getUsername).handle((u, t) -> t).join()));
+    }
+
+    @Test
+    void manyConcurrentCallsAllComplete() throws Exception {
+        List<CompletableFuture<Reading>> calls = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            calls.add(async.getRandomReading(null, Set.of()));
+        }
+        CompletableFuture.allOf(calls.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        for (CompletableFuture<Reading> call : calls) {
+            assertEquals(1, call.join().questions().size());
+        }
+        assertEquals(200, callbacks.get());
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.demo.model;
+
+import com.example.demo.util.AttemptArchiver;
+import com.example.demo.util.SqliteConnection;
+import com.example.demo.util.SqliteConnectionPool.PooledConnection;
+import com.example.demo.util.SqliteReadRacerDAO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttemptArchiverTest {
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+    private static final Clock CLOCK = Clock.fixed(LocalDateTime.of(2026, 6, 15, 12, 0).atZone(ZONE).toInstant(), ZONE);
+
+    @TempDir
+    Path archiveDir;
+
+    private SqliteReadRacerDAO dao;
+
+    @BeforeEach
+    void setUp() {
+        dao = new SqliteReadRacerDAO();
+        dao.clearAllData();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dao.clearAllData();
+    }
+
+    private static long at(int year, int month, int day) {
+        return LocalDateTime.of(year, month, day, 12, 0).atZone(ZONE).toEpochSecond();
+    }
+
+    private static void insertAttemptAt(int userId, int readingId, int score, Long epochSecond) throws SQLException {
+        try (PooledConnection pc = SqliteConnection.getPool().writer();
+             PreparedStatement statement = pc.connection().prepareStatement(
+                "INSERT INTO UserAttempts (user_id, reading_id, score, created_at) VALUES (?, ?, ?, ?)")) {
+            statement.setInt(1, userId);
+            statement.setInt(2, readingId);
+            statement.setInt(3, score);
+            if (epochSecond == null) {
+                statement.setNull(4, Types.INTEGER);
+            } else {
+                statement.setLong(4, epochSecond);
+            }
+            statement.executeUpdate();
+        }
+    }
+
+    private static List<String> rows(Connection connection, String sql) throws SQLException {
+        List<String> rows = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                List<String> row = new ArrayList<>();
+                for (int i = 1; i <= columns; i++) {
+                    row.add(rs.getString(i));
+                }
+                rows.add(String.join(",", row));
+            }
+        }
+        return rows;
+    }
+
+    private static List<String> archived(Path file) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.toAbsolutePath())) {
+            return rows(connection, "SELECT user_id, reading_id, score FROM UserAttempts ORDER BY created_at, attempt_id");
+        }
+    }
+
+    @Test
+    void movesOldAttemptsToYearlyFilesAndKeepsStats() throws Exception {
+        Reading first = dao.addReading(new Reading(null, "First", "Passage", null, 1));
+        Reading second = dao.addReading(new Reading(null, "Second", "Passage", null, 1));
+        User alice = dao.addUser(ReadRacerStoreContract.user("alice", "a"));
+        User bob = dao.addUser(ReadRacerStoreContract.user("bob", "b"));
+        int a = alice.getUser_id();
+        int b = bob.getUser_id();
+        insertAttemptAt(a, first.id(), 40, at(2024, 3, 1));
+        insertAttemptAt(a, first.id(), 70, at(2024, 3, 1));
+        insertAttemptAt(b, first.id(), 90, at(2024, 12, 31));
+        insertAttemptAt(a, first.id(), 50, at(2025, 2, 10));
+        insertAttemptAt(a, second.id(), 60, at(2026, 6, 14));
+        insertAttemptAt(b, second.id(), 30, null);
+
+        UserStats aliceBefore = dao.getUserStats(a);
+        UserStats bobBefore = dao.getUserStats(b);
+        List<Integer> boardBefore = dao.getLeaderboard(first.id()).stream().map(UserAttempt::getScore).toList();
+
+        AttemptArchiver.Report report = new AttemptArchiver(
+                SqliteConnection.getPool(), archiveDir, Duration.ofDays(365), 2, CLOCK).archive();
+        assertEquals(4, report.archived());
+        // a chunk never spans two years, so 2024 takes two and 2025 one
+        assertEquals(3, report.chunks());
+
+        // the recent and the undated attempt stay live
+        try (PooledConnection pc = SqliteConnection.getPool().writer()) {
+            Connection live = pc.connection();
+            assertEquals(List.of(a + "," + second.id() + ",60", b + "," + second.id() + ",30"),
+                    rows(live, "SELECT user_id, reading_id, score FROM UserAttempts ORDER BY attempt_id"));
+            assertEquals(List.of(
+                            first.id() + "," + a + ",2024-03-01,2,110,70",
+                            first.id() + "," + a + ",2025-02-10,1,50,50",
+                            first.id() + "," + b + ",2024-12-31,1,90,90"),
+                    rows(live, "SELECT reading_id, user_id, day, attempts, total_score, best_score"
+                            + " FROM AttemptRollups ORDER BY reading_id, user_id, day"));
+        }
+        assertEquals(List.of(a + "," + first.id() + ",40", a + "," + first.id() + ",70", b + "," + first.id() + ",90"),
+                archived(AttemptArchiver.archiveFile(archiveDir, 2024)));
+        assertEquals(List.of(a + "," + first.id() + ",50"), archived(AttemptArchiver.archiveFile(archiveDir, 2025)));
+
+        assertEquals(aliceBefore, dao.getUserStats(a));
+        assertEquals(bobBefore, dao.getUserStats(b));
+        assertEquals(boardBefore, dao.getLeaderboard(first.id()).stream().map(UserAttempt::getScore).toList());
+
+        // playing an archived reading again is not a new reading completed
+        dao.addUserAttempt(new UserAttempt(a, first.id(), 20));
+        assertEquals(aliceBefore.readingsCompleted(), dao.getUserStats(a).readingsCompleted());
+        assertEquals(aliceBefore.attempts() + 1, dao.getUserStats(a).attempts());
+
+        // live rows replayed into the leaderboard do not replace archived bests
+        dao.rebuildBestScores();
+        assertEquals(List.of(90, 70), dao.getLeaderboard(first.id()).stream().map(UserAttempt::getScore).toList());
+    }
+
+    @Test
+    void runningAgainArchivesNothingMore() throws Exception {
+        Reading reading = dao.addReading(new Reading(null, "Once", "Passage", null, 1));
+        User alice = dao.addUser(ReadRacerStoreContract.user("alice", "a"));
+        for (int day = 1; day <= 5; day++) {
+            insertAttemptAt(alice.getUser_id(), reading.id(), 10 * day, at(2024, 1, day));
+        }
+        AttemptArchiver archiver = new AttemptArchiver(SqliteConnection.getPool(), archiveDir, Duration.ofDays(30), 2, CLOCK);
+        assertEquals(5, archiver.archive().archived());
+
+        AttemptArchiver.Report again = archiver.archive();
+        assertEquals(0, again.archived());
+        assertEquals(0, again.chunks());
+        assertEquals(5, archived(AttemptArchiver.archiveFile(archiveDir, 2024)).size());
+        assertEquals(5, dao.getUserStats(alice.getUser_id()).attempts());
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.demo.model;
+
+import com.example.demo.util.AttemptWriter;
+import com.example.demo.util.SqliteConnectionPool;
+import com.example.demo.util.SqliteConnectionPool.PooledConnection;
+import com.example.demo.util.SqlitePragmaProfile;
+import com.example.demo.util.SqliteReadRacerDAO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttemptWriterTest {
+    @TempDir
+    Path dir;
+
+    private SqliteConnectionPool pool;
+    private Path journal;
+    private int userId;
+    private int readingId;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        // a short checkout timeout so a held writer makes the flusher give up quickly
+        pool = new SqliteConnectionPool("jdbc:sqlite:" + dir.resolve("attempts.db"), SqlitePragmaProfile.DURABLE,
+                1, 50, 200, SqliteConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE);
+        SqliteReadRacerDAO dao = new SqliteReadRacerDAO(pool);
+        userId = dao.addUser(new User("writer", "writer@example.com", new byte[]{1}, new byte[]{2})).getUser_id();
+        readingId = dao.addReading(new Reading(null, "Title", "Passage", null, 1)).id();
+        journal = dir.resolve("attempts.journal");
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void groupCommitsQueuedAttempts() throws Exception {
+        try (AttemptWriter writer = new AttemptWriter(pool, journal, 64, 20)) {
+            for (int i = 0; i < 100; i++) {
+                writer.submit(new UserAttempt(userId, readingId, i));
+            }
+            assertTrue(writer.flush(5, TimeUnit.SECONDS));
+
+            AttemptWriter.Metrics metrics = writer.metrics();
+            assertEquals(100, metrics.committed());
+            assertEquals(0, metrics.queueDepth());
+            assertTrue(metrics.flushes() < 100, "attempts should share commits: " + metrics);
+            assertTrue(metrics.maxFlushSize() <= 64);
+        }
+        assertEquals(100, countAttempts());
+        assertFalse(Files.exists(journal));
+    }
+
+    @Test
+    void journalsWhileDatabaseIsBusyAndReplaysOnNextStart() throws Exception {
+        try (AttemptWriter writer = new AttemptWriter(pool, journal, 64, 0)) {
+            try (PooledConnection held = pool.writer()) {
+                writer.submit(new UserAttempt(userId, readingId, 7));
+                writer.submit(new UserAttempt(userId, readingId, 8));
+                assertTrue(writer.flush(5, TimeUnit.SECONDS));
+            }
+            assertEquals(2, writer.metrics().journaled());
+        }
+        assertEquals(0, countAttempts());
+        assertEquals(2, Files.readAllLines(journal).size());
+
+        try (AttemptWriter restarted = new AttemptWriter(pool, journal)) {
+            assertEquals(2, restarted.metrics().replayed());
+        }
+        assertEquals(2, countAttempts());
+        assertFalse(Files.exists(journal));
+    }
+
+    // An attempt for a user that no longer exists is dropped without sinking the rest of its batch
+    @Test
+    void dropsConstraintViolationsOnly() throws Exception {
+        try (AttemptWriter writer = new AttemptWriter(pool, journal, 64, 50)) {
+            writer.submit(new UserAttempt(userId, readingId, 1));
+            writer.submit(new UserAttempt(userId + 1000, readingId, 2));
+            writer.submit(new UserAttempt(userId, readingId, 3));
+            assertTrue(writer.flush(5, TimeUnit.SECONDS));
+
+            assertEquals(2, writer.metrics().committed());
+            assertEquals(1, writer.metrics().dropped());
+
+            // the failed batch leaves nothing behind for the next one
+            writer.submit(new UserAttempt(userId, readingId, 4));
+            assertTrue(writer.flush(5, TimeUnit.SECONDS));
+            assertEquals(3, writer.metrics().committed());
+        }
+        assertEquals(3, countAttempts());
+        assertFalse(Files.exists(journal));
+    }
+
+    // An attempt journaled while the database was busy keeps the time it was played, not the restart's
+    @Test
+    void replayedAttemptsKeepTheirSubmitTime() throws Exception {
+        Instant played = Instant.parse("2026-03-02T09:30:00Z");
+        try (AttemptWriter writer = new AttemptWriter(pool, journal, 64, 0, Clock.fixed(played, ZoneOffset.UTC))) {
+            try (PooledConnection held = pool.writer()) {
+                writer.submit(new UserAttempt(userId, readingId, 5));
+                assertTrue(writer.flush(5, TimeUnit.SECONDS));
+            }
+        }
+        try (AttemptWriter restarted = new AttemptWriter(pool, journal)) {
+            assertEquals(1, restarted.metrics().replayed());
+        }
+        try (PooledConnection pc = pool.reader();
+             Statement statement = pc.connection().createStatement();
+             ResultSet rs = statement.executeQuery("SELECT created_at FROM UserAttempts")) {
+            assertTrue(rs.next());
+            assertEquals(played.getEpochSecond(), rs.getLong(1));
+        }
+    }
+
+    // A replay that fails part-way stores nothing and keeps the journal, so nothing is stored twice;
+    // a line cut short by a crash, one without a checksum, or one without a time field is skipped even when it
+    // still looks like an attempt
+    @Test
+    void replaysAllOrNothingAndSkipsTornLines() throws Exception {
+        try (AttemptWriter writer = new AttemptWriter(pool, journal, 64, 0)) {
+            try (PooledConnection held = pool.writer()) {
+                writer.submit(new UserAttempt(userId, readingId, 1));
+                writer.submit(new UserAttempt(userId + 1000, readingId, 2));
+                writer.submit(new UserAttempt(userId, readingId, 99));
+                writer.submit(new UserAttempt(userId, readingId, 3));
+                assertTrue(writer.flush(5, TimeUnit.SECONDS));
+            }
+        }
+        Files.writeString(journal, userId + "," + readingId + ",5,null\n", StandardOpenOption.APPEND);
+        Files.writeString(journal, checksummed(userId + "," + readingId + ",6"), StandardOpenOption.APPEND);
+        Files.writeString(journal, userId + "," + readingId + ",4", StandardOpenOption.APPEND);
+        String written = Files.readString(journal);
+
+        // an error that is not a constraint violation, on the third attempt of the replay
+        try (PooledConnection pc = pool.writer(); Statement statement = pc.connection().createStatement()) {
+            statement.execute("""
+                    CREATE TEMP TRIGGER fail_replay BEFORE INSERT ON UserAttempts WHEN NEW.score = 99
+                    BEGIN
+                        SELECT abs(-9223372036854775808);
+                    END""");
+        }
+        try (AttemptWriter failed = new AttemptWriter(pool, journal)) {
+            assertEquals(0, failed.metrics().replayed());
+        }
+        assertEquals(0, countAttempts());
+        assertEquals(written, Files.readString(journal));
+
+        try (PooledConnection pc = pool.writer(); Statement statement = pc.connection().createStatement()) {
+            statement.execute("DROP TRIGGER fail_replay");
+        }
+        try (AttemptWriter restarted = new AttemptWriter(pool, journal)) {
+            assertEquals(3, restarted.metrics().replayed());
+            assertEquals(1, restarted.metrics().dropped());
+        }
+        assertEquals(3, countAttempts());
+        assertFalse(Files.exists(journal));
+    }
+
+    @Test
+    void rejectsSubmitAfterClose() {
+        AttemptWriter writer = new AttemptWriter(pool, journal);
+        writer.close();
+        assertThrows(IllegalStateException.class, () -> writer.submit(new UserAttempt(userId, readingId, 1)));
+    }
+
+    private static String checksummed(String record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.getBytes(StandardCharsets.UTF_8));
+        return record + ";" + Long.toHexString(crc.getValue()) + "\n";
+    }
+
+    private int countAttempts() throws SQLException {
+        try (PooledConnection pc = pool.reader();
+             Statement statement = pc.connection().createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM UserAttempts")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo.model;
+
+import com.example.demo.util.CredentialCache;
+import com.example.demo.util.CredentialCache.Credentials;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CredentialCacheTest {
+    private static Credentials credentials(int userId) {
+        return new Credentials(userId, "user" + userId, "user" + userId + "@example.com", new byte[]{1}, new byte[]{2});
+    }
+
+    @Test
+    void cachesKnownAndUnknownLogins() {
+        CredentialCache cache = new CredentialCache(8);
+        assertNull(cache.get("alice"));
+        cache.put("alice", credentials(1), cache.stamp());
+        cache.put("nobody", null, cache.stamp());
+
+        assertEquals(1, cache.get("alice").credentials().userId());
+        assertFalse(cache.get("nobody").exists());
+        CredentialCache.Stats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.unknownHits());
+        assertEquals(1, stats.misses());
+    }
+
+    @Test
+    void invalidationDropsEntriesAndRacingLookups() {
+        CredentialCache cache = new CredentialCache(8);
+        cache.put("user1", credentials(1), cache.stamp());
+        cache.put("user1@example.com", credentials(1), cache.stamp());
+        cache.put("user2", null, cache.stamp());
+
+        long stamp = cache.stamp();
+        cache.invalidateUser(1);
+        assertNull(cache.get("user1"));
+        assertNull(cache.get("user1@example.com"));
+        cache.put("user1", credentials(1), stamp);
+        assertNull(cache.get("user1"), "a lookup that started before the write is not cached");
+
+        cache.invalidateLogins("user2");
+        assertNull(cache.get("user2"));
+    }
+
+    @Test
+    void unknownLoginsCannotEvictKnownUsers() {
+        CredentialCache cache = new CredentialCache(4);
+        for (int id = 1; id <= 4; id++) {
+            cache.put("user" + id, credentials(id), cache.stamp());
+        }
+        for (int i = 0; i < 100; i++) {
+            cache.put("guess" + i, null, cache.stamp());
+        }
+        CredentialCache.Stats stats = cache.stats();
+        assertEquals(4, stats.entries());
+        assertEquals(1, stats.unknownEntries());
+        assertNotNull(cache.get("user1"));
+    }
+}
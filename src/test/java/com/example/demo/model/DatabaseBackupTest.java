@@ -0,0 +1,105 @@
+package com.example.demo.model;
+
+import com.example.demo.util.DatabaseBackup;
+import com.example.demo.util.SqliteConnection;
+import com.example.demo.util.SqliteReadRacerDAO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseBackupTest {
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    @TempDir
+    Path backupDir;
+
+    private SqliteReadRacerDAO dao;
+
+    @BeforeEach
+    void setUp() {
+        dao = new SqliteReadRacerDAO();
+        dao.clearAllData();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dao.clearAllData();
+    }
+
+    private static Clock at(int hour) {
+        return Clock.fixed(LocalDateTime.of(2026, 3, 1, hour, 0).atZone(ZONE).toInstant(), ZONE);
+    }
+
+    private DatabaseBackup.Report backup(int hour, int keep) throws Exception {
+        return new DatabaseBackup(SqliteConnection.getPool(), backupDir, keep, at(hour)).backup();
+    }
+
+    @Test
+    void backupUnzipsToACopyOfTheDatabase() throws Exception {
+        Reading reading = dao.addReading(new Reading(null, "Backed up", "Passage to keep", null, 2));
+        User alice = dao.addUser(ReadRacerStoreContract.user("alice", "a"));
+        dao.addUserAttempt(new UserAttempt(alice.getUser_id(), reading.id(), 80));
+
+        DatabaseBackup.Report report = backup(9, 3);
+        assertEquals("ReadRacer-20260301-090000-000.db.gz", report.file().getFileName().toString());
+        assertTrue(report.compressedBytes() < report.databaseBytes());
+        // nothing but the backup is left behind
+        try (var files = Files.list(backupDir)) {
+            assertEquals(List.of(report.file()), files.toList());
+        }
+
+        Path restored = backupDir.resolve("restored.db");
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(report.file()))) {
+            Files.copy(in, restored);
+        }
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + restored);
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                     "SELECT r.title, a.score FROM UserAttempts a JOIN Readings r ON r.reading_id = a.reading_id")) {
+            assertTrue(rs.next());
+            assertEquals("Backed up", rs.getString(1));
+            assertEquals(80, rs.getInt(2));
+            assertFalse(rs.next());
+        }
+    }
+
+    @Test
+    void keepsOnlyTheNewestBackups() throws Exception {
+        backup(9, 2);
+        backup(10, 2);
+        DatabaseBackup.Report last = backup(11, 2);
+        assertEquals(1, last.deleted());
+
+        List<String> names = new DatabaseBackup(SqliteConnection.getPool(), backupDir, 2).backups().stream()
+                .map(path -> path.getFileName().toString()).toList();
+        assertEquals(List.of("ReadRacer-20260301-110000-000.db.gz", "ReadRacer-20260301-100000-000.db.gz"), names);
+    }
+
+    @Test
+    void refusesToBackUpOrArchiveShards() {
+        System.setProperty("readracer.shards", "2");
+        try {
+            IllegalStateException backup = assertThrows(IllegalStateException.class, SqliteConnection::getDatabaseBackup);
+            assertTrue(backup.getMessage().contains("readracer.shards"), backup.getMessage());
+            assertThrows(IllegalStateException.class, SqliteConnection::startAttemptArchiver);
+        } finally {
+            System.clearProperty("readracer.shards");
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.demo.model;
+
+import com.example.demo.util.InMemoryReadRacerStore;
+import com.example.demo.util.ReadRacerStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryReadRacerStoreTest extends ReadRacerStoreContract {
+    @Override
+    protected ReadRacerStore createStore() {
+        return new InMemoryReadRacerStore();
+    }
+
+    @Test
+    void concurrentWritersGetDistinctIds() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> ids = new ArrayList<>();
+            for (int i = 0; i < 1_000; i++) {
+                int n = i;
+                ids.add(executor.submit(() -> store.addReading(new Reading(null, "R" + n, "P", null, 1)).id()));
+            }
+            for (Future<Integer> id : ids) {
+                id.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1_000, store.getReadings(IntStream.rangeClosed(1, 1_000).boxed().toList()).size());
+    }
+
+    @Test
+    void streakCountsConsecutiveDays() throws Exception {
+        MutableClock clock = new MutableClock(Instant.parse("2024-05-01T12:00:00Z"));
+        store = new InMemoryReadRacerStore(clock);
+        Reading reading = store.addReading(new Reading(null, "Streak", "Passage", null, 1));
+        User alice = store.addUser(user("alice", "a"));
+
+        for (int day = 0; day < 3; day++) {
+            store.addUserAttempt(new UserAttempt(alice.getUser_id(), reading.id(), 10));
+            store.addUserAttempt(new UserAttempt(alice.getUser_id(), reading.id(), 10));
+            clock.advance(Duration.ofDays(1));
+        }
+        assertEquals(3, store.getUserStats(alice.getUser_id()).currentStreakDays());
+
+        clock.advance(Duration.ofDays(1));
+        assertEquals(0, store.getUserStats(alice.getUser_id()).currentStreakDays());
+        store.addUserAttempt(new UserAttempt(alice.getUser_id(), reading.id(), 10));
+        assertEquals(1, store.getUserStats(alice.getUser_id()).currentStreakDays());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
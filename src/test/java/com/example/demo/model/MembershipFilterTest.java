@@ -0,0 +1,46 @@
+package com.example.demo.model;
+
+import com.example.demo.util.MembershipFilter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MembershipFilterTest {
+    private static double falsePositiveRate(MembershipFilter filter) {
+        int positives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("absent_" + i)) {
+                positives++;
+            }
+        }
+        return positives / 10_000.0;
+    }
+
+    @Test
+    void neverMissesAnAddedValue() {
+        MembershipFilter filter = new MembershipFilter(5_000);
+        for (int i = 0; i < 5_000; i++) {
+            filter.add("user_" + i);
+        }
+        for (int i = 0; i < 5_000; i++) {
+            assertTrue(filter.mightContain("user_" + i));
+        }
+        assertTrue(falsePositiveRate(filter) < 0.03, "sized for about 1% false positives");
+    }
+
+    @Test
+    void growsInsteadOfFillingUp() {
+        MembershipFilter filter = new MembershipFilter(0);
+        for (int i = 0; i < 20_000; i++) {
+            filter.add("user_" + i);
+        }
+        MembershipFilter.Stats stats = filter.stats();
+        assertEquals(20_000, stats.entries());
+        assertTrue(stats.layers() > 1);
+        assertTrue(filter.mightContain("user_19999"));
+        assertTrue(falsePositiveRate(filter) < 0.06);
+
+        filter.reset(0);
+        assertFalse(filter.mightContain("user_0"));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.demo.model;
+
+import com.example.demo.util.PassageCompressor;
+import com.example.demo.util.ReadingImporter;
+import com.example.demo.util.SqliteConnection;
+import com.example.demo.util.SqliteConnectionPool;
+import com.example.demo.util.SqliteConnectionPool.PooledConnection;
+import com.example.demo.util.SqliteReadRacerDAO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PassageCompressionTest {
+    private SqliteConnectionPool pool;
+    private SqliteReadRacerDAO dao;
+
+    @BeforeEach
+    void setUp() {
+        pool = SqliteConnection.getPool();
+        dao = new SqliteReadRacerDAO();
+        dao.clearAllData();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        // later tests expect passages stored as text
+        new PassageCompressor(pool).decompress();
+        dao.clearAllData();
+    }
+
+    private static String passage(int n) {
+        return "Reading " + n + ": the quick brown fox jumps over the lazy dog while the children read"
+                + " quietly in the library. After the story the teacher asks the class what happened to the fox. "
+                + "Ünïcode ✓ " + n;
+    }
+
+    private static List<Integer> codecs() throws SQLException {
+        List<Integer> codecs = new ArrayList<>();
+        try (PooledConnection pc = SqliteConnection.getPool().writer();
+             Statement statement = pc.connection().createStatement();
+             ResultSet rs = statement.executeQuery("SELECT content_codec FROM Readings ORDER BY reading_id")) {
+            while (rs.next()) {
+                codecs.add(rs.getInt(1));
+            }
+        }
+        return codecs;
+    }
+
+    @Test
+    void compressesExistingAndNewPassagesTransparently() throws Exception {
+        List<Reading> added = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            added.add(dao.addReading(new Reading(null, "Title " + i, passage(i), null, 1)));
+        }
+
+        PassageCompressor.Report report = new PassageCompressor(pool).compress();
+        assertEquals(50, report.readings());
+        assertEquals(50, report.compressed());
+        assertTrue(report.contentBytesAfter() < report.contentBytesBefore() / 2,
+                "a shared dictionary should at least halve short similar passages: " + report);
+
+        // a DAO created afterwards compresses new passages too, and the importer does as well
+        SqliteReadRacerDAO fresh = new SqliteReadRacerDAO();
+        Reading later = fresh.addReading(new Reading(null, "Later", passage(99), null, 2));
+        new ReadingImporter(pool).importReadings(List.of(new Reading(null, "Imported", passage(100), null, 1)).iterator());
+        assertTrue(codecs().stream().allMatch(codec -> codec > 0));
+
+        for (Reading reading : added) {
+            assertEquals(reading.passage(), fresh.getReading(reading.id()).passage());
+        }
+        assertEquals(passage(99), fresh.getReading(later.id()).passage());
+        // compressed passages are still searchable, whichever path wrote them
+        assertEquals(52, fresh.searchReadings("library", 0, 100).size());
+
+        PassageCompressor.Report back = new PassageCompressor(pool).decompress();
+        assertEquals(0, back.compressed());
+        assertTrue(codecs().stream().allMatch(codec -> codec == 0));
+        assertEquals(passage(99), new SqliteReadRacerDAO().getReading(later.id()).passage());
+    }
+
+    @Test
+    void refusesToTrainOnTooLittleText() throws Exception {
+        dao.addReading(new Reading(null, "Only", "Unique words everywhere", null, 1));
+        assertThrows(IllegalStateException.class, () -> new PassageCompressor(pool).compress());
+        assertEquals(List.of(0), codecs());
+    }
+}
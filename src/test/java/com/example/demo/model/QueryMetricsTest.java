@@ -0,0 +1,133 @@
+package com.example.demo.model;
+
+import com.example.demo.exceptions.InvalidCredentialsException;
+import com.example.demo.util.QueryMetrics;
+import com.example.demo.util.SqliteConnection;
+import com.example.demo.util.SqliteConnectionPool;
+import com.example.demo.util.SqliteConnectionPool.PooledConnection;
+import com.example.demo.util.SqliteReadRacerDAO;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryMetricsTest {
+    private static Map<String, QueryMetrics.OperationStats> byName(QueryMetrics.Snapshot snapshot) {
+        return snapshot.operations().stream()
+                .collect(Collectors.toMap(QueryMetrics.OperationStats::operation, Function.identity()));
+    }
+
+    @Test
+    void timesEveryDaoOperationWithRowsAndErrors() throws Exception {
+        SqliteReadRacerDAO dao = new SqliteReadRacerDAO();
+        dao.clearAllData();
+        Reading reading = dao.addReading(new Reading(null, "Timed", "Passage", null, 1));
+        dao.addQuestion(reading.id(), new Question("Q?", List.of(new Choice("A", true), new Choice("B", false))));
+        SqliteConnection.getPool().queryMetrics().reset();
+
+        dao.getReading(reading.id()); // loads 1 reading row and 2 question/choice rows
+        dao.getReading(reading.id()); // served by the reading cache
+        assertThrows(InvalidCredentialsException.class, () -> dao.TryLogin("nobody", "wrong"));
+
+        Map<String, QueryMetrics.OperationStats> stats = byName(dao.queryMetrics());
+        QueryMetrics.OperationStats getReading = stats.get("getReading");
+        assertEquals(2, getReading.count());
+        assertEquals(3, getReading.rows());
+        assertEquals(0, getReading.errors());
+        assertTrue(getReading.p50Micros() <= getReading.p99Micros());
+        assertTrue(getReading.p99Micros() <= getReading.maxMicros());
+        assertEquals(2, stats.get("getReadings").count(), "nested operations are recorded too");
+        assertEquals(1, stats.get("tryLogin").errors());
+    }
+
+    @Test
+    void logsSlowStatementsWithBindsAndPlan() throws Exception {
+        Path dbFile = Files.createTempFile("metrics-test", ".db");
+        try (SqliteConnectionPool pool = new SqliteConnectionPool("jdbc:sqlite:" + dbFile, 0, 1_000, 1_000)) {
+            try (PooledConnection pc = pool.writer();
+                 Statement statement = pc.connection().createStatement()) {
+                statement.execute("CREATE TABLE Items (id INTEGER PRIMARY KEY, data BLOB)");
+                statement.execute("INSERT INTO Items (id, data) VALUES (1, x'010203')");
+            }
+            QueryMetrics metrics = pool.queryMetrics();
+            metrics.setSlowQueryThresholdMillis(0);
+
+            metrics.time("lookup", () -> {
+                try (PooledConnection pc = pool.reader()) {
+                    PreparedStatement ps = pc.prepare("SELECT id FROM Items WHERE id = ? OR data = ?");
+                    ps.setInt(1, 1);
+                    ps.setBytes(2, new byte[]{1, 2, 3});
+                    try (ResultSet rs = ps.executeQuery()) {
+                        return rs.next();
+                    }
+                }
+            });
+
+            List<QueryMetrics.SlowQuery> slow = metrics.snapshot().slowQueries();
+            assertEquals(1, slow.size());
+            QueryMetrics.SlowQuery query = slow.getFirst();
+            assertEquals("lookup", query.operation());
+            assertEquals(List.of("1", "<3 bytes>"), query.binds());
+            assertEquals(1, query.rows());
+            assertFalse(query.plan().isEmpty());
+            assertEquals(1, byName(metrics.snapshot()).get("lookup").rows());
+
+            metrics.setSlowQueryThresholdMillis(-1);
+            try (PooledConnection pc = pool.writer()) {
+                PreparedStatement ps = pc.prepare("UPDATE Items SET data = NULL WHERE id = ?");
+                ps.setInt(1, 1);
+                ps.executeUpdate();
+            }
+            assertEquals(1, metrics.snapshot().slowQueries().size());
+        } finally {
+            Files.deleteIfExists(dbFile);
+        }
+    }
+
+    @Test
+    void logsOnlyTheBindsTheStatementUses() throws Exception {
+        Path dbFile = Files.createTempFile("metrics-test", ".db");
+        try (SqliteConnectionPool pool = new SqliteConnectionPool("jdbc:sqlite:" + dbFile, 0, 1_000, 1_000)) {
+            try (PooledConnection pc = pool.writer();
+                 Statement statement = pc.connection().createStatement()) {
+                statement.execute("CREATE TABLE Items (id INTEGER PRIMARY KEY, name TEXT, size INTEGER)");
+            }
+            QueryMetrics metrics = pool.queryMetrics();
+            metrics.setSlowQueryThresholdMillis(0);
+
+            try (PooledConnection pc = pool.writer()) {
+                // three parameters leave the bind array with a fourth, never bound slot
+                PreparedStatement ps = pc.prepare("INSERT INTO Items (id, name, size) VALUES (?, ?, ?)");
+                ps.setInt(1, 1);
+                ps.setString(2, "one");
+                ps.setInt(3, 10);
+                assertEquals(1, ps.executeUpdate());
+                ps.clearParameters();
+                ps.setInt(1, 2);
+                ps.setNull(2, Types.VARCHAR);
+                ps.setInt(3, 20);
+                assertEquals(1, ps.executeUpdate());
+            }
+
+            List<QueryMetrics.SlowQuery> slow = metrics.snapshot().slowQueries();
+            assertEquals(2, slow.size());
+            assertEquals(List.of("1", "'one'", "10"), slow.get(0).binds());
+            assertEquals(List.of("2", "NULL", "20"), slow.get(1).binds());
+            for (QueryMetrics.SlowQuery query : slow) {
+                assertTrue(query.plan().stream().noneMatch(line -> line.startsWith("(no plan")), query.plan().toString());
+            }
+        } finally {
+            Files.deleteIfExists(dbFile);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demo.model;
+
+import com.example.demo.exceptions.InvalidCredentialsException;
+import com.example.demo.util.SqliteConnection;
+import com.example.demo.util.SqliteConnectionPool;
+import com.example.demo.util.SqliteConnectionPool.PooledConnection;
+import com.example.demo.util.SqliteReadRacerDAO;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs every DAO method once, then checks the query plan of every SQL statement the DAO prepared.
+ * A plan step of the form "SCAN &lt;table&gt;" means the statement reads a whole table and fails the test.
+ */
+class QueryPlanTest {
+    private static SqliteReadRacerDAO dao;
+
+    @BeforeAll
+    static void exerciseDao() throws SQLException {
+        dao = new SqliteReadRacerDAO();
+        dao.clearAllData();
+
+        Reading reading = dao.addReading(new Reading(null, "Plan", "Passage", null, 1));
+        dao.addQuestion(reading.id(), new Question("Prompt?", List.of(new Choice("Yes", true), new Choice("No", false))));
+        dao.getRandomReading();
+        dao.getRandomReading(1, Set.of(reading.id() + 1));
+        dao.getReading(reading.id());
+        dao.getReadings(List.of(reading.id(), 2, 3));
+        dao.getQuestions(reading.id());
+        dao.getChoices(1);
+        dao.listReadings(0, 20, ReadingFilter.ALL);
+        dao.listReadings(reading.id(), 20, new ReadingFilter(1, 1));
+        dao.searchReadings("passage", 0, 20);
+
+        User user = dao.addUser(new User("plan_user", "plan@example.com", new byte[]{1}, new byte[]{2}));
+        dao.getUser(user.getUser_id());
+        dao.userWithIdExists(user.getUser_id());
+        dao.usernameIsUnique("plan_user");
+        dao.emailIsUnique("plan@example.com");
+        dao.updateUser(user);
+        assertThrows(InvalidCredentialsException.class, () -> dao.TryLogin("plan_user", "wrong"));
+
+        dao.addUserAttempt(new UserAttempt(user.getUser_id(), reading.id(), 3));
+        dao.getLeaderboard(reading.id());
+        dao.getUserStats(user.getUser_id());
+        dao.deleteUser(user.getUser_id());
+        dao.deleteReading(dao.addReading(new Reading(null, "Doomed", "Passage", null, 2)).id());
+    }
+
+    @Test
+    void noDaoQueryScansATable() throws SQLException {
+        SqliteConnectionPool pool = SqliteConnection.getPool();
+        Set<String> statements = pool.statementPrepareCounts().keySet();
+        assertFalse(statements.isEmpty(), "DAO should have prepared statements through the pool");
+
+        List<String> scans = new ArrayList<>();
+        try (PooledConnection pc = pool.reader()) {
+            for (String sql : statements) {
+                for (String step : queryPlan(pc, sql)) {
+                    if (isTableScan(step)) {
+                        scans.add(step + "  <-  " + sql.strip().replaceAll("\\s+", " "));
+                    }
+                }
+            }
+        }
+        assertTrue(scans.isEmpty(), "Queries falling back to a table scan:\n" + String.join("\n", scans));
+    }
+
+    private static List<String> queryPlan(PooledConnection pc, String sql) throws SQLException {
+        List<String> steps = new ArrayList<>();
+        try (PreparedStatement ps = pc.connection().prepareStatement("EXPLAIN QUERY PLAN " + sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                steps.add(rs.getString("detail"));
+            }
+        }
+        return steps;
+    }
+
+    // "SCAN Readings" is a full table scan; "SEARCH ... USING INDEX", "SCAN CONSTANT ROW", the rows of a multi-row VALUES, and an FTS5
+    // MATCH ("SCAN ReadingSearch VIRTUAL TABLE INDEX 32:M3", M for match) are fine
+    private static boolean isTableScan(String step) {
+        return step.startsWith("SCAN ") && !step.contains(" USING ") && !step.equals("SCAN CONSTANT ROW")
+                && !step.matches("SCAN \\d+-ROW VALUES CLAUSE")
+                && !step.matches(".* VIRTUAL TABLE INDEX \\d+:.*M.*");
+    }
+}
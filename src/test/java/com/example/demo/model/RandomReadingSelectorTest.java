@@ -0,0 +1,75 @@
+package com.example.demo.model;
+
+import com.example.demo.util.RandomReadingSelector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.OptionalInt;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RandomReadingSelectorTest {
+    private RandomReadingSelector selector;
+
+    @BeforeEach
+    void setUp() {
+        selector = new RandomReadingSelector();
+        for (int id = 1; id <= 30; id++) {
+            selector.add(id, id % 3 + 1);
+        }
+    }
+
+    @Test
+    void picksEveryIdEventually() {
+        Set<Integer> seen = new HashSet<>();
+        for (int i = 0; i < 5_000; i++) {
+            seen.add(selector.pick(null, Set.of()).getAsInt());
+        }
+        assertEquals(30, seen.size());
+    }
+
+    @Test
+    void filtersByDifficulty() {
+        for (int i = 0; i < 500; i++) {
+            int id = selector.pick(2, Set.of()).getAsInt();
+            assertEquals(2, id % 3 + 1);
+        }
+        assertTrue(selector.pick(9, Set.of()).isEmpty());
+    }
+
+    @Test
+    void honoursExclusionsEvenWhenAlmostEverythingIsExcluded() {
+        Set<Integer> excluded = new HashSet<>();
+        for (int id = 1; id <= 29; id++) {
+            excluded.add(id);
+        }
+        for (int i = 0; i < 100; i++) {
+            assertEquals(30, selector.pick(null, excluded).getAsInt());
+        }
+        excluded.add(30);
+        assertTrue(selector.pick(null, excluded).isEmpty());
+    }
+
+    @Test
+    void removeKeepsTheRestPickable() {
+        for (int id = 1; id <= 30; id++) {
+            if (id != 17) {
+                assertTrue(selector.remove(id));
+            }
+        }
+        assertFalse(selector.remove(1));
+        assertEquals(1, selector.size());
+        assertEquals(OptionalInt.of(17), selector.pick(null, Set.of()));
+        assertEquals(OptionalInt.of(17), selector.pick(17 % 3 + 1, Set.of()));
+    }
+
+    @Test
+    void readdingMovesAnIdToItsNewDifficulty() {
+        selector.add(1, 5);
+        selector.add(1, 5);
+        assertEquals(30, selector.size());
+        assertEquals(OptionalInt.of(1), selector.pick(5, Set.of()));
+    }
+}
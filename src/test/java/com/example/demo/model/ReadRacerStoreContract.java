@@ -0,0 +1,238 @@
+package com.example.demo.model;
+
+import com.example.demo.exceptions.InvalidCredentialsException;
+import com.example.demo.util.ReadRacerStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Behaviour every {@link ReadRacerStore} must share, run once per implementation by its subclasses.
+ */
+abstract class ReadRacerStoreContract {
+    protected ReadRacerStore store;
+
+    /**
+     * @return an empty store
+     */
+    protected abstract ReadRacerStore createStore();
+
+    @BeforeEach
+    void setUpStore() {
+        store = createStore();
+        store.clearAllData();
+    }
+
+    static User user(String name, String password) throws Exception {
+        byte[] salt = name.getBytes(StandardCharsets.UTF_8);
+        MessageDigest md = MessageDigest.getInstance("SHA-512");
+        md.update(salt);
+        return new User(name, name + "@example.com", md.digest(password.getBytes(StandardCharsets.UTF_8)), salt);
+    }
+
+    private Reading readingWithQuestion(String title, int difficulty) throws SQLException {
+        Reading reading = store.addReading(new Reading(null, title, "Passage of " + title, null, difficulty));
+        store.addQuestion(reading.id(), new Question("Q?", List.of(new Choice("A", false), new Choice("B", true))));
+        return reading;
+    }
+
+    @Test
+    void storesReadingsWithQuestionsAndChoices() throws Exception {
+        Reading first = readingWithQuestion("First", 1);
+        Reading second = readingWithQuestion("Second", 2);
+
+        assertEquals(1, first.id());
+        Reading loaded = store.getReading(second.id());
+        assertEquals("Second", loaded.title());
+        assertEquals(2, loaded.difficulty());
+        assertEquals("B", loaded.questions().getFirst().getCorrectAnswerString());
+        assertEquals(List.of(1, 2), store.getReadings(List.of(2, 1, 99)).stream().map(Reading::id).toList());
+        int secondQuestionId = 2;
+        assertEquals(List.of("A", "B"), store.getChoices(secondQuestionId).stream().map(Choice::getChoiceText).toList());
+        assertEquals(1, store.getQuestions(first.id()).size());
+        assertNull(store.getReading(99));
+    }
+
+    @Test
+    void randomReadingHonoursFiltersAndDeletes() throws Exception {
+        Reading easy = readingWithQuestion("Easy", 1);
+        Reading hard = readingWithQuestion("Hard", 3);
+
+        assertEquals(hard.id(), store.getRandomReading(3, Set.of()).id());
+        assertEquals(easy.id(), store.getRandomReading(null, Set.of(hard.id())).id());
+        assertTrue(store.deleteReading(hard.id()));
+        assertFalse(store.deleteReading(hard.id()));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(easy.id(), store.getRandomReading().id());
+        }
+        assertThrows(RuntimeException.class, () -> store.getRandomReading(3, Set.of()));
+    }
+
+    @Test
+    void listsReadingsPageByPageWithoutPassages() throws Exception {
+        Reading first = readingWithQuestion("First", 1);
+        Reading bare = store.addReading(new Reading(null, "Bare", "Ünïcode ✓", null, 2));
+        Reading third = readingWithQuestion("Third", 1);
+        store.addQuestion(third.id(), new Question("Again?", List.of(new Choice("Yes", true))));
+
+        List<ReadingSummary> page = store.listReadings(0, 2, ReadingFilter.ALL);
+        assertEquals(List.of(new ReadingSummary(first.id(), "First", 1, 1, "Passage of First".length()),
+                new ReadingSummary(bare.id(), "Bare", 2, 0, 9)), page);
+        assertEquals(List.of(third.id()),
+                store.listReadings(page.getLast().id(), 2, ReadingFilter.ALL).stream().map(ReadingSummary::id).toList());
+        List<ReadingSummary> rest = store.listReadings(first.id(), 5, ReadingFilter.ALL);
+        assertEquals(2, rest.getLast().questionCount());
+
+        assertEquals(List.of(first.id(), third.id()),
+                store.listReadings(0, 5, ReadingFilter.difficulty(1)).stream().map(ReadingSummary::id).toList());
+        assertEquals(List.of(third.id()),
+                store.listReadings(0, 5, new ReadingFilter(null, 2)).stream().map(ReadingSummary::id).toList());
+
+        assertTrue(store.deleteReading(first.id()));
+        assertEquals(List.of(bare.id(), third.id()),
+                store.listReadings(0, 5, ReadingFilter.ALL).stream().map(ReadingSummary::id).toList());
+        assertThrows(IllegalArgumentException.class, () -> store.listReadings(0, 0, ReadingFilter.ALL));
+    }
+
+    @Test
+    void searchFindsReadingsByTitlePassageAndPrompt() throws Exception {
+        Reading fox = store.addReading(new Reading(null, "The Fox", "A quick brown animal jumps over the fence.", null, 1));
+        store.addQuestion(fox.id(), new Question("Why did it jump?", List.of(new Choice("Fear", true))));
+        Reading honest = store.addReading(new Reading(null, "Honest Abe", "A story about honesty and a fox.", null, 2));
+        Reading weather = store.addReading(new Reading(null, "Weather", "Rain today, sun tomorrow.", null, 1));
+        store.addQuestion(weather.id(), new Question("Is honesty like rain?", List.of(new Choice("No", true))));
+
+        List<SearchResult> foxes = store.searchReadings("fox!", 0, 10);
+        assertEquals(List.of(fox.id(), honest.id()), foxes.stream().map(r -> r.reading().id()).toList());
+        assertTrue(foxes.getFirst().snippet().contains("[Fox]"), foxes.getFirst().snippet());
+        assertEquals(1, foxes.getFirst().reading().questionCount());
+        assertEquals(List.of(honest.id()), store.searchReadings("fox", 1, 1).stream().map(r -> r.reading().id()).toList());
+
+        assertEquals(Set.of(honest.id(), weather.id()),
+                store.searchReadings("HONESTY", 0, 10).stream().map(r -> r.reading().id()).collect(Collectors.toSet()));
+        assertEquals(List.of(honest.id()),
+                store.searchReadings("honesty fox", 0, 10).stream().map(r -> r.reading().id()).toList());
+        assertTrue(store.searchReadings(" ?! ", 0, 10).isEmpty());
+
+        store.addQuestion(weather.id(), new Question("Did a fox get wet?", List.of(new Choice("Yes", true))));
+        assertTrue(store.deleteReading(fox.id()));
+        assertEquals(Set.of(honest.id(), weather.id()),
+                store.searchReadings("fox", 0, 10).stream().map(r -> r.reading().id()).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void usersAreUniqueAndCanLogIn() throws Exception {
+        User alice = store.addUser(user("alice", "secret"));
+        assertTrue(alice.has_id());
+        assertFalse(store.usernameIsUnique("alice"));
+        assertFalse(store.emailIsUnique("alice@example.com"));
+        assertTrue(store.usernameIsUnique("bob"));
+        assertThrows(SQLException.class, () -> store.addUser(user("alice", "other")));
+
+        assertEquals(alice.getUser_id(), store.TryLogin("alice", "secret").getUser_id());
+        assertEquals(alice.getUser_id(), store.TryLogin("alice@example.com", "secret").getUser_id());
+        assertThrows(InvalidCredentialsException.class, () -> store.TryLogin("alice", "wrong"));
+        assertThrows(InvalidCredentialsException.class, () -> store.TryLogin("nobody", "secret"));
+    }
+
+    @Test
+    void loginFollowsUserChanges() throws Exception {
+        assertThrows(InvalidCredentialsException.class, () -> store.TryLogin("robert", "secret"));
+        User bob = store.addUser(user("robert", "secret"));
+        assertEquals(bob.getUser_id(), store.TryLogin("robert", "secret").getUser_id());
+
+        bob.setUsername("bobby_");
+        bob.setEmail("bobby@example.com");
+        store.updateUser(bob);
+        assertThrows(InvalidCredentialsException.class, () -> store.TryLogin("robert", "secret"));
+        assertThrows(InvalidCredentialsException.class, () -> store.TryLogin("robert@example.com", "secret"));
+        assertEquals("bobby_", store.TryLogin("bobby@example.com", "secret").getUsername());
+
+        store.deleteUser(bob.getUser_id());
+        assertThrows(InvalidCredentialsException.class, () -> store.TryLogin("bobby_", "secret"));
+    }
+
+    @Test
+    void updatesAndDeletesUsers() throws Exception {
+        User alice = store.addUser(user("alice", "secret"));
+        User bob = store.addUser(user("bob", "secret"));
+
+        alice.setUsername("alicia");
+        store.updateUser(alice);
+        assertEquals("alicia", store.getUser(alice.getUser_id()).getUsername());
+        assertTrue(store.usernameIsUnique("alice"));
+
+        bob.setUsername("alicia");
+        assertThrows(SQLException.class, () -> store.updateUser(bob));
+
+        store.deleteUser(alice.getUser_id());
+        assertFalse(store.userWithIdExists(alice.getUser_id()));
+        assertTrue(store.usernameIsUnique("alicia"), "a deleted user's name is free again");
+        assertThrows(SQLException.class, () -> store.getUser(alice.getUser_id()));
+        assertThrows(SQLException.class, () -> store.deleteUser(alice.getUser_id()));
+    }
+
+    @Test
+    void leaderboardKeepsEachUsersBestAttempt() throws Exception {
+        Reading reading = readingWithQuestion("Board", 1);
+        User alice = store.addUser(user("alice", "a"));
+        User bob = store.addUser(user("bob", "b"));
+        User carol = store.addUser(user("carol", "c"));
+
+        store.addUserAttempt(new UserAttempt(alice.getUser_id(), reading.id(), 50));
+        UserAttempt bobFirst = new UserAttempt(bob.getUser_id(), reading.id(), 80);
+        store.addUserAttempt(bobFirst);
+        store.addUserAttempt(new UserAttempt(alice.getUser_id(), reading.id(), 80));
+        store.addUserAttempt(new UserAttempt(bob.getUser_id(), reading.id(), 80));
+        store.addUserAttempt(new UserAttempt(carol.getUser_id(), reading.id(), 10));
+
+        List<UserAttempt> board = store.getLeaderboard(reading.id());
+        assertEquals(List.of(bob.getUser_id(), alice.getUser_id(), carol.getUser_id()),
+                board.stream().map(UserAttempt::getUserID).toList());
+        assertEquals(bobFirst.getAttemptID(), board.getFirst().getAttemptID(), "a tie keeps the earlier attempt");
+        assertEquals(2, store.getLeaderboard(reading.id(), 2).size());
+
+        store.deleteUser(bob.getUser_id());
+        assertEquals(alice.getUser_id(), store.getLeaderboard(reading.id()).getFirst().getUserID());
+        store.deleteReading(reading.id());
+        assertTrue(store.getLeaderboard(reading.id()).isEmpty());
+    }
+
+    @Test
+    void userStatsFollowAttemptsAndDeletes() throws Exception {
+        Reading first = readingWithQuestion("First", 1);
+        Reading second = readingWithQuestion("Second", 1);
+        User alice = store.addUser(user("alice", "a"));
+        assertEquals(UserStats.empty(alice.getUser_id()), store.getUserStats(alice.getUser_id()));
+
+        store.addUserAttempt(new UserAttempt(alice.getUser_id(), first.id(), 40));
+        store.addUserAttempt(new UserAttempt(alice.getUser_id(), first.id(), 90));
+        store.addUserAttempt(new UserAttempt(alice.getUser_id(), second.id(), 20));
+        assertEquals(new UserStats(alice.getUser_id(), 3, 90, 50.0, 20, 2, 1), store.getUserStats(alice.getUser_id()));
+
+        // the best attempt goes with its reading
+        store.deleteReading(first.id());
+        assertEquals(new UserStats(alice.getUser_id(), 1, 20, 20.0, 20, 1, 1), store.getUserStats(alice.getUser_id()));
+
+        store.deleteUser(alice.getUser_id());
+        assertEquals(0, store.getUserStats(alice.getUser_id()).attempts());
+    }
+
+    @Test
+    void attemptsNeedAnExistingUserAndReading() throws Exception {
+        Reading reading = readingWithQuestion("Orphan", 1);
+        User alice = store.addUser(user("alice", "a"));
+
+        assertThrows(SQLException.class, () -> store.addUserAttempt(new UserAttempt(alice.getUser_id() + 1, reading.id(), 1)));
+        assertThrows(SQLException.class, () -> store.addUserAttempt(new UserAttempt(alice.getUser_id(), reading.id() + 1, 1)));
+        assertTrue(store.getLeaderboard(reading.id()).isEmpty());
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.demo.model;
+
+import com.example.demo.util.ReadingCache;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadingCacheTest {
+    // an empty title and a passage of n characters weigh 96 + 2n bytes
+    private static Reading reading(int id, int passageLength) {
+        return new Reading(id, "", "x".repeat(passageLength), null, 1);
+    }
+
+    @Test
+    void returnsWhatWasPutAndCountsHits() {
+        ReadingCache cache = new ReadingCache(10_000);
+        assertNull(cache.get(1));
+        cache.put(reading(1, 100), cache.stamp());
+
+        assertNotNull(cache.get(1));
+        ReadingCache.Stats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0.5, stats.hitRate());
+        assertEquals(296, stats.weight());
+    }
+
+    @Test
+    void zeroWeightCachesNothing() {
+        ReadingCache cache = new ReadingCache(0);
+        cache.get(1);
+        cache.put(reading(1, 0), cache.stamp());
+
+        assertNull(cache.get(1));
+        assertEquals(0, cache.stats().entries());
+        assertThrows(IllegalArgumentException.class, () -> new ReadingCache(-1));
+    }
+
+    @Test
+    void staysWithinWeightByEvictingLeastRecentlyUsed() {
+        ReadingCache cache = new ReadingCache(1_000); // room for two 396-byte readings
+        for (int id = 1; id <= 3; id++) {
+            cache.get(id);
+            cache.get(id);
+            cache.put(reading(id, 150), cache.stamp());
+        }
+        cache.get(4);
+        cache.get(4);
+        cache.get(4);
+        cache.put(reading(4, 150), cache.stamp());
+
+        ReadingCache.Stats stats = cache.stats();
+        assertTrue(stats.weight() <= 1_000);
+        assertEquals(2, stats.entries());
+        assertNotNull(cache.get(4), "more frequently requested newcomer is admitted");
+        assertTrue(stats.evictions() >= 1);
+    }
+
+    @Test
+    void oneOffReadingDoesNotEvictPopularOnes() {
+        ReadingCache cache = new ReadingCache(1_000);
+        for (int id = 1; id <= 2; id++) {
+            for (int i = 0; i < 10; i++) {
+                cache.get(id);
+            }
+            cache.put(reading(id, 150), cache.stamp());
+        }
+
+        cache.get(99);
+        cache.put(reading(99, 150), cache.stamp());
+
+        assertNotNull(cache.get(1));
+        assertNotNull(cache.get(2));
+        assertNull(cache.get(99));
+        assertEquals(1, cache.stats().rejections());
+        assertEquals(0, cache.stats().evictions());
+    }
+
+    @Test
+    void rejectsReadingsLoadedBeforeAnInvalidation() {
+        ReadingCache cache = new ReadingCache(10_000);
+        long stamp = cache.stamp();
+        cache.invalidate(1);
+        cache.put(reading(1, 10), stamp);
+        assertNull(cache.get(1));
+
+        cache.put(reading(1, 10), cache.stamp());
+        cache.invalidate(1);
+        assertNull(cache.get(1));
+        assertEquals(0, cache.stats().weight());
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.demo.model;
+
+import com.example.demo.util.ReadingImporter;
+import com.example.demo.util.ReadingImporter.ImportReport;
+import com.example.demo.util.SqliteConnection;
+import com.example.demo.util.SqliteReadRacerDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadingImporterTest {
+    private SqliteReadRacerDAO dao;
+
+    @BeforeEach
+    void setUp() {
+        dao = new SqliteReadRacerDAO();
+        dao.clearAllData();
+    }
+
+    @Test
+    void importsJsonLines() throws Exception {
+        String jsonl = """
+                {"title": "Birds", "passage": "Birds \\"fly\\".\\nMost do.", "difficulty": 2, "questions": [{"prompt": "Do birds fly?", "choices": [{"text": "Yes", "correct": true}, {"text": "No", "correct": false}]}]}
+
+                {"title": "Caf\\u00e9", "passage": "Coffee.", "questions": []}
+                """;
+
+        ImportReport report = new ReadingImporter(SqliteConnection.getPool()).importJsonLines(new StringReader(jsonl));
+
+        assertEquals(2, report.readings());
+        assertEquals(1, report.questions());
+        assertEquals(2, report.choices());
+        Reading birds = dao.getReading(1);
+        assertEquals("Birds \"fly\".\nMost do.", birds.passage());
+        assertEquals(2, birds.difficulty());
+        assertEquals("Yes", birds.questions().getFirst().getCorrectAnswerString());
+        assertEquals("Café", dao.getReading(2).title());
+        assertEquals(1, dao.getReading(2).difficulty());
+    }
+
+    @Test
+    void importsCsvGroupedByKeys() throws Exception {
+        String csv = """
+                reading,title,passage,difficulty,question,prompt,choice,correct
+                r1,Rain,"Rain falls, mostly ""down"".",3,q1,Where?,Down,true
+                r1,,,,q1,,Up,false
+                r1,,,,q2,Wet?,Yes,1
+                r1,,,,q2,,No,0
+                r2,Snow,"Line one
+                line two",1,,,,
+                """;
+
+        ImportReport report = new ReadingImporter(SqliteConnection.getPool()).importCsv(new StringReader(csv));
+
+        assertEquals(2, report.readings());
+        assertEquals(2, report.questions());
+        assertEquals(4, report.choices());
+        Reading rain = dao.getReading(1);
+        assertEquals("Rain falls, mostly \"down\".", rain.passage());
+        assertEquals(3, rain.difficulty());
+        assertEquals(2, rain.questions().size());
+        assertEquals("Down", rain.questions().get(0).getCorrectAnswerString());
+        assertEquals("Yes", rain.questions().get(1).getCorrectAnswerString());
+        assertEquals("Line one\nline two", dao.getReading(2).passage());
+    }
+
+    // Imported ids continue after existing rows, across several transactions
+    @Test
+    void continuesAfterExistingRowsAcrossTransactions() throws Exception {
+        Reading existing = dao.addReading(new Reading(null, "Existing", "Passage", null, 1));
+        dao.addQuestion(existing.id(), new Question("Old?", List.of(new Choice("A", true), new Choice("B", false))));
+
+        List<Reading> readings = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            readings.add(new Reading(null, "Bulk " + i, "Passage " + i,
+                    List.of(new Question("Q" + i + "?", List.of(new Choice("Right", true), new Choice("Wrong", false)))),
+                    1));
+        }
+        ImportReport report = new ReadingImporter(SqliteConnection.getPool(), 10).importReadings(readings.iterator());
+
+        assertEquals(3, report.transactions());
+        assertEquals(25, report.readings());
+        assertEquals("Existing", dao.getReading(existing.id()).title());
+        assertEquals("Old?", dao.getReading(existing.id()).questions().getFirst().prompt());
+        Reading last = dao.getReading(existing.id() + 25);
+        assertEquals("Bulk 24", last.title());
+        assertEquals("Q24?", last.questions().getFirst().prompt());
+        assertEquals("Right", last.questions().getFirst().getCorrectAnswerString());
+        // new rows added the normal way still get fresh ids
+        assertEquals(existing.id() + 26, dao.addReading(new Reading(null, "After", "P", null, 1)).id());
+    }
+
+    // deleting the newest reading must not let the next import hand its id out again
+    @Test
+    void neverReusesTheIdsOfDeletedRows() throws Exception {
+        ReadingImporter importer = new ReadingImporter(SqliteConnection.getPool());
+        Question question = new Question("Q?", List.of(new Choice("A", true), new Choice("B", false)));
+        importer.importReadings(List.of(new Reading(null, "Kept", "P", List.of(question), 1),
+                new Reading(null, "Deleted", "P", List.of(question), 1)).iterator());
+        Reading deleted = dao.getReading(2);
+        // the random selector has now seen ids up to 2
+        assertNotNull(dao.getRandomReading());
+        assertTrue(dao.deleteReading(2));
+
+        importer.importReadings(List.of(new Reading(null, "Next", "P", List.of(question), 1)).iterator());
+        assertNull(dao.getReading(2));
+        Reading next = dao.getReading(3);
+        assertEquals("Next", next.title());
+        assertTrue(next.questions().getFirst().getCorrectAnswerID() > deleted.questions().getFirst().getCorrectAnswerID());
+        assertEquals("Next", dao.getRandomReading(1, Set.of(1)).title());
+    }
+
+    @Test
+    void importedReadingsListWithTheirQuestionCounts() throws Exception {
+        List<Reading> readings = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            List<Question> questions = new ArrayList<>();
+            for (int q = 0; q < i; q++) {
+                questions.add(new Question("Q" + q + "?", List.of(new Choice("Right", true), new Choice("Wrong", false))));
+            }
+            readings.add(new Reading(null, "Counted " + i, "Passage", questions, 1));
+        }
+        new ReadingImporter(SqliteConnection.getPool()).importReadings(readings.iterator());
+
+        assertEquals(List.of(0, 1, 2, 3), dao.listReadings(0, 10, ReadingFilter.ALL).stream()
+                .map(ReadingSummary::questionCount).toList());
+        assertEquals(List.of("Counted 2", "Counted 3"), dao.listReadings(0, 10, new ReadingFilter(null, 2)).stream()
+                .map(ReadingSummary::title).toList());
+    }
+
+    // questions are written before their reading, so its search row starts with every prompt
+    @Test
+    void importedReadingsAreSearchableByPromptWithTheirCounts() throws Exception {
+        List<Question> questions = List.of(
+                new Question("Why did the heron wait?", List.of(new Choice("Fish", true), new Choice("Rain", false))),
+                new Question("Where was the pond?", List.of(new Choice("Hill", false), new Choice("Valley", true))));
+        new ReadingImporter(SqliteConnection.getPool()).importReadings(
+                List.of(new Reading(null, "Patience", "A bird stood still.", questions, 2)).iterator());
+
+        for (String word : List.of("heron", "pond")) {
+            List<SearchResult> results = dao.searchReadings(word, 0, 10);
+            assertEquals(1, results.size(), word);
+            assertEquals("Patience", results.getFirst().reading().title());
+            assertEquals(2, results.getFirst().reading().questionCount());
+        }
+        assertEquals(1, dao.listReadings(0, 10, new ReadingFilter(2, 2)).size());
+    }
+
+    @Test
+    void malformedLineRollsBackItsTransaction() {
+        String jsonl = """
+                {"title": "Good", "passage": "Fine."}
+                {"title": "Bad", "passage": }
+                """;
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> new ReadingImporter(SqliteConnection.getPool()).importJsonLines(new StringReader(jsonl)));
+        assertTrue(e.getMessage().contains("line 2"), e.getMessage());
+        assertNull(dao.getReading(1));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.demo.model;
+
+import com.example.demo.util.ReadingPack;
+import com.example.demo.util.ReadingPackWriter;
+import com.example.demo.util.SqliteConnection;
+import com.example.demo.util.SqliteReadRacerDAO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadingPackTest {
+    private SqliteReadRacerDAO dao;
+    private Path packFile;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dao = new SqliteReadRacerDAO();
+        dao.clearAllData();
+        packFile = Files.createTempFile("readings", ".pack");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(packFile);
+    }
+
+    private void export() throws Exception {
+        new ReadingPackWriter(SqliteConnection.getPool()).export(packFile);
+    }
+
+    @Test
+    void roundTripsReadingsQuestionsAndChoices() throws Exception {
+        Reading easy = dao.addReading(new Reading(null, "Ünïcode ✓", "Passage one", null, 1));
+        dao.addQuestion(easy.id(), new Question("First?", List.of(new Choice("A", false), new Choice("B", true))));
+        dao.addQuestion(easy.id(), new Question("Second?", List.of(new Choice("C", true))));
+        Reading hard = dao.addReading(new Reading(null, "Hard", "Passage two", null, 3));
+        export();
+
+        try (ReadingPack pack = ReadingPack.open(packFile)) {
+            assertEquals(2, pack.size());
+            for (int id : List.of(easy.id(), hard.id())) {
+                Reading expected = dao.getReading(id);
+                Reading actual = pack.getReading(id);
+                assertEquals(expected.title(), actual.title());
+                assertEquals(expected.passage(), actual.passage());
+                assertEquals(expected.difficulty(), actual.difficulty());
+                assertEquals(expected.questions().size(), actual.questions().size());
+                for (int q = 0; q < expected.questions().size(); q++) {
+                    Question e = expected.questions().get(q);
+                    Question a = actual.questions().get(q);
+                    assertEquals(e.prompt(), a.prompt());
+                    assertEquals(e.getCorrectAnswerID(), a.getCorrectAnswerID());
+                    assertEquals(e.choices().stream().map(Choice::getChoiceText).toList(),
+                            a.choices().stream().map(Choice::getChoiceText).toList());
+                }
+            }
+            assertNull(pack.getReading(hard.id() + 1));
+        }
+    }
+
+    @Test
+    void randomReadingHonoursDifficultyAndExclusions() throws Exception {
+        for (int i = 0; i < 30; i++) {
+            dao.addReading(new Reading(null, "R" + i, "P", null, 1 + i % 3));
+        }
+        export();
+
+        try (ReadingPack pack = ReadingPack.open(packFile)) {
+            for (int i = 0; i < 50; i++) {
+                assertEquals(2, pack.getRandomReading(2, Set.of()).difficulty());
+            }
+            Reading only = pack.getRandomReading(3, Set.of(3, 6, 9, 12, 15, 18, 21, 24, 27));
+            assertEquals(30, only.id());
+            assertThrows(RuntimeException.class, () -> pack.getRandomReading(4, Set.of()));
+        }
+    }
+
+    @Test
+    void rejectsFilesThatAreNotPacks() throws Exception {
+        Files.writeString(packFile, "not a pack at all");
+        assertThrows(IOException.class, () -> ReadingPack.open(packFile));
+
+        export(); // empty database
+        try (ReadingPack pack = ReadingPack.open(packFile)) {
+            assertEquals(0, pack.size());
+            assertThrows(RuntimeException.class, () -> pack.getRandomReading(null, Set.of()));
+        }
+    }
+}
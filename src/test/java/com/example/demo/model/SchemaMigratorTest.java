@@ -0,0 +1,69 @@
+package com.example.demo.model;
+
+import com.example.demo.util.SchemaMigrator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaMigratorTest {
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    // A fresh database gets every migration and ends on the latest version
+    @Test
+    void migratesEmptyDatabaseToLatestVersion() throws SQLException {
+        int applied = SchemaMigrator.migrate(connection);
+
+        assertEquals(SchemaMigrator.latestVersion(), applied);
+        assertEquals(SchemaMigrator.latestVersion(), SchemaMigrator.currentVersion(connection));
+    }
+
+    // A second run is a no-op and keeps existing rows
+    @Test
+    void migratingTwiceKeepsData() throws SQLException {
+        SchemaMigrator.migrate(connection);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO Readings (title, content, difficulty) VALUES ('T', 'C', 1)");
+        }
+
+        assertEquals(0, SchemaMigrator.migrate(connection));
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM Readings")) {
+            assertTrue(rs.next());
+            assertEquals(1, rs.getInt(1));
+        }
+    }
+
+    // A failing migration is rolled back and leaves the version untouched
+    @Test
+    void failedMigrationLeavesVersionUnchanged() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            // a table that clashes with the unique index of a later migration
+            statement.execute("CREATE TABLE Users (user_id INTEGER PRIMARY KEY, username VARCHAR, email VARCHAR,"
+                    + " password BLOB, salt BLOB)");
+            statement.execute("INSERT INTO Users (username, email, password, salt) VALUES ('a', 'x', X'00', X'00')");
+            statement.execute("INSERT INTO Users (username, email, password, salt) VALUES ('a', 'y', X'00', X'00')");
+        }
+
+        assertThrows(SQLException.class, () -> SchemaMigrator.migrate(connection));
+        assertEquals(0, SchemaMigrator.currentVersion(connection));
+        assertTrue(connection.getAutoCommit());
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.demo.model;
+
+import com.example.demo.exceptions.InvalidCredentialsException;
+import com.example.demo.util.ReadRacerStore;
+import com.example.demo.util.ShardRouter;
+import com.example.demo.util.ShardedReadRacerStore;
+import com.example.demo.util.SqlitePragmaProfile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedReadRacerStoreTest extends ReadRacerStoreContract {
+    @TempDir
+    Path shardDir;
+
+    private ShardedReadRacerStore sharded;
+
+    @Override
+    protected ReadRacerStore createStore() {
+        // the contract's users are all at example.com, so they share a shard other than the first
+        ShardRouter router = new ShardRouter(3, Map.of("example.com", 1, "a.edu", 0, "c.edu", 2));
+        try {
+            sharded = ShardedReadRacerStore.open(shardDir, router, SqlitePragmaProfile.THROUGHPUT, 1, 5_000, 10_000);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        return sharded;
+    }
+
+    @AfterEach
+    void closeShards() {
+        sharded.close();
+    }
+
+    private static User userAt(String name, String domain) throws Exception {
+        User user = user(name, name);
+        user.setEmail(name + "@" + domain);
+        return user;
+    }
+
+    @Test
+    void routesUsersByCohortAndMergesLeaderboards() throws Exception {
+        Reading reading = store.addReading(new Reading(null, "Shared", "Passage", null, 1));
+        User alice = store.addUser(userAt("alice", "a.edu"));
+        User bob = store.addUser(userAt("bob", "example.com"));
+        User carol = store.addUser(userAt("carol", "C.EDU"));
+        assertEquals(List.of(0, 1, 2), List.of(alice, bob, carol).stream()
+                .map(user -> sharded.router().shardForUser(user.getUser_id())).toList());
+        assertEquals(ShardRouter.idFloor(2) + 1, carol.getUser_id());
+
+        store.addUserAttempt(new UserAttempt(carol.getUser_id(), reading.id(), 70));
+        store.addUserAttempt(new UserAttempt(alice.getUser_id(), reading.id(), 90));
+        store.addUserAttempt(new UserAttempt(bob.getUser_id(), reading.id(), 70));
+        store.addUserAttempt(new UserAttempt(bob.getUser_id(), reading.id(), 40));
+        // equal scores on different shards go to the lower shard
+        assertEquals(List.of(alice.getUser_id(), bob.getUser_id(), carol.getUser_id()),
+                store.getLeaderboard(reading.id()).stream().map(UserAttempt::getUserID).toList());
+        assertEquals(2, store.getLeaderboard(reading.id(), 2).size());
+        assertEquals(2, store.getUserStats(bob.getUser_id()).attempts());
+
+        store.deleteReading(reading.id());
+        assertTrue(store.getLeaderboard(reading.id()).isEmpty());
+        assertEquals(0, store.getUserStats(carol.getUser_id()).attempts());
+    }
+
+    @Test
+    void usernamesAndEmailsAreUniqueAcrossShards() throws Exception {
+        User alice = store.addUser(userAt("alice", "a.edu"));
+        User carol = store.addUser(userAt("carol", "c.edu"));
+        assertFalse(store.usernameIsUnique("alice"));
+        assertFalse(store.emailIsUnique("carol@c.edu"));
+        assertThrows(SQLException.class, () -> store.addUser(userAt("alice", "c.edu")));
+
+        carol.setUsername("alice");
+        assertThrows(SQLException.class, () -> store.updateUser(carol));
+
+        // a new email keeps the user on their shard, where login still finds them
+        alice.setEmail("alice@c.edu");
+        store.updateUser(alice);
+        assertEquals(0, sharded.router().shardForUser(store.TryLogin("alice@c.edu", "alice").getUser_id()));
+        assertEquals("carol", store.TryLogin("carol", "carol").getUsername());
+        assertThrows(InvalidCredentialsException.class, () -> store.TryLogin("carol", "alice"));
+        assertFalse(store.userWithIdExists(ShardRouter.idFloor(3) + 1));
+    }
+
+    @Test
+    void refusesUsersOnceAShardsIdSpanIsUsedUp() throws Exception {
+        store.addUser(userAt("alice", "a.edu"));
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + shardDir.resolve("shard-0.db"));
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("UPDATE sqlite_sequence SET seq = " + (ShardRouter.idFloor(1) - 1)
+                    + " WHERE name = 'Users'");
+        }
+
+        User last = store.addUser(userAt("dave", "a.edu"));
+        assertEquals(ShardRouter.idFloor(1), last.getUser_id());
+        assertEquals(0, sharded.router().shardForUser(last.getUser_id()));
+        SQLException full = assertThrows(SQLException.class, () -> store.addUser(userAt("erin", "a.edu")));
+        assertTrue(full.getMessage().contains("Shard 0"), full.getMessage());
+        assertTrue(store.usernameIsUnique("erin"));
+        // other shards keep signing up users
+        assertEquals(ShardRouter.idFloor(2) + 1, store.addUser(userAt("carol", "c.edu")).getUser_id());
+    }
+}
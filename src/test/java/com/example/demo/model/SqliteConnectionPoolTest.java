@@ -0,0 +1,167 @@
+package com.example.demo.model;
+
+import com.example.demo.util.SqliteConnectionPool;
+import com.example.demo.util.SqliteConnectionPool.PooledConnection;
+import com.example.demo.util.SqlitePragmaProfile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqliteConnectionPoolTest {
+    private Path dbFile;
+    private SqliteConnectionPool pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dbFile = Files.createTempFile("pool-test", ".db");
+        pool = new SqliteConnectionPool("jdbc:sqlite:" + dbFile, 2, 1_000, 200);
+        try (PooledConnection writer = pool.writer();
+             Statement statement = writer.connection().createStatement()) {
+            statement.execute("CREATE TABLE Items (id INTEGER PRIMARY KEY)");
+            statement.execute("INSERT INTO Items (id) VALUES (1)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        pool.close();
+        Files.deleteIfExists(dbFile);
+        Files.deleteIfExists(Path.of(dbFile + "-wal"));
+        Files.deleteIfExists(Path.of(dbFile + "-shm"));
+    }
+
+    // Database should be opened in WAL mode so readers do not block the writer
+    @Test
+    void opensDatabaseInWalMode() throws SQLException {
+        try (PooledConnection reader = pool.reader();
+             Statement statement = reader.connection().createStatement();
+             ResultSet rs = statement.executeQuery("PRAGMA journal_mode")) {
+            assertTrue(rs.next());
+            assertEquals("wal", rs.getString(1));
+        }
+    }
+
+    // Readers can still read while another thread is holding the writer
+    @Test
+    void readerIsAvailableWhileWriterIsHeld() throws SQLException {
+        try (PooledConnection writer = pool.writer();
+             PooledConnection reader = pool.reader();
+             Statement statement = reader.connection().createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM Items")) {
+            assertNotNull(writer.connection());
+            assertTrue(rs.next());
+            assertEquals(1, rs.getInt(1));
+        }
+    }
+
+    // Reader connections must refuse writes
+    @Test
+    void readerRejectsWrites() throws SQLException {
+        try (PooledConnection reader = pool.reader();
+             Statement statement = reader.connection().createStatement()) {
+            assertThrows(SQLException.class, () -> statement.execute("INSERT INTO Items (id) VALUES (2)"));
+        }
+    }
+
+    // Exhausting the readers fails with a timeout instead of hanging forever
+    @Test
+    void checkoutTimesOutWhenPoolIsExhausted() throws SQLException {
+        try (PooledConnection first = pool.reader(); PooledConnection second = pool.reader()) {
+            assertThrows(SQLException.class, pool::reader);
+        }
+        assertEquals(1, pool.metrics().checkoutTimeouts());
+    }
+
+    // Metrics report pool size and count every checkout
+    @Test
+    void metricsTrackCheckouts() throws SQLException {
+        try (PooledConnection reader = pool.reader()) {
+            assertEquals(1, pool.metrics().idleReaders());
+        }
+        SqliteConnectionPool.PoolMetrics metrics = pool.metrics();
+        assertEquals(2, metrics.readerPoolSize());
+        assertEquals(2, metrics.idleReaders());
+        assertEquals(1, metrics.readerCheckouts());
+        assertEquals(1, metrics.writerCheckouts());
+        assertEquals(1_000, metrics.busyTimeoutMillis());
+    }
+
+    // Re-borrowing a connection reuses the statement prepared by the previous borrower
+    @Test
+    void statementCacheReusesPreparedStatements() throws SQLException {
+        String sql = "SELECT id FROM Items WHERE id = ?";
+        for (int i = 0; i < 10; i++) {
+            try (PooledConnection writer = pool.writer()) {
+                PreparedStatement ps = writer.prepare(sql);
+                ps.setInt(1, 1);
+                try (ResultSet rs = ps.executeQuery()) {
+                    assertTrue(rs.next());
+                }
+            }
+        }
+        SqliteConnectionPool.PoolMetrics metrics = pool.metrics();
+        assertEquals(1, metrics.statementCacheMisses());
+        assertEquals(9, metrics.statementCacheHits());
+        assertEquals(1L, pool.statementPrepareCounts().get(sql));
+    }
+
+    // The least recently used statement is evicted once the cache is full
+    @Test
+    void statementCacheEvictsLeastRecentlyUsed() throws Exception {
+        Path smallCacheFile = Files.createTempFile("pool-test-small", ".db");
+        try (SqliteConnectionPool smallPool = new SqliteConnectionPool("jdbc:sqlite:" + smallCacheFile, 0, 1_000, 200, 2);
+             PooledConnection writer = smallPool.writer()) {
+            writer.prepare("SELECT 1");
+            writer.prepare("SELECT 2");
+            writer.prepare("SELECT 1");
+            writer.prepare("SELECT 3"); // evicts "SELECT 2"
+            writer.prepare("SELECT 1");
+            writer.prepare("SELECT 2");
+
+            SqliteConnectionPool.PoolMetrics metrics = smallPool.metrics();
+            assertEquals(2, metrics.statementCacheHits());
+            assertEquals(4, metrics.statementCacheMisses());
+            assertEquals(2, metrics.statementCacheEvictions());
+        } finally {
+            Files.deleteIfExists(smallCacheFile);
+        }
+    }
+
+    // The throughput profile's pragmas are applied to the writer and to every reader
+    @Test
+    void throughputProfileIsAppliedToEveryConnection() throws Exception {
+        Path tunedFile = Files.createTempFile("pool-test-tuned", ".db");
+        try (SqliteConnectionPool tuned = new SqliteConnectionPool("jdbc:sqlite:" + tunedFile,
+                SqlitePragmaProfile.THROUGHPUT, 1, 1_000, 200, 16)) {
+            for (PooledConnection pc : List.of(tuned.writer(), tuned.reader())) {
+                try (pc) {
+                    Map<String, String> pragmas = SqliteConnectionPool.pragmasInEffect(pc.connection());
+                    assertEquals("wal", pragmas.get("journal_mode"));
+                    assertEquals("1", pragmas.get("synchronous")); // NORMAL
+                    assertEquals("-65536", pragmas.get("cache_size"));
+                    assertEquals("2", pragmas.get("temp_store")); // MEMORY
+                }
+            }
+        } finally {
+            Files.deleteIfExists(tunedFile);
+        }
+    }
+
+    // An in-memory database cannot be shared with reader connections
+    @Test
+    void testProfileRejectsReaders() {
+        assertThrows(IllegalArgumentException.class, () -> new SqliteConnectionPool(
+                SqlitePragmaProfile.TEST.url("unused"), SqlitePragmaProfile.TEST, 2, 1_000, 200, 16));
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.demo.model;
+import com.example.demo.util.ReadingImporter;
 import com.example.demo.util.SqliteConnection;
+import com.example.demo.util.SqliteConnectionPool.PooledConnection;
 import com.example.demo.util.SqliteReadRacerDAO;
 
 import org.junit.jupiter.api.*;
@@ -8,7 +10,11 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class SqliteReadRacerDAOTest {
     private SqliteReadRacerDAO dao;
@@ -21,8 +27,8 @@ public class SqliteReadRacerDAOTest {
     }
 
     public void insertTestData() {
-        try {
-            Connection connection = SqliteConnection.getInstance();
+        try (PooledConnection pc = SqliteConnection.getPool().writer()) {
+            Connection connection = pc.connection();
 
             insertTestReadings(connection);
             insertTestQuestions(connection);
@@ -183,4 +189,172 @@ public class SqliteReadRacerDAOTest {
         assertNotNull(questions, "Questions list should not be null");
         // Add more assertions later
     }
+
+    @Test
+    void testGetReadingHydratesQuestionsAndChoices() {
+        Reading reading = dao.getReading(1);
+
+        assertEquals(2, reading.questions().size());
+        Question first = reading.questions().getFirst();
+        assertEquals("What is the main topic of Reading 1?", first.prompt());
+        assertEquals(3, first.choices().size());
+        assertEquals("Topic B", first.getCorrectAnswerString());
+    }
+
+    @Test
+    void testGetReadingsLoadsSeveralReadings() {
+        List<Reading> readings = dao.getReadings(List.of(2, 1, 999));
+
+        assertEquals(2, readings.size(), "Unknown ids should be skipped");
+        assertEquals(1, readings.get(0).id());
+        assertEquals(2, readings.get(1).id());
+        assertEquals(1, readings.get(1).questions().size());
+        assertEquals(3, readings.get(1).questions().getFirst().choices().size());
+    }
+
+    @Test
+    void testLeaderboardKeepsOneBestRowPerUser() throws SQLException {
+        User alice = dao.addUser(new User("alice", "alice@example.com", new byte[]{1}, new byte[]{2}));
+        User bob = dao.addUser(new User("bob", "bob@example.com", new byte[]{1}, new byte[]{2}));
+        dao.addUserAttempt(new UserAttempt(alice.getUser_id(), 1, 2));
+        dao.addUserAttempt(new UserAttempt(alice.getUser_id(), 1, 5));
+        dao.addUserAttempt(new UserAttempt(alice.getUser_id(), 1, 5)); // tie with her own best
+        dao.addUserAttempt(new UserAttempt(bob.getUser_id(), 1, 5));
+        dao.addUserAttempt(new UserAttempt(bob.getUser_id(), 1, 3));
+        dao.addUserAttempt(new UserAttempt(bob.getUser_id(), 2, 9));
+
+        List<UserAttempt> board = dao.getLeaderboard(1);
+
+        assertEquals(2, board.size(), "Tied best scores should not produce duplicate rows");
+        assertEquals(alice.getUser_id(), board.get(0).getUserID(), "Alice reached 5 first");
+        assertEquals(2, board.get(0).getAttemptID());
+        assertEquals(bob.getUser_id(), board.get(1).getUserID());
+        assertEquals(5, board.get(1).getScore());
+        assertEquals(1, dao.getLeaderboard(1, 1).size());
+    }
+
+    @Test
+    void testRebuildBestScoresMatchesTrigger() throws SQLException {
+        User alice = dao.addUser(new User("alice", "alice@example.com", new byte[]{1}, new byte[]{2}));
+        User bob = dao.addUser(new User("bob", "bob@example.com", new byte[]{1}, new byte[]{2}));
+        dao.addUserAttempt(new UserAttempt(alice.getUser_id(), 1, 4));
+        dao.addUserAttempt(new UserAttempt(bob.getUser_id(), 1, 6));
+        dao.addUserAttempt(new UserAttempt(alice.getUser_id(), 1, 7));
+        List<UserAttempt> expected = dao.getLeaderboard(1);
+
+        try (PooledConnection pc = SqliteConnection.getPool().writer();
+             PreparedStatement wipe = pc.connection().prepareStatement("DELETE FROM BestScores")) {
+            wipe.execute();
+        }
+        assertTrue(dao.getLeaderboard(1).isEmpty());
+
+        assertEquals(2, dao.rebuildBestScores());
+        List<UserAttempt> rebuilt = dao.getLeaderboard(1);
+        assertEquals(expected.size(), rebuilt.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getAttemptID(), rebuilt.get(i).getAttemptID());
+            assertEquals(expected.get(i).getScore(), rebuilt.get(i).getScore());
+        }
+    }
+
+    @Test
+    void testGetRandomReadingFiltersAndExcludes() {
+        for (int i = 0; i < 50; i++) {
+            assertEquals(2, dao.getRandomReading(2, Set.of()).id());
+            assertEquals(2, dao.getRandomReading(null, Set.of(1)).id());
+        }
+        assertThrows(RuntimeException.class, () -> dao.getRandomReading(1, Set.of(1)));
+    }
+
+    @Test
+    void testRandomReadingSeesAddedAndDeletedReadings() throws SQLException {
+        Reading added = dao.addReading(new Reading(null, "Added", "Passage", null, 3));
+        assertEquals(added.id(), dao.getRandomReading(3, Set.of()).id());
+
+        assertTrue(dao.deleteReading(added.id()));
+        assertNull(dao.getReading(added.id()));
+        assertThrows(RuntimeException.class, () -> dao.getRandomReading(3, Set.of()));
+        assertFalse(dao.deleteReading(added.id()));
+    }
+
+    @Test
+    void testCachedReadingIsInvalidatedByAddQuestion() throws SQLException {
+        Reading first = dao.getReading(1);
+        assertSame(first, dao.getReading(1), "Second load should come from the cache");
+        assertEquals(1, dao.readingCacheStats().hits());
+
+        dao.addQuestion(1, new Question("Added later?", List.of(new Choice("Yes", true), new Choice("No", false))));
+
+        Reading reloaded = dao.getReading(1);
+        assertNotSame(first, reloaded);
+        assertEquals(3, reloaded.questions().size());
+    }
+
+    // more matches than the search ranks: the oldest reading, with the word in its title, still comes first,
+    // and paging through reaches every match exactly once
+    @Test
+    void testSearchListsTitleMatchesFirstAndEveryMatchOnce() throws SQLException {
+        List<Reading> readings = new ArrayList<>();
+        readings.add(new Reading(null, "Lantern", "An old story.", null, 1));
+        int passageMatches = SqliteReadRacerDAO.MAX_RANKED_MATCHES * 2 + 5;
+        for (int i = 0; i < passageMatches; i++) {
+            readings.add(new Reading(null, "Story " + i, "A lantern and a story number " + i + ".", null, 1));
+        }
+        Reading oldest = dao.addReading(readings.getFirst());
+        new ReadingImporter(SqliteConnection.getPool()).importReadings(readings.subList(1, readings.size()).iterator());
+
+        assertEquals(oldest.id(), dao.searchReadings("lantern", 0, 1).getFirst().reading().id());
+        List<Integer> found = new ArrayList<>();
+        for (int offset = 0; ; offset += 20) {
+            List<SearchResult> page = dao.searchReadings("lantern", offset, 20);
+            page.forEach(result -> found.add(result.reading().id()));
+            if (page.size() < 20) {
+                break;
+            }
+        }
+        assertEquals(passageMatches + 1, found.size());
+        assertEquals(found.size(), new HashSet<>(found).size());
+    }
+
+    // a word in most readings says little about relevance, so its matches come newest first
+    @Test
+    void testSearchListsACommonWordNewestFirst() throws SQLException {
+        List<Reading> readings = new ArrayList<>();
+        for (int i = 0; i <= SqliteReadRacerDAO.COMMON_TERM_READINGS; i++) {
+            // a varying number of repeats gives the matches different bm25 scores
+            String passage = "A story " + "story ".repeat(i % 3) + "number " + i + ".";
+            readings.add(new Reading(null, "Tale " + i, passage, null, 1));
+        }
+        new ReadingImporter(SqliteConnection.getPool()).importReadings(readings.iterator());
+
+        List<Integer> ids = dao.searchReadings("story", 0, 5).stream().map(result -> result.reading().id()).toList();
+        assertEquals(ids.stream().sorted(Comparator.reverseOrder()).toList(), ids);
+        // nothing is newer than the first match
+        assertEquals(List.of(), dao.listReadings(ids.getFirst(), 1, ReadingFilter.ALL));
+    }
+
+    // users but no readings: the sample readings go back in and the existing dev user is left alone
+    @Test
+    void testReseedsReadingsWithoutDuplicatingTheDevUser() throws SQLException {
+        dao.clearAllData();
+        dao.addUser(new User("dev", "dev", new byte[]{1}, new byte[]{2}));
+
+        SqliteReadRacerDAO restarted = assertDoesNotThrow(() -> new SqliteReadRacerDAO());
+        assertEquals(5, restarted.listReadings(0, 10, ReadingFilter.ALL).size());
+        assertFalse(restarted.usernameIsUnique("dev"));
+    }
+
+    // reading 2 comes from the cache and reading 1 from the database, yet they still come back in id order
+    @Test
+    void testGetReadingsOrdersCacheHitsAndLoadsTogether() {
+        Reading cached = dao.getReading(2);
+        long hits = dao.readingCacheStats().hits();
+
+        List<Reading> readings = dao.getReadings(List.of(2, 1, 999));
+
+        assertEquals(List.of(1, 2), readings.stream().map(Reading::id).toList());
+        assertSame(cached, readings.get(1));
+        assertEquals(hits + 1, dao.readingCacheStats().hits());
+        assertEquals(2, readings.get(0).questions().size());
+    }
 }
@@ -0,0 +1,71 @@
+package com.example.demo.model;
+
+import com.example.demo.util.ReadRacerStore;
+import com.example.demo.util.SqliteConnection;
+import com.example.demo.util.SqliteConnectionPool.PooledConnection;
+import com.example.demo.util.SqliteReadRacerDAO;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqliteReadRacerStoreTest extends ReadRacerStoreContract {
+    private static final long DAY_SECONDS = 24 * 60 * 60;
+
+    @Override
+    protected ReadRacerStore createStore() {
+        return new SqliteReadRacerDAO();
+    }
+
+    private static void insertAttemptAt(int userId, int readingId, int score, long epochSecond) throws SQLException {
+        try (PooledConnection pc = SqliteConnection.getPool().writer();
+             PreparedStatement statement = pc.connection().prepareStatement(
+                "INSERT INTO UserAttempts (user_id, reading_id, score, created_at) VALUES (?, ?, ?, ?)")) {
+            statement.setInt(1, userId);
+            statement.setInt(2, readingId);
+            statement.setInt(3, score);
+            statement.setLong(4, epochSecond);
+            statement.executeUpdate();
+        }
+    }
+
+    @Test
+    void streakCountsConsecutiveDays() throws Exception {
+        Reading reading = store.addReading(new Reading(null, "Streak", "Passage", null, 1));
+        User alice = store.addUser(user("alice", "a"));
+        User bob = store.addUser(user("bob", "b"));
+        long now = System.currentTimeMillis() / 1000;
+
+        insertAttemptAt(alice.getUser_id(), reading.id(), 10, now - 2 * DAY_SECONDS);
+        insertAttemptAt(alice.getUser_id(), reading.id(), 10, now - DAY_SECONDS);
+        insertAttemptAt(alice.getUser_id(), reading.id(), 10, now);
+        insertAttemptAt(alice.getUser_id(), reading.id(), 10, now);
+        assertEquals(3, store.getUserStats(alice.getUser_id()).currentStreakDays());
+
+        // played, but not since the day before yesterday
+        insertAttemptAt(bob.getUser_id(), reading.id(), 10, now - 3 * DAY_SECONDS);
+        assertEquals(0, store.getUserStats(bob.getUser_id()).currentStreakDays());
+        insertAttemptAt(bob.getUser_id(), reading.id(), 10, now);
+        assertEquals(1, store.getUserStats(bob.getUser_id()).currentStreakDays());
+    }
+
+    @Test
+    void newDaoCompletesPassagesMissingALength() throws Exception {
+        Reading reading = store.addReading(new Reading(null, "Unmeasured", "Twelve chars", null, 1));
+        // as left by a migration over a compressed passage
+        try (PooledConnection pc = SqliteConnection.getPool().writer();
+             Statement statement = pc.connection().createStatement()) {
+            statement.executeUpdate("UPDATE Readings SET passage_length = NULL WHERE reading_id = " + reading.id());
+            statement.executeUpdate("UPDATE ReadingSearch SET passage = '' WHERE rowid = " + reading.id());
+        }
+        assertEquals(0, store.listReadings(0, 1, ReadingFilter.ALL).getFirst().passageLength());
+        assertTrue(store.searchReadings("twelve", 0, 1).isEmpty());
+
+        ReadRacerStore restarted = new SqliteReadRacerDAO();
+        assertEquals(12, restarted.listReadings(0, 1, ReadingFilter.ALL).getFirst().passageLength());
+        assertEquals(1, restarted.searchReadings("twelve", 0, 1).size());
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.demo.model;
+
+import com.example.demo.util.SqliteConnection;
+import com.example.demo.util.SqliteConnectionPool.PooledConnection;
+import com.example.demo.util.SqliteReadRacerDAO;
+import com.example.demo.util.SyntheticDatasetGenerator;
+import com.example.demo.util.SyntheticDatasetGenerator.Report;
+import com.example.demo.util.SyntheticDatasetGenerator.Spec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyntheticDatasetGeneratorTest {
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-06-15T12:00:00Z"), ZoneOffset.UTC);
+    private static final Spec SPEC = new Spec(300, 40, 3, 4, 5_000, 7);
+
+    private SqliteReadRacerDAO dao;
+
+    @BeforeEach
+    void setUp() {
+        dao = new SqliteReadRacerDAO();
+        dao.clearAllData();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dao.clearAllData();
+    }
+
+    private static Report generate(Spec spec) throws SQLException {
+        return new SyntheticDatasetGenerator(SqliteConnection.getPool(), spec, CLOCK).generate();
+    }
+
+    private static List<String> rows(String sql) throws SQLException {
+        List<String> rows = new ArrayList<>();
+        try (PooledConnection pc = SqliteConnection.getPool().writer();
+             Statement statement = pc.connection().createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                StringBuilder row = new StringBuilder();
+                for (int c = 1; c <= columns; c++) {
+                    row.append(rs.getString(c)).append('|');
+                }
+                rows.add(row.toString());
+            }
+        }
+        return rows;
+    }
+
+    private static long count(String sql) throws SQLException {
+        return Long.parseLong(rows(sql).get(0).replace("|", ""));
+    }
+
+    private static List<String> snapshot() throws SQLException {
+        List<String> rows = new ArrayList<>();
+        rows.addAll(rows("SELECT user_id, username, email, hex(password), hex(salt) FROM Users ORDER BY user_id"));
+        rows.addAll(rows("SELECT reading_id, title, difficulty FROM Readings ORDER BY reading_id"));
+        rows.addAll(rows("SELECT question_id, reading_id, prompt FROM Questions ORDER BY question_id"));
+        rows.addAll(rows("SELECT choice_id, question_id, choice_text, is_correct FROM Choices ORDER BY choice_id"));
+        rows.addAll(rows("SELECT attempt_id, user_id, reading_id, score, created_at FROM UserAttempts ORDER BY attempt_id"));
+        return rows;
+    }
+
+    @Test
+    void sameSeedGivesTheSameDatabase() throws Exception {
+        generate(SPEC);
+        List<String> first = snapshot();
+        dao.clearAllData();
+
+        generate(SPEC);
+        assertEquals(first, snapshot());
+        dao.clearAllData();
+
+        generate(new Spec(300, 40, 3, 4, 5_000, 8));
+        assertNotEquals(first, snapshot());
+    }
+
+    @Test
+    void generatesSkewedPlayableData() throws Exception {
+        Report report = generate(SPEC);
+        assertEquals(1, report.firstUserId());
+        assertEquals(1, report.firstReadingId());
+        assertEquals(300, count("SELECT COUNT(*) FROM Users"));
+        assertEquals(40, count("SELECT COUNT(*) FROM Readings"));
+        assertEquals(120, count("SELECT COUNT(*) FROM Questions"));
+        assertEquals(480, count("SELECT COUNT(*) FROM Choices"));
+        assertEquals(0, count("""
+                SELECT COUNT(*) FROM Questions q
+                WHERE (SELECT SUM(is_correct) FROM Choices c WHERE c.question_id = q.question_id) <> 1"""));
+
+        // the stats triggers saw every attempt
+        assertEquals(5_000, count("SELECT SUM(attempts) FROM UserStats"));
+        // Zipf popularity: the most played reading is played far more than the average one
+        assertTrue(count("SELECT MAX(plays) FROM (SELECT COUNT(*) AS plays FROM UserAttempts GROUP BY reading_id)")
+                > 5 * 5_000 / 40);
+        assertEquals(0, count("""
+                SELECT COUNT(*) FROM UserAttempts a JOIN UserAttempts b ON b.attempt_id = a.attempt_id + 1
+                WHERE b.created_at < a.created_at"""));
+        long end = CLOCK.instant().getEpochSecond();
+        assertTrue(count("SELECT MIN(created_at) FROM UserAttempts")
+                >= end - Duration.ofDays(SyntheticDatasetGenerator.HISTORY_DAYS).toSeconds());
+        assertTrue(count("SELECT MAX(created_at) FROM UserAttempts") <= end);
+        assertEquals(0, count("SELECT COUNT(*) FROM UserAttempts WHERE score < 0 OR score > 3 * 10 + 24"));
+
+        SqliteReadRacerDAO fresh = new SqliteReadRacerDAO(SqliteConnection.getPool());
+        assertEquals("student42", fresh.TryLogin("student42", SyntheticDatasetGenerator.PASSWORD).getUsername());
+        int popular = (int) count("SELECT reading_id FROM UserAttempts GROUP BY reading_id ORDER BY COUNT(*) DESC LIMIT 1");
+        assertEquals(10, fresh.getLeaderboard(popular).size());
+    }
+
+    @Test
+    void reportsTheIdsItWasGivenAfterDeletedRows() throws Exception {
+        generate(new Spec(2, 3, 0, 1));
+        assertTrue(dao.deleteReading(3));
+        dao.deleteUser(2);
+
+        Report report = generate(new Spec(2, 3, 10, 1));
+        assertEquals(3, report.firstUserId());
+        assertEquals(4, report.firstReadingId());
+        assertEquals(10, count("SELECT COUNT(*) FROM UserAttempts WHERE user_id >= 3 AND reading_id >= 4"));
+    }
+}